@@ -13,8 +13,7 @@ import javax.annotation.processing.Processor;
 import javax.annotation.processing.RoundEnvironment;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.*;
-import javax.lang.model.type.TypeMirror;
-import javax.lang.model.util.SimpleElementVisitor8;
+import javax.lang.model.util.ElementFilter;
 import javax.tools.Diagnostic;
 import javax.tools.JavaFileObject;
 import java.io.File;
@@ -131,26 +130,28 @@ public class AnnotationsProcessor implements Processor {
                 TypeElement typeElement = (TypeElement) element;
                 BeanType beanElement = generateXmlElement(typeElement, element.getAnnotation(NanoBean.class));
 
-                ConstructorElementVisitor visitor = new ConstructorElementVisitor();
-                List<ConstructorArgType> result = typeElement.accept(visitor, Collections.EMPTY_MAP);
-                if (result != null) {
-                    for (ConstructorArgType ctorArg : result) {
-                        beanElement.getConstructorArgs().add(ctorArg);
-                    }
+                List<ConstructorArgType> constructorArgs = selectConstructorArgs(typeElement);
+                if (constructorArgs == null) {
+                    // the error has been reported
+                    continue;
                 }
+                beanElement.getConstructorArgs().addAll(constructorArgs);
 
                 beans.add(beanElement);
             }
         }
 
         if (beans.size() > 0) {
+            // the generated beans are created in this order, each after the beans it references
+            List<BeanType> orderedBeans = orderByDependency(beans);
+            if (orderedBeans == null) {
+                return false;
+            }
+
             ContextFactoryDataModel contextFactoryDataModel = new ContextFactoryDataModel();
             contextFactoryDataModel.setPackageName(contextPackageName);
             contextFactoryDataModel.setContextFactoryName(contextClassName);
-
-            // sort the beans here so that the dependent beans come after their dependencies
-            Collections.sort(beans, new DependencyComparator());
-            contextFactoryDataModel.getBeans().addAll(beans);
+            contextFactoryDataModel.getBeans().addAll(orderedBeans);
 
             // write the configuration file to the generated resources
             JavaFileObject module = null;
@@ -193,132 +194,145 @@ public class AnnotationsProcessor implements Processor {
     }
 
     /**
-     * A Comparator that orders by dependency between BeanType instances.
-     * This can be used to order a Collection by dependents and dependencies, which
-     * is important when instantiating objects.
+     * Select the constructor used to create a bean, that is the constructor with the most
+     * parameters where every parameter is annotated with NanoInject, and describe its parameters.
+     * The generated ContextFactory calls the constructor directly, so the bean class and the
+     * constructor must be accessible from the package of the ContextFactory.
+     *
+     * @param typeElement the NanoBean annotated class
+     * @return the constructor parameters, or null if there is no usable constructor, in which
+     *      case an error has been reported
      */
-    private class DependencyComparator implements Comparator<BeanType> {
-
-        @Override
-        public int compare(BeanType beanOne, BeanType beanTwo) {
-            if(beanOne == null) {
-                return 1;
-            }
-            if(beanTwo == null) {
-                return -1;
+    private List<ConstructorArgType> selectConstructorArgs(final TypeElement typeElement) {
+        ExecutableElement selected = null;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(typeElement.getEnclosedElements())) {
+            if (constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                continue;
             }
-
-            final String beanOneIdentifier = beanOne.getId();
-            final String beanTwoIdentifier = beanTwo.getId();
-
-            // if the constructor args for bean one include a reference to bean two then
-            // bean two must come before bean one (i.e. return 1)
-            for (ConstructorArgType ctorArg : beanOne.getConstructorArgs()) {
-                if (ctorArg.ref != null) {
-                    if (beanTwoIdentifier.equals(ctorArg.ref.getBean())) {
-                        return 1;
-                    }
+            boolean injectable = true;
+            for (VariableElement parameter : constructor.getParameters()) {
+                if (parameter.getAnnotation(NanoInject.class) == null) {
+                    injectable = false;
+                    break;
                 }
             }
-
-            // if the constructor args for bean one include a reference to bean two then
-            // bean two must come before bean one (i.e. return 1)
-            for (ConstructorArgType ctorArg : beanTwo.getConstructorArgs()) {
-                if (ctorArg.ref != null) {
-                    if (beanOneIdentifier.equals(ctorArg.ref.getBean())) {
-                        return -1;
-                    }
-                }
+            if (injectable && (selected == null || constructor.getParameters().size() > selected.getParameters().size())) {
+                selected = constructor;
             }
+        }
+
+        if (selected == null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "NanoBean has no constructor where every parameter is annotated with NanoInject", typeElement);
+            return null;
+        }
 
-            return 0;
+        final boolean samePackage = contextPackageName.equals(
+                processingEnv.getElementUtils().getPackageOf(typeElement).getQualifiedName().toString());
+        if (typeElement.getNestingKind().isNested() && !typeElement.getModifiers().contains(Modifier.STATIC)) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "NanoBean must not be an inner class, make it a static nested class", typeElement);
+            return null;
+        }
+        if (!samePackage && !(typeElement.getModifiers().contains(Modifier.PUBLIC) && selected.getModifiers().contains(Modifier.PUBLIC))) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    String.format("NanoBean and its constructor must be public to be created from %s", getFullyQualifiedContextClassname()),
+                    typeElement);
+            return null;
         }
+
+        List<ConstructorArgType> result = new ArrayList<>();
+        for (VariableElement parameter : selected.getParameters()) {
+            ConstructorArgType ctorArg = new ConstructorArgType();
+            ctorArg.setRef(parameter.getAnnotation(NanoInject.class).identifier());
+            ctorArg.setType(processingEnv.getTypeUtils().erasure(parameter.asType()).toString());
+            result.add(ctorArg);
+        }
+        return result;
     }
 
     /**
+     * Order the beans so that every bean comes after the beans its constructor references,
+     * otherwise keeping the given order. Resolves references by type (an empty NanoInject identifier)
+     * to the generated bean of that class and records the position of each generated bean that
+     * is referenced. References to beans that are not generated are left for the parent context.
      *
-     * R - the return type of this visitor's methods. Use Void for visitors that do not need to return results.
-     * P - the type of the additional parameter to this visitor's methods.
-     *     Use Void for visitors that do not need an additional parameter.
+     * @param beans the beans in the order they were found
+     * @return the beans in dependency order, or null if the references are circular or an identifier
+     *      is used more than once, in which case an error has been reported
      */
-    private class ConstructorElementVisitor extends SimpleElementVisitor8<List<ConstructorArgType>, Map<String, String>> {
-        private List<ConstructorArgType> result = null;
-
-        ConstructorElementVisitor() {
-            processingEnv.getMessager().printMessage(
-                    Diagnostic.Kind.NOTE,
-                    "ConstructorElementVisitor created."
-            );
+    private List<BeanType> orderByDependency(final List<BeanType> beans) {
+        final Map<String, BeanType> beansByIdentifier = new LinkedHashMap<>();
+        final Map<String, BeanType> beansByClass = new HashMap<>();
+        for (BeanType bean : beans) {
+            if (beansByIdentifier.put(bean.getId(), bean) != null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        String.format("NanoBean identifier %s is used more than once", bean.getId()));
+                return null;
+            }
+            beansByClass.put(bean.getClazz(), bean);
         }
 
-        @Override
-        protected List<ConstructorArgType> defaultAction(Element e, Map<String, String> options) {
-            List<ConstructorArgType> result = super.defaultAction(e, options);
-            if (result == null) {
-                result = new ArrayList<>();
+        final Map<String, Integer> unresolvedCounts = new HashMap<>();
+        final Map<String, List<BeanType>> dependents = new HashMap<>();
+        for (BeanType bean : beans) {
+            Set<String> dependencies = new LinkedHashSet<>();
+            for (ConstructorArgType ctorArg : bean.getConstructorArgs()) {
+                if (ctorArg.getRef() == null || ctorArg.getRef().length() == 0) {
+                    BeanType byClass = beansByClass.get(ctorArg.getType());
+                    if (byClass != null) {
+                        ctorArg.setRef(byClass.getId());
+                    }
+                }
+                if (beansByIdentifier.containsKey(ctorArg.getRef())) {
+                    dependencies.add(ctorArg.getRef());
+                }
             }
-
-            for (Element child : e.getEnclosedElements()) {
-                result.addAll(child.accept(this, options));
+            unresolvedCounts.put(bean.getId(), dependencies.size());
+            for (String dependency : dependencies) {
+                dependents.computeIfAbsent(dependency, key -> new ArrayList<>()).add(bean);
             }
-
-            return result;
         }
 
-        /**
-         *
-         * @param executableElement
-         * @param options
-         * @return
-         */
-        @Override
-        public List<ConstructorArgType> visitExecutable(ExecutableElement executableElement, Map<String, String> options) {
-            List<ConstructorArgType> result = new ArrayList<>();
-            final String elementName = executableElement.getSimpleName().toString();
-
-            if (executableElement.getKind() == ElementKind.CONSTRUCTOR) {
-
-                StringBuilder sb = new StringBuilder(elementName);
-                sb.append('(');
-
-                for (VariableElement parameter : executableElement.getParameters()) {
-                    NanoInject injectAnnotation = parameter.getAnnotation(NanoInject.class);
-                    if (injectAnnotation == null) {
-                        result = null;
-                        break;
-                    }
-                    String identifier = injectAnnotation.identifier();
-                    TypeMirror parameterType = parameter.asType();
-                    String parameterName = parameter.getSimpleName().toString();
-
-                    ConstructorArgType ctorArg = new ConstructorArgType();
-                    if (identifier == null) {
-                        BeanType bean = new BeanType();
-                        bean.setScope(ScopeType.PROTOTYPE);
-                        bean.setClazz(parameterType.toString());
-                        ctorArg.bean = bean;
-                    } else {
-                        ReferenceType ref = new ReferenceType();
-                        ref.setBean(identifier);
-                        ctorArg.ref = ref;
-                    }
-                    result.add(ctorArg);
-
-                    sb.append(String.format("%s(identifier=%s) %s %s, ",
-                        injectAnnotation.annotationType().getSimpleName(), identifier, parameterType.toString(), parameterName));
+        final List<BeanType> ordered = new ArrayList<>(beans.size());
+        final Deque<BeanType> ready = new ArrayDeque<>();
+        for (BeanType bean : beans) {
+            if (unresolvedCounts.get(bean.getId()) == 0) {
+                ready.add(bean);
+            }
+        }
+        while (!ready.isEmpty()) {
+            BeanType bean = ready.poll();
+            ordered.add(bean);
+            for (BeanType dependent : dependents.getOrDefault(bean.getId(), Collections.<BeanType>emptyList())) {
+                if (unresolvedCounts.merge(dependent.getId(), -1, Integer::sum) == 0) {
+                    ready.add(dependent);
                 }
-                sb.append(')');
-
-                processingEnv.getMessager().printMessage(
-                        Diagnostic.Kind.NOTE,
-                        String.format("%s", sb.toString())
-                );
+            }
+        }
 
+        if (ordered.size() < beans.size()) {
+            List<String> circular = new ArrayList<>();
+            for (BeanType bean : beans) {
+                if (unresolvedCounts.get(bean.getId()) > 0) {
+                    circular.add(bean.getId());
+                }
             }
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    String.format("NanoBean constructor references are circular between %s", circular));
+            return null;
+        }
 
-            this.result = result;
-            return result;
+        final Map<String, Integer> indices = new HashMap<>();
+        for (BeanType bean : ordered) {
+            indices.put(bean.getId(), indices.size());
         }
+        for (BeanType bean : ordered) {
+            for (ConstructorArgType ctorArg : bean.getConstructorArgs()) {
+                ctorArg.setBeanIndex(indices.get(ctorArg.getRef()));
+            }
+        }
+        return ordered;
     }
 
     /**
@@ -335,13 +349,22 @@ public class AnnotationsProcessor implements Processor {
         ScopeType beanScopeType = ScopeType.fromValue(nanoBeanAnnotation.scope());
         String activateMethod = nanoBeanAnnotation.activate();
 
-        return generateXmlElement(
+        BeanType beanType = generateXmlElement(
                 beanClassName,
                 beanIdentifier,
                 beanScopeType,
                 activeBean,
                 activeBean ? activateMethod : null,
                 lazyLoadBean);
+
+        RestartType restart = RestartType.fromValue(nanoBeanAnnotation.restart());
+        if (activeBean && restart != RestartType.NEVER) {
+            beanType.setRestart(restart);
+            beanType.setMaxRestarts(nanoBeanAnnotation.maxRestarts());
+            beanType.setRestartDelay(nanoBeanAnnotation.restartDelay());
+            beanType.setRestartDelayMax(nanoBeanAnnotation.restartDelayMax());
+        }
+        return beanType;
     }
 
     /**
@@ -365,8 +388,11 @@ public class AnnotationsProcessor implements Processor {
         }
         beanType.setLazyLoad(Boolean.valueOf(lazyLoadBean));
 
+        // every bean in the generated context has an identifier, by default its class name
         if (identifier != null && identifier.length() > 0) {
             beanType.setId(identifier);
+        } else {
+            beanType.setId(beanClassName);
         }
 
         return beanType;
@@ -1,5 +1,6 @@
 package org.nanocontext.annotationsprocessor;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 
@@ -20,8 +21,15 @@ class BeanType extends HashMap<String, Object> {
     public final static String TEMPLATE_ACTIVATE_METHOD = "activateMethod";
     public final static String TEMPLATE_INITIALIZE_METHOD = "initializeMethod";
     public final static String TEMPLATE_FINALIZE_METHOD = "finalizeMethod";
+    public final static String TEMPLATE_RESTART = "restart";
+    public final static String TEMPLATE_MAX_RESTARTS = "maxRestarts";
+    public final static String TEMPLATE_RESTART_DELAY = "restartDelay";
+    public final static String TEMPLATE_RESTART_DELAY_MAX = "restartDelayMax";
 
     public List<ConstructorArgType> getConstructorArgs() {
+        if (! this.containsKey(TEMPLATE_CONSTRUCTOR_ARGS)) {
+            this.put(TEMPLATE_CONSTRUCTOR_ARGS, new ArrayList<ConstructorArgType>());
+        }
         return (List<ConstructorArgType>) this.get(TEMPLATE_CONSTRUCTOR_ARGS);
     }
 
@@ -125,4 +133,40 @@ class BeanType extends HashMap<String, Object> {
     void setFinalizeMethod(String finalizeMethod) {
         this.put(TEMPLATE_FINALIZE_METHOD, finalizeMethod);
     }
+
+    /**
+     * @return the restart of an active bean, as the name of a RestartPolicy.Restart constant
+     */
+    public RestartType getRestart() {
+        String restartName = (String) this.get(TEMPLATE_RESTART);
+        return restartName == null ? null : RestartType.valueOf(restartName);
+    }
+
+    void setRestart(RestartType restart) {
+        this.put(TEMPLATE_RESTART, restart.name());
+    }
+
+    public Integer getMaxRestarts() {
+        return (Integer) this.get(TEMPLATE_MAX_RESTARTS);
+    }
+
+    void setMaxRestarts(Integer maxRestarts) {
+        this.put(TEMPLATE_MAX_RESTARTS, maxRestarts);
+    }
+
+    public Long getRestartDelay() {
+        return (Long) this.get(TEMPLATE_RESTART_DELAY);
+    }
+
+    void setRestartDelay(Long restartDelay) {
+        this.put(TEMPLATE_RESTART_DELAY, restartDelay);
+    }
+
+    public Long getRestartDelayMax() {
+        return (Long) this.get(TEMPLATE_RESTART_DELAY_MAX);
+    }
+
+    void setRestartDelayMax(Long restartDelayMax) {
+        this.put(TEMPLATE_RESTART_DELAY_MAX, restartDelayMax);
+    }
 }
@@ -3,14 +3,55 @@ package org.nanocontext.annotationsprocessor;
 import java.util.HashMap;
 
 /**
- *
+ * A constructor parameter of a bean, injected with a reference to another bean.
+ * Like BeanType, the values are kept as Map entries so that the template can read them.
  */
 class ConstructorArgType extends HashMap<String, Object> {
+    public final static String TEMPLATE_REF = "ref";
+    public final static String TEMPLATE_TYPE = "type";
+    public final static String TEMPLATE_BEAN_INDEX = "beanIndex";
 
     protected BeanType bean;
     protected String value;
     protected ListType list;
-    protected ReferenceType ref;
     protected PropertiesReferenceType propertiesRef;
     protected Integer index;
+
+    /**
+     * @return the identifier of the referenced bean
+     */
+    public String getRef() {
+        return (String) this.get(TEMPLATE_REF);
+    }
+
+    void setRef(final String ref) {
+        this.put(TEMPLATE_REF, ref);
+    }
+
+    /**
+     * @return the erasure of the parameter type, as it appears in source
+     */
+    public String getType() {
+        return (String) this.get(TEMPLATE_TYPE);
+    }
+
+    void setType(final String type) {
+        this.put(TEMPLATE_TYPE, type);
+    }
+
+    /**
+     * @return the position of the referenced bean in the generated context, null if the
+     *      referenced bean is not generated (i.e. it is expected in a parent context)
+     */
+    public Integer getBeanIndex() {
+        return (Integer) this.get(TEMPLATE_BEAN_INDEX);
+    }
+
+    void setBeanIndex(final Integer beanIndex) {
+        if (beanIndex != null) {
+            this.put(TEMPLATE_BEAN_INDEX, beanIndex);
+        } else {
+            this.remove(TEMPLATE_BEAN_INDEX);
+        }
+    }
 }
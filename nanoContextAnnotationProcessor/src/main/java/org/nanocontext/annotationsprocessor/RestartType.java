@@ -0,0 +1,28 @@
+package org.nanocontext.annotationsprocessor;
+
+public enum RestartType {
+
+    NEVER("never"),
+    ALWAYS("always"),
+    ON_FAILURE("on-failure");
+
+    private final String value;
+
+    RestartType(String v) {
+        value = v;
+    }
+
+    public String value() {
+        return value;
+    }
+
+    public static RestartType fromValue(String v) {
+        for (RestartType c: RestartType.values()) {
+            if (c.value.equals(v)) {
+                return c;
+            }
+        }
+        throw new IllegalArgumentException(v);
+    }
+
+}
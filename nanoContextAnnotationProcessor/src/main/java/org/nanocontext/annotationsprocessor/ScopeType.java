@@ -3,7 +3,8 @@ package org.nanocontext.annotationsprocessor;
 public enum ScopeType {
 
     PROTOTYPE("prototype"),
-    SINGLETON("singleton");
+    SINGLETON("singleton"),
+    THREAD("thread");
 
     private final String value;
 
@@ -6,6 +6,7 @@ import org.nanocontext.xml.BeanType;
 import org.nanocontext.xml.Beans;
 import org.nanocontext.xml.ConstructorArgType;
 import org.nanocontext.xml.ReferenceType;
+import org.nanocontext.xml.RestartType;
 import org.nanocontext.xml.ScopeType;
 
 import javax.annotation.processing.Completion;
@@ -301,13 +302,22 @@ public class AnnotationProcessor implements Processor {
         ScopeType beanScopeType = ScopeType.fromValue(nanoBeanAnnotation.scope());
         String activateMethod = nanoBeanAnnotation.activate();
 
-        return generateXmlElement(
+        BeanType beanType = generateXmlElement(
                 beanClassName,
                 beanIdentifier,
                 beanScopeType,
                 activeBean,
                 activeBean ? activateMethod : null,
                 lazyLoadBean);
+
+        RestartType restart = RestartType.fromValue(nanoBeanAnnotation.restart());
+        if (activeBean && restart != RestartType.NEVER) {
+            beanType.setRestart(restart);
+            beanType.setMaxRestarts(nanoBeanAnnotation.maxRestarts());
+            beanType.setRestartDelay(nanoBeanAnnotation.restartDelay());
+            beanType.setRestartDelayMax(nanoBeanAnnotation.restartDelayMax());
+        }
+        return beanType;
     }
 
     /**
@@ -1,37 +1,98 @@
+<#assign beanList = beans![]>
 package ${packageName};
 
-import org.nanocontext.core.*;
-import org.nanocontext.core.exceptions.*;
+import org.nanocontext.core.AbstractReferencableProperty;
+import org.nanocontext.core.Context;
+import org.nanocontext.core.ContextFactory;
+import org.nanocontext.core.GeneratedBean;
+import org.nanocontext.core.RestartPolicy;
+import org.nanocontext.core.exceptions.ContextInitializationException;
 
-import java.util.*;
-import java.util.stream.*;
+import java.util.HashSet;
+import java.util.Set;
 
-public class ${contextFactoryName} implements org.nanocontext.core.ContextFactory {
+/**
+ * Generated by the nanoContext annotation processor from the NanoBean annotated classes.
+ * Every bean is created by a direct constructor call, after the beans it references,
+ * so building the context needs no XML parsing, class loading by name or reflection.
+ */
+public class ${contextFactoryName} implements ContextFactory {
     private ClassLoader classLoader = null;
-    private org.nanocontext.core.Context parentContext = null;
+    private Context parentContext = null;
 
+    /**
+     * The generated beans are loaded with the ContextFactory, the ClassLoader is not used.
+     */
     public ContextFactory withClassLoader(final ClassLoader classLoader) throws ContextInitializationException {
         this.classLoader = classLoader;
         return this;
     }
 
-    public ContextFactory withParentContext(final org.nanocontext.core.Context parentContext) throws ContextInitializationException {
+    public ContextFactory withParentContext(final Context parentContext) throws ContextInitializationException {
         this.parentContext = parentContext;
         return this;
     }
 
     public Context build() throws ContextInitializationException {
-        Map<String, AbstractReferencableProperty> contextObjectsNameMap = new HashMap<String, AbstractReferencableProperty>();
+        Context ctx = Context.builder().withParent(parentContext).build();
 
-
-        Context ctx = parentContext != null ? new Context(parentContext) : new Context();
-
-        ctx.setContextObjectsMap(contextObjectsNameMap.entrySet().stream()
-                .map(entry -> entry.getValue())
-                .collect(Collectors.toSet())
-        );
+        Beans beans = new Beans(ctx);
+        ctx.setContextObjectsMap(beans.getProperties());
+        ctx.initialize();
 
         return ctx;
     }
 
+    /**
+     * Creates the beans of one Context, by their position in dependency order.
+     */
+    private static final class Beans implements GeneratedBean.Instantiator {
+        private final Context ctx;
+        private final GeneratedBean<?>[] properties = new GeneratedBean<?>[${beanList?size?c}];
+
+        Beans(final Context ctx) {
+            this.ctx = ctx;
+<#list beanList as bean>
+            properties[${bean?index?c}] = new GeneratedBean<>(ctx, "${bean.id?j_string}", ${bean.clazz}.class,
+                    "${bean.scope?j_string}", ${(bean.lazyLoad!false)?c}, ${(bean.active!false)?c}, ${bean?index?c}, this,
+                    <#if bean.restart??>new RestartPolicy(RestartPolicy.Restart.${bean.restart}, ${bean.maxRestarts?c}, ${bean.restartDelay?c}L, ${bean.restartDelayMax?c}L)<#else>null</#if>);
+</#list>
+        }
+
+        Set<AbstractReferencableProperty> getProperties() {
+            Set<AbstractReferencableProperty> result = new HashSet<>();
+            for (GeneratedBean<?> property : properties) {
+                result.add(property);
+            }
+            return result;
+        }
+
+        @Override
+        public Object instantiate(final int index) throws Exception {
+            switch (index) {
+<#list beanList as bean>
+                case ${bean?index?c}:
+                    return new ${bean.clazz}(<#list bean.constructorArgs![] as arg>
+                            (${arg.type}) <#if arg.beanIndex??>properties[${arg.beanIndex?c}].getValue()<#elseif arg.ref?has_content>ctx.getBean("${arg.ref?j_string}", ${arg.type}.class)<#else>ctx.getBean(${arg.type}.class)</#if><#sep>,</#sep></#list>);
+</#list>
+                default:
+                    throw new IllegalArgumentException("No generated bean at index " + index);
+            }
+        }
+
+        @Override
+        public void activate(final int index, final Object bean) throws Exception {
+            switch (index) {
+<#list beanList as bean>
+<#if bean.active!false>
+                case ${bean?index?c}:
+                    ((${bean.clazz}) bean).${bean.activateMethod!"run"}();
+                    break;
+</#if>
+</#list>
+                default:
+                    throw new IllegalArgumentException("No active generated bean at index " + index);
+            }
+        }
+    }
 }
@@ -20,10 +20,41 @@ public class ContextFactoryGeneratorTest {
     @DataProvider
     public Object[][] testDataProvider() {
         return new Object[][] {
-                {new ContextFactoryDataModel()}
+                {new ContextFactoryDataModel()},
+                {createDependentBeansDataModel()}
         };
     }
 
+    /**
+     * A data model of two beans, where one is created with a reference to the other.
+     * Uses JDK classes so that the generated source compiles.
+     */
+    private static ContextFactoryDataModel createDependentBeansDataModel() {
+        BeanType builder = new BeanType();
+        builder.setId("builder");
+        builder.setClazz("java.lang.StringBuilder");
+        builder.setScope(ScopeType.SINGLETON);
+        builder.setLazyLoad(Boolean.FALSE);
+
+        ConstructorArgType builderArg = new ConstructorArgType();
+        builderArg.setRef("builder");
+        builderArg.setType("java.lang.StringBuilder");
+        builderArg.setBeanIndex(0);
+
+        BeanType text = new BeanType();
+        text.setId("text");
+        text.setClazz("java.lang.String");
+        text.setScope(ScopeType.PROTOTYPE);
+        text.setLazyLoad(Boolean.TRUE);
+        text.getConstructorArgs().add(builderArg);
+
+        ContextFactoryDataModel dataModel = new ContextFactoryDataModel();
+        dataModel.setContextFactoryName("DependentBeansContextFactory");
+        dataModel.getBeans().add(builder);
+        dataModel.getBeans().add(text);
+        return dataModel;
+    }
+
     @Test(dataProvider="testDataProvider")
     public void testGeneration(final ContextFactoryDataModel dataModel) throws IOException, TemplateException {
         Context ctx = new Context();
@@ -1,3 +1,5 @@
+package org.nanocontext.sample;
+
 import org.nanocontext.annotations.NanoBean;
 
 @NanoBean(identifier = "independent-bean")
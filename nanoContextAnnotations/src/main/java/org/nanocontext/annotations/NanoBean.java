@@ -10,12 +10,16 @@ import java.lang.annotation.Target;
  * identifier to be used to reference instances of this bean.
  * By default, beans are created as Singleton, that is one instance in the context.
  * Beans may be marked as Prototype, that is a new instance will be created each time an
- * injection reference is made.
+ * injection reference is made, or as Thread, scope "thread", that is one instance for each thread
+ * that references the bean.
  * active - An "active" bean is one that has its own Thread of execution. If active is set then then
  * the Bean implementation must either:
  * include a public void run() method
  * include a public void method taking no arguments and having the name specified in the activate property.
  * activate -
+ * restart - when an active bean is run again after it returns or throws, one of "never", "always" or
+ * "on-failure", at most maxRestarts times (unlimited if negative), after restartDelay milliseconds,
+ * doubled with each restart up to restartDelayMax.
  *
  */
 @Retention(RetentionPolicy.SOURCE)
@@ -27,4 +31,8 @@ public @interface NanoBean {
     boolean active() default false;
     String activate() default "run";
     String context() default "default";
+    String restart() default "never";
+    int maxRestarts() default -1;
+    long restartDelay() default 100L;
+    long restartDelayMax() default 30000L;
 }
@@ -0,0 +1,71 @@
+package org.nanocontext.benchmark;
+
+import org.nanocontext.benchmark.subjects.ArraySubject;
+import org.nanocontext.benchmark.subjects.StringArraySubject;
+import org.nanocontext.core.Context;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.xml.StreamingContextFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the creation of prototype beans that are injected with a large array of
+ * constant values, as an int[] and as a String[].
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArrayInjectionBenchmark {
+    @Param({"100", "10000"})
+    private int length;
+
+    private Context context;
+
+    @Setup(Level.Trial)
+    public void setup() throws ContextInitializationException {
+        StringBuilder values = new StringBuilder(16 * length);
+        for (int index = 0; index < length; ++index) {
+            values.append("<value>").append(index).append("</value>");
+        }
+
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<beans xmlns=\"http://nanocontext.org/v1/schema/ctx\">\n" +
+                "    <bean id=\"ints\" class=\"" + ArraySubject.class.getName() + "\" scope=\"prototype\">\n" +
+                "        <constructor-arg><list>" + values + "</list></constructor-arg>\n" +
+                "    </bean>\n" +
+                "    <bean id=\"strings\" class=\"" + StringArraySubject.class.getName() + "\" scope=\"prototype\">\n" +
+                "        <constructor-arg><list>" + values + "</list></constructor-arg>\n" +
+                "    </bean>\n" +
+                "</beans>\n";
+        context = new StreamingContextFactory()
+                .with(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)))
+                .build();
+    }
+
+    @Benchmark
+    public ArraySubject intArray() throws ContextInitializationException {
+        return context.getBean("ints", ArraySubject.class);
+    }
+
+    @Benchmark
+    public StringArraySubject stringArray() throws ContextInitializationException {
+        return context.getBean("strings", StringArraySubject.class);
+    }
+}
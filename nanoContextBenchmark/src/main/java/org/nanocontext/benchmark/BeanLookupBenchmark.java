@@ -0,0 +1,93 @@
+package org.nanocontext.benchmark;
+
+import org.nanocontext.core.AbstractReferencableProperty;
+import org.nanocontext.core.Context;
+import org.nanocontext.core.PreresolvedBean;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of looking up a bean by identifier as the context grows.
+ * Each invocation looks up one bean, cycling through a pre-shuffled set of
+ * identifiers so that the lookup pattern does not favor any position in the context.
+ * By-type lookups are served from the context type resolution cache after the first call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeanLookupBenchmark {
+    private static final int LOOKUP_KEY_COUNT = 1024;
+
+    @Param({"10", "1000", "100000"})
+    private int beanCount;
+
+    private Context context;
+    private String[] lookupKeys;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws ContextInitializationException {
+        context = Context.builder().build();
+
+        Set<AbstractReferencableProperty> beans = new HashSet<>(beanCount * 2);
+        for (int index = 0; index < beanCount; ++index) {
+            beans.add(new PreresolvedBean<>(context, beanIdentifier(index), Integer.valueOf(index)));
+        }
+        context.setContextObjectsMap(beans);
+
+        Random random = new Random(42L);
+        lookupKeys = new String[LOOKUP_KEY_COUNT];
+        for (int index = 0; index < LOOKUP_KEY_COUNT; ++index) {
+            // new String instances so that lookups cannot short-circuit on identity
+            lookupKeys[index] = new String(beanIdentifier(random.nextInt(beanCount)));
+        }
+    }
+
+    private static String beanIdentifier(final int index) {
+        return "bean-" + index;
+    }
+
+    private String nextKey() {
+        next = (next + 1) & (LOOKUP_KEY_COUNT - 1);
+        return lookupKeys[next];
+    }
+
+    @Benchmark
+    public Object getBeanByIdentifierAndType() throws ContextInitializationException {
+        return context.getBean(nextKey(), Integer.class);
+    }
+
+    @Benchmark
+    public Object getBeanReference() throws ContextInitializationException {
+        return context.getBeanReference(nextKey());
+    }
+
+    @Benchmark
+    public Object getBeanByType() throws ContextInitializationException {
+        return context.getBean(Number.class);
+    }
+
+    @Benchmark
+    public Object getBeanReferenceMiss() throws ContextInitializationException {
+        return context.getBeanReference("no-such-bean");
+    }
+}
@@ -0,0 +1,155 @@
+package org.nanocontext.benchmark;
+
+import org.nanocontext.benchmark.subjects.PrototypeSubject;
+import org.nanocontext.xml.ClassDataSharingTrainer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Compares the cold start of a runtime that builds a context, without class data sharing,
+ * with the default archive of the runtime, with a static AppCDS archive made from the class
+ * list of ClassDataSharingTrainer and with a dynamic AppCDS archive made by its training run.
+ * The contexts are those of ContextStartupBenchmark. Each start is a new runtime, timed from
+ * launch to exit, so this is not a JMH benchmark. Run as a program with the class path of the
+ * benchmarks and, optionally, the number of starts of each configuration.
+ */
+public final class ClassDataSharingComparison {
+    private static final int[] BEAN_COUNTS = {10, 100};
+    private static final int DEFAULT_STARTS = 10;
+
+    private ClassDataSharingComparison() {
+    }
+
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        int starts = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_STARTS;
+        Path workDirectory = Files.createTempDirectory("nanocontext-cds-");
+        String classPath = jarClassPath(System.getProperty("java.class.path"), workDirectory);
+
+        for (int beanCount : BEAN_COUNTS) {
+            Path xmlDocument = workDirectory.resolve("context-" + beanCount + ".xml");
+            Files.write(xmlDocument, createXmlDocument(beanCount).getBytes(StandardCharsets.UTF_8));
+
+            // the classes are recorded in a runtime of their own, as they would be at build time
+            Path classList = workDirectory.resolve("context-" + beanCount + ".classlist");
+            run(java(), "-cp", classPath, ClassDataSharingTrainer.class.getName(),
+                    "list", xmlDocument.toString(), classList.toString());
+            Path staticArchive = workDirectory.resolve("context-" + beanCount + "-static.jsa");
+            ClassDataSharingTrainer.createStaticArchive(classList, staticArchive, classPath);
+            Path dynamicArchive = workDirectory.resolve("context-" + beanCount + "-dynamic.jsa");
+            boolean dynamic = true;
+            try {
+                ClassDataSharingTrainer.createDynamicArchive(xmlDocument, dynamicArchive, classPath);
+            } catch (IOException ioX) {
+                System.err.println("No dynamic archive, the runtime may not support one: " + ioX.getMessage());
+                dynamic = false;
+            }
+
+            System.out.println(String.format("%d beans, %d starts of each configuration", beanCount, starts));
+            report("no class data sharing", startTimes(starts, classPath, xmlDocument, "-Xshare:off"));
+            report("default archive", startTimes(starts, classPath, xmlDocument));
+            report("static AppCDS archive", startTimes(starts, classPath, xmlDocument,
+                    "-XX:SharedArchiveFile=" + staticArchive));
+            if (dynamic) {
+                report("dynamic AppCDS archive", startTimes(starts, classPath, xmlDocument,
+                        "-XX:SharedArchiveFile=" + dynamicArchive));
+            }
+        }
+    }
+
+    /**
+     * Class data sharing requires that the class path consist only of jars, so directories,
+     * i.e. the classes of a module built but not packaged, are copied into jars.
+     */
+    private static String jarClassPath(final String classPath, final Path workDirectory) throws IOException {
+        List<String> entries = new ArrayList<>();
+        for (String entry : classPath.split(File.pathSeparator)) {
+            if (entry.isEmpty()) {
+                continue;
+            }
+            Path path = Paths.get(entry);
+            if (Files.isDirectory(path)) {
+                Path jar = workDirectory.resolve("classpath-" + entries.size() + ".jar");
+                try (JarOutputStream jarStream = new JarOutputStream(Files.newOutputStream(jar));
+                     Stream<Path> files = Files.walk(path)) {
+                    for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                        jarStream.putNextEntry(new JarEntry(path.relativize(file).toString().replace(File.separatorChar, '/')));
+                        Files.copy(file, jarStream);
+                        jarStream.closeEntry();
+                    }
+                }
+                entries.add(jar.toString());
+            } else {
+                entries.add(entry);
+            }
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static String createXmlDocument(final int beanCount) {
+        StringBuilder xml = new StringBuilder(256 + 256 * beanCount);
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        xml.append("<beans xmlns=\"http://nanocontext.org/v1/schema/ctx\">\n");
+        for (int index = 0; index < beanCount; ++index) {
+            String identifier = "bean-" + index;
+            xml.append(String.format(
+                    "    <bean id=\"%s\" class=\"%s\" scope=\"%s\" lazy-load=\"false\">\n" +
+                    "        <constructor-arg><value>%s</value></constructor-arg>\n" +
+                    "        <constructor-arg><value>%d</value></constructor-arg>\n" +
+                    "    </bean>\n",
+                    identifier, PrototypeSubject.class.getName(), index % 2 == 0 ? "singleton" : "prototype",
+                    identifier, index));
+        }
+        xml.append("</beans>\n");
+        return xml.toString();
+    }
+
+    /**
+     * @return the time of each start, in milliseconds, sorted
+     */
+    private static List<Double> startTimes(final int starts, final String classPath, final Path xmlDocument,
+                                           final String... options) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(java());
+        command.addAll(Arrays.asList(options));
+        command.addAll(Arrays.asList("-cp", classPath, ClassDataSharingTrainer.class.getName(),
+                "build", xmlDocument.toString()));
+
+        List<Double> times = new ArrayList<>(starts);
+        for (int start = 0; start < starts; ++start) {
+            long startNanos = System.nanoTime();
+            run(command.toArray(new String[0]));
+            times.add((System.nanoTime() - startNanos) / 1_000_000.0);
+        }
+        Collections.sort(times);
+        return times;
+    }
+
+    private static void report(final String configuration, final List<Double> times) {
+        System.out.println(String.format("  %-24s median %8.1f ms, min %8.1f ms, max %8.1f ms",
+                configuration, times.get(times.size() / 2), times.get(0), times.get(times.size() - 1)));
+    }
+
+    private static String java() {
+        return Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    }
+
+    private static void run(final String... command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        if (process.waitFor() != 0) {
+            throw new IOException(String.format("%s exited with %d%n%s", String.join(" ", command), process.exitValue(), output));
+        }
+    }
+}
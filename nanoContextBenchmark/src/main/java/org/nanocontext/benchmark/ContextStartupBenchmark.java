@@ -0,0 +1,106 @@
+package org.nanocontext.benchmark;
+
+import org.nanocontext.benchmark.subjects.PrototypeSubject;
+import org.nanocontext.core.Context;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.xml.BeanType;
+import org.nanocontext.xml.Beans;
+import org.nanocontext.xml.BinaryContextCompiler;
+import org.nanocontext.xml.BinaryContextFactory;
+import org.nanocontext.xml.ConstructorArgType;
+import org.nanocontext.xml.ScopeType;
+import org.nanocontext.xml.StreamingContextFactory;
+import org.nanocontext.xml.XMLContextFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.xml.bind.JAXBException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building a context on a cold JVM, from a context XML document read with JAXB or
+ * with the StAX reader, and from the binary descriptor compiled from the same definition.
+ * Each fork builds exactly one context, so the time includes loading and initializing
+ * JAXB (or not), as it would when an application starts. The definition is created without
+ * JAXB so that setup does not warm either path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class ContextStartupBenchmark {
+    @Param({"10", "100"})
+    private int beanCount;
+
+    private byte[] xmlDocument;
+    private byte[] descriptor;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Beans beans = new Beans();
+        StringBuilder xml = new StringBuilder(256 + 256 * beanCount);
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        xml.append("<beans xmlns=\"http://nanocontext.org/v1/schema/ctx\">\n");
+        for (int index = 0; index < beanCount; ++index) {
+            ScopeType scope = index % 2 == 0 ? ScopeType.SINGLETON : ScopeType.PROTOTYPE;
+            String identifier = "bean-" + index;
+
+            BeanType bean = new BeanType();
+            bean.setId(identifier);
+            bean.setClazz(PrototypeSubject.class.getName());
+            bean.setScope(scope);
+            bean.setLazyLoad(Boolean.FALSE);
+            ConstructorArgType nameArg = new ConstructorArgType();
+            nameArg.setValue(identifier);
+            ConstructorArgType valueArg = new ConstructorArgType();
+            valueArg.setValue(Integer.toString(index));
+            bean.getConstructorArg().add(nameArg);
+            bean.getConstructorArg().add(valueArg);
+            beans.getBean().add(bean);
+
+            xml.append(String.format(
+                    "    <bean id=\"%s\" class=\"%s\" scope=\"%s\" lazy-load=\"false\">\n" +
+                    "        <constructor-arg><value>%s</value></constructor-arg>\n" +
+                    "        <constructor-arg><value>%d</value></constructor-arg>\n" +
+                    "    </bean>\n",
+                    identifier, PrototypeSubject.class.getName(), scope.value(), identifier, index));
+        }
+        xml.append("</beans>\n");
+        xmlDocument = xml.toString().getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream compiled = new ByteArrayOutputStream();
+        BinaryContextCompiler.compile(beans, compiled);
+        descriptor = compiled.toByteArray();
+    }
+
+    @Benchmark
+    public Context xml() throws JAXBException, ContextInitializationException {
+        return new XMLContextFactory().with(new ByteArrayInputStream(xmlDocument)).build();
+    }
+
+    @Benchmark
+    public Context streaming() throws ContextInitializationException {
+        return new StreamingContextFactory().with(new ByteArrayInputStream(xmlDocument)).build();
+    }
+
+    @Benchmark
+    public Context binary() throws IOException, ContextInitializationException {
+        return new BinaryContextFactory().with(new ByteArrayInputStream(descriptor)).build();
+    }
+}
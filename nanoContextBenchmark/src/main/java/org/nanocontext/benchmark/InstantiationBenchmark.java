@@ -0,0 +1,88 @@
+package org.nanocontext.benchmark;
+
+import org.nanocontext.benchmark.subjects.PrototypeSubject;
+import org.nanocontext.core.AbstractProperty;
+import org.nanocontext.core.Context;
+import org.nanocontext.core.InstantiationStrategy;
+import org.nanocontext.core.PreresolvedBean;
+import org.nanocontext.core.PrototypeBeanInstanceFactory;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the creation of prototype beans with each InstantiationStrategy, using
+ * a no-argument constructor, a two-argument constructor and a static factory method.
+ * Constructor arguments are preresolved so that argument conversion is not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstantiationBenchmark {
+    @Param({"REFLECTION", "METHOD_HANDLE", "GENERATED"})
+    private InstantiationStrategy strategy;
+
+    private PrototypeBeanInstanceFactory<PrototypeSubject> noArgumentFactory;
+    private PrototypeBeanInstanceFactory<PrototypeSubject> twoArgumentFactory;
+    private PrototypeBeanInstanceFactory<PrototypeSubject> staticFactory;
+
+    @Setup(Level.Trial)
+    public void setup() throws ContextInitializationException {
+        Context context = Context.builder().withInstantiationStrategy(strategy).build();
+
+        noArgumentFactory = createFactory(context, "noArgument", null, Collections.<AbstractProperty>emptyList());
+        twoArgumentFactory = createFactory(context, "twoArgument", null, Arrays.<AbstractProperty>asList(
+                new PreresolvedBean<>(context, "name", "name"),
+                new PreresolvedBean<>(context, "value", Integer.valueOf(42))));
+        staticFactory = createFactory(context, "staticFactory", "create", Collections.<AbstractProperty>emptyList());
+
+        // the first instance is always created using reflection, the strategy applies from the second
+        for (PrototypeBeanInstanceFactory<PrototypeSubject> factory : Arrays.asList(noArgumentFactory, twoArgumentFactory, staticFactory)) {
+            factory.getValue();
+            factory.getValue();
+        }
+    }
+
+    private static PrototypeBeanInstanceFactory<PrototypeSubject> createFactory(
+            final Context context, final String identifier, final String factoryMethodName, final List<AbstractProperty> arguments)
+            throws ContextInitializationException {
+        return new PrototypeBeanInstanceFactory<>(
+                context, identifier, null, PrototypeSubject.class.getName(),
+                null, null, factoryMethodName,
+                false, false, null, null, null,
+                arguments);
+    }
+
+    @Benchmark
+    public Object noArgumentConstructor() throws ContextInitializationException {
+        return noArgumentFactory.getValue();
+    }
+
+    @Benchmark
+    public Object twoArgumentConstructor() throws ContextInitializationException {
+        return twoArgumentFactory.getValue();
+    }
+
+    @Benchmark
+    public Object staticFactoryMethod() throws ContextInitializationException {
+        return staticFactory.getValue();
+    }
+}
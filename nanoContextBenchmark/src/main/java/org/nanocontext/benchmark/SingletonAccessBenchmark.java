@@ -0,0 +1,111 @@
+package org.nanocontext.benchmark;
+
+import org.nanocontext.core.AbstractBeanInstanceFactory;
+import org.nanocontext.core.AbstractProperty;
+import org.nanocontext.core.Context;
+import org.nanocontext.core.SingletonBeanInstanceFactory;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Measures access to an already created singleton from many threads, comparing
+ * the published (volatile read) path of SingletonBeanInstanceFactory with a factory
+ * that takes a lock on every access.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(64)
+@Fork(1)
+public class SingletonAccessBenchmark {
+    private SingletonBeanInstanceFactory<StringBuilder> publishedFactory;
+    private LockingSingletonBeanInstanceFactory<StringBuilder> lockingFactory;
+
+    @Setup(Level.Trial)
+    public void setup() throws ContextInitializationException {
+        Context context = Context.builder().build();
+
+        publishedFactory = new SingletonBeanInstanceFactory<>(
+                context, "published", null, StringBuilder.class.getName(),
+                null, null, null, false, false, null, null, null, null);
+        lockingFactory = new LockingSingletonBeanInstanceFactory<>(
+                context, "locking", null, StringBuilder.class.getName(),
+                null, null, null, false, false, null, null, null, null);
+
+        // create the singletons, the benchmarks measure access only
+        publishedFactory.getValue();
+        lockingFactory.getValue();
+    }
+
+    @Benchmark
+    public Object publishedSingleton() throws ContextInitializationException {
+        return publishedFactory.getValue();
+    }
+
+    @Benchmark
+    public Object lockingSingleton() throws ContextInitializationException {
+        return lockingFactory.getValue();
+    }
+
+    /**
+     * A singleton factory that takes a ReentrantLock on every access.
+     */
+    private static final class LockingSingletonBeanInstanceFactory<T> extends AbstractBeanInstanceFactory<T> {
+        private final ReentrantLock singletonInstantiationLock = new ReentrantLock();
+        private T singleton = null;
+
+        LockingSingletonBeanInstanceFactory(
+                final Context context,
+                final String id,
+                final String artifactIdentifier,
+                final String clazzName,
+                final String factoryId,
+                final String factoryClassName,
+                final String factoryMethodName,
+                final boolean lazyLoad,
+                final boolean active,
+                final String activateMethod,
+                final String initializeMethod,
+                final String finalizeMethod,
+                final List<AbstractProperty> ctorArgs)
+                throws ContextInitializationException {
+            super(context, id,
+                    artifactIdentifier, clazzName,
+                    factoryId, factoryClassName, factoryMethodName,
+                    lazyLoad,
+                    active, activateMethod,
+                    initializeMethod, finalizeMethod,
+                    ctorArgs);
+        }
+
+        @Override
+        public T getValue() throws ContextInitializationException {
+            singletonInstantiationLock.lock();
+            try {
+                if (singleton == null) {
+                    singleton = createBeanInstance();
+                }
+            } finally {
+                singletonInstantiationLock.unlock();
+            }
+            return singleton;
+        }
+    }
+}
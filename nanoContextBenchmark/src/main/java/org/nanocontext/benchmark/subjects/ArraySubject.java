@@ -0,0 +1,16 @@
+package org.nanocontext.benchmark.subjects;
+
+/**
+ * A bean holding an injected array of primitive configuration values.
+ */
+public class ArraySubject {
+    private final int[] values;
+
+    public ArraySubject(final int[] values) {
+        this.values = values;
+    }
+
+    public int[] getValues() {
+        return values;
+    }
+}
@@ -0,0 +1,31 @@
+package org.nanocontext.benchmark.subjects;
+
+/**
+ * A bean that is cheap to construct, so that benchmarks measure the cost of
+ * invoking the constructor or factory method rather than the work it does.
+ */
+public class PrototypeSubject {
+    private final String name;
+    private final Integer value;
+
+    public PrototypeSubject() {
+        this(null, null);
+    }
+
+    public PrototypeSubject(final String name, final Integer value) {
+        this.name = name;
+        this.value = value;
+    }
+
+    public static PrototypeSubject create() {
+        return new PrototypeSubject();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Integer getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,16 @@
+package org.nanocontext.benchmark.subjects;
+
+/**
+ * A bean holding an injected array of String configuration values.
+ */
+public class StringArraySubject {
+    private final String[] values;
+
+    public StringArraySubject(final String[] values) {
+        this.values = values;
+    }
+
+    public String[] getValues() {
+        return values;
+    }
+}
@@ -1,12 +1,15 @@
 package org.nanocontext.core;
 
+import org.nanocontext.core.events.BeanInstantiationEvent;
 import org.nanocontext.core.exceptions.*;
 import org.nanocontext.utility.Utility;
 
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.URLClassLoader;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.locks.ReentrantLock;
@@ -33,8 +36,14 @@ public abstract class AbstractBeanInstanceFactory<T>
     private final boolean lazyLoad;
     private final boolean active;
     private final String activateMethod;
+    /** how an active bean is run, null for the execution of the context */
+    private final ActiveBeanExecution activeBeanExecution;
+    /** when an active bean is run again after it returns or throws */
+    private final RestartPolicy restartPolicy;
     private final String initializeMethod;
     private final String finalizeMethod;
+    private final String beforeCheckpointMethod;
+    private final String afterRestoreMethod;
 
     private final List<AbstractProperty> ctorParameters;
 
@@ -42,9 +51,26 @@ public abstract class AbstractBeanInstanceFactory<T>
     private final ReentrantLock beanClassLock = new ReentrantLock();
 
     /** */
-    private Class<T> beanClass;
+    private volatile Class<T> beanClass;
     private Set<AbstractProperty> constructorParameterProperties;
 
+    /**
+     * The constructor or factory method used to create instances and its parameter types.
+     * The selection depends only on the bean configuration, so it is made on the first
+     * instantiation and reused afterwards. Two threads may both make the selection on
+     * first use, they will select the same executable.
+     */
+    private volatile ExecutableResolution executableResolution;
+
+    /** The initialize method, if one is named, resolved on the first instantiation */
+    private volatile Method resolvedInitializeMethod;
+
+    /** The finalize method, if one is named, resolved on the first finalization */
+    private volatile Method resolvedFinalizeMethod;
+
+    /** Arguments for executables that take no parameters */
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
     /**
      * @param context
      * @param id
@@ -73,6 +99,70 @@ public abstract class AbstractBeanInstanceFactory<T>
             final String initializeMethod,
             final String finalizeMethod,
             final List<AbstractProperty> ctorParameters
+    ) throws ContextInitializationException {
+        this(context, id, artifactIdentifier, clazzName,
+                factoryId, factoryClassName, factoryMethodName,
+                lazyLoad, active, activateMethod,
+                initializeMethod, finalizeMethod,
+                null, null,
+                ctorParameters);
+    }
+
+    /**
+     * @param beforeCheckpointMethod the method called on the instance before a checkpoint of the runtime, may be null
+     * @param afterRestoreMethod the method called on the instance after a restore of the runtime, may be null
+     * @throws ContextInitializationException
+     */
+    protected AbstractBeanInstanceFactory(
+            final Context context,
+            final String id,
+            final String artifactIdentifier,
+            final String clazzName,
+            final String factoryId,
+            final String factoryClassName,
+            final String factoryMethodName,
+            final boolean lazyLoad,
+            final boolean active,
+            final String activateMethod,
+            final String initializeMethod,
+            final String finalizeMethod,
+            final String beforeCheckpointMethod,
+            final String afterRestoreMethod,
+            final List<AbstractProperty> ctorParameters
+    ) throws ContextInitializationException {
+        this(context, id, artifactIdentifier, clazzName,
+                factoryId, factoryClassName, factoryMethodName,
+                lazyLoad, active, activateMethod, null, null,
+                initializeMethod, finalizeMethod,
+                beforeCheckpointMethod, afterRestoreMethod,
+                ctorParameters);
+    }
+
+    /**
+     * @param activeBeanExecution how an active instance is run, null for the execution of the context
+     * @param restartPolicy when an active instance is run again after it returns or throws, null to never restart it
+     * @param beforeCheckpointMethod the method called on the instance before a checkpoint of the runtime, may be null
+     * @param afterRestoreMethod the method called on the instance after a restore of the runtime, may be null
+     * @throws ContextInitializationException
+     */
+    protected AbstractBeanInstanceFactory(
+            final Context context,
+            final String id,
+            final String artifactIdentifier,
+            final String clazzName,
+            final String factoryId,
+            final String factoryClassName,
+            final String factoryMethodName,
+            final boolean lazyLoad,
+            final boolean active,
+            final String activateMethod,
+            final ActiveBeanExecution activeBeanExecution,
+            final RestartPolicy restartPolicy,
+            final String initializeMethod,
+            final String finalizeMethod,
+            final String beforeCheckpointMethod,
+            final String afterRestoreMethod,
+            final List<AbstractProperty> ctorParameters
     ) throws ContextInitializationException {
         super(context, id);
         this.artifactIdentifier = artifactIdentifier;
@@ -100,6 +190,8 @@ public abstract class AbstractBeanInstanceFactory<T>
         this.activateMethod = Utility.isPropertyReference(activateMethod) ?
                 resolvePropertyValue(Utility.extractKeyFromPropertyReference(activateMethod)) :
                 activateMethod;
+        this.activeBeanExecution = activeBeanExecution;
+        this.restartPolicy = restartPolicy == null ? RestartPolicy.NEVER : restartPolicy;
 
         this.initializeMethod = Utility.isPropertyReference(initializeMethod) ?
                 resolvePropertyValue(Utility.extractKeyFromPropertyReference(initializeMethod)) :
@@ -107,6 +199,12 @@ public abstract class AbstractBeanInstanceFactory<T>
         this.finalizeMethod = Utility.isPropertyReference(finalizeMethod) ?
                 resolvePropertyValue(Utility.extractKeyFromPropertyReference(finalizeMethod)) :
                 finalizeMethod;;
+        this.beforeCheckpointMethod = Utility.isPropertyReference(beforeCheckpointMethod) ?
+                resolvePropertyValue(Utility.extractKeyFromPropertyReference(beforeCheckpointMethod)) :
+                beforeCheckpointMethod;
+        this.afterRestoreMethod = Utility.isPropertyReference(afterRestoreMethod) ?
+                resolvePropertyValue(Utility.extractKeyFromPropertyReference(afterRestoreMethod)) :
+                afterRestoreMethod;
 
         this.ctorParameters = ctorParameters;
     }
@@ -115,6 +213,20 @@ public abstract class AbstractBeanInstanceFactory<T>
         return this.clazzName;
     }
 
+    /**
+     * @return the name of the scope of the bean, as it is written in the context definition
+     */
+    protected String getScope() {
+        return null;
+    }
+
+    /**
+     * @return the identifier of the bean used as a factory, or null if there is none
+     */
+    public String getFactoryId() {
+        return this.factoryId;
+    }
+
     /**
      *
      * @return
@@ -123,16 +235,26 @@ public abstract class AbstractBeanInstanceFactory<T>
         return ctorParameters;
     }
 
+    /**
+     * Create the bean, unless it is lazy-load in which case it is created when it is first referenced.
+     */
     @Override
     public void initialize() throws ContextInitializationException {
-        getValue();
+        if (!lazyLoad) {
+            getValue();
+        }
+    }
+
+    @Override
+    boolean isLazyLoad() {
+        return lazyLoad;
     }
 
     /**
      *
      * @return
      */
-    private URLClassLoader getArtifactClassLoader() {
+    private URLClassLoader getArtifactClassLoader() throws ArtifactLoadException {
         if (artifactIdentifier != null) {
             ArtifactHolder holder = getContext().getArtifactHolder(artifactIdentifier);
             return holder.getClassLoader();
@@ -146,18 +268,42 @@ public abstract class AbstractBeanInstanceFactory<T>
      * @throws ContextInitializationException
      */
     public T createBeanInstance() throws ContextInitializationException {
+        BeanInstantiationEvent event = new BeanInstantiationEvent();
+        event.begin();
+        StartupRecorder.BeanTimer timer = getContext().startBeanTimer(this);
+        boolean succeeded = false;
+        try {
+            T result = createBeanInstance(timer);
+            succeeded = true;
+            return result;
+        } finally {
+            timer.stop();
+            if (event.shouldCommit()) {
+                event.beanIdentifier = getIdentifier();
+                event.beanClass = getClazzName();
+                event.scope = getScope();
+                event.succeeded = succeeded;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * @param timer times each phase of the creation if a startup report is being recorded
+     */
+    private T createBeanInstance(final StartupRecorder.BeanTimer timer) throws ContextInitializationException {
         T result = null;
 
         // if the factory method name is given without a factory ID then
         // try to create the bean treating the method as a static method
         if (factoryId == null && factoryMethodName != null) {
-            result = createBeanInstanceUsingStaticFactory();
+            result = createBeanInstanceUsingStaticFactory(timer);
 
         // if the factory ID and the factory method name are given then try
         // to create the bean treating the method as an instance method on the bean
         // identified as the factory
         } else if (factoryId != null && factoryMethodName != null) {
-            result = createBeanInstanceUsingFactory();
+            result = createBeanInstanceUsingFactory(timer);
 
         // if the factory class or the factory ID exist with no method
         // then throw an exception
@@ -166,76 +312,170 @@ public abstract class AbstractBeanInstanceFactory<T>
 
         // If none of factory class, identifier or method are given, create the bean using a constructor
         } else {
-            result = createBeanInstanceUsingConstructor();
+            result = createBeanInstanceUsingConstructor(timer);
         }
 
         // If an initialize method name is given then call that method on the newly created
         // instance. Note that the initialize method is called before the thread is started
         // if the bean is active.
         if (this.initializeMethod != null && this.initializeMethod.length() > 0) {
+            Method initializeMethod = getInitializeMethod();
+            // catch all throwable from this invocation and report it
             try {
-                Method initializeMethod = getValueType().getMethod(this.initializeMethod);
-                // catch all throwable from this invocation and report it
-                try {
-                    initializeMethod.invoke(result);
-                } catch (Throwable t) {
-                    throw new InvalidInitializeMethodException(this.getIdentifier(), this.initializeMethod, t);
-                }
-            } catch (NoSuchMethodException e) {
-                throw new InvalidInitializeMethodException(this.getIdentifier(), this.initializeMethod);
+                initializeMethod.invoke(result);
+            } catch (Throwable t) {
+                throw new InvalidInitializeMethodException(this.getIdentifier(), this.initializeMethod, t);
             }
+            timer.lap(ContextStartupReport.Phase.INITIALIZE_METHOD);
         }
 
-        // if the bean is marked as active and the bean has been created then
-        // if there is a start method specified, call that to activate the instance
-        // if it implements Runnable then start it.
-        // else throw a ContextInitializationException
-        // Note that Thread is not supported so that this class can manage ThreadGroup
-        // membership
-        Thread activeThread = null;
+        // if the bean is marked as active and the bean has been created then start it
         if (active && result != null) {
-            if (activateMethod != null) {
-                String threadName = String.format("ActiveClassifier-%s-%s", this.getIdentifier(), this.activateMethod);
-                activeThread = new Thread(getContext().getContextThreadGroup(),
-                        new StartableInstance(this.getIdentifier(), this.activateMethod, result),
-                        threadName
-                );
-                activeThread.setUncaughtExceptionHandler(
-                        new Thread.UncaughtExceptionHandler() {
-                            @Override
-                            public void uncaughtException(Thread t, Throwable e) {
-                                if (e.getCause() != null && e.getCause() instanceof ContextInitializationException) {
-                                    ContextInitializationException ciX = (ContextInitializationException)e.getCause();
-                                    deferredContextInitializationException(ciX);
-                                }
-                            }
-                        }
-                );
+            activate(result);
+        }
 
-            } else if (Runnable.class.isAssignableFrom(result.getClass())) {
-                Runnable activeBean = (Runnable)result;
-                String threadName = String.format("ActiveClassifier-%s", this.getIdentifier());
-                activeThread = new Thread(getContext().getContextThreadGroup(), activeBean, threadName);
-                getContext().registerActiveBean(activeBean);
+        return result;
+    }
 
-            } else {
-                throw new InvalidActiveClassAttributionException(this.getIdentifier(), this.getClazzName());
-            }
+    /**
+     * Start an instance of an active bean as its execution requires, by default on a thread
+     * of the context ThreadGroup.
+     * If there is a start method specified, call that to activate the instance,
+     * if it implements Runnable then start it, else throw a ContextInitializationException.
+     * Note that Thread is not supported so that this class can manage ThreadGroup
+     * membership
+     *
+     * @param result the bean instance
+     * @throws ContextInitializationException
+     */
+    private void activate(final T result) throws ContextInitializationException {
+        ActiveBeanRunner runner;
+        String threadName;
+        if (activateMethod != null) {
+            threadName = String.format("ActiveClassifier-%s-%s", this.getIdentifier(), this.activateMethod);
+            runner = new ActiveBeanRunner(this.getIdentifier(), result.getClass(),
+                    new StartableInstance(this.getIdentifier(), this.activateMethod, result), result,
+                    this.restartPolicy, "singleton".equals(getScope()));
+
+        } else if (Runnable.class.isAssignableFrom(result.getClass())) {
+            Runnable activeBean = (Runnable)result;
+            threadName = String.format("ActiveClassifier-%s", this.getIdentifier());
+            runner = new ActiveBeanRunner(this.getIdentifier(), result.getClass(), activeBean, result, this.restartPolicy,
+                    "singleton".equals(getScope()));
+            getContext().registerActiveBean(activeBean);
 
-            if (activeThread != null) {
-                activeThread.start();
-            }
+        } else {
+            throw new InvalidActiveClassAttributionException(this.getIdentifier(), this.getClazzName());
         }
 
-        return result;
+        getContext().registerActiveBeanRunner(runner);
+        runner.start(getContext(), getContext().getActiveBeanExecutor(this.activeBeanExecution, threadName));
+    }
+
+    /**
+     * @return true if a before-checkpoint or an after-restore method is named
+     */
+    boolean hasCheckpointMethods() {
+        return (this.beforeCheckpointMethod != null && this.beforeCheckpointMethod.length() > 0)
+                || (this.afterRestoreMethod != null && this.afterRestoreMethod.length() > 0);
+    }
+
+    /**
+     * Call the before-checkpoint method, if one is named, on an instance of this bean.
+     *
+     * @param instance
+     * @throws CheckpointException - if the method does not exist or fails
+     */
+    void beforeCheckpoint(final Object instance) throws CheckpointException {
+        invokeCheckpointMethod(instance, this.beforeCheckpointMethod);
     }
 
     /**
+     * Call the after-restore method, if one is named, on an instance of this bean.
      *
-     * @param ciX
+     * @param instance
+     * @throws CheckpointException - if the method does not exist or fails
+     */
+    void afterRestore(final Object instance) throws CheckpointException {
+        invokeCheckpointMethod(instance, this.afterRestoreMethod);
+    }
+
+    private void invokeCheckpointMethod(final Object instance, final String methodName) throws CheckpointException {
+        if (methodName == null || methodName.length() == 0 || instance == null) {
+            return;
+        }
+        try {
+            instance.getClass().getMethod(methodName).invoke(instance);
+        } catch (InvocationTargetException itX) {
+            throw new CheckpointException(String.format("Method %s of bean %s failed", methodName, getIdentifier()),
+                    itX.getCause());
+        } catch (NoSuchMethodException | IllegalAccessException x) {
+            throw new CheckpointException(String.format("Unable to call method %s of bean %s, the method must be public and take no arguments",
+                    methodName, getIdentifier()), x);
+        }
+    }
+
+    /**
+     * @return true if a finalize method is named
+     */
+    boolean hasFinalizeMethod() {
+        return this.finalizeMethod != null && this.finalizeMethod.length() > 0;
+    }
+
+    /**
+     * @return the instances created by this factory that the context is to finalize when it is
+     *      closed. Only singleton, thread scoped and idle pooled instances are owned by the context.
      */
-    private void deferredContextInitializationException(final ContextInitializationException ciX) {
-        System.err.println(ciX.getMessage());
+    List<T> getCreatedInstances() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Call the finalize method, if one is named, on an instance of this bean.
+     *
+     * @param instance
+     * @throws InvalidFinalizeMethodException - if the method does not exist or fails
+     */
+    void finalizeInstance(final Object instance) throws ContextInitializationException {
+        if (!hasFinalizeMethod() || instance == null) {
+            return;
+        }
+        Method method = this.resolvedFinalizeMethod;
+        if (method == null) {
+            try {
+                method = getValueType().getMethod(this.finalizeMethod);
+            } catch (NoSuchMethodException e) {
+                throw new InvalidFinalizeMethodException(this.getIdentifier(), this.finalizeMethod);
+            }
+            this.resolvedFinalizeMethod = method;
+        }
+        // catch all throwable from this invocation and report it
+        try {
+            method.invoke(instance);
+        } catch (InvocationTargetException itX) {
+            throw new InvalidFinalizeMethodException(this.getIdentifier(), this.finalizeMethod, itX.getCause());
+        } catch (Throwable t) {
+            throw new InvalidFinalizeMethodException(this.getIdentifier(), this.finalizeMethod, t);
+        }
+    }
+
+    /**
+     * Get the initialize method, resolving it on first use.
+     *
+     * @return the initialize method
+     * @throws ContextInitializationException - if the method does not exist
+     */
+    private Method getInitializeMethod() throws ContextInitializationException {
+        Method method = this.resolvedInitializeMethod;
+        if (method == null) {
+            try {
+                method = getValueType().getMethod(this.initializeMethod);
+            } catch (NoSuchMethodException e) {
+                throw new InvalidInitializeMethodException(this.getIdentifier(), this.initializeMethod);
+            }
+            this.resolvedInitializeMethod = method;
+        }
+        return method;
     }
 
     /**
@@ -245,31 +485,41 @@ public abstract class AbstractBeanInstanceFactory<T>
      * @return
      * @throws ContextInitializationException
      */
-    private T createBeanInstanceUsingStaticFactory() throws ContextInitializationException {
-        try {
+    private T createBeanInstanceUsingStaticFactory(final StartupRecorder.BeanTimer timer) throws ContextInitializationException {
+        ExecutableResolution resolution = this.executableResolution;
+        if (resolution == null) {
             final String effectiveFactoryClassName = this.factoryClassName == null ? this.clazzName : this.factoryClassName;
-            Class<?> factoryClass = Class.forName(effectiveFactoryClassName);
-
-            Method factoryMethod = ContextUtility.selectStaticFactoryMethod(factoryClass, this.factoryMethodName, ctorParameters, getValueType());
-            if (factoryMethod != null) {
-                Object[] parameters = createArguments(ctorParameters, factoryMethod.getParameterTypes());
-
-                try {
-                    //detectCircularReferences(this);
-                    T instance = (T) factoryMethod.invoke(null, parameters);
-                    //clearReferences();
+            Class<?> factoryClass = null;
+            try {
+                factoryClass = Class.forName(effectiveFactoryClassName);
+            } catch (ClassNotFoundException e) {
+                throw new InvalidStaticFactoryException(this.beanClass, this.factoryClassName);
+            }
+            Class<T> valueType = getValueType();
+            timer.lap(ContextStartupReport.Phase.CLASS_LOADING);
 
-                    return instance;
-                } catch (ClassCastException | IllegalAccessException  | InvocationTargetException | IllegalArgumentException x) {
-                    throw new FailedToInstantiateBeanException(clazzName, x);
-                }
-            } else {
+            Method factoryMethod = ContextUtility.selectStaticFactoryMethod(factoryClass, this.factoryMethodName, ctorParameters, valueType);
+            if (factoryMethod == null) {
                 throw new InvalidStaticFactoryException(this.beanClass, this.factoryClassName, this.factoryMethodName);
             }
-        } catch (ClassNotFoundException e) {
-            throw new InvalidStaticFactoryException(this.beanClass, this.factoryClassName);
+            resolution = new ExecutableResolution(factoryMethod, factoryClass);
+            this.executableResolution = resolution;
+            timer.lap(ContextStartupReport.Phase.EXECUTABLE_SELECTION);
         }
 
+        Object[] parameters = createArguments(ctorParameters, resolution.getParameterTypes());
+        timer.lap(ContextStartupReport.Phase.ARGUMENTS);
+
+        try {
+            //detectCircularReferences(this);
+            T instance = (T) resolution.getInstantiator(getContext().getInstantiationStrategy()).instantiate(null, parameters);
+            //clearReferences();
+            timer.lap(ContextStartupReport.Phase.INVOCATION);
+
+            return instance;
+        } catch (ClassCastException | InstantiationException | IllegalAccessException  | InvocationTargetException | IllegalArgumentException x) {
+            throw new FailedToInstantiateBeanException(clazzName, x);
+        }
     }
 
     /**
@@ -277,22 +527,37 @@ public abstract class AbstractBeanInstanceFactory<T>
      * @return
      * @throws ContextInitializationException
      */
-    private T createBeanInstanceUsingFactory() throws ContextInitializationException {
+    private T createBeanInstanceUsingFactory(final StartupRecorder.BeanTimer timer) throws ContextInitializationException {
         AbstractProperty<?> factoryBean = this.getContext().getBeanReference(this.factoryId);
 
         if (factoryBean != null) {
-            Method factoryMethod = ContextUtility.selectFactoryMethod(factoryBean.getValue(), this.factoryMethodName, ctorParameters, getValueType());
-            if (factoryMethod != null) {
-                try {
-                    Object[] parameters = createArguments(ctorParameters, factoryMethod.getParameterTypes());
-
-                    Object bean = factoryMethod.invoke(factoryBean.getValue(), parameters);
-                    return (T)bean;
-                } catch (ClassCastException | IllegalAccessException | InvocationTargetException e) {
-                    throw new InvalidFactoryIdentifierException(this.clazzName, this.factoryId, this.factoryMethodName, e);
+            Object factory = factoryBean.getValue();
+            timer.lap(ContextStartupReport.Phase.ARGUMENTS);
+
+            // the selection is valid for as long as the factory bean is of the same class
+            ExecutableResolution resolution = this.executableResolution;
+            if (resolution == null || factory == null || resolution.getFactoryClass() != factory.getClass()) {
+                Class<T> valueType = getValueType();
+                timer.lap(ContextStartupReport.Phase.CLASS_LOADING);
+
+                Method factoryMethod = ContextUtility.selectFactoryMethod(factory, this.factoryMethodName, ctorParameters, valueType);
+                if (factoryMethod == null) {
+                    throw new InvalidFactoryIdentifierException(this.clazzName, this.factoryId, this.factoryMethodName);
                 }
-            } else {
-                throw new InvalidFactoryIdentifierException(this.clazzName, this.factoryId, this.factoryMethodName);
+                resolution = new ExecutableResolution(factoryMethod, factory.getClass());
+                this.executableResolution = resolution;
+                timer.lap(ContextStartupReport.Phase.EXECUTABLE_SELECTION);
+            }
+
+            try {
+                Object[] parameters = createArguments(ctorParameters, resolution.getParameterTypes());
+                timer.lap(ContextStartupReport.Phase.ARGUMENTS);
+
+                Object bean = resolution.getInstantiator(getContext().getInstantiationStrategy()).instantiate(factory, parameters);
+                timer.lap(ContextStartupReport.Phase.INVOCATION);
+                return (T)bean;
+            } catch (ClassCastException | InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                throw new InvalidFactoryIdentifierException(this.clazzName, this.factoryId, this.factoryMethodName, e);
             }
         } else {
             throw new InvalidFactoryIdentifierException(this.clazzName, this.factoryId);
@@ -304,23 +569,33 @@ public abstract class AbstractBeanInstanceFactory<T>
      * @return
      * @throws ContextInitializationException
      */
-    private T createBeanInstanceUsingConstructor() throws ContextInitializationException {
-        //getContextFactory().build();
-        Constructor<?> ctor = ContextUtility.selectConstructor(getValueType(), ctorParameters);
-        if (ctor != null) {
-            Object[] parameters = createArguments(ctorParameters, ctor.getParameterTypes());
+    private T createBeanInstanceUsingConstructor(final StartupRecorder.BeanTimer timer) throws ContextInitializationException {
+        ExecutableResolution resolution = this.executableResolution;
+        if (resolution == null) {
+            Class<T> valueType = getValueType();
+            timer.lap(ContextStartupReport.Phase.CLASS_LOADING);
+
+            Constructor<?> ctor = ContextUtility.selectConstructor(valueType, ctorParameters);
+            if (ctor == null) {
+                throw new NoApplicableConstructorException(valueType, ctorParameters);
+            }
+            resolution = new ExecutableResolution(ctor);
+            this.executableResolution = resolution;
+            timer.lap(ContextStartupReport.Phase.EXECUTABLE_SELECTION);
+        }
 
-            try {
-                //detectCircularReferences(this);
-                T instance = (T) ctor.newInstance(parameters);
-                //clearReferences();
+        Object[] parameters = createArguments(ctorParameters, resolution.getParameterTypes());
+        timer.lap(ContextStartupReport.Phase.ARGUMENTS);
 
-                return instance;
-            } catch (ClassCastException | InstantiationException  | IllegalAccessException  | InvocationTargetException x) {
-                throw new FailedToInstantiateBeanException(clazzName, x);
-            }
-        } else {
-            throw new NoApplicableConstructorException(getValueType(), ctorParameters);
+        try {
+            //detectCircularReferences(this);
+            T instance = (T) resolution.getInstantiator(getContext().getInstantiationStrategy()).instantiate(null, parameters);
+            //clearReferences();
+            timer.lap(ContextStartupReport.Phase.INVOCATION);
+
+            return instance;
+        } catch (ClassCastException | InstantiationException  | IllegalAccessException  | InvocationTargetException | IllegalArgumentException x) {
+            throw new FailedToInstantiateBeanException(clazzName, x);
         }
     }
 
@@ -328,6 +603,8 @@ public abstract class AbstractBeanInstanceFactory<T>
      * Create an array of Object that will constitute a parameter list.
      * Using the given list of AbstractProperty instances, create an Object array
      * whose members can be evaluated as instances of the given parameter types.
+     * If the context injects lazy proxies, a reference to a lazy-load bean from a
+     * parameter whose type is an interface is a proxy that creates the bean when first called.
      *
      * @param orderedParameters
      * @param parameterTypes
@@ -338,7 +615,7 @@ public abstract class AbstractBeanInstanceFactory<T>
             throws ContextInitializationException {
 
         if (orderedParameters == null || orderedParameters.size() == 0) {
-            return new Object[0];
+            return NO_ARGUMENTS;
         }
 
         Object[] parameters = new Object[orderedParameters.size()];
@@ -347,27 +624,48 @@ public abstract class AbstractBeanInstanceFactory<T>
         for (AbstractProperty argument : orderedParameters) {
             Class<?> parameterType = parameterTypes[index];
 
-            parameters[index] = argument.getValue(parameterType);
+            AbstractReferencableProperty<?> lazyBean = getContext().isLazyProxies() && parameterType.isInterface() ?
+                    getLazyBean(argument) : null;
+            if (lazyBean != null && lazyBean.isResolvableAs(parameterType)) {
+                parameters[index] = LazyProxy.create(parameterType, lazyBean);
+            } else {
+                parameters[index] = argument.getValue(parameterType);
+            }
 
             ++index;
         }
         return parameters;
     }
 
+    /**
+     * @return the bean referenced by the argument if it is lazy-load, else null
+     */
+    private static AbstractReferencableProperty<?> getLazyBean(final AbstractProperty<?> argument)
+            throws ContextInitializationException {
+        if (argument instanceof BeanReference) {
+            AbstractReferencableProperty<?> referencedBean = ((BeanReference<?>) argument).getReferencedBean();
+            return referencedBean != null && referencedBean.isLazyLoad() ? referencedBean : null;
+        }
+        return null;
+    }
+
     /** Get the class of the referenced bean */
     public Class<T> getValueType() throws BeanClassNotFoundException {
+        if (beanClass != null) {
+            return beanClass;
+        }
+
         beanClassLock.lock();
         try {
             if (beanClass == null) {
-                ClassLoader artifactClassLoader = getArtifactClassLoader();
-
                 try {
+                    ClassLoader artifactClassLoader = getArtifactClassLoader();
                     if (artifactClassLoader != null) {
                         beanClass = (Class<T>) artifactClassLoader.loadClass(getClazzName());
                     } else {
                         beanClass = (Class<T>) Class.forName(getClazzName());
                     }
-                } catch (ClassCastException | ClassNotFoundException x) {
+                } catch (ClassCastException | ClassNotFoundException | ArtifactLoadException x) {
                     throw new BeanClassNotFoundException(getClazzName(), x);
                 }
             }
@@ -423,6 +721,84 @@ public abstract class AbstractBeanInstanceFactory<T>
                 '}';
     }
 
+    /**
+     * @return the strategy of the instantiator bound to create instances, null if none is bound yet
+     */
+    InstantiationStrategy getBoundInstantiationStrategy() {
+        ExecutableResolution resolution = this.executableResolution;
+        return resolution == null ? null : resolution.getBoundStrategy();
+    }
+
+    /**
+     * The result of selecting the executable used to create bean instances and the
+     * instantiator that invokes it.
+     * The selection is immutable, so that it may be published through a volatile field.
+     * The first instance is created using reflection, the instantiator for the configured
+     * InstantiationStrategy is bound when a second instance is created so that beans
+     * created only once do not pay for binding.
+     */
+    private static final class ExecutableResolution {
+        private final Executable executable;
+        private final Class<?> factoryClass;
+        private final Class<?>[] parameterTypes;
+        private final BeanInstantiator reflectiveInstantiator;
+
+        private volatile boolean instantiated;
+        private volatile BeanInstantiator boundInstantiator;
+
+        ExecutableResolution(final Constructor<?> constructor) {
+            this.executable = constructor;
+            this.factoryClass = null;
+            this.parameterTypes = constructor.getParameterTypes();
+            this.reflectiveInstantiator = BeanInstantiators.reflective(constructor);
+        }
+
+        ExecutableResolution(final Method method, final Class<?> factoryClass) {
+            this.executable = method;
+            this.factoryClass = factoryClass;
+            this.parameterTypes = method.getParameterTypes();
+            this.reflectiveInstantiator = BeanInstantiators.reflective(method);
+        }
+
+        /** the class the factory method was selected from */
+        Class<?> getFactoryClass() {
+            return factoryClass;
+        }
+
+        /** the target type of each argument, in parameter order */
+        Class<?>[] getParameterTypes() {
+            return parameterTypes;
+        }
+
+        /** the strategy of the bound instantiator, null if none is bound yet */
+        InstantiationStrategy getBoundStrategy() {
+            BeanInstantiator instantiator = this.boundInstantiator;
+            return instantiator == null ? null : instantiator.getStrategy();
+        }
+
+        /**
+         * Two threads may both bind an instantiator, either may be retained.
+         *
+         * @param strategy the strategy to bind with if this is not the first instantiation
+         * @return the instantiator to use for this instantiation
+         */
+        BeanInstantiator getInstantiator(final InstantiationStrategy strategy) {
+            BeanInstantiator instantiator = this.boundInstantiator;
+            if (instantiator != null) {
+                return instantiator;
+            }
+            if (!instantiated) {
+                instantiated = true;
+                return reflectiveInstantiator;
+            }
+
+            instantiator = strategy == InstantiationStrategy.REFLECTION ?
+                    reflectiveInstantiator : BeanInstantiators.bind(strategy, executable);
+            this.boundInstantiator = instantiator;
+            return instantiator;
+        }
+    }
+
     /**
      * For bean instances marked as startable and with a start method,
      * instantiate this class as a Runnable wrapper so that the
@@ -42,6 +42,28 @@ implements Comparable<AbstractReferencableProperty> {
      */
     public abstract void initialize() throws ContextInitializationException;
 
+    /**
+     * @return true if the value is not created until it is first referenced, so that
+     *      initialize() does nothing
+     */
+    boolean isLazyLoad() {
+        return false;
+    }
+
+    /**
+     * Stop handing out instances, called when the context is closed before any of its instances
+     * are finalized. Only pooled beans do anything.
+     */
+    void closeInstances() {
+    }
+
+    /**
+     * Release the instances held for the threads that referenced the value, called when the
+     * context is closed. Only thread scoped beans hold any.
+     */
+    void releaseInstances() {
+    }
+
     // =====================================================================================
     // Implementations of compareTo, equals and hashCode based on the identifier field
     // =====================================================================================
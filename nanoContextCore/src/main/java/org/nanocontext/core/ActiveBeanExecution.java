@@ -0,0 +1,19 @@
+package org.nanocontext.core;
+
+/**
+ * How an active bean is run once it is created.
+ * The execution is set for a context when it is built and may be set for a bean
+ * in the context definition, which takes precedence.
+ */
+public enum ActiveBeanExecution {
+    /** A platform thread of its own, in the context ThreadGroup, the default */
+    PLATFORM_THREAD,
+    /**
+     * A thread of a pool shared by the active beans of the context. The pool is bounded, an
+     * active bean started when every thread of the pool is running a bean waits until one
+     * of those beans returns, its status is WAITING until then.
+     */
+    POOL,
+    /** A virtual thread of its own where the runtime supports them (JDK 21), else a platform thread */
+    VIRTUAL_THREAD
+}
@@ -0,0 +1,410 @@
+package org.nanocontext.core;
+
+import org.nanocontext.core.events.ActiveBeanStartEvent;
+import org.nanocontext.core.events.ActiveBeanStopEvent;
+import org.nanocontext.core.exceptions.CheckpointException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs an active bean, on the thread given to it by the execution of the bean, recording
+ * the start and the stop of the bean as Flight Recorder events.
+ * The runner knows the thread that is running the bean, if any, so that the bean may be
+ * interrupted and waited for however it is executed.
+ * The runner supervises the bean, when the bean returns or throws it is run again, after
+ * a delay, if its RestartPolicy requires.
+ * An active bean that implements ActiveBean may be parked before a checkpoint of the
+ * runtime, by shutting it down, and resumed after the restore by running it again.
+ * Each failure of the bean is logged once, by the runner, rather than by the thread.
+ */
+final class ActiveBeanRunner implements Runnable, ActiveBeanStatus {
+    private final static Logger LOGGER = LoggerFactory.getLogger(ActiveBeanRunner.class);
+
+    private final String identifier;
+    private final Class<?> beanClass;
+    private final Runnable activeBean;
+    private final Object bean;
+    /** the bean instance, if it implements ActiveBean, else null */
+    private final ActiveBean parkableBean;
+    private final RestartPolicy restartPolicy;
+    /** false if the context drops the runner once the bean is neither running nor to be restarted */
+    private final boolean retained;
+
+    private Context context;
+    private Executor executor;
+    private boolean parked = false;
+    /** true while the bean is parked, or being parked, when the context keeps the runner to resume it */
+    private boolean parking = false;
+
+    /** guards the state below, signalled when the bean is no longer pending */
+    private final ReentrantLock stateLock = new ReentrantLock();
+    private final Condition terminated = stateLock.newCondition();
+    /** true from the time the bean is given to the executor until it is neither running nor to be restarted */
+    private boolean pending = false;
+    /** true once the bean is interrupted or parked, until it is run again, a stopping bean is not restarted */
+    private boolean stopping = false;
+    /** the thread running the bean, null if the bean is not running */
+    private Thread runningThread;
+    private State state = State.STOPPED;
+    private int restartCount = 0;
+    /** the restarts since a run of the bean lasted at least the maximum delay of the restart policy */
+    private int consecutiveRestarts = 0;
+    private int failureCount = 0;
+    private Throwable lastFailure;
+
+    /**
+     * @param identifier the identifier of the bean
+     * @param beanClass the class of the bean
+     * @param activeBean runs the bean, either the bean itself or a wrapper that calls its activate method
+     * @param bean the bean instance
+     * @param restartPolicy when the bean is run again, NEVER if null
+     * @param retained true if the bean is a singleton, the runner of any other bean is dropped by the
+     *                 context once the bean is neither running nor to be restarted
+     */
+    ActiveBeanRunner(final String identifier, final Class<?> beanClass, final Runnable activeBean, final Object bean,
+                     final RestartPolicy restartPolicy, final boolean retained) {
+        this.identifier = identifier;
+        this.beanClass = beanClass;
+        this.activeBean = activeBean;
+        this.bean = bean;
+        this.parkableBean = bean instanceof ActiveBean ? (ActiveBean) bean : null;
+        this.restartPolicy = restartPolicy == null ? RestartPolicy.NEVER : restartPolicy;
+        this.retained = retained;
+    }
+
+    /**
+     * Start the bean.
+     *
+     * @param context the context of the bean, which schedules restarts
+     * @param executor runs the bean, a new thread, a pool or a virtual thread, see Context.getActiveBeanExecutor()
+     */
+    void start(final Context context, final Executor executor) {
+        this.context = context;
+        this.executor = executor;
+        submit();
+    }
+
+    private void submit() {
+        this.stateLock.lock();
+        try {
+            this.pending = true;
+            this.stopping = false;
+            // RUNNING once a thread runs the bean, a pool may not have a thread for it
+            this.state = State.WAITING;
+        } finally {
+            this.stateLock.unlock();
+        }
+        this.executor.execute(this);
+    }
+
+    /**
+     * Run the bean again, called by the context once the delay of the restart has elapsed.
+     */
+    void restart() {
+        this.stateLock.lock();
+        try {
+            if (!this.pending || this.stopping) {
+                return;
+            }
+        } finally {
+            this.stateLock.unlock();
+        }
+        try {
+            this.executor.execute(this);
+        } catch (RejectedExecutionException reX) {
+            // the pool has been shut down
+            stop();
+        }
+    }
+
+    /**
+     * @return true if the bean has been started and is either running or to be restarted
+     */
+    boolean isRunning() {
+        this.stateLock.lock();
+        try {
+            return this.pending;
+        } finally {
+            this.stateLock.unlock();
+        }
+    }
+
+    /**
+     * Interrupt the thread running the bean. A bean that is waiting for a thread of a pool,
+     * or to be restarted, is not run again.
+     */
+    void interrupt() {
+        Thread thread = stop();
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Keep the bean from being run again, without interrupting it.
+     *
+     * @return the thread running the bean, null if it is not running
+     */
+    Thread stop() {
+        boolean dropped = false;
+        this.stateLock.lock();
+        try {
+            this.stopping = true;
+            if (this.runningThread == null && this.pending) {
+                dropped = terminate(State.STOPPED);
+            }
+            return this.runningThread;
+        } finally {
+            this.stateLock.unlock();
+            if (dropped) {
+                this.context.unregisterActiveBeanRunner(this);
+            }
+        }
+    }
+
+    /**
+     * Record that the bean is neither running nor to be restarted, called with the state lock held.
+     *
+     * @param finalState STOPPED or FAILED
+     * @return true if the context should drop the runner
+     */
+    private boolean terminate(final State finalState) {
+        this.pending = false;
+        this.state = finalState;
+        this.terminated.signalAll();
+        return !this.retained && !this.parking && this.context != null;
+    }
+
+    /**
+     * Wait for the bean to return, and not be restarted.
+     *
+     * @param timeoutMillis how long to wait
+     * @return true if the bean is not running
+     * @throws InterruptedException
+     */
+    boolean awaitTermination(final long timeoutMillis) throws InterruptedException {
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.stateLock.lock();
+        try {
+            while (this.pending && remainingNanos > 0L) {
+                remainingNanos = this.terminated.awaitNanos(remainingNanos);
+            }
+            return !this.pending;
+        } finally {
+            this.stateLock.unlock();
+        }
+    }
+
+    /**
+     * Shut down the bean and wait for it to return. Does nothing if the bean
+     * does not implement ActiveBean or is no longer running.
+     *
+     * @param timeoutMillis how long to wait for the bean to return
+     * @return true if the bean was parked
+     * @throws CheckpointException - if the bean did not return in time
+     */
+    boolean park(final long timeoutMillis) throws CheckpointException {
+        if (this.parkableBean == null || this.parked || !isRunning()) {
+            return false;
+        }
+        this.stateLock.lock();
+        try {
+            this.parking = true;
+        } finally {
+            this.stateLock.unlock();
+        }
+        stop();
+        this.parkableBean.shutdown();
+        try {
+            if (!awaitTermination(timeoutMillis)) {
+                throw new CheckpointException(String.format("Active bean %s did not stop within %d ms of shutdown",
+                        this.identifier, timeoutMillis));
+            }
+        } catch (InterruptedException iX) {
+            Thread.currentThread().interrupt();
+            throw new CheckpointException(String.format("Interrupted while parking active bean %s", this.identifier), iX);
+        }
+        this.parked = true;
+        return true;
+    }
+
+    /**
+     * Run a parked bean again. Does nothing if the bean is not parked.
+     */
+    void resume() {
+        if (this.parked) {
+            this.parked = false;
+            this.stateLock.lock();
+            try {
+                this.parking = false;
+            } finally {
+                this.stateLock.unlock();
+            }
+            submit();
+        }
+    }
+
+    @Override
+    public void run() {
+        this.stateLock.lock();
+        try {
+            // interrupted, or shut down, while waiting for a thread of a pool or to be restarted
+            if (!this.pending || this.runningThread != null) {
+                return;
+            }
+            this.runningThread = Thread.currentThread();
+            this.state = State.RUNNING;
+        } finally {
+            this.stateLock.unlock();
+        }
+
+        long startNanos = System.nanoTime();
+        Throwable failure = null;
+        try {
+            runBean();
+        } catch (RuntimeException | Error x) {
+            // handled here rather than by the thread, so that the thread of a pool is not lost
+            failure = x;
+        }
+
+        long restartDelayMillis = -1L;
+        boolean dropped = false;
+        this.stateLock.lock();
+        try {
+            this.runningThread = null;
+            if (failure != null) {
+                ++this.failureCount;
+                this.lastFailure = failure;
+            }
+            if (this.pending && !this.stopping && this.restartPolicy.isRestarted(failure != null, this.restartCount)) {
+                if (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) >= this.restartPolicy.getMaxDelayMillis()) {
+                    this.consecutiveRestarts = 0;
+                }
+                restartDelayMillis = this.restartPolicy.getDelayMillis(this.consecutiveRestarts);
+                ++this.consecutiveRestarts;
+                ++this.restartCount;
+                this.state = State.RESTARTING;
+            } else {
+                dropped = terminate(failure != null && !this.stopping ? State.FAILED : State.STOPPED);
+            }
+        } finally {
+            this.stateLock.unlock();
+        }
+
+        if (failure != null) {
+            if (restartDelayMillis >= 0L) {
+                LOGGER.warn("Active bean {} failed, restarting in {} ms", this.identifier, restartDelayMillis, failure);
+            } else {
+                LOGGER.error("Active bean {} failed and is not restarted", this.identifier, failure);
+            }
+        }
+
+        if (restartDelayMillis >= 0L) {
+            this.context.scheduleActiveBeanRestart(this, restartDelayMillis);
+        } else if (dropped) {
+            this.context.unregisterActiveBeanRunner(this);
+        }
+    }
+
+    private void runBean() {
+        ActiveBeanStartEvent startEvent = new ActiveBeanStartEvent();
+        if (startEvent.isEnabled()) {
+            startEvent.beanIdentifier = this.identifier;
+            startEvent.beanClass = this.beanClass;
+            startEvent.commit();
+        }
+
+        ActiveBeanStopEvent stopEvent = new ActiveBeanStopEvent();
+        stopEvent.begin();
+        Throwable failure = null;
+        try {
+            this.activeBean.run();
+        } catch (RuntimeException | Error x) {
+            failure = x;
+            throw x;
+        } finally {
+            if (stopEvent.shouldCommit()) {
+                stopEvent.beanIdentifier = this.identifier;
+                stopEvent.beanClass = this.beanClass;
+                stopEvent.failure = failure == null ? null : failure.toString();
+                stopEvent.commit();
+            }
+        }
+    }
+
+    // ========================================================================================
+    // ActiveBeanStatus
+    // ========================================================================================
+    @Override
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * @return the bean instance
+     */
+    Object getBean() {
+        return bean;
+    }
+
+    @Override
+    public State getState() {
+        this.stateLock.lock();
+        try {
+            return this.state;
+        } finally {
+            this.stateLock.unlock();
+        }
+    }
+
+    @Override
+    public int getRestartCount() {
+        this.stateLock.lock();
+        try {
+            return this.restartCount;
+        } finally {
+            this.stateLock.unlock();
+        }
+    }
+
+    @Override
+    public int getFailureCount() {
+        this.stateLock.lock();
+        try {
+            return this.failureCount;
+        } finally {
+            this.stateLock.unlock();
+        }
+    }
+
+    @Override
+    public Throwable getLastFailure() {
+        this.stateLock.lock();
+        try {
+            return this.lastFailure;
+        } finally {
+            this.stateLock.unlock();
+        }
+    }
+
+    @Override
+    public RestartPolicy getRestartPolicy() {
+        return restartPolicy;
+    }
+
+    @Override
+    public String toString() {
+        return "ActiveBeanStatus{" +
+                "identifier=" + identifier +
+                ", state=" + getState() +
+                ", restartCount=" + getRestartCount() +
+                ", failureCount=" + getFailureCount() +
+                '}';
+    }
+}
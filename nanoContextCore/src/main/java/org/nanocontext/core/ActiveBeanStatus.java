@@ -0,0 +1,48 @@
+package org.nanocontext.core;
+
+/**
+ * The state of an active bean instance, as it is run and restarted by its context.
+ *
+ * @see Context#getActiveBeanStatuses()
+ */
+public interface ActiveBeanStatus {
+    /**
+     * The states of an active bean.
+     */
+    enum State {
+        /** started and waiting for a thread, of a pool that is busy running other beans */
+        WAITING,
+        /** running on a thread, started or restarted, and not yet returned */
+        RUNNING,
+        /** returned or threw and waiting to be run again, as its RestartPolicy requires */
+        RESTARTING,
+        /** returned and not restarted, or shut down */
+        STOPPED,
+        /** threw and not restarted */
+        FAILED
+    }
+
+    /**
+     * @return the identifier of the bean
+     */
+    String getIdentifier();
+
+    State getState();
+
+    /**
+     * @return the number of times the bean has been restarted
+     */
+    int getRestartCount();
+
+    /**
+     * @return the number of times the bean has thrown
+     */
+    int getFailureCount();
+
+    /**
+     * @return what the bean last threw, null if it has not
+     */
+    Throwable getLastFailure();
+
+    RestartPolicy getRestartPolicy();
+}
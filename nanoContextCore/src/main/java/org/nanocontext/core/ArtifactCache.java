@@ -0,0 +1,300 @@
+package org.nanocontext.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * A local directory of copies of remote artifacts, keyed by the artifact URL.
+ * Each artifact is stored as a jar and a properties file recording the ETag,
+ * Last-Modified and SHA-256 digest of the jar.
+ *
+ * A cached copy is used without contacting the server if the expected digest of the artifact
+ * is known and the copy matches it. Otherwise the server is asked for the artifact
+ * conditionally on the recorded ETag and Last-Modified, and the copy is used if the server
+ * reports it is not modified, or if the server cannot be reached.
+ * Files are written to a temporary file and moved into place, so concurrent processes
+ * sharing the directory never see a partially written artifact.
+ *
+ * Classes are loaded from the cached copies, so the directory must be private to the user.
+ * It is created readable and writable by its owner only and, whether created or not, it is
+ * not used unless it is owned by the current user and cannot be written by anyone else.
+ */
+public final class ArtifactCache {
+    /** the system property naming the default cache directory */
+    public static final String CACHE_DIRECTORY_PROPERTY = "nanocontext.artifact.cache";
+
+    private static final String ETAG = "etag";
+    private static final String LAST_MODIFIED = "last-modified";
+    private static final String SHA256 = "sha256";
+
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ArtifactCache.class);
+
+    private final Path directory;
+    /** set once the directory is known to exist and to be private to the current user */
+    private volatile boolean directoryVerified = false;
+
+    /**
+     * @param directory the cache directory, created when first needed
+     */
+    public ArtifactCache(final Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * The cache in the directory named by the nanocontext.artifact.cache system property or,
+     * if that is not set, nanocontext/artifacts in the cache directory of the user,
+     * XDG_CACHE_HOME or ~/.cache.
+     *
+     * @return the default cache
+     */
+    public static ArtifactCache defaultCache() {
+        String directory = System.getProperty(CACHE_DIRECTORY_PROPERTY);
+        if (directory == null) {
+            String cachePath = System.getenv("XDG_CACHE_HOME") == null ?
+                    Paths.get(System.getProperty("user.home"), ".cache").toString() : System.getenv("XDG_CACHE_HOME");
+            return new ArtifactCache(Paths.get(cachePath, "nanocontext", "artifacts"));
+        }
+        return new ArtifactCache(Paths.get(directory));
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Get a validated local copy of the artifact at the given location.
+     *
+     * @param location the remote location of the artifact
+     * @param expectedSha256 the hex encoded SHA-256 digest of the artifact, or null if not known
+     * @return the path of the local copy
+     * @throws IOException - if there is no usable copy, the artifact does not match the expected digest
+     *      or the cache directory is not private to the current user
+     */
+    public Path fetch(final URL location, final String expectedSha256) throws IOException {
+        final String key = toHex(sha256(location.toExternalForm().getBytes(StandardCharsets.UTF_8)));
+        final Path cachedArtifact = directory.resolve(key + ".jar");
+        final Path cachedMetadata = directory.resolve(key + ".properties");
+        verifyDirectory();
+
+        final Properties metadata = readMetadata(cachedArtifact, cachedMetadata);
+        final String cachedSha256 = metadata.getProperty(SHA256);
+
+        // a copy that matches the expected digest is valid whatever the server has
+        if (expectedSha256 != null && expectedSha256.equalsIgnoreCase(cachedSha256)) {
+            LOGGER.debug("Using cached copy of {}, digest matches", location);
+            return cachedArtifact;
+        }
+
+        try {
+            URLConnection connection = location.openConnection();
+            HttpURLConnection httpConnection = connection instanceof HttpURLConnection ? (HttpURLConnection) connection : null;
+            if (httpConnection != null && expectedSha256 == null && cachedSha256 != null) {
+                if (metadata.getProperty(ETAG) != null) {
+                    httpConnection.setRequestProperty("If-None-Match", metadata.getProperty(ETAG));
+                }
+                if (metadata.getProperty(LAST_MODIFIED) != null) {
+                    httpConnection.setRequestProperty("If-Modified-Since", metadata.getProperty(LAST_MODIFIED));
+                }
+            }
+
+            if (httpConnection != null) {
+                int responseCode = httpConnection.getResponseCode();
+                if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && cachedSha256 != null) {
+                    LOGGER.debug("Using cached copy of {}, not modified", location);
+                    return cachedArtifact;
+                }
+                if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED || responseCode >= HttpURLConnection.HTTP_BAD_REQUEST) {
+                    throw new IOException(String.format("HTTP %d fetching %s", responseCode, location));
+                }
+            }
+
+            String sha256 = download(connection, cachedArtifact, expectedSha256);
+
+            Properties updatedMetadata = new Properties();
+            updatedMetadata.setProperty(SHA256, sha256);
+            if (connection.getHeaderField("ETag") != null) {
+                updatedMetadata.setProperty(ETAG, connection.getHeaderField("ETag"));
+            }
+            if (connection.getHeaderField("Last-Modified") != null) {
+                updatedMetadata.setProperty(LAST_MODIFIED, connection.getHeaderField("Last-Modified"));
+            }
+            writeMetadata(updatedMetadata, cachedMetadata, key);
+
+            return cachedArtifact;
+        } catch (IOException ioX) {
+            // a copy validated when it was written is better than no artifact, unless
+            // the expected digest is known, in which case the copy did not match it
+            if (expectedSha256 == null && cachedSha256 != null) {
+                LOGGER.warn("Unable to fetch " + location + ", using cached copy", ioX);
+                return cachedArtifact;
+            }
+            throw ioX;
+        }
+    }
+
+    /**
+     * Create the directory, if it does not exist, accessible by the current user only, and
+     * check that it is owned by the current user and not writable by anyone else, so that no
+     * other user can have their classes loaded by replacing a cached copy and its metadata.
+     *
+     * @throws IOException - if the directory cannot be created or is not private to the current user
+     */
+    private void verifyDirectory() throws IOException {
+        if (directoryVerified) {
+            return;
+        }
+        boolean posix = directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+        if (!Files.isDirectory(directory, LinkOption.NOFOLLOW_LINKS)) {
+            if (posix) {
+                Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+            } else {
+                Files.createDirectories(directory);
+            }
+        }
+
+        UserPrincipal currentUser = directory.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        UserPrincipal owner = Files.getOwner(directory, LinkOption.NOFOLLOW_LINKS);
+        if (!owner.equals(currentUser)) {
+            throw new IOException(String.format("Artifact cache directory %s is owned by %s, not the current user %s",
+                    directory, owner.getName(), currentUser.getName()));
+        }
+        if (posix) {
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(directory, LinkOption.NOFOLLOW_LINKS);
+            if (permissions.contains(PosixFilePermission.GROUP_WRITE) || permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+                throw new IOException(String.format("Artifact cache directory %s is writable by other users (%s)",
+                        directory, PosixFilePermissions.toString(permissions)));
+            }
+        }
+        directoryVerified = true;
+    }
+
+    /**
+     * Copy the content of the connection to the target, replacing it atomically once
+     * the content is known to match the expected digest.
+     *
+     * @param expectedSha256 the hex encoded SHA-256 digest of the content, or null if not known
+     * @return the hex encoded SHA-256 digest of the content
+     */
+    private String download(final URLConnection connection, final Path target, final String expectedSha256) throws IOException {
+        Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            MessageDigest digest = newDigest();
+            try (InputStream contentStream = new DigestInputStream(connection.getInputStream(), digest)) {
+                Files.copy(contentStream, temporary, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String sha256 = toHex(digest.digest());
+            if (expectedSha256 != null && !expectedSha256.equalsIgnoreCase(sha256)) {
+                throw new IOException(String.format("SHA-256 of %s is %s, expected %s", connection.getURL(), sha256, expectedSha256));
+            }
+            moveIntoPlace(temporary, target);
+            return sha256;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * @return the recorded metadata of the cached artifact, empty if the artifact is not
+     *      cached or does not match its recorded digest
+     */
+    private static Properties readMetadata(final Path cachedArtifact, final Path cachedMetadata) {
+        Properties metadata = new Properties();
+        if (!Files.isRegularFile(cachedArtifact) || !Files.isRegularFile(cachedMetadata)) {
+            return metadata;
+        }
+
+        try (InputStream metadataStream = Files.newInputStream(cachedMetadata)) {
+            metadata.load(metadataStream);
+            if (!toHex(sha256(cachedArtifact)).equalsIgnoreCase(metadata.getProperty(SHA256))) {
+                LOGGER.debug("Cached copy {} does not match its recorded digest", cachedArtifact);
+                metadata.clear();
+            }
+        } catch (IOException ioX) {
+            LOGGER.debug("Unable to read cached copy " + cachedArtifact, ioX);
+            metadata.clear();
+        }
+        return metadata;
+    }
+
+    private void writeMetadata(final Properties metadata, final Path target, final String key) throws IOException {
+        Path temporary = Files.createTempFile(directory, key, ".tmp");
+        try {
+            try (OutputStream metadataStream = Files.newOutputStream(temporary)) {
+                metadata.store(metadataStream, null);
+            }
+            moveIntoPlace(temporary, target);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void moveIntoPlace(final Path source, final Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException amnsX) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** digest a file through a read only mapping of it */
+    private static byte[] sha256(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MessageDigest digest = newDigest();
+            long size = channel.size();
+            for (long position = 0; position < size; position += Integer.MAX_VALUE) {
+                MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(Integer.MAX_VALUE, size - position));
+                digest.update(mapping);
+            }
+            return digest.digest();
+        }
+    }
+
+    private static byte[] sha256(final byte[] content) {
+        return newDigest().digest(content);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException nsaX) {
+            // every Java platform implementation is required to support SHA-256
+            throw new IllegalStateException(nsaX);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
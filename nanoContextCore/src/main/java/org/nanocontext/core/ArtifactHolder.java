@@ -1,14 +1,25 @@
 package org.nanocontext.core;
 
+import org.nanocontext.core.events.ArtifactClassLoaderEvent;
+import org.nanocontext.core.exceptions.ArtifactLoadException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -18,10 +29,23 @@ import java.util.concurrent.locks.ReentrantLock;
 public class ArtifactHolder {
     private final String identifier;
     private final ClassLoader parentClassLoader;
-    private URLClassLoader classLoader;
+    private volatile URLClassLoader classLoader;
     private final URI resourceIdentifier;
+    private final URL artifactLocation;
+
+    /** the expected SHA-256 digest of a remote artifact, hex encoded, may be null */
+    private final String sha256;
+
+    /** where remote artifacts are copied to, if null a temporary file is used */
+    private final ArtifactCache artifactCache;
+
+    /** the local copy of a remote artifact, if prefetch() was called */
+    private volatile CompletableFuture<Path> prefetched = null;
     private boolean loaded = false;
 
+    /** records the time of loading the artifact, if the context is recording a startup report */
+    private volatile StartupRecorder startupRecorder = null;
+
     private final ReentrantLock loadedLock = new ReentrantLock();
     private final Condition notLoaded  = loadedLock.newCondition();
 
@@ -36,14 +60,31 @@ public class ArtifactHolder {
      */
     public ArtifactHolder(final String identifier, final URI resourceIdentifier, final ClassLoader parentClassLoader)
             throws MalformedURLException {
+        this(identifier, resourceIdentifier, null, parentClassLoader, null);
+    }
+
+    /**
+     *
+     * @param identifier
+     * @param resourceIdentifier
+     * @param sha256 the expected SHA-256 digest of a remote artifact, hex encoded, or null
+     * @param parentClassLoader
+     * @param artifactCache where a remote artifact is copied to, or null to copy to a temporary file
+     * @throws MalformedURLException
+     */
+    public ArtifactHolder(final String identifier, final URI resourceIdentifier, final String sha256,
+                          final ClassLoader parentClassLoader, final ArtifactCache artifactCache)
+            throws MalformedURLException {
         this.identifier = identifier;
         this.resourceIdentifier = resourceIdentifier;
+        this.sha256 = sha256;
         this.parentClassLoader = parentClassLoader;
+        this.artifactCache = artifactCache;
 
-        URL artifactLocation = this.resourceIdentifier.toURL();
+        this.artifactLocation = this.resourceIdentifier.toURL();
 
         if ("http".equals(artifactLocation.getProtocol()) || "https".equals(artifactLocation.getProtocol())) {
-            String tempPath = System.getenv("TMPDIR");
+            String tempPath = System.getenv("TMPDIR") == null ? System.getProperty("java.io.tmpdir") : System.getenv("TMPDIR");
             File tempDirectory = new File(tempPath);
             LOGGER.debug("Application "
                     + (tempDirectory.canRead() ? "CAN read" : "CANNOT read")
@@ -53,8 +94,6 @@ public class ArtifactHolder {
                     + tempPath
             );
         }
-
-        this.classLoader = URLClassLoader.newInstance(new URL[]{artifactLocation}); // , parentClassLoader, null
     }
 
 
@@ -63,11 +102,156 @@ public class ArtifactHolder {
     }
 
     /**
+     * @return true if the artifact is loaded over the network
+     */
+    public boolean isRemote() {
+        return "http".equals(artifactLocation.getProtocol()) || "https".equals(artifactLocation.getProtocol());
+    }
+
+    /**
+     * Called by the Context if it is recording a startup report.
+     *
+     * @param startupRecorder
+     */
+    void setStartupRecorder(final StartupRecorder startupRecorder) {
+        this.startupRecorder = startupRecorder;
+    }
+
+    private StartupRecorder.ResourceTimer startTimer(final boolean prefetch) {
+        StartupRecorder recorder = this.startupRecorder;
+        return recorder == null ?
+                StartupRecorder.ResourceTimer.NONE :
+                recorder.startResource(ContextStartupReport.ResourceKind.ARTIFACT,
+                        this.identifier, this.artifactLocation.toString(), prefetch);
+    }
+
+    /**
+     * Start copying the artifact to the artifact cache, or a local temporary file, on the
+     * given executor. getClassLoader() waits for the copy to complete and loads classes from it.
+     *
+     * @param executor the executor to copy on
+     */
+    public void prefetch(final Executor executor) {
+        if (this.classLoader != null || this.prefetched != null) {
+            return;
+        }
+        this.prefetched = CompletableFuture.supplyAsync(() -> {
+            StartupRecorder.ResourceTimer timer = startTimer(true);
+            try {
+                return copyToLocalFile();
+            } catch (IOException ioX) {
+                throw new CompletionException(ioX);
+            } finally {
+                timer.stop();
+            }
+        }, executor);
+    }
+
+    private Path copyToLocalFile() throws IOException {
+        if (this.artifactCache != null) {
+            return this.artifactCache.fetch(this.artifactLocation, this.sha256);
+        }
+
+        Path localCopy = Files.createTempFile("nanocontext-artifact-", ".jar");
+        localCopy.toFile().deleteOnExit();
+        try (InputStream artifactStream = artifactLocation.openStream()) {
+            Files.copy(artifactStream, localCopy, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return localCopy;
+    }
+
+    /**
+     * The ClassLoader is created on first use. Classes of a remote artifact are loaded
+     * from a local copy, waiting for the copy if the artifact is being prefetched.
+     * If no local copy can be made, classes are loaded from the original location unless
+     * an expected digest was given.
      *
      * @return
+     * @throws ArtifactLoadException - if the artifact does not match the expected digest, or
+     *      could not be fetched and an expected digest was given
      */
-    public URLClassLoader getClassLoader() {
-        return classLoader;
+    public URLClassLoader getClassLoader() throws ArtifactLoadException {
+        URLClassLoader result = this.classLoader;
+        if (result != null) {
+            return result;
+        }
+
+        loadedLock.lock();
+        try {
+            if (this.classLoader == null) {
+                ArtifactClassLoaderEvent event = new ArtifactClassLoaderEvent();
+                event.begin();
+                // the time of a prefetched artifact was recorded as it was fetched
+                StartupRecorder.ResourceTimer timer = this.prefetched == null ?
+                        startTimer(false) :
+                        StartupRecorder.ResourceTimer.NONE;
+                try {
+                    this.classLoader = isRemote() ?
+                            createRemoteArtifactClassLoader() :
+                            createLocalArtifactClassLoader();
+                } finally {
+                    timer.stop();
+                    if (event.shouldCommit()) {
+                        event.artifactIdentifier = this.identifier;
+                        event.location = this.artifactLocation.toString();
+                        event.remote = isRemote();
+                        event.prefetched = this.prefetched != null;
+                        event.commit();
+                    }
+                }
+            }
+            return this.classLoader;
+        } finally {
+            loadedLock.unlock();
+        }
+    }
+
+    /**
+     * A local jar is read through a ReleasableJarClassLoader so that it may be closed before a
+     * checkpoint, anything else (i.e. a directory) through a URLClassLoader.
+     */
+    private URLClassLoader createLocalArtifactClassLoader() throws ArtifactLoadException {
+        if ("file".equals(this.artifactLocation.getProtocol())) {
+            try {
+                Path localJar = Paths.get(this.resourceIdentifier);
+                if (Files.isRegularFile(localJar)) {
+                    return new ReleasableJarClassLoader(localJar);
+                }
+            } catch (IllegalArgumentException | MalformedURLException x) {
+                // not a path in the default file system, loaded by a URLClassLoader
+            }
+        }
+        return URLClassLoader.newInstance(new URL[]{this.artifactLocation}); // , parentClassLoader, null
+    }
+
+    private URLClassLoader createRemoteArtifactClassLoader() throws ArtifactLoadException {
+        try {
+            CompletableFuture<Path> prefetched = this.prefetched;
+            Path localCopy = prefetched == null ? copyToLocalFile() : prefetched.join();
+            return new MappedJarClassLoader(localCopy);
+        } catch (IOException | CompletionException x) {
+            Throwable cause = x instanceof CompletionException ? x.getCause() : x;
+            if (this.sha256 != null) {
+                throw new ArtifactLoadException(this.artifactLocation, cause);
+            }
+            LOGGER.warn("Failed to copy artifact " + this.identifier + " from " + this.artifactLocation
+                    + ", loading from the original location", cause);
+            return URLClassLoader.newInstance(new URL[]{this.artifactLocation});
+        }
+    }
+
+    /**
+     * Close the file handle of the artifact before a checkpoint of the runtime, the artifact is
+     * reopened when a class or resource is next loaded from it. Does nothing if the class loader
+     * has not been created or is not over a local jar.
+     *
+     * @throws IOException - if the artifact cannot be closed
+     */
+    void release() throws IOException {
+        URLClassLoader loader = this.classLoader;
+        if (loader instanceof ReleasableJarClassLoader) {
+            ((ReleasableJarClassLoader) loader).release();
+        }
     }
 
     @Override
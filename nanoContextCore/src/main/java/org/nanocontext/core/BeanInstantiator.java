@@ -0,0 +1,25 @@
+package org.nanocontext.core;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Invokes a selected constructor or factory method.
+ * Implementations report failures as reflection does, in particular an exception
+ * thrown by the constructor or factory method is wrapped in an InvocationTargetException.
+ *
+ * @see BeanInstantiators
+ */
+interface BeanInstantiator {
+    /**
+     * @param factory the factory instance for instance factory methods, else ignored
+     * @param arguments the arguments, in parameter order
+     * @return the new bean instance
+     */
+    Object instantiate(Object factory, Object[] arguments)
+            throws InstantiationException, IllegalAccessException, InvocationTargetException;
+
+    /**
+     * @return the strategy this instantiator implements
+     */
+    InstantiationStrategy getStrategy();
+}
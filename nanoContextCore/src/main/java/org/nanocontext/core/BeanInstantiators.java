@@ -0,0 +1,259 @@
+package org.nanocontext.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Creates BeanInstantiator implementations for a selected constructor or factory method.
+ */
+final class BeanInstantiators {
+    private final static Logger LOGGER = LoggerFactory.getLogger(BeanInstantiators.class);
+
+    /** generated classes are defined as members of this class, it needs full privilege access */
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /** discourage construction */
+    private BeanInstantiators() {}
+
+    /**
+     * Create an instantiator using reflection.
+     *
+     * @param executable a Constructor or Method
+     * @return a reflective instantiator
+     */
+    static BeanInstantiator reflective(final Executable executable) {
+        if (executable instanceof Constructor) {
+            final Constructor<?> ctor = (Constructor<?>) executable;
+            return new ReflectiveInstantiator() {
+                @Override
+                public Object instantiate(final Object factory, final Object[] arguments)
+                        throws InstantiationException, IllegalAccessException, InvocationTargetException {
+                    return ctor.newInstance(arguments);
+                }
+            };
+        } else {
+            final Method method = (Method) executable;
+            final boolean isStatic = Modifier.isStatic(method.getModifiers());
+            return new ReflectiveInstantiator() {
+                @Override
+                public Object instantiate(final Object factory, final Object[] arguments)
+                        throws IllegalAccessException, InvocationTargetException {
+                    return method.invoke(isStatic ? null : factory, arguments);
+                }
+            };
+        }
+    }
+
+    /**
+     * Create an instantiator using the given strategy, or the closest one that can be
+     * applied to the executable.
+     *
+     * @param strategy the preferred strategy
+     * @param executable a Constructor or Method
+     * @return an instantiator
+     */
+    static BeanInstantiator bind(final InstantiationStrategy strategy, final Executable executable) {
+        if (strategy == InstantiationStrategy.GENERATED) {
+            try {
+                BeanInstantiator generated = generated(executable);
+                if (generated != null) {
+                    return generated;
+                }
+            } catch (Throwable t) {
+                LOGGER.debug("Unable to generate an instantiator for {}, using a MethodHandle", executable, t);
+            }
+        }
+
+        if (strategy == InstantiationStrategy.GENERATED || strategy == InstantiationStrategy.METHOD_HANDLE) {
+            try {
+                return methodHandle(executable);
+            } catch (IllegalAccessException | RuntimeException x) {
+                LOGGER.debug("Unable to bind a MethodHandle for {}, using reflection", executable, x);
+            }
+        }
+
+        return reflective(executable);
+    }
+
+    /**
+     * @param executable a Constructor or Method
+     * @return a direct method handle of the executable, for instance methods the receiver is the first parameter
+     */
+    private static MethodHandle unreflect(final Executable executable) throws IllegalAccessException {
+        return executable instanceof Constructor ?
+                LOOKUP.unreflectConstructor((Constructor<?>) executable) :
+                LOOKUP.unreflect((Method) executable);
+    }
+
+    private static boolean isInstanceMethod(final Executable executable) {
+        return executable instanceof Method && !Modifier.isStatic(executable.getModifiers());
+    }
+
+    /**
+     * Bind a MethodHandle to the executable, adapted to take the factory and an argument array.
+     */
+    static BeanInstantiator methodHandle(final Executable executable) throws IllegalAccessException {
+        MethodHandle handle = unreflect(executable);
+        final int argumentCount = executable.getParameterCount();
+        final boolean instanceMethod = isInstanceMethod(executable);
+
+        // (Object, Object...)Object for instance methods, (Object...)Object otherwise
+        handle = handle.asType(MethodType.genericMethodType(handle.type().parameterCount()))
+                .asSpreader(Object[].class, argumentCount);
+        if (!instanceMethod) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        final MethodHandle invoker = handle;
+
+        return new BeanInstantiator() {
+            @Override
+            public Object instantiate(final Object factory, final Object[] arguments) throws InvocationTargetException {
+                try {
+                    return (Object) invoker.invokeExact(factory, arguments);
+                } catch (Throwable t) {
+                    throw new InvocationTargetException(t);
+                }
+            }
+
+            @Override
+            public InstantiationStrategy getStrategy() {
+                return InstantiationStrategy.METHOD_HANDLE;
+            }
+        };
+    }
+
+    /**
+     * Generate a Supplier, Function or BiFunction that calls the executable directly.
+     *
+     * @return the generated instantiator, or null if the executable takes too many parameters
+     *      or refers to classes that are not visible from the nanoContext class loader
+     */
+    static BeanInstantiator generated(final Executable executable) throws Throwable {
+        final MethodHandle implementation = unreflect(executable);
+        final MethodType implementationType = implementation.type();
+        final int arity = implementationType.parameterCount();
+
+        if (arity > 2 || !isVisible(implementationType)) {
+            return null;
+        }
+
+        // the lambda presents primitive parameters and result as their wrapper types
+        final MethodType instantiatedType = implementationType.wrap();
+        final boolean instanceMethod = isInstanceMethod(executable);
+
+        switch (arity) {
+            case 0: {
+                final Supplier<Object> supplier = (Supplier<Object>) metafactory(
+                        "get", Supplier.class, MethodType.genericMethodType(0), implementation, instantiatedType);
+                return new GeneratedInstantiator() {
+                    @Override
+                    Object invoke(final Object factory, final Object[] arguments) {
+                        return supplier.get();
+                    }
+                };
+            }
+            case 1: {
+                final Function<Object, Object> function = (Function<Object, Object>) metafactory(
+                        "apply", Function.class, MethodType.genericMethodType(1), implementation, instantiatedType);
+                return new GeneratedInstantiator() {
+                    @Override
+                    Object invoke(final Object factory, final Object[] arguments) {
+                        return function.apply(instanceMethod ? factory : arguments[0]);
+                    }
+                };
+            }
+            default: {
+                final BiFunction<Object, Object, Object> biFunction = (BiFunction<Object, Object, Object>) metafactory(
+                        "apply", BiFunction.class, MethodType.genericMethodType(2), implementation, instantiatedType);
+                return new GeneratedInstantiator() {
+                    @Override
+                    Object invoke(final Object factory, final Object[] arguments) {
+                        return instanceMethod ?
+                                biFunction.apply(factory, arguments[0]) :
+                                biFunction.apply(arguments[0], arguments[1]);
+                    }
+                };
+            }
+        }
+    }
+
+    private static Object metafactory(
+            final String interfaceMethodName, final Class<?> functionalInterface, final MethodType interfaceMethodType,
+            final MethodHandle implementation, final MethodType instantiatedType) throws Throwable {
+        CallSite callSite = LambdaMetafactory.metafactory(
+                LOOKUP,
+                interfaceMethodName,
+                MethodType.methodType(functionalInterface),
+                interfaceMethodType,
+                implementation,
+                instantiatedType);
+        return callSite.getTarget().invoke();
+    }
+
+    /**
+     * The generated class is defined by the nanoContext class loader and refers to the
+     * executable's classes by name, so those must resolve to the same classes from there.
+     * Classes loaded from an artifact usually do not.
+     */
+    private static boolean isVisible(final MethodType type) {
+        if (!isVisible(type.returnType())) {
+            return false;
+        }
+        for (Class<?> parameterType : type.parameterArray()) {
+            if (!isVisible(parameterType)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isVisible(final Class<?> clazz) {
+        if (clazz.isPrimitive()) {
+            return true;
+        }
+        try {
+            return Class.forName(clazz.getName(), false, BeanInstantiators.class.getClassLoader()) == clazz;
+        } catch (ClassNotFoundException | LinkageError x) {
+            return false;
+        }
+    }
+
+    private abstract static class ReflectiveInstantiator implements BeanInstantiator {
+        @Override
+        public InstantiationStrategy getStrategy() {
+            return InstantiationStrategy.REFLECTION;
+        }
+    }
+
+    private abstract static class GeneratedInstantiator implements BeanInstantiator {
+        abstract Object invoke(Object factory, Object[] arguments);
+
+        @Override
+        public final Object instantiate(final Object factory, final Object[] arguments) throws InvocationTargetException {
+            try {
+                return invoke(factory, arguments);
+            } catch (Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+
+        @Override
+        public InstantiationStrategy getStrategy() {
+            return InstantiationStrategy.GENERATED;
+        }
+    }
+}
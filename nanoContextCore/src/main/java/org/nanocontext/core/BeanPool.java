@@ -0,0 +1,75 @@
+package org.nanocontext.core;
+
+import org.nanocontext.core.exceptions.ContextInitializationException;
+
+/**
+ * The pool of instances of a pooled bean, and its metrics.
+ * An instance is borrowed for as long as its PooledBean handle is open, closing the handle
+ * resets the instance and returns it to the pool.
+ * <pre>
+ * try (PooledBean&lt;Buffer&gt; buffer = ctx.borrowBean("buffer", Buffer.class)) {
+ *     buffer.get().write(...);
+ * }
+ * </pre>
+ *
+ * @see Context#getBeanPool(String, Class)
+ */
+public interface BeanPool<T> {
+    /**
+     * @return the identifier of the bean
+     */
+    String getIdentifier();
+
+    PoolPolicy getPoolPolicy();
+
+    /**
+     * Borrow an instance, an idle instance if there is one, else a new instance if fewer than the
+     * maximum are borrowed, else the first instance returned within the maximum wait.
+     *
+     * @return the handle of the instance, close it to return the instance
+     * @throws ContextInitializationException - if an instance cannot be created,
+     *      BeanPoolExhaustedException if none is returned within the maximum wait,
+     *      BeanPoolClosedException if the context has been closed
+     */
+    PooledBean<T> borrow() throws ContextInitializationException;
+
+    /**
+     * @return the number of borrows served by an idle instance
+     */
+    long getHits();
+
+    /**
+     * @return the number of borrows that created an instance
+     */
+    long getMisses();
+
+    /**
+     * @return the number of borrows that waited for an instance to be returned
+     */
+    long getWaits();
+
+    /**
+     * @return the total time borrows waited for an instance to be returned, in nanoseconds
+     */
+    long getWaitNanos();
+
+    /**
+     * @return the number of borrows that failed because no instance was returned within the maximum wait
+     */
+    long getTimeouts();
+
+    /**
+     * @return the number of instances discarded because the reset method failed
+     */
+    long getDiscarded();
+
+    /**
+     * @return the number of instances in the pool, not borrowed
+     */
+    int getIdleCount();
+
+    /**
+     * @return the number of instances borrowed and not yet returned
+     */
+    int getBorrowedCount();
+}
@@ -44,7 +44,7 @@ public final class BeanReference<T> extends AbstractProperty<T> {
      * @return
      * @throws ContextInitializationException
      */
-    private AbstractReferencableProperty getReferencedBean()
+    AbstractReferencableProperty getReferencedBean()
             throws ContextInitializationException {
 
         // search through the hierarchy of parent contexts, starting with the current
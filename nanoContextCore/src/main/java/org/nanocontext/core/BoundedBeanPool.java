@@ -0,0 +1,241 @@
+package org.nanocontext.core;
+
+import org.nanocontext.core.exceptions.BeanPoolClosedException;
+import org.nanocontext.core.exceptions.BeanPoolExhaustedException;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A BeanPool bounded by a Semaphore with a permit for each instance that may be borrowed.
+ * The idle instances are kept in a lock-free deque, last returned first borrowed so that
+ * the instances in use stay warm in the processor caches, and the metrics are LongAdders,
+ * so borrowers that do not have to wait do not contend on a lock.
+ * The pool never holds more than the maximum number of instances, an instance is only
+ * created by a borrow that holds a permit and finds no idle instance.
+ * Once closed with its context the pool lends no instance, and an instance returned to it
+ * is finalized rather than kept.
+ */
+final class BoundedBeanPool<T> implements BeanPool<T> {
+    private final static Logger LOGGER = LoggerFactory.getLogger(BoundedBeanPool.class);
+
+    private final PooledBeanInstanceFactory<T> factory;
+    private final PoolPolicy poolPolicy;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<T> idle = new ConcurrentLinkedDeque<>();
+    private volatile boolean closed = false;
+    /** the idle instances when the pool was closed, until the context releases them */
+    private volatile List<T> closedInstances = Collections.emptyList();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+
+    BoundedBeanPool(final PooledBeanInstanceFactory<T> factory, final PoolPolicy poolPolicy) {
+        this.factory = factory;
+        this.poolPolicy = poolPolicy;
+        this.permits = new Semaphore(poolPolicy.getMaxSize());
+    }
+
+    /**
+     * Create the minimum number of instances, less those already idle.
+     *
+     * @throws ContextInitializationException - if an instance cannot be created
+     */
+    void prefill() throws ContextInitializationException {
+        for (int count = idle.size(); count < poolPolicy.getMinSize(); ++count) {
+            idle.offerLast(factory.createBeanInstance());
+        }
+    }
+
+    @Override
+    public PooledBean<T> borrow() throws ContextInitializationException {
+        if (closed) {
+            throw new BeanPoolClosedException(getIdentifier());
+        }
+        if (!permits.tryAcquire()) {
+            acquireWaiting();
+        }
+        if (closed) {
+            permits.release();
+            throw new BeanPoolClosedException(getIdentifier());
+        }
+
+        T instance = idle.pollFirst();
+        if (instance != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            try {
+                instance = factory.createBeanInstance();
+            } catch (ContextInitializationException | RuntimeException x) {
+                permits.release();
+                throw x;
+            }
+        }
+        return new PooledBean<>(this, instance);
+    }
+
+    private void acquireWaiting() throws BeanPoolExhaustedException {
+        waits.increment();
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(poolPolicy.getMaxWaitMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException iX) {
+            Thread.currentThread().interrupt();
+            throw new BeanPoolExhaustedException(getIdentifier(), poolPolicy.getMaxWaitMillis(), iX);
+        } finally {
+            waitNanos.add(System.nanoTime() - start);
+        }
+        if (!acquired) {
+            timeouts.increment();
+            throw new BeanPoolExhaustedException(getIdentifier(), poolPolicy.getMaxWaitMillis());
+        }
+    }
+
+    /**
+     * Reset the instance and make it idle. An instance whose reset fails is discarded, and an
+     * instance returned once the pool is closed is not kept, either is finalized.
+     */
+    void release(final T instance) {
+        try {
+            if (closed) {
+                finalizeInstance(instance);
+                return;
+            }
+            try {
+                factory.resetInstance(instance);
+            } catch (ContextInitializationException ciX) {
+                LOGGER.warn("Discarding an instance of pooled bean {}", getIdentifier(), ciX);
+                discarded.increment();
+                finalizeInstance(instance);
+                return;
+            }
+            idle.offerFirst(instance);
+            // closed while the instance was returned, finalize it unless close() has taken it
+            if (closed && idle.removeFirstOccurrence(instance)) {
+                finalizeInstance(instance);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void finalizeInstance(final T instance) {
+        try {
+            factory.finalizeInstance(instance);
+        } catch (ContextInitializationException ciX) {
+            LOGGER.warn("Failed to finalize an instance of pooled bean {}", getIdentifier(), ciX);
+        }
+    }
+
+    /**
+     * Close the pool, no instance is borrowed from it afterward and those still borrowed are
+     * finalized as they are returned. The idle instances are taken out of the pool, and are
+     * returned by getInstances() until they are released.
+     */
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        List<T> instances = new ArrayList<>();
+        for (T instance = idle.pollFirst(); instance != null; instance = idle.pollFirst()) {
+            instances.add(instance);
+        }
+        closedInstances = Collections.unmodifiableList(instances);
+    }
+
+    /**
+     * @return a snapshot of the idle instances, or once the pool is closed those it held when
+     *      it was closed, the pool is not changed
+     */
+    List<T> getInstances() {
+        return closed ? closedInstances : new ArrayList<>(idle);
+    }
+
+    /**
+     * Release the instances held when the pool was closed.
+     */
+    void releaseInstances() {
+        closedInstances = Collections.emptyList();
+    }
+
+    @Override
+    public String getIdentifier() {
+        return factory.getIdentifier();
+    }
+
+    @Override
+    public PoolPolicy getPoolPolicy() {
+        return poolPolicy;
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getWaits() {
+        return waits.sum();
+    }
+
+    @Override
+    public long getWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    @Override
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public long getDiscarded() {
+        return discarded.sum();
+    }
+
+    @Override
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    @Override
+    public int getBorrowedCount() {
+        return poolPolicy.getMaxSize() - permits.availablePermits();
+    }
+
+    @Override
+    public String toString() {
+        return "BeanPool{" +
+                "identifier=" + getIdentifier() +
+                ", " + poolPolicy +
+                ", hits=" + getHits() +
+                ", misses=" + getMisses() +
+                ", waits=" + getWaits() +
+                ", waitMillis=" + TimeUnit.NANOSECONDS.toMillis(getWaitNanos()) +
+                ", timeouts=" + getTimeouts() +
+                ", discarded=" + getDiscarded() +
+                ", idle=" + getIdleCount() +
+                ", borrowed=" + getBorrowedCount() +
+                '}';
+    }
+}
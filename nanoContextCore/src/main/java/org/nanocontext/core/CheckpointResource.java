@@ -0,0 +1,68 @@
+package org.nanocontext.core;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Registers a Context as a resource of the checkpoint/restore (CRaC) API of the runtime,
+ * without a compile time dependency on that API. The org.crac API is used if it is on the
+ * class path, else the jdk.crac API of a CRaC enabled JDK.
+ * The API holds resources by weak reference, so the Context keeps the registered resource.
+ */
+final class CheckpointResource implements InvocationHandler {
+    private static final String[] API_PACKAGES = {"org.crac", "jdk.crac"};
+
+    private final Context context;
+
+    private CheckpointResource(final Context context) {
+        this.context = context;
+    }
+
+    /**
+     * @param context
+     * @return the resource registered, or null if the runtime has no checkpoint/restore API
+     */
+    static Object register(final Context context) {
+        ClassLoader classLoader = Context.class.getClassLoader();
+        for (String apiPackage : API_PACKAGES) {
+            try {
+                Class<?> resourceClass = Class.forName(apiPackage + ".Resource", false, classLoader);
+                Class<?> contextClass = Class.forName(apiPackage + ".Context", false, classLoader);
+                Object globalContext = Class.forName(apiPackage + ".Core", true, classLoader)
+                        .getMethod("getGlobalContext")
+                        .invoke(null);
+
+                Object resource = Proxy.newProxyInstance(classLoader, new Class<?>[]{resourceClass},
+                        new CheckpointResource(context));
+                contextClass.getMethod("register", resourceClass).invoke(globalContext, resource);
+                return resource;
+            } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException
+                    | InvocationTargetException | LinkageError | IllegalArgumentException x) {
+                // the API is not available from this package
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "beforeCheckpoint":
+                context.beforeCheckpoint();
+                return null;
+            case "afterRestore":
+                context.afterRestore();
+                return null;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "CheckpointResource{context=" + context.getIdentifier() + '}';
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+}
@@ -5,16 +5,40 @@ import org.nanocontext.core.exceptions.ContextInitializationException;
 import org.nanocontext.core.exceptions.InvalidMorphTargetException;
 import org.nanocontext.utility.Utility;
 
-import java.util.concurrent.locks.ReentrantLock;
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.Period;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Created by cbeckey on 3/15/16.
  */
 public class ConstantProperty<T> extends AbstractProperty<T> {
+    private static final Conversion[] NO_CONVERSIONS = new Conversion[0];
+
     private final String rawValue;
     private final Class<T> valueType;
-    private ReentrantLock instantiationLock = new ReentrantLock();
-    private T value;
+
+    /**
+     * The conversions of the raw value to each target type that has been asked for,
+     * including those that failed. Replaced, never modified, so it is read without locking.
+     * Concurrent additions may lose one of the entries, which is then converted again.
+     */
+    private volatile Conversion[] conversions = NO_CONVERSIONS;
 
     /**
      *
@@ -32,20 +56,7 @@ public class ConstantProperty<T> extends AbstractProperty<T> {
     /** */
     @Override
     public T getValue() throws ContextInitializationException {
-        instantiationLock.lock();
-        try {
-            if (value == null) {
-                try {
-                    value = Utility.createInstanceFromStringValue(this.valueType, this.rawValue, true);
-                } catch (CannotCreateObjectFromStringException e) {
-                    throw new ContextInitializationException(e);
-                }
-            }
-        } finally {
-            instantiationLock.unlock();
-        }
-
-        return value;
+        return (T) getConversion(this.valueType).getValue(this.rawValue);
     }
 
     /**
@@ -69,12 +80,9 @@ public class ConstantProperty<T> extends AbstractProperty<T> {
         if (targetClazz == null || targetClazz.equals(getValueType())) {
             return (S)getValue();
         } else {
-            if (isResolvableAs(targetClazz)) {
-                try {
-                    return Utility.createInstanceFromStringValue(targetClazz, this.rawValue, false);
-                } catch (CannotCreateObjectFromStringException e) {
-                    throw new ContextInitializationException(e);
-                }
+            Conversion conversion = getConversion(targetClazz);
+            if (conversion.isResolvable()) {
+                return (S) conversion.getValue(this.rawValue);
             }
             throw new InvalidMorphTargetException(this, getValueType(), targetClazz);
         }
@@ -105,11 +113,85 @@ public class ConstantProperty<T> extends AbstractProperty<T> {
      */
     @Override
     public boolean isResolvableAs(Class<?> targetValueType) throws ContextInitializationException {
-        try {
-            Utility.createInstanceFromStringValue(targetValueType, this.rawValue, true);
-            return true;
-        } catch(CannotCreateObjectFromStringException ccofsX) {
-            return false;
+        return getConversion(targetValueType).isResolvable();
+    }
+
+    /**
+     * Get the conversion of the raw value to the target type, converting it if this is
+     * the first time the target type has been asked for.
+     *
+     * @param targetClazz
+     * @return
+     */
+    private Conversion getConversion(final Class<?> targetClazz) {
+        Conversion[] current = this.conversions;
+        for (Conversion conversion : current) {
+            if (conversion.targetClazz == targetClazz) {
+                return conversion;
+            }
+        }
+
+        Conversion conversion = Conversion.convert(targetClazz, this.rawValue);
+        Conversion[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = conversion;
+        this.conversions = updated;
+
+        return conversion;
+    }
+
+    /**
+     * The result of converting the raw value to one target type.
+     * Only values of immutable types are kept and shared, other types (e.g. StringBuilder)
+     * are known to be resolvable but are converted again each time so that every bean gets
+     * its own instance.
+     */
+    private static final class Conversion {
+        private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>(Arrays.asList(
+                String.class, Boolean.class, Character.class, Byte.class, Short.class,
+                Integer.class, Long.class, Float.class, Double.class, Class.class,
+                BigDecimal.class, BigInteger.class, Duration.class, Period.class, Instant.class,
+                LocalDate.class, LocalTime.class, LocalDateTime.class, OffsetDateTime.class, ZonedDateTime.class,
+                ZoneId.class, URI.class, URL.class, File.class, Path.class));
+
+        private final Class<?> targetClazz;
+        private final boolean shared;
+        private final Object value;
+        private final CannotCreateObjectFromStringException failure;
+
+        private Conversion(final Class<?> targetClazz, final boolean shared, final Object value,
+                           final CannotCreateObjectFromStringException failure) {
+            this.targetClazz = targetClazz;
+            this.shared = shared;
+            this.value = value;
+            this.failure = failure;
+        }
+
+        private static Conversion convert(final Class<?> targetClazz, final String rawValue) {
+            try {
+                Object value = Utility.createInstanceFromStringValue(targetClazz, rawValue, true);
+                boolean shared = targetClazz.isPrimitive() || targetClazz.isEnum() || IMMUTABLE_TYPES.contains(targetClazz);
+                return new Conversion(targetClazz, shared, shared ? value : null, null);
+            } catch (CannotCreateObjectFromStringException x) {
+                return new Conversion(targetClazz, false, null, x);
+            }
+        }
+
+        private boolean isResolvable() {
+            return this.failure == null;
+        }
+
+        private Object getValue(final String rawValue) throws ContextInitializationException {
+            if (this.failure != null) {
+                throw new ContextInitializationException(this.failure);
+            }
+            if (this.shared) {
+                return this.value;
+            }
+            try {
+                return Utility.createInstanceFromStringValue(this.targetClazz, rawValue, true);
+            } catch (CannotCreateObjectFromStringException e) {
+                throw new ContextInitializationException(e);
+            }
         }
     }
 
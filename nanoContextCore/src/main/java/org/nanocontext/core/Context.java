@@ -1,17 +1,45 @@
 package org.nanocontext.core;
 
+import org.nanocontext.core.exceptions.CheckpointException;
+import org.nanocontext.core.exceptions.CompositeContextInitializationException;
 import org.nanocontext.core.exceptions.ContextInitializationException;
-import org.nanocontext.utility.Utility;
+import org.nanocontext.core.exceptions.InvalidPooledBeanReferenceException;
 import org.nanocontext.utility.references.Derivations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A very small and limited function IoC Context.
  * Implements simple hierarchical delegation, whereas if a bean cannot be found
  * within this context it will delegate to a parent context.
+ * Closing the context shuts down its active beans and finalizes its singletons.
  */
-public class Context {
+public class Context implements AutoCloseable {
+    private final static Logger LOGGER = LoggerFactory.getLogger(Context.class);
+    /** set once the fall back from virtual threads to platform threads has been logged */
+    private final static AtomicBoolean VIRTUAL_THREAD_FALLBACK_LOGGED = new AtomicBoolean(false);
+
     private final String identifier;
 
     /**
@@ -22,6 +50,63 @@ public class Context {
     private final SortedSet<AbstractReferencableProperty> referencableProperties = new TreeSet<>();
     private final Set<ArtifactHolder> artifacts = new HashSet<>();
     private final Set<PropertiesHolder> properties = new HashSet<>();
+
+    /**
+     * Identifier indices over the collections above, rebuilt whenever the
+     * content of the corresponding collection is set and otherwise immutable.
+     * Volatile because a rebuilt index is published to threads that are reading the old one.
+     */
+    private volatile IdentifierIndex<AbstractReferencableProperty> referencablePropertyIndex = IdentifierIndex.empty();
+    private volatile IdentifierIndex<ArtifactHolder> artifactIndex = IdentifierIndex.empty();
+    private volatile IdentifierIndex<PropertiesHolder> propertiesIndex = IdentifierIndex.empty();
+
+    /**
+     * The resolved values of all of the properties, built when a property is first resolved
+     * and discarded whenever the properties are set.
+     */
+    private volatile PropertyIndex propertyIndex;
+    private final ReentrantLock propertyIndexLock = new ReentrantLock();
+
+    /** Property values as ConstantProperty, which keep each conversion, keyed by property reference */
+    private final ConcurrentMap<String, ConstantProperty<String>> typedProperties = new ConcurrentHashMap<>();
+
+    /**
+     * The result of resolving a requested type to the most specific referencable property
+     * in this context, keyed by the requested type. An empty Optional records that no
+     * property in this context is assignable to the requested type.
+     * Cleared whenever the referencable properties are set.
+     */
+    private final ConcurrentMap<Class<?>, Optional<AbstractReferencableProperty<?>>> typeResolutionCache =
+            new ConcurrentHashMap<>();
+
+    /** if true, initialize() resolves every supertype of every bean into the typeResolutionCache */
+    private final boolean prewarmTypeResolution;
+
+    /** how bean factories in this context invoke constructors and factory methods after the first instance */
+    private InstantiationStrategy instantiationStrategy = InstantiationStrategy.GENERATED;
+
+    /**
+     * If true, initialize() initializes properties that do not depend on each other concurrently,
+     * on the initializationExecutor or, if that is null, on an executor created for the purpose.
+     */
+    private boolean parallelInitialization = false;
+    private Executor initializationExecutor = null;
+
+    /** if true, references to lazy-load beans from interface typed parameters are injected as proxies */
+    private boolean lazyProxies = false;
+
+    /** if true, prefetchResources() starts loading remote artifacts and properties concurrently */
+    private boolean resourcePrefetch = true;
+
+    /**
+     * The executor created when concurrent work is requested without an initializationExecutor,
+     * shut down when initialize() completes.
+     */
+    private ExecutorService ownedExecutor = null;
+
+    /** records the startup timing if a startup report was requested, else null */
+    private final StartupRecorder startupRecorder;
+
     private final ThreadGroup contextThreadGroup;
     private final Context parent;
 
@@ -33,13 +118,43 @@ public class Context {
                    final SortedSet<AbstractReferencableProperty> referencableProperties,
                    final Set<ArtifactHolder> artifacts,
                    final Set<PropertiesHolder> properties) {
+        this(parent, referencableProperties, artifacts, properties, false);
+    }
+
+    /**
+     * Package level scope is intentional, only a ContextFactory should
+     * construct instances of this Class.
+     */
+    public Context(final Context parent,
+                   final SortedSet<AbstractReferencableProperty> referencableProperties,
+                   final Set<ArtifactHolder> artifacts,
+                   final Set<PropertiesHolder> properties,
+                   final boolean prewarmTypeResolution) {
+        this(parent, referencableProperties, artifacts, properties, prewarmTypeResolution, null);
+    }
+
+    private Context(final Context parent,
+                    final SortedSet<AbstractReferencableProperty> referencableProperties,
+                    final Set<ArtifactHolder> artifacts,
+                    final Set<PropertiesHolder> properties,
+                    final boolean prewarmTypeResolution,
+                    final StartupRecorder startupRecorder) {
+        this.startupRecorder = startupRecorder;
         this.identifier = UUID.randomUUID().toString();
         this.contextThreadGroup = new ThreadGroup("ContextThreadGroup_" + this.identifier);
         this.parent = parent;
+        this.prewarmTypeResolution = prewarmTypeResolution;
 
-        this.referencableProperties.addAll(referencableProperties);
-        this.artifacts.addAll(artifacts);
-        this.properties.addAll(properties);
+        setContextObjectsMap(referencableProperties);
+        setArtifacts(artifacts);
+        setProperties(properties);
+    }
+
+    /**
+     * @return the identifier generated for this context, unique within the runtime
+     */
+    public String getIdentifier() {
+        return identifier;
     }
 
     /**
@@ -51,6 +166,63 @@ public class Context {
         return parent;
     }
 
+    /**
+     * @return the strategy bean factories use to create all but the first instance of a bean
+     */
+    public InstantiationStrategy getInstantiationStrategy() {
+        return instantiationStrategy;
+    }
+
+    /**
+     * @param identifier the identifier of a bean
+     * @return the strategy of the instantiator bound to create the instances of the bean, which may
+     *      be a fallback from that of the context, null if the bean has not yet been created twice
+     *      or there is no such bean in this context
+     */
+    InstantiationStrategy getBoundInstantiationStrategy(final String identifier) {
+        AbstractReferencableProperty property = getReferencableProperty(identifier);
+        return property instanceof AbstractBeanInstanceFactory ?
+                ((AbstractBeanInstanceFactory<?>) property).getBoundInstantiationStrategy() :
+                null;
+    }
+
+    /**
+     * @return true if a reference to a lazy-load bean from a parameter whose type is an interface
+     *      is injected as a proxy, which creates the bean when it is first called
+     * @see Builder#withLazyProxies(boolean)
+     */
+    public boolean isLazyProxies() {
+        return lazyProxies;
+    }
+
+    /**
+     * Get the timing of the startup of this context, where the time went from the creation
+     * of the context to the end of initialize(). If called before initialize() completes
+     * the report covers the startup so far.
+     *
+     * @return the startup report or null if none was requested when the context was built
+     * @see Builder#withStartupReport(boolean)
+     */
+    public ContextStartupReport getStartupReport() {
+        return this.startupRecorder == null ? null : this.startupRecorder.report();
+    }
+
+    /**
+     * @return the recorder of the startup timing, null if no startup report was requested
+     */
+    StartupRecorder getStartupRecorder() {
+        return this.startupRecorder;
+    }
+
+    /**
+     * @param factory the bean factory creating an instance
+     * @return a timer of the creation, which does nothing if no startup report is being recorded
+     */
+    StartupRecorder.BeanTimer startBeanTimer(final AbstractBeanInstanceFactory<?> factory) {
+        StartupRecorder recorder = this.startupRecorder;
+        return recorder == null ? StartupRecorder.BeanTimer.NONE : recorder.startBean(factory);
+    }
+
     /**
      * Returns the ThreadGroup under which Threads for Active beans will be
      * members of.
@@ -61,28 +233,58 @@ public class Context {
     }
 
     /**
+     * Resolve a property reference, the content of a ${...} placeholder.
+     * The reference may be a key, a key with a default value (key:default), or contain
+     * nested placeholders (a.${b}). The first call loads every properties resource and builds
+     * the index of resolved values, after that a plain key is a single lookup.
      *
      * @param key
+     * @return the value, null if the key does not exist and there is no default
+     * @throws ContextInitializationException - if the properties cannot be loaded or contain a circular reference
      */
     public String resolvePropertyValue(final String key) throws ContextInitializationException {
-        String value = null;
-        if (key != null) {
-            if (this.properties != null) {
-                for (PropertiesHolder propertiesHolder : this.properties) {
-                    value = propertiesHolder.getPropertyValue(key);
-                    if (value != null ) {
-                        if(Utility.isPropertyReference(value)) {
-                            value = Utility.extractKeyFromPropertyReference(key);
-                            value = resolvePropertyValue(value);
-                        } else {
-                            break;
-                        }
-                    }
-                }
+        return key == null ? null : getPropertyIndex().resolve(key);
+    }
+
+    /**
+     * Get a property value converted to the given type. The conversion is done once
+     * per key and type.
+     *
+     * @param key a property reference, as for resolvePropertyValue()
+     * @param type
+     * @param <T>
+     * @return the value as the given type, null if the key does not exist and there is no default
+     * @throws ContextInitializationException - if the value cannot be converted to the given type
+     */
+    public <T> T getProperty(final String key, final Class<T> type) throws ContextInitializationException {
+        ConstantProperty<String> property = this.typedProperties.get(key);
+        if (property == null) {
+            String value = resolvePropertyValue(key);
+            if (value == null) {
+                return null;
             }
+            property = new ConstantProperty<>(this, value, String.class);
+            ConstantProperty<String> existing = this.typedProperties.putIfAbsent(key, property);
+            property = existing == null ? property : existing;
         }
+        return property.getValue(type);
+    }
 
-        return value;
+    private PropertyIndex getPropertyIndex() throws ContextInitializationException {
+        PropertyIndex index = this.propertyIndex;
+        if (index == null) {
+            this.propertyIndexLock.lock();
+            try {
+                index = this.propertyIndex;
+                if (index == null) {
+                    index = PropertyIndex.of(this.properties);
+                    this.propertyIndex = index;
+                }
+            } finally {
+                this.propertyIndexLock.unlock();
+            }
+        }
+        return index;
     }
 
     /**
@@ -90,14 +292,7 @@ public class Context {
      * @return
      */
     public ArtifactHolder getArtifactHolder(final String identifier) {
-        if (this.artifacts != null && identifier != null) {
-            for (ArtifactHolder holder : this.artifacts) {
-                if (identifier.equals(holder.getIdentifier())) {
-                    return holder;
-                }
-            }
-        }
-        return null;
+        return artifactIndex.get(identifier);
     }
 
     /**
@@ -106,14 +301,7 @@ public class Context {
      * @return
      */
     public PropertiesHolder getPropertiesHolder(final String identifier) {
-        if (this.properties != null && identifier != null) {
-            for (PropertiesHolder holder : this.properties) {
-                if (identifier.equals(holder.getIdentifier())) {
-                    return holder;
-                }
-            }
-        }
-        return null;
+        return propertiesIndex.get(identifier);
     }
 
     /**
@@ -131,27 +319,71 @@ public class Context {
         if (beanClass == null)
             return null;
 
-        // find the most specific bean in the context by type
+        AbstractReferencableProperty<?> selectedBeanReference = resolveBeanReference(beanClass);
+
+        T bean = selectedBeanReference == null ? null : (T) selectedBeanReference.getValue();
+
+        // delegate to the parent if the bean was not found, the parent
+        // resolves the type through its own cache
+        if (bean == null && this.parent != null) {
+            bean = this.parent.getBean(beanClass);
+        }
+
+        return bean;
+    }
+
+    /**
+     * Find the referencable property in this context (not the parent contexts) whose type most
+     * closely matches the given type. The selection is made once per requested type and
+     * remembered, including the absence of a match.
+     *
+     * @param beanClass the desired bean type
+     * @return the selected referencable property or null if none is assignable to the given type
+     * @throws ContextInitializationException - if a bean class cannot be loaded
+     */
+    private AbstractReferencableProperty<?> resolveBeanReference(final Class<?> beanClass)
+            throws ContextInitializationException {
+        Optional<AbstractReferencableProperty<?>> resolution = typeResolutionCache.get(beanClass);
+
+        if (resolution == null) {
+            resolution = Optional.ofNullable(selectBeanReference(beanClass));
+            Optional<AbstractReferencableProperty<?>> existing = typeResolutionCache.putIfAbsent(beanClass, resolution);
+            if (existing != null) {
+                resolution = existing;
+            }
+        }
+
+        return resolution.orElse(null);
+    }
+
+    /**
+     * Search this context for the referencable property whose type is the least distance
+     * from the given type. Where more than one property is at the same distance the first,
+     * in identifier order, is selected.
+     *
+     * @param beanClass the desired bean type
+     * @return the selected referencable property or null if none is assignable to the given type
+     * @throws ContextInitializationException - if a bean class cannot be loaded
+     */
+    private AbstractReferencableProperty<?> selectBeanReference(final Class<?> beanClass)
+            throws ContextInitializationException {
         int minDistance = Integer.MAX_VALUE;
-        AbstractBeanInstanceFactory<T> selectedBeanReference = null;
+        AbstractReferencableProperty<?> selectedBeanReference = null;
 
         for (AbstractReferencableProperty<?> property : referencableProperties) {
-            int beanDistance = Derivations.instanceDistance(property.getValueType(), beanClass);
+            Class<?> valueType = property.getValueType();
+            if (valueType == null) {
+                continue;
+            }
+            int beanDistance = Derivations.distance(valueType, beanClass);
 
             if (beanDistance < minDistance) {
                 minDistance = beanDistance;
-                selectedBeanReference = (AbstractBeanInstanceFactory<T>) property;
+                selectedBeanReference = property;
             }
         }
 
-        T bean = selectedBeanReference == null ? null : (T) selectedBeanReference.getValue();
-
-        // delegate to the parent if the bean was not found
-        if (bean == null && this.parent != null) {
-            bean = this.parent.getBean(beanClass);
-        }
-
-        return bean;
+        return selectedBeanReference;
     }
 
     /**
@@ -182,6 +414,49 @@ public class Context {
         return bean;
     }
 
+    /**
+     * Get the pool of a pooled bean, in this context or an ancestor.
+     *
+     * @param id the identifier of the bean
+     * @param beanClass the type of the bean, or a super-type
+     * @return the pool, null if there is no such bean, it is not pooled or not of the given type
+     * @throws ContextInitializationException - if the bean class cannot be loaded
+     */
+    public <T> BeanPool<T> getBeanPool(final String id, final Class<T> beanClass)
+            throws ContextInitializationException {
+        if (id == null || beanClass == null) {
+            return null;
+        }
+
+        AbstractProperty<?> beanReference = getBeanReference(id);
+        if (beanReference instanceof PooledBeanInstanceFactory && beanReference.isResolvableAs(beanClass)) {
+            return ((PooledBeanInstanceFactory<T>) beanReference).getPool();
+        }
+        return null;
+    }
+
+    /**
+     * Borrow an instance of a pooled bean, the instance is returned to the pool when the
+     * returned handle is closed.
+     *
+     * @param id the identifier of the bean
+     * @param beanClass the type of the bean, or a super-type
+     * @return the handle of the borrowed instance
+     * @throws InvalidPooledBeanReferenceException - if there is no such pooled bean of the given type
+     * @throws ContextInitializationException - if an instance cannot be created,
+     *      BeanPoolExhaustedException if no instance is returned within the maximum wait of the pool,
+     *      BeanPoolClosedException if the context has been closed
+     */
+    public <T> PooledBean<T> borrowBean(final String id, final Class<T> beanClass)
+            throws ContextInitializationException {
+        BeanPool<T> pool = getBeanPool(id, beanClass);
+        if (pool == null) {
+            throw new InvalidPooledBeanReferenceException(String.format(
+                    "There is no pooled bean %s of type %s", id, beanClass == null ? null : beanClass.getName()));
+        }
+        return pool.borrow();
+    }
+
     /**
      *
      * @param id
@@ -225,12 +500,7 @@ public class Context {
      * @return returns the referenced bean or null if not found
      */
     private AbstractReferencableProperty getReferencableProperty(final String identifier) {
-        if (identifier != null)
-            for (AbstractReferencableProperty<?> abstractReferencableProperty : this.referencableProperties)
-                if (abstractReferencableProperty.getIdentifier().equals(identifier))
-                    return abstractReferencableProperty;
-
-        return null;
+        return referencablePropertyIndex.get(identifier);
     }
 
     /**
@@ -239,15 +509,7 @@ public class Context {
      * @return
      */
     public PropertiesHolder getPropertiesReference(final String referencedPropertiesIdentifier) {
-        if (referencedPropertiesIdentifier != null) {
-            for (PropertiesHolder propertiesHolder : properties) {
-                if (referencedPropertiesIdentifier.equals(propertiesHolder.getIdentifier())) {
-                    return propertiesHolder;
-                }
-            }
-        }
-
-        return null;
+        return propertiesIndex.get(referencedPropertiesIdentifier);
     }
 
 
@@ -255,24 +517,236 @@ public class Context {
     // ========================================================================================
     // A simple mechanism for managing ActiveBean instances.
     // ========================================================================================
-    private List<Runnable> activeBeans = new ArrayList<>();
+    private List<Runnable> activeBeans = new CopyOnWriteArrayList<>();
+
+    /** how active beans that do not name an execution are run */
+    private ActiveBeanExecution activeBeanExecution = ActiveBeanExecution.PLATFORM_THREAD;
+    /** runs the active beans executed by POOL, if null a pool is created on first use */
+    private Executor activeBeanPool = null;
+    private int activeBeanPoolSize = Math.max(4, Runtime.getRuntime().availableProcessors());
+    /** the pool created when no activeBeanPool was given, shut down by shutdown(long) */
+    private volatile ExecutorService ownedActiveBeanPool = null;
+    private final ReentrantLock activeBeanPoolLock = new ReentrantLock();
+    /** delays the restart of active beans, created on the first restart */
+    private volatile ScheduledExecutorService activeBeanRestartScheduler = null;
 
     void registerActiveBean(Runnable activeBean) {
         activeBeans.add(activeBean);
     }
 
+    /**
+     * @return how active beans that do not name an execution are run
+     */
+    public ActiveBeanExecution getActiveBeanExecution() {
+        return activeBeanExecution;
+    }
+
+    /**
+     * Get the Executor that runs an active bean.
+     *
+     * @param execution the execution named by the bean, null for that of the context
+     * @param threadName the name of the thread of the bean, where it has one of its own
+     * @return an Executor that runs each task given to it as the execution requires
+     */
+    Executor getActiveBeanExecutor(final ActiveBeanExecution execution, final String threadName) {
+        switch (execution == null ? this.activeBeanExecution : execution) {
+            case POOL:
+                return getActiveBeanPool();
+            case VIRTUAL_THREAD:
+                if (VirtualThreads.AVAILABLE) {
+                    return task -> VirtualThreads.start(threadName, task);
+                }
+                // virtual threads are not available in this runtime, fall through to a platform thread
+                if (VIRTUAL_THREAD_FALLBACK_LOGGED.compareAndSet(false, true)) {
+                    LOGGER.warn("Virtual threads are not supported by this runtime, active beans with the {} execution run on platform threads",
+                            ActiveBeanExecution.VIRTUAL_THREAD);
+                }
+            default:
+                return task -> new Thread(this.contextThreadGroup, task, threadName).start();
+        }
+    }
+
+    private Executor getActiveBeanPool() {
+        if (this.activeBeanPool != null) {
+            return this.activeBeanPool;
+        }
+        ExecutorService pool = this.ownedActiveBeanPool;
+        if (pool == null) {
+            this.activeBeanPoolLock.lock();
+            try {
+                pool = this.ownedActiveBeanPool;
+                if (pool == null) {
+                    final AtomicInteger threadCount = new AtomicInteger();
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                            this.activeBeanPoolSize, this.activeBeanPoolSize, 1L, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>(),
+                            runnable -> new Thread(this.contextThreadGroup, runnable,
+                                    "ActiveBeanPool_" + this.identifier + "-" + threadCount.incrementAndGet()));
+                    // so that the pool does not keep the runtime once the active beans return
+                    executor.allowCoreThreadTimeOut(true);
+                    pool = executor;
+                    this.ownedActiveBeanPool = pool;
+                }
+            } finally {
+                this.activeBeanPoolLock.unlock();
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Run an active bean again once the delay has elapsed.
+     *
+     * @param runner the active bean
+     * @param delayMillis the delay, as the RestartPolicy of the bean requires
+     */
+    void scheduleActiveBeanRestart(final ActiveBeanRunner runner, final long delayMillis) {
+        ScheduledExecutorService scheduler = this.activeBeanRestartScheduler;
+        if (scheduler == null) {
+            this.activeBeanPoolLock.lock();
+            try {
+                scheduler = this.activeBeanRestartScheduler;
+                if (scheduler == null) {
+                    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                        Thread thread = new Thread(this.contextThreadGroup, runnable, "ActiveBeanRestart_" + this.identifier);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    executor.setRemoveOnCancelPolicy(true);
+                    scheduler = executor;
+                    this.activeBeanRestartScheduler = scheduler;
+                }
+            } finally {
+                this.activeBeanPoolLock.unlock();
+            }
+        }
+        try {
+            scheduler.schedule(runner::restart, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException reX) {
+            // the context has been shut down
+            runner.interrupt();
+        }
+    }
+
+    /**
+     * @return the status of every singleton active bean started, and of every other active bean
+     *      started that is still running or to be restarted, in the order they were started
+     */
+    public List<ActiveBeanStatus> getActiveBeanStatuses() {
+        return new ArrayList<>(this.activeBeanRunners);
+    }
+
+    /**
+     * @param identifier the identifier of an active bean
+     * @return the status of the active bean, the last instance started if the bean is a prototype,
+     *      null if no such active bean has been started or none of the instances of a bean that
+     *      is not a singleton is running or to be restarted
+     */
+    public ActiveBeanStatus getActiveBeanStatus(final String identifier) {
+        for (int index = this.activeBeanRunners.size() - 1; index >= 0; --index) {
+            ActiveBeanRunner runner = this.activeBeanRunners.get(index);
+            if (runner.getIdentifier().equals(identifier)) {
+                return runner;
+            }
+        }
+        return null;
+    }
+
     /**
      * Called by the XMLContextFactory after all of the bean factories have been created.
-     * This must create the beans that are marked as lazy-load, which will
-     * also start the active beans.
+     * This creates every bean that is not marked as lazy-load, which will also start the
+     * active beans. A lazy-load bean is created when it is first referenced.
+     * If parallel initialization is enabled, all properties are initialized before any bean
+     * and beans that do not depend on each other are initialized concurrently.
+     *
+     * @throws ContextInitializationException - if a bean fails to initialize
+     * @throws org.nanocontext.core.exceptions.CompositeContextInitializationException - if more
+     *      than one bean fails to initialize concurrently
      */
     public void initialize() throws ContextInitializationException {
+        try {
+            try {
+                if (this.parallelInitialization) {
+                    InitializationGraph.of(this.properties).initialize(getInitializationExecutor());
+                    InitializationGraph.of(this.referencableProperties).initialize(getInitializationExecutor());
+                } else {
+                    for (PropertiesHolder propertiesHolder : this.properties) {
+                        propertiesHolder.initialize();
+                    }
+
+                    for (AbstractReferencableProperty abstractReferencableProperty : referencableProperties) {
+                        abstractReferencableProperty.initialize();
+                    }
+                }
+            } finally {
+                // tasks already submitted, i.e. prefetches of artifacts no bean has needed yet, still run
+                if (this.ownedExecutor != null) {
+                    this.ownedExecutor.shutdown();
+                    this.ownedExecutor = null;
+                }
+            }
+
+            if (this.prewarmTypeResolution) {
+                prewarmTypeResolution();
+            }
+        } finally {
+            // the report of a failed startup is as useful as that of a successful one
+            if (this.startupRecorder != null) {
+                this.startupRecorder.complete();
+            }
+        }
+    }
+
+    /**
+     * Start loading every remote artifact and properties resource concurrently, so that
+     * the latency of each is not added to the context startup one after another.
+     * Called by a ContextFactory once the artifacts and properties are set and before the
+     * bean factories are created. Anything that needs a resource waits only for that resource.
+     * Does nothing if resource prefetch has been disabled.
+     */
+    public void prefetchResources() {
+        if (!this.resourcePrefetch) {
+            return;
+        }
+
         for (PropertiesHolder propertiesHolder : this.properties) {
-            propertiesHolder.initialize();
+            if (propertiesHolder.isRemote()) {
+                propertiesHolder.prefetch(getInitializationExecutor());
+            }
+        }
+        for (ArtifactHolder artifactHolder : this.artifacts) {
+            if (artifactHolder.isRemote()) {
+                artifactHolder.prefetch(getInitializationExecutor());
+            }
         }
+    }
 
-        for (AbstractReferencableProperty abstractReferencableProperty : referencableProperties) {
-            abstractReferencableProperty.initialize();
+    /**
+     * @return the executor given to the builder or, if none was, an executor created on first use
+     */
+    private Executor getInitializationExecutor() {
+        if (this.initializationExecutor != null) {
+            return this.initializationExecutor;
+        }
+        if (this.ownedExecutor == null) {
+            this.ownedExecutor = InitializationGraph.newDefaultExecutor(
+                    this.contextThreadGroup, "ContextInitializer_" + this.identifier + "-");
+        }
+        return this.ownedExecutor;
+    }
+
+    /**
+     * Resolve every type that any bean in this context may be requested as, so that
+     * later calls to getBean(Class) are a single cache lookup.
+     */
+    private void prewarmTypeResolution() throws ContextInitializationException {
+        for (AbstractReferencableProperty<?> abstractReferencableProperty : referencableProperties) {
+            Class<?> valueType = abstractReferencableProperty.getValueType();
+            if (valueType != null) {
+                for (Class<?> supertype : Derivations.supertypes(valueType)) {
+                    resolveBeanReference(supertype);
+                }
+            }
         }
     }
 
@@ -281,6 +755,9 @@ public class Context {
      *
      */
     public void shutdown() {
+        for (ActiveBeanRunner runner : this.activeBeanRunners) {
+            runner.stop();
+        }
         for (Runnable activeBean : activeBeans) {
             if (ActiveBean.class.isAssignableFrom(activeBean.getClass())) {
                 ((ActiveBean)activeBean).shutdown();
@@ -288,12 +765,438 @@ public class Context {
         }
     }
 
+    /**
+     * Shut down the active beans and wait for them to return.
+     * Active beans that implement ActiveBean are shut down, then every active bean is
+     * interrupted and waited for until the timeout elapses. Active beans are not restarted
+     * once shut down. A pool created for the active beans is shut down.
+     *
+     * @param timeoutMillis how long to wait for all of the active beans to return
+     * @return the identifiers of the active beans still running when the timeout elapsed,
+     *      empty if every active bean returned
+     * @throws InterruptedException - if interrupted while waiting for the active beans
+     */
+    public List<String> shutdown(final long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        shutdown();
+        for (ActiveBeanRunner runner : this.activeBeanRunners) {
+            runner.interrupt();
+        }
+
+        List<String> running = new ArrayList<>();
+        for (ActiveBeanRunner runner : this.activeBeanRunners) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (!runner.awaitTermination(Math.max(0L, remainingMillis))) {
+                running.add(runner.getIdentifier());
+            }
+        }
+
+        ExecutorService pool = this.ownedActiveBeanPool;
+        if (pool != null) {
+            pool.shutdown();
+        }
+        ScheduledExecutorService scheduler = this.activeBeanRestartScheduler;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        return running;
+    }
+
+    // ========================================================================================
+    // Close, shutting down the active beans and finalizing the singletons
+    // ========================================================================================
+    /** how long close() waits for the active beans and the finalize methods */
+    public static final long DEFAULT_CLOSE_TIMEOUT_MILLIS = 30000L;
+
+    private final ReentrantLock closeLock = new ReentrantLock();
+    /** what happened when the context was closed, null until it is */
+    private volatile ContextShutdownReport shutdownReport;
+
+    /**
+     * Close the context, waiting at most DEFAULT_CLOSE_TIMEOUT_MILLIS.
+     * Anything that did not complete is logged as a warning, the details are in getShutdownReport().
+     *
+     * @see #close(long)
+     */
+    @Override
+    public void close() {
+        ContextShutdownReport report = close(DEFAULT_CLOSE_TIMEOUT_MILLIS);
+        if (!report.isComplete()) {
+            LOGGER.warn("Context {} did not close cleanly. {}", this.identifier, report.toString().trim());
+        }
+    }
+
+    /**
+     * Close the context. The active beans are shut down and waited for, as shutdown(long) does,
+     * and then the finalize method of each singleton that has been created and names one is
+     * called. A bean is finalized after every bean that depends on it, beans that do not depend
+     * on each other are finalized concurrently, on threads of the context rather than the
+     * initialization executor. All of that is within the one timeout, a finalize
+     * method still running when it elapses is interrupted and the rest are not called.
+     * The instances of a thread scoped bean, of the threads still alive, and the idle instances of a
+     * pooled bean are finalized as one bean and then released. Prototype instances, and pooled
+     * instances still borrowed, are not finalized, the context does not keep them.
+     * Only the first call closes the context, later calls return the same report.
+     * If the calling thread is interrupted the close ends as though the timeout had elapsed,
+     * with the interrupt status of the thread set.
+     *
+     * @param timeoutMillis how long to wait for the active beans and the finalize methods
+     * @return which beans were finalized, which timed out and which failed
+     */
+    public ContextShutdownReport close(final long timeoutMillis) {
+        this.closeLock.lock();
+        try {
+            if (this.shutdownReport == null) {
+                this.shutdownReport = closeContext(timeoutMillis);
+            }
+            return this.shutdownReport;
+        } finally {
+            this.closeLock.unlock();
+        }
+    }
+
+    /**
+     * @return what happened when the context was closed, null if it has not been closed
+     */
+    public ContextShutdownReport getShutdownReport() {
+        return this.shutdownReport;
+    }
+
+    private ContextShutdownReport closeContext(final long timeoutMillis) {
+        final long startNanos = System.nanoTime();
+        final long deadline = startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        List<String> runningActiveBeans;
+        try {
+            runningActiveBeans = shutdown(timeoutMillis);
+        } catch (InterruptedException iX) {
+            Thread.currentThread().interrupt();
+            runningActiveBeans = new ArrayList<>();
+            for (ActiveBeanRunner runner : this.activeBeanRunners) {
+                if (runner.isRunning()) {
+                    runningActiveBeans.add(runner.getIdentifier());
+                }
+            }
+        }
+
+        final List<String> finalized = new CopyOnWriteArrayList<>();
+        final Map<String, ContextInitializationException> failures = new ConcurrentSkipListMap<>();
+        final Map<String, Runnable> finalizers = new HashMap<>();
+        // set once the timeout elapses, after which no finalize method is called
+        final AtomicBoolean expired = new AtomicBoolean(false);
+        for (AbstractReferencableProperty<?> property : this.referencableProperties) {
+            property.closeInstances();
+        }
+        for (AbstractReferencableProperty<?> property : this.referencableProperties) {
+            if (property instanceof AbstractBeanInstanceFactory) {
+                final AbstractBeanInstanceFactory<?> factory = (AbstractBeanInstanceFactory<?>) property;
+                final List<?> instances = factory.getCreatedInstances();
+                if (!instances.isEmpty() && factory.hasFinalizeMethod()) {
+                    finalizers.put(factory.getIdentifier(), () -> {
+                        // every instance of a thread scoped bean is finalized, the last failure is reported
+                        ContextInitializationException failure = null;
+                        for (Object instance : instances) {
+                            if (expired.get()) {
+                                return;
+                            }
+                            try {
+                                factory.finalizeInstance(instance);
+                            } catch (ContextInitializationException ciX) {
+                                failure = ciX;
+                            }
+                        }
+                        if (failure == null) {
+                            finalized.add(factory.getIdentifier());
+                        } else {
+                            failures.put(factory.getIdentifier(), failure);
+                        }
+                    });
+                }
+            }
+        }
+
+        final List<String> timedOut = new ArrayList<>();
+        if (!finalizers.isEmpty()) {
+            // always an executor of the context, never the initializationExecutor, so that a finalize
+            // method still running when the timeout elapses can be interrupted
+            ExecutorService finalizationExecutor =
+                    InitializationGraph.newDefaultExecutor(this.contextThreadGroup, "ContextFinalizer_" + this.identifier + "-");
+            try {
+                Map<String, CompletableFuture<Void>> futures = InitializationGraph.of(this.referencableProperties)
+                        .runInReverse(finalizers, finalizationExecutor);
+                for (String identifier : new TreeSet<>(futures.keySet())) {
+                    if (!awaitFinalizer(futures.get(identifier), deadline)) {
+                        timedOut.add(identifier);
+                    }
+                }
+            } finally {
+                expired.set(true);
+                // interrupts any finalize method still running, the rest are not called
+                finalizationExecutor.shutdownNow();
+            }
+        }
+
+        for (AbstractReferencableProperty<?> property : this.referencableProperties) {
+            property.releaseInstances();
+        }
+
+        // a finalize method that returns as the timeout elapses is reported as timed out
+        List<String> finalizedInTime = new ArrayList<>(finalized);
+        finalizedInTime.removeAll(timedOut);
+        Map<String, ContextInitializationException> failedInTime = new TreeMap<>(failures);
+        failedInTime.keySet().removeAll(timedOut);
+        return new ContextShutdownReport(System.nanoTime() - startNanos,
+                runningActiveBeans, finalizedInTime, timedOut, failedInTime);
+    }
+
+    /**
+     * @return true if the finalizer completed before the deadline
+     */
+    private static boolean awaitFinalizer(final CompletableFuture<Void> future, final long deadline) {
+        if (future.isDone()) {
+            return true;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            return false;
+        }
+        try {
+            future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (ExecutionException eX) {
+            // the failure is recorded by the finalizer
+            return true;
+        } catch (TimeoutException tX) {
+            return false;
+        } catch (InterruptedException iX) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // ========================================================================================
+    // Checkpoint and restore of the runtime, i.e. with CRaC
+    // ========================================================================================
+    /** how long beforeCheckpoint() waits for each active bean to stop once it is shut down */
+    private static final long ACTIVE_BEAN_PARK_TIMEOUT_MILLIS = 10000L;
+
+    /**
+     * every singleton active bean started and every other active bean that is running or to be
+     * restarted, in the order they were started
+     */
+    private final List<ActiveBeanRunner> activeBeanRunners = new CopyOnWriteArrayList<>();
+    /** the singletons with a before-checkpoint or after-restore method, in the order they were created */
+    private final List<CheckpointCallbacks> checkpointCallbacks = new CopyOnWriteArrayList<>();
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+    /** the resource registered with the checkpoint/restore API, which holds it only by weak reference */
+    private volatile Object checkpointResource;
+
+    void registerActiveBeanRunner(final ActiveBeanRunner runner) {
+        activeBeanRunners.add(runner);
+    }
+
+    /**
+     * Drop an active bean that is no longer running and will not be restarted, so that the
+     * instances of prototype active beans are not kept by the context.
+     */
+    void unregisterActiveBeanRunner(final ActiveBeanRunner runner) {
+        activeBeanRunners.remove(runner);
+        activeBeans.removeIf(activeBean -> activeBean == runner.getBean());
+    }
+
+    void registerCheckpointCallbacks(final AbstractBeanInstanceFactory<?> factory, final Object instance) {
+        checkpointCallbacks.add(new CheckpointCallbacks(factory, instance));
+    }
+
+    /**
+     * Register this context with the checkpoint/restore (CRaC) API of the runtime, so that
+     * beforeCheckpoint() and afterRestore() are called when the runtime is checkpointed and
+     * restored. The org.crac API is used if it is on the class path, else the jdk.crac API.
+     *
+     * @return true if the context is registered, false if the runtime has no checkpoint/restore API
+     */
+    public boolean registerCheckpointResource() {
+        if (this.checkpointResource == null) {
+            this.checkpointResource = CheckpointResource.register(this);
+        }
+        return this.checkpointResource != null;
+    }
+
+    /**
+     * Make this context ready for a checkpoint of the runtime.
+     * Active beans that implement ActiveBean are shut down, last started first, and their
+     * threads waited for. The before-checkpoint method of each singleton that names one is
+     * called, last created first. The file handles of artifacts are closed.
+     * Active beans that do not implement ActiveBean cannot be parked and are left running.
+     * Every step is attempted even if an earlier one fails.
+     *
+     * @throws ContextInitializationException - if exactly one step failed
+     * @throws CompositeContextInitializationException - if more than one step failed
+     */
+    public void beforeCheckpoint() throws ContextInitializationException {
+        List<ContextInitializationException> failures = new ArrayList<>();
+        this.checkpointLock.lock();
+        try {
+            for (int index = this.activeBeanRunners.size() - 1; index >= 0; --index) {
+                try {
+                    this.activeBeanRunners.get(index).park(ACTIVE_BEAN_PARK_TIMEOUT_MILLIS);
+                } catch (ContextInitializationException ciX) {
+                    failures.add(ciX);
+                }
+            }
+
+            for (int index = this.checkpointCallbacks.size() - 1; index >= 0; --index) {
+                try {
+                    this.checkpointCallbacks.get(index).beforeCheckpoint();
+                } catch (ContextInitializationException ciX) {
+                    failures.add(ciX);
+                }
+            }
+
+            for (ArtifactHolder artifactHolder : this.artifacts) {
+                try {
+                    artifactHolder.release();
+                } catch (IOException ioX) {
+                    failures.add(new CheckpointException(
+                            String.format("Unable to close artifact %s", artifactHolder.getIdentifier()), ioX));
+                }
+            }
+        } finally {
+            this.checkpointLock.unlock();
+        }
+        throwFailures(failures);
+    }
+
+    /**
+     * Resume this context after a restore of the runtime, or after a checkpoint failed.
+     * The properties are read again and the resolved property values discarded, so that values
+     * that depend on the environment are those of the restored runtime. The after-restore method
+     * of each singleton that names one is called, first created first, and then the active beans
+     * parked by beforeCheckpoint() are run again on new threads. Artifacts are reopened on next use.
+     * Every step is attempted even if an earlier one fails.
+     *
+     * @throws ContextInitializationException - if exactly one step failed
+     * @throws CompositeContextInitializationException - if more than one step failed
+     */
+    public void afterRestore() throws ContextInitializationException {
+        List<ContextInitializationException> failures = new ArrayList<>();
+        this.checkpointLock.lock();
+        try {
+            for (PropertiesHolder propertiesHolder : this.properties) {
+                try {
+                    propertiesHolder.reload();
+                } catch (ContextInitializationException ciX) {
+                    failures.add(ciX);
+                }
+            }
+            this.propertyIndex = null;
+            this.typedProperties.clear();
+
+            for (CheckpointCallbacks callbacks : this.checkpointCallbacks) {
+                try {
+                    callbacks.afterRestore();
+                } catch (ContextInitializationException ciX) {
+                    failures.add(ciX);
+                }
+            }
+
+            for (ActiveBeanRunner runner : this.activeBeanRunners) {
+                runner.resume();
+            }
+        } finally {
+            this.checkpointLock.unlock();
+        }
+        throwFailures(failures);
+    }
+
+    private static void throwFailures(final List<ContextInitializationException> failures)
+            throws ContextInitializationException {
+        if (failures.size() == 1) {
+            throw failures.get(0);
+        } else if (failures.size() > 1) {
+            CompositeContextInitializationException composite = new CompositeContextInitializationException();
+            for (ContextInitializationException failure : failures) {
+                composite.add(failure);
+            }
+            throw composite;
+        }
+    }
+
+    /**
+     * A singleton instance and the bean factory that names its checkpoint methods.
+     */
+    private static final class CheckpointCallbacks {
+        private final AbstractBeanInstanceFactory<?> factory;
+        private final Object instance;
+
+        private CheckpointCallbacks(final AbstractBeanInstanceFactory<?> factory, final Object instance) {
+            this.factory = factory;
+            this.instance = instance;
+        }
+
+        private void beforeCheckpoint() throws CheckpointException {
+            factory.beforeCheckpoint(instance);
+        }
+
+        private void afterRestore() throws CheckpointException {
+            factory.afterRestore(instance);
+        }
+    }
 
     public static Builder builder() {
         return new Builder();
     }
 
-    public void setContextObjectsMap(Set<AbstractReferencableProperty> contextObjects) {
+    /**
+     * Set the bean factories (and other referencable properties) that make up this context.
+     * Called by a ContextFactory once all of the properties have been created and before
+     * initialize() is called. Replaces any previously set referencable properties.
+     *
+     * @param contextObjects
+     */
+    public void setContextObjectsMap(final Set<AbstractReferencableProperty> contextObjects) {
+        this.referencableProperties.clear();
+        if (contextObjects != null) {
+            this.referencableProperties.addAll(contextObjects);
+        }
+        this.referencablePropertyIndex =
+                IdentifierIndex.of(this.referencableProperties, AbstractReferencableProperty::getIdentifier);
+        this.typeResolutionCache.clear();
+    }
+
+    /**
+     * Set the artifacts available to the bean factories in this context.
+     * Replaces any previously set artifacts.
+     *
+     * @param artifacts
+     */
+    public void setArtifacts(final Set<ArtifactHolder> artifacts) {
+        this.artifacts.clear();
+        if (artifacts != null) {
+            this.artifacts.addAll(artifacts);
+        }
+        this.artifactIndex = IdentifierIndex.of(this.artifacts, ArtifactHolder::getIdentifier);
+        if (this.startupRecorder != null) {
+            for (ArtifactHolder artifactHolder : this.artifacts) {
+                artifactHolder.setStartupRecorder(this.startupRecorder);
+            }
+        }
+    }
+
+    /**
+     * Set the properties available to the bean factories in this context.
+     * Must be called before any bean factory that references a property value is
+     * created. Replaces any previously set properties.
+     *
+     * @param properties
+     */
+    public void setProperties(final Set<PropertiesHolder> properties) {
+        this.properties.clear();
+        if (properties != null) {
+            this.properties.addAll(properties);
+        }
+        this.propertiesIndex = IdentifierIndex.of(this.properties, PropertiesHolder::getIdentifier);
+        this.propertyIndex = null;
+        this.typedProperties.clear();
     }
 
     public static final class Builder {
@@ -301,6 +1204,16 @@ public class Context {
         private Set<ArtifactHolder> artifacts = new HashSet<>();
         private Set<PropertiesHolder> properties = new HashSet<>();
         private Context parent;
+        private boolean prewarmTypeResolution = false;
+        private InstantiationStrategy instantiationStrategy = InstantiationStrategy.GENERATED;
+        private boolean parallelInitialization = false;
+        private Executor initializationExecutor;
+        private boolean resourcePrefetch = true;
+        private boolean startupReport = false;
+        private ActiveBeanExecution activeBeanExecution = ActiveBeanExecution.PLATFORM_THREAD;
+        private Executor activeBeanPool;
+        private int activeBeanPoolSize;
+        private boolean lazyProxies = false;
 
         private Builder() {
         }
@@ -325,8 +1238,113 @@ public class Context {
             return this;
         }
 
+        /**
+         * If set, the context resolves every supertype of every bean when it is initialized,
+         * moving the cost of by-type lookups from first use to initialization.
+         */
+        public Builder withTypeResolutionPrewarm(boolean prewarmTypeResolution) {
+            this.prewarmTypeResolution = prewarmTypeResolution;
+            return this;
+        }
+
+        /**
+         * Set how bean factories create all but the first instance of a bean, the default
+         * is GENERATED. Only beans created more than once (i.e. prototypes) are affected.
+         */
+        public Builder withInstantiationStrategy(InstantiationStrategy instantiationStrategy) {
+            this.instantiationStrategy = instantiationStrategy == null ? InstantiationStrategy.REFLECTION : instantiationStrategy;
+            return this;
+        }
+
+        /**
+         * If set, beans that do not depend on each other are initialized concurrently.
+         * Unless an executor is given, a virtual thread per bean is used where the runtime
+         * supports them, else a pool of platform threads.
+         */
+        public Builder withParallelInitialization(boolean parallelInitialization) {
+            this.parallelInitialization = parallelInitialization;
+            return this;
+        }
+
+        /**
+         * Initialize beans that do not depend on each other, and prefetch remote resources,
+         * concurrently on the given executor. The executor is not shut down by the context, and
+         * the finalize methods called when the context is closed are not run on it.
+         */
+        public Builder withInitializationExecutor(Executor initializationExecutor) {
+            this.initializationExecutor = initializationExecutor;
+            this.parallelInitialization = initializationExecutor != null || this.parallelInitialization;
+            return this;
+        }
+
+        /**
+         * If set, which is the default, remote artifacts and properties are loaded concurrently
+         * when a ContextFactory calls prefetchResources().
+         */
+        public Builder withResourcePrefetch(boolean resourcePrefetch) {
+            this.resourcePrefetch = resourcePrefetch;
+            return this;
+        }
+
+        /**
+         * If set, the context records where the time goes while it starts, per bean and per
+         * resource, see Context.getStartupReport(). Off by default, when off nothing is timed.
+         */
+        public Builder withStartupReport(boolean startupReport) {
+            this.startupReport = startupReport;
+            return this;
+        }
+
+        /**
+         * Set how active beans that do not name an execution are run, the default is a platform
+         * thread of their own.
+         */
+        public Builder withActiveBeanExecution(ActiveBeanExecution activeBeanExecution) {
+            this.activeBeanExecution = activeBeanExecution == null ? ActiveBeanExecution.PLATFORM_THREAD : activeBeanExecution;
+            return this;
+        }
+
+        /**
+         * Run the active beans executed by POOL on the given executor rather than on a pool
+         * created by the context. The executor is not shut down by the context.
+         */
+        public Builder withActiveBeanPool(Executor activeBeanPool) {
+            this.activeBeanPool = activeBeanPool;
+            return this;
+        }
+
+        /**
+         * Set the number of threads of the pool created for the active beans executed by POOL,
+         * the default is the number of processors, at least 4.
+         */
+        public Builder withActiveBeanPoolSize(int activeBeanPoolSize) {
+            this.activeBeanPoolSize = activeBeanPoolSize;
+            return this;
+        }
+
+        /**
+         * If set, a reference to a lazy-load bean from a constructor or factory method parameter
+         * whose type is an interface is injected as a proxy, which creates the bean when it is
+         * first called, rather than creating the bean when it is injected.
+         */
+        public Builder withLazyProxies(boolean lazyProxies) {
+            this.lazyProxies = lazyProxies;
+            return this;
+        }
+
         public Context build() {
-            Context context = new Context(parent, referencableProperties, artifacts, properties);
+            Context context = new Context(parent, referencableProperties, artifacts, properties, prewarmTypeResolution,
+                    startupReport ? new StartupRecorder() : null);
+            context.instantiationStrategy = instantiationStrategy;
+            context.parallelInitialization = parallelInitialization;
+            context.initializationExecutor = initializationExecutor;
+            context.resourcePrefetch = resourcePrefetch;
+            context.activeBeanExecution = activeBeanExecution;
+            context.activeBeanPool = activeBeanPool;
+            context.lazyProxies = lazyProxies;
+            if (activeBeanPoolSize > 0) {
+                context.activeBeanPoolSize = activeBeanPoolSize;
+            }
             return context;
         }
     }
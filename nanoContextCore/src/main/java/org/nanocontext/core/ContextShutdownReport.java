@@ -0,0 +1,100 @@
+package org.nanocontext.core;
+
+import org.nanocontext.core.exceptions.ContextInitializationException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What happened when a Context was closed, see Context.close(long).
+ * The active beans are shut down first and then the finalize method of each singleton is
+ * called, beans that are depended upon after the beans that depend upon them.
+ * A bean that did not finish within the timeout of the close is reported as timed out, a bean
+ * whose finalize method threw is reported as failed.
+ */
+public final class ContextShutdownReport {
+    private final long wallNanos;
+    private final List<String> runningActiveBeans;
+    private final List<String> finalized;
+    private final List<String> timedOut;
+    private final Map<String, ContextInitializationException> failures;
+
+    ContextShutdownReport(final long wallNanos,
+                          final List<String> runningActiveBeans,
+                          final List<String> finalized,
+                          final List<String> timedOut,
+                          final Map<String, ContextInitializationException> failures) {
+        this.wallNanos = wallNanos;
+        this.runningActiveBeans = Collections.unmodifiableList(new ArrayList<>(runningActiveBeans));
+        this.finalized = Collections.unmodifiableList(new ArrayList<>(finalized));
+        this.timedOut = Collections.unmodifiableList(new ArrayList<>(timedOut));
+        this.failures = Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+    }
+
+    /**
+     * @return true if every active bean returned and every finalize method returned in time
+     */
+    public boolean isComplete() {
+        return runningActiveBeans.isEmpty() && timedOut.isEmpty() && failures.isEmpty();
+    }
+
+    /**
+     * @return the elapsed time of the close
+     */
+    public Duration getWallTime() {
+        return Duration.ofNanos(wallNanos);
+    }
+
+    /**
+     * @return the identifiers of the active beans still running when the timeout elapsed
+     */
+    public List<String> getRunningActiveBeans() {
+        return runningActiveBeans;
+    }
+
+    /**
+     * @return the identifiers of the beans whose finalize method returned, in the order they returned
+     */
+    public List<String> getFinalized() {
+        return finalized;
+    }
+
+    /**
+     * @return the identifiers of the beans whose finalize method had not returned, or had not
+     *      been called, when the timeout elapsed, in identifier order
+     */
+    public List<String> getTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * @return what the finalize method of each bean threw, keyed by bean identifier in identifier order
+     */
+    public Map<String, ContextInitializationException> getFailures() {
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Context close %s: wall %.3f ms, %d finalized%n",
+                isComplete() ? "complete" : "incomplete", wallNanos / 1000000.0, finalized.size()));
+        for (String identifier : runningActiveBeans) {
+            sb.append("  active bean still running ").append(identifier).append(System.lineSeparator());
+        }
+        for (String identifier : timedOut) {
+            sb.append("  finalize timed out ").append(identifier).append(System.lineSeparator());
+        }
+        for (Map.Entry<String, ContextInitializationException> failure : failures.entrySet()) {
+            sb.append("  finalize failed ").append(failure.getKey())
+                    .append(": ").append(failure.getValue().getCause() != null ?
+                            failure.getValue().getCause() : failure.getValue().getMessage())
+                    .append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+}
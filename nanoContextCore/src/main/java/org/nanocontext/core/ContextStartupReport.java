@@ -0,0 +1,327 @@
+package org.nanocontext.core;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where the time went while a Context started, from the creation of the Context to the end
+ * of Context.initialize(). A report is recorded only if it was requested when the Context
+ * was built, see Context.Builder.withStartupReport().
+ *
+ * Times of bean creation are broken down into the phases of AbstractBeanInstanceFactory.createBeanInstance().
+ * The time of a bean and of its phases includes the creation of the beans it depends on,
+ * the self time of a bean excludes the creation of other beans and the loading of resources.
+ * CPU time is measured only where the runtime supports measuring thread CPU time, else it is zero.
+ */
+public final class ContextStartupReport {
+    /**
+     * The phases of creating a bean instance.
+     */
+    public enum Phase {
+        /** loading the bean class, and the factory class of a static factory method */
+        CLASS_LOADING,
+        /** selecting the constructor or factory method */
+        EXECUTABLE_SELECTION,
+        /** materializing the arguments and getting the factory bean, including creating the beans they reference */
+        ARGUMENTS,
+        /** invoking the constructor or factory method */
+        INVOCATION,
+        /** invoking the initialize method */
+        INITIALIZE_METHOD
+    }
+
+    /**
+     * The kinds of resource loaded by a Context.
+     */
+    public enum ResourceKind {
+        ARTIFACT,
+        PROPERTIES
+    }
+
+    private final boolean complete;
+    private final long wallNanos;
+    private final long cpuNanos;
+    private final List<BeanTiming> beanTimings;
+    private final List<ResourceTiming> resourceTimings;
+
+    ContextStartupReport(final boolean complete,
+                         final long wallNanos,
+                         final long cpuNanos,
+                         final List<BeanTiming> beanTimings,
+                         final List<ResourceTiming> resourceTimings) {
+        this.complete = complete;
+        this.wallNanos = wallNanos;
+        this.cpuNanos = cpuNanos;
+        this.beanTimings = Collections.unmodifiableList(new ArrayList<>(beanTimings));
+        this.resourceTimings = Collections.unmodifiableList(new ArrayList<>(resourceTimings));
+    }
+
+    /**
+     * @return false if the Context was still starting when this report was taken
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return the elapsed time from the creation of the Context to the end of initialize()
+     */
+    public Duration getWallTime() {
+        return Duration.ofNanos(wallNanos);
+    }
+
+    /**
+     * @return the CPU time used by the thread that started the Context and by bean creation
+     *      and resource loading on any other thread in that time
+     */
+    public Duration getCpuTime() {
+        return Duration.ofNanos(cpuNanos);
+    }
+
+    /**
+     * @return the timing of each bean that was created, in the order the beans were first created
+     */
+    public List<BeanTiming> getBeanTimings() {
+        return beanTimings;
+    }
+
+    /**
+     * @return the timing of each artifact and properties resource that was loaded, in the order loading completed
+     */
+    public List<ResourceTiming> getResourceTimings() {
+        return resourceTimings;
+    }
+
+    /**
+     * @param identifier
+     * @return the timing of the bean with the given identifier, null if it was not created
+     */
+    public BeanTiming getBeanTiming(final String identifier) {
+        for (BeanTiming beanTiming : beanTimings) {
+            if (beanTiming.getIdentifier().equals(identifier)) {
+                return beanTiming;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the sum of the self time of every bean
+     */
+    public Duration getBeanCreationTime() {
+        long total = 0L;
+        for (BeanTiming beanTiming : beanTimings) {
+            total += beanTiming.selfWallNanos;
+        }
+        return Duration.ofNanos(total);
+    }
+
+    /**
+     * @return the sum of the time of loading every resource
+     */
+    public Duration getResourceLoadingTime() {
+        long total = 0L;
+        for (ResourceTiming resourceTiming : resourceTimings) {
+            total += resourceTiming.wallNanos;
+        }
+        return Duration.ofNanos(total);
+    }
+
+    /**
+     * @return the sum of the time of every bean in the given phase
+     */
+    public Duration getPhaseTime(final Phase phase) {
+        long total = 0L;
+        for (BeanTiming beanTiming : beanTimings) {
+            total += beanTiming.phaseNanos[phase.ordinal()];
+        }
+        return Duration.ofNanos(total);
+    }
+
+    /**
+     * A summary of the report with the beans and resources that took the most time first.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Context startup %s: wall %.3f ms, cpu %.3f ms, beans %.3f ms, resources %.3f ms%n",
+                complete ? "complete" : "in progress",
+                millis(wallNanos), millis(cpuNanos),
+                millis(getBeanCreationTime().toNanos()), millis(getResourceLoadingTime().toNanos())));
+
+        List<BeanTiming> beans = new ArrayList<>(beanTimings);
+        beans.sort(Comparator.comparingLong((BeanTiming beanTiming) -> beanTiming.selfWallNanos).reversed());
+        for (BeanTiming beanTiming : beans) {
+            sb.append("  ").append(beanTiming).append(System.lineSeparator());
+        }
+
+        List<ResourceTiming> resources = new ArrayList<>(resourceTimings);
+        resources.sort(Comparator.comparingLong((ResourceTiming resourceTiming) -> resourceTiming.wallNanos).reversed());
+        for (ResourceTiming resourceTiming : resources) {
+            sb.append("  ").append(resourceTiming).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    private static double millis(final long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * The time spent creating the instances of one bean.
+     */
+    public static final class BeanTiming {
+        private final String identifier;
+        private final String clazzName;
+        private final int instanceCount;
+        private final long wallNanos;
+        private final long cpuNanos;
+        private final long selfWallNanos;
+        private final long selfCpuNanos;
+        private final long[] phaseNanos;
+
+        BeanTiming(final String identifier,
+                   final String clazzName,
+                   final int instanceCount,
+                   final long wallNanos,
+                   final long cpuNanos,
+                   final long selfWallNanos,
+                   final long selfCpuNanos,
+                   final long[] phaseNanos) {
+            this.identifier = identifier;
+            this.clazzName = clazzName;
+            this.instanceCount = instanceCount;
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            this.selfWallNanos = selfWallNanos;
+            this.selfCpuNanos = selfCpuNanos;
+            this.phaseNanos = phaseNanos.clone();
+        }
+
+        public String getIdentifier() {
+            return identifier;
+        }
+
+        public String getClazzName() {
+            return clazzName;
+        }
+
+        /**
+         * @return the number of instances created, more than one only for prototype beans
+         */
+        public int getInstanceCount() {
+            return instanceCount;
+        }
+
+        public Duration getWallTime() {
+            return Duration.ofNanos(wallNanos);
+        }
+
+        public Duration getCpuTime() {
+            return Duration.ofNanos(cpuNanos);
+        }
+
+        public Duration getSelfWallTime() {
+            return Duration.ofNanos(selfWallNanos);
+        }
+
+        public Duration getSelfCpuTime() {
+            return Duration.ofNanos(selfCpuNanos);
+        }
+
+        /**
+         * @return the wall time spent in the given phase over every instance
+         */
+        public Duration getPhaseTime(final Phase phase) {
+            return Duration.ofNanos(phaseNanos[phase.ordinal()]);
+        }
+
+        /**
+         * @return the wall time spent in each phase over every instance
+         */
+        public Map<Phase, Duration> getPhaseTimes() {
+            Map<Phase, Duration> phaseTimes = new EnumMap<>(Phase.class);
+            for (Phase phase : Phase.values()) {
+                phaseTimes.put(phase, getPhaseTime(phase));
+            }
+            return phaseTimes;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("bean %s (%s) x%d: wall %.3f ms, cpu %.3f ms, self %.3f ms",
+                    identifier, clazzName, instanceCount,
+                    millis(wallNanos), millis(cpuNanos), millis(selfWallNanos)));
+            for (Phase phase : Phase.values()) {
+                sb.append(String.format(", %s %.3f ms", phase.name().toLowerCase(), millis(phaseNanos[phase.ordinal()])));
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * The time spent loading one artifact or properties resource.
+     */
+    public static final class ResourceTiming {
+        private final ResourceKind kind;
+        private final String identifier;
+        private final String location;
+        private final boolean prefetched;
+        private final long wallNanos;
+        private final long cpuNanos;
+
+        ResourceTiming(final ResourceKind kind,
+                       final String identifier,
+                       final String location,
+                       final boolean prefetched,
+                       final long wallNanos,
+                       final long cpuNanos) {
+            this.kind = kind;
+            this.identifier = identifier;
+            this.location = location;
+            this.prefetched = prefetched;
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+        }
+
+        public ResourceKind getKind() {
+            return kind;
+        }
+
+        public String getIdentifier() {
+            return identifier;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        /**
+         * @return true if the resource was loaded by a prefetch, concurrently with the rest of the startup
+         */
+        public boolean isPrefetched() {
+            return prefetched;
+        }
+
+        public Duration getWallTime() {
+            return Duration.ofNanos(wallNanos);
+        }
+
+        public Duration getCpuTime() {
+            return Duration.ofNanos(cpuNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s (%s)%s: wall %.3f ms, cpu %.3f ms",
+                    kind.name().toLowerCase(), identifier, location, prefetched ? " prefetched" : "",
+                    millis(wallNanos), millis(cpuNanos));
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package org.nanocontext.core;
+
+import org.nanocontext.core.events.BeanInstantiationEvent;
+import org.nanocontext.core.events.SingletonAccessEvent;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.core.exceptions.FailedToInstantiateBeanException;
+import org.nanocontext.core.exceptions.InvalidMorphTargetException;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bean whose creation was generated at compile time, usually by the annotation processor.
+ * The bean class, scope and dependencies are known when the ContextFactory is generated, so
+ * instances are created by a direct constructor call in the generated Instantiator rather than
+ * by loading the class and selecting a constructor reflectively.
+ */
+public final class GeneratedBean<T>
+        extends AbstractReferencableProperty<T> {
+    /**
+     * Implemented by generated code, creates and activates the beans of a context by their
+     * index, usually with a switch over every bean of the context.
+     */
+    public interface Instantiator {
+        /**
+         * @param index the index of the bean, as given to the GeneratedBean constructor
+         * @return a new instance of the bean
+         * @throws Exception - whatever the bean constructor throws
+         */
+        Object instantiate(int index) throws Exception;
+
+        /**
+         * Run the active bean, called on the thread created for it.
+         *
+         * @param index the index of the bean, as given to the GeneratedBean constructor
+         * @param bean the instance to run
+         * @throws Exception - whatever the activate method throws
+         */
+        void activate(int index, Object bean) throws Exception;
+    }
+
+    private final Class<T> beanClass;
+    private final String scope;
+    private final boolean singleton;
+    private final boolean lazyLoad;
+    private final boolean active;
+    private final int index;
+    private final Instantiator instantiator;
+    private final RestartPolicy restartPolicy;
+
+    /** Serializes creation of the singleton, not taken once the singleton has been published */
+    private final ReentrantLock singletonInstantiationLock = new ReentrantLock();
+    /** Written once, under the lock, after the instance is completely created */
+    private volatile T singletonInstance = null;
+    /** the instances of a thread scoped bean, null for any other scope */
+    private final ThreadScopedInstances<T> threadInstances;
+
+    /**
+     *
+     * @param context
+     * @param identifier
+     * @param beanClass the class of the bean instances
+     * @param singleton true if one instance is shared, false if each reference creates an instance
+     * @param lazyLoad true if a singleton is not created until it is first referenced
+     * @param active true if each instance is run on its own thread once created
+     * @param index the index of the bean passed to the Instantiator
+     * @param instantiator the generated code that creates the bean
+     */
+    public GeneratedBean(
+            final Context context,
+            final String identifier,
+            final Class<T> beanClass,
+            final boolean singleton,
+            final boolean lazyLoad,
+            final boolean active,
+            final int index,
+            final Instantiator instantiator) {
+        this(context, identifier, beanClass, singleton, lazyLoad, active, index, instantiator, null);
+    }
+
+    /**
+     * @param restartPolicy when an active instance is run again after it returns or throws, null to never restart it
+     */
+    public GeneratedBean(
+            final Context context,
+            final String identifier,
+            final Class<T> beanClass,
+            final boolean singleton,
+            final boolean lazyLoad,
+            final boolean active,
+            final int index,
+            final Instantiator instantiator,
+            final RestartPolicy restartPolicy) {
+        this(context, identifier, beanClass, singleton ? "singleton" : "prototype", lazyLoad, active, index, instantiator, restartPolicy);
+    }
+
+    /**
+     * @param scope "singleton", "prototype" or "thread", a thread scoped bean has one instance for
+     *      each thread that references it, bound as ThreadBinding.THREAD_LOCAL
+     * @param restartPolicy when an active instance is run again after it returns or throws, null to never restart it
+     */
+    public GeneratedBean(
+            final Context context,
+            final String identifier,
+            final Class<T> beanClass,
+            final String scope,
+            final boolean lazyLoad,
+            final boolean active,
+            final int index,
+            final Instantiator instantiator,
+            final RestartPolicy restartPolicy) {
+        super(context, identifier);
+        if (!"singleton".equals(scope) && !"prototype".equals(scope) && !"thread".equals(scope)) {
+            throw new IllegalArgumentException(String.format("Unrecognized scope specifier (%s) for bean %s", scope, identifier));
+        }
+        this.beanClass = beanClass;
+        this.scope = scope;
+        this.singleton = "singleton".equals(scope);
+        this.threadInstances = "thread".equals(scope) ? new ThreadScopedInstances<>(ThreadBinding.THREAD_LOCAL) : null;
+        // active implies immediate load and start
+        this.lazyLoad = lazyLoad && !active;
+        this.active = active;
+        this.index = index;
+        this.instantiator = instantiator;
+        this.restartPolicy = restartPolicy;
+    }
+
+    @Override
+    public void initialize() throws ContextInitializationException {
+        if (!lazyLoad) {
+            getValue();
+        }
+    }
+
+    @Override
+    boolean isLazyLoad() {
+        return lazyLoad;
+    }
+
+    @Override
+    void releaseInstances() {
+        if (threadInstances != null) {
+            threadInstances.clear();
+        }
+    }
+
+    /**
+     * @return the singleton instance, the instance of the current thread of a thread scoped bean,
+     *      or a new instance of a prototype bean
+     * @throws ContextInitializationException
+     */
+    @Override
+    public T getValue() throws ContextInitializationException {
+        if (threadInstances != null) {
+            T instance = threadInstances.get();
+            if (instance == null) {
+                instance = createBeanInstance();
+                threadInstances.put(instance);
+            }
+            return instance;
+        }
+        if (!singleton) {
+            return createBeanInstance();
+        }
+
+        T instance = singletonInstance;
+        if (instance != null) {
+            SingletonAccessEvent event = new SingletonAccessEvent();
+            if (event.isEnabled()) {
+                event.beanIdentifier = getIdentifier();
+                event.commit();
+            }
+            return instance;
+        }
+
+        SingletonAccessEvent event = new SingletonAccessEvent();
+        event.begin();
+        boolean created = false;
+        singletonInstantiationLock.lock();
+        try {
+            instance = singletonInstance;
+            if (instance == null) {
+                instance = createBeanInstance();
+                singletonInstance = instance;
+                created = true;
+            }
+        } finally {
+            singletonInstantiationLock.unlock();
+        }
+
+        if (event.shouldCommit()) {
+            event.beanIdentifier = getIdentifier();
+            event.created = created;
+            event.commit();
+        }
+        return instance;
+    }
+
+    private T createBeanInstance() throws ContextInitializationException {
+        BeanInstantiationEvent event = new BeanInstantiationEvent();
+        event.begin();
+        T instance;
+        try {
+            instance = beanClass.cast(instantiator.instantiate(index));
+        } catch (ContextInitializationException ciX) {
+            commitInstantiationEvent(event, false);
+            throw ciX;
+        } catch (Exception x) {
+            commitInstantiationEvent(event, false);
+            throw new FailedToInstantiateBeanException(beanClass.getName(), x);
+        }
+        commitInstantiationEvent(event, true);
+
+        if (active && instance != null) {
+            String threadName = String.format("ActiveClassifier-%s", this.getIdentifier());
+            ActiveBeanRunner runner = new ActiveBeanRunner(this.getIdentifier(), beanClass,
+                    new Activation(this.getIdentifier(), index, instance, instantiator), instance, restartPolicy, singleton);
+            if (instance instanceof Runnable) {
+                getContext().registerActiveBean((Runnable) instance);
+            }
+            getContext().registerActiveBeanRunner(runner);
+            runner.start(getContext(), getContext().getActiveBeanExecutor(null, threadName));
+        }
+
+        return instance;
+    }
+
+    private void commitInstantiationEvent(final BeanInstantiationEvent event, final boolean succeeded) {
+        if (event.shouldCommit()) {
+            event.beanIdentifier = getIdentifier();
+            event.beanClass = beanClass.getName();
+            event.scope = scope;
+            event.succeeded = succeeded;
+            event.commit();
+        }
+    }
+
+    @Override
+    public <S> S getValue(final Class<S> targetClazz)
+            throws ContextInitializationException {
+        if (isResolvableAs(targetClazz)) {
+            return targetClazz.cast(getValue());
+        } else {
+            throw new InvalidMorphTargetException(this, getValueType(), targetClazz);
+        }
+    }
+
+    @Override
+    public Class<?> getValueType() {
+        return beanClass;
+    }
+
+    @Override
+    public boolean isResolvableAs(final Class<?> clazz) {
+        return clazz.isAssignableFrom(beanClass);
+    }
+
+    @Override
+    public String toString() {
+        return "GeneratedBean{" +
+                "identifier=" + getIdentifier() +
+                ", beanClass=" + beanClass.getName() +
+                ", scope=" + scope +
+                '}';
+    }
+
+    /**
+     * Runs an active bean through the generated activate method.
+     */
+    private static final class Activation implements Runnable {
+        private final String identifier;
+        private final int index;
+        private final Object bean;
+        private final Instantiator instantiator;
+
+        Activation(final String identifier, final int index, final Object bean, final Instantiator instantiator) {
+            this.identifier = identifier;
+            this.index = index;
+            this.bean = bean;
+            this.instantiator = instantiator;
+        }
+
+        @Override
+        public void run() {
+            try {
+                instantiator.activate(index, bean);
+            } catch (RuntimeException x) {
+                throw x;
+            } catch (Exception x) {
+                // thrown on, so that the bean is restarted as its RestartPolicy requires
+                throw new IllegalStateException(String.format("Active bean %s terminated with %s", identifier, x), x);
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.nanocontext.core;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * An immutable, open-addressed (linear probing) map from identifier to value.
+ * The index is built once from a Collection of values and is never modified
+ * afterwards, so lookups require no locking and no allocation.
+ * Where more than one value has the same identifier the first one in the
+ * iteration order of the source Collection is retained, consistent with
+ * the behavior of adding to a Set.
+ *
+ * @param <V> the type of the indexed values
+ */
+final class IdentifierIndex<V> {
+    private static final int MINIMUM_CAPACITY = 4;
+
+    private static final IdentifierIndex<?> EMPTY = new IdentifierIndex<>(new String[MINIMUM_CAPACITY], new Object[MINIMUM_CAPACITY], 0);
+
+    private final String[] keys;
+    private final Object[] values;
+    private final int mask;
+    private final int size;
+
+    private IdentifierIndex(final String[] keys, final Object[] values, final int size) {
+        this.keys = keys;
+        this.values = values;
+        this.mask = keys.length - 1;
+        this.size = size;
+    }
+
+    /**
+     * @param <V> the type of the indexed values
+     * @return an index with no entries
+     */
+    static <V> IdentifierIndex<V> empty() {
+        return (IdentifierIndex<V>) EMPTY;
+    }
+
+    /**
+     * Build an index over the given values.
+     *
+     * @param source the values to index, null values and values with a null identifier are ignored
+     * @param identifierFunction extracts the identifier from a value
+     * @param <V> the type of the indexed values
+     * @return an immutable index of the values by identifier
+     */
+    static <V> IdentifierIndex<V> of(final Collection<? extends V> source, final Function<? super V, String> identifierFunction) {
+        if (source == null || source.isEmpty()) {
+            return empty();
+        }
+
+        // keep the table at most half full so that probe sequences stay short
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < source.size() * 2) {
+            capacity <<= 1;
+        }
+
+        final String[] keys = new String[capacity];
+        final Object[] values = new Object[capacity];
+        final int mask = capacity - 1;
+        int size = 0;
+
+        for (V value : source) {
+            String key = value == null ? null : identifierFunction.apply(value);
+            if (key == null) {
+                continue;
+            }
+
+            int slot = spread(key.hashCode()) & mask;
+            while (keys[slot] != null && !keys[slot].equals(key)) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == null) {
+                keys[slot] = key;
+                values[slot] = value;
+                ++size;
+            }
+        }
+
+        return new IdentifierIndex<>(keys, values, size);
+    }
+
+    /**
+     * @param identifier the identifier to look for
+     * @return the value with the given identifier or null if there is none
+     */
+    V get(final String identifier) {
+        if (identifier == null) {
+            return null;
+        }
+
+        int slot = spread(identifier.hashCode()) & mask;
+        for (String key = keys[slot]; key != null; key = keys[slot]) {
+            if (key == identifier || key.equals(identifier)) {
+                return (V) values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the number of distinct identifiers in the index
+     */
+    int size() {
+        return size;
+    }
+
+    /** mix the high bits into the low bits, which are the only ones the mask keeps */
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
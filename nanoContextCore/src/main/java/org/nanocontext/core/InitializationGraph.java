@@ -0,0 +1,313 @@
+package org.nanocontext.core;
+
+import org.nanocontext.core.exceptions.CompositeContextInitializationException;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.core.exceptions.GenericContextInitializationException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The dependencies between the referencable properties of a Context, used to initialize
+ * independent properties concurrently.
+ * A bean factory depends on the beans named by its constructor arguments (directly, within
+ * a list or within a nested bean) and on its factory bean. Only dependencies on properties of
+ * the same Context are considered, a parent Context is initialized before its children.
+ *
+ * A property is initialized once all of its dependencies have been initialized. Properties
+ * that are part of a dependency cycle, or depend on one, are initialized serially in identifier
+ * order after all others, as they were before concurrent initialization.
+ * The same dependencies order the finalization of the beans when the Context is closed, in reverse.
+ */
+final class InitializationGraph {
+    /** the properties whose dependencies can be ordered, in dependency order */
+    private final List<AbstractReferencableProperty<?>> ordered;
+
+    /** the properties in or behind a dependency cycle, in identifier order */
+    private final List<AbstractReferencableProperty<?>> unordered;
+
+    /** the identifiers of the dependencies of each property, keyed by identifier */
+    private final Map<String, Set<String>> dependencies;
+
+    private InitializationGraph(
+            final List<AbstractReferencableProperty<?>> ordered,
+            final List<AbstractReferencableProperty<?>> unordered,
+            final Map<String, Set<String>> dependencies) {
+        this.ordered = ordered;
+        this.unordered = unordered;
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * Build the graph of the given properties.
+     *
+     * @param properties the properties of a single Context
+     * @return the initialization graph
+     */
+    static InitializationGraph of(final Collection<? extends AbstractReferencableProperty> properties) {
+        final Map<String, AbstractReferencableProperty<?>> nodes = new LinkedHashMap<>();
+        for (AbstractReferencableProperty<?> property : properties) {
+            nodes.putIfAbsent(property.getIdentifier(), property);
+        }
+
+        final Map<String, Set<String>> dependencies = new HashMap<>();
+        final Map<String, List<String>> dependents = new HashMap<>();
+        final Map<String, Integer> unresolvedCounts = new HashMap<>();
+        for (AbstractReferencableProperty<?> property : nodes.values()) {
+            Set<String> propertyDependencies = new LinkedHashSet<>();
+            collectDependencies(property, propertyDependencies);
+            propertyDependencies.retainAll(nodes.keySet());
+
+            dependencies.put(property.getIdentifier(), propertyDependencies);
+            unresolvedCounts.put(property.getIdentifier(), propertyDependencies.size());
+            for (String dependency : propertyDependencies) {
+                dependents.computeIfAbsent(dependency, key -> new ArrayList<>()).add(property.getIdentifier());
+            }
+        }
+
+        // Kahn's algorithm, whatever is not reached is in or behind a cycle
+        final List<AbstractReferencableProperty<?>> ordered = new ArrayList<>(nodes.size());
+        final Deque<String> ready = new ArrayDeque<>();
+        for (Map.Entry<String, Integer> entry : unresolvedCounts.entrySet()) {
+            if (entry.getValue() == 0) {
+                ready.add(entry.getKey());
+            }
+        }
+        while (!ready.isEmpty()) {
+            String identifier = ready.poll();
+            ordered.add(nodes.get(identifier));
+            for (String dependent : dependents.getOrDefault(identifier, new ArrayList<>())) {
+                if (unresolvedCounts.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        final List<AbstractReferencableProperty<?>> unordered = new ArrayList<>();
+        if (ordered.size() < nodes.size()) {
+            for (AbstractReferencableProperty<?> property : nodes.values()) {
+                if (unresolvedCounts.get(property.getIdentifier()) > 0) {
+                    unordered.add(property);
+                }
+            }
+        }
+
+        return new InitializationGraph(ordered, unordered, dependencies);
+    }
+
+    /**
+     * Add the identifiers of the beans the given property depends on.
+     */
+    private static void collectDependencies(final AbstractProperty<?> property, final Set<String> dependencies) {
+        if (property instanceof BeanReference) {
+            dependencies.add(((BeanReference<?>) property).getReferencedBeanIdentifier());
+
+        } else if (property instanceof ListProperty) {
+            for (AbstractProperty<?> element : ((ListProperty<?>) property).getElementProperties()) {
+                collectDependencies(element, dependencies);
+            }
+
+        } else if (property instanceof AbstractBeanInstanceFactory) {
+            AbstractBeanInstanceFactory<?> beanFactory = (AbstractBeanInstanceFactory<?>) property;
+            if (beanFactory.getFactoryId() != null) {
+                dependencies.add(beanFactory.getFactoryId());
+            }
+            if (beanFactory.getConstructorParameterProperties() != null) {
+                for (AbstractProperty<?> argument : beanFactory.getConstructorParameterProperties()) {
+                    collectDependencies(argument, dependencies);
+                }
+            }
+        }
+    }
+
+    /**
+     * Initialize every property, each one after its dependencies and otherwise concurrently
+     * on the given executor. If a property fails to initialize the properties that depend
+     * on it are not initialized.
+     *
+     * @param executor runs the initialization of each property, if it rejects a task
+     *                 the task is run on the calling thread
+     * @throws ContextInitializationException - if exactly one property failed to initialize
+     * @throws CompositeContextInitializationException - if more than one property failed, the
+     *      failures are added in identifier order
+     */
+    void initialize(final Executor executor) throws ContextInitializationException {
+        final SortedMap<String, ContextInitializationException> failures = new ConcurrentSkipListMap<>();
+        final AtomicReference<Error> error = new AtomicReference<>();
+        final Executor callerRunsExecutor = task -> {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException x) {
+                task.run();
+            }
+        };
+
+        final Map<String, CompletableFuture<Void>> futures = new HashMap<>();
+        for (AbstractReferencableProperty<?> property : ordered) {
+            Set<String> propertyDependencies = dependencies.get(property.getIdentifier());
+            CompletableFuture<?>[] dependencyFutures = new CompletableFuture<?>[propertyDependencies.size()];
+            int index = 0;
+            for (String dependency : propertyDependencies) {
+                dependencyFutures[index++] = futures.get(dependency);
+            }
+
+            CompletableFuture<Void> future = CompletableFuture.allOf(dependencyFutures)
+                    .thenRunAsync(() -> initialize(property, failures, error), callerRunsExecutor);
+            futures.put(property.getIdentifier(), future);
+        }
+
+        for (CompletableFuture<Void> future : futures.values()) {
+            try {
+                future.join();
+            } catch (CompletionException | CancellationException x) {
+                // recorded in failures or error, or skipped because a dependency failed
+            }
+        }
+
+        if (error.get() != null) {
+            throw error.get();
+        }
+
+        if (failures.isEmpty()) {
+            for (AbstractReferencableProperty<?> property : unordered) {
+                property.initialize();
+            }
+            return;
+        }
+
+        if (failures.size() == 1) {
+            throw failures.values().iterator().next();
+        }
+        CompositeContextInitializationException composite = new CompositeContextInitializationException();
+        for (ContextInitializationException failure : failures.values()) {
+            composite.add(failure);
+        }
+        throw composite;
+    }
+
+    /**
+     * Run the given task of each property in the reverse of the order of initialize(), each one
+     * after the tasks of the properties that depend on it and otherwise concurrently on the
+     * given executor. Properties without a task are passed through, a property waits for the
+     * properties that depend on it through any number of those. The properties in or behind a
+     * dependency cycle are run first, serially in reverse identifier order.
+     * A task that fails does not keep the tasks of its dependencies from being run.
+     *
+     * @param tasks the task of each property, keyed by identifier
+     * @param executor runs each task, if it rejects a task the task is run on the calling thread
+     * @return the completion of each of the tasks, keyed by identifier
+     */
+    Map<String, CompletableFuture<Void>> runInReverse(final Map<String, Runnable> tasks, final Executor executor) {
+        final Executor callerRunsExecutor = task -> {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException x) {
+                task.run();
+            }
+        };
+
+        final Map<String, List<String>> dependents = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : dependencies.entrySet()) {
+            for (String dependency : entry.getValue()) {
+                dependents.computeIfAbsent(dependency, key -> new ArrayList<>()).add(entry.getKey());
+            }
+        }
+
+        final Map<String, CompletableFuture<Void>> futures = new HashMap<>();
+        CompletableFuture<Void> cycle = CompletableFuture.completedFuture(null);
+        for (int index = unordered.size() - 1; index >= 0; --index) {
+            cycle = runAfter(cycle, tasks.get(unordered.get(index).getIdentifier()), callerRunsExecutor);
+            futures.put(unordered.get(index).getIdentifier(), cycle);
+        }
+
+        // every dependent of a property precedes it in the dependency order
+        for (int index = ordered.size() - 1; index >= 0; --index) {
+            String identifier = ordered.get(index).getIdentifier();
+            List<String> propertyDependents = dependents.getOrDefault(identifier, new ArrayList<>());
+            CompletableFuture<?>[] dependentFutures = new CompletableFuture<?>[propertyDependents.size()];
+            int dependentIndex = 0;
+            for (String dependent : propertyDependents) {
+                dependentFutures[dependentIndex++] = futures.get(dependent);
+            }
+            futures.put(identifier, runAfter(CompletableFuture.allOf(dependentFutures), tasks.get(identifier), callerRunsExecutor));
+        }
+
+        futures.keySet().retainAll(tasks.keySet());
+        return futures;
+    }
+
+    private static CompletableFuture<Void> runAfter(
+            final CompletableFuture<Void> predecessors, final Runnable task, final Executor executor) {
+        CompletableFuture<Void> settled = predecessors.exceptionally(x -> null);
+        return task == null ? settled : settled.thenRunAsync(task, executor);
+    }
+
+    private static void initialize(
+            final AbstractReferencableProperty<?> property,
+            final Map<String, ContextInitializationException> failures,
+            final AtomicReference<Error> error) {
+        try {
+            property.initialize();
+        } catch (ContextInitializationException x) {
+            failures.put(property.getIdentifier(), x);
+            throw new CompletionException(x);
+        } catch (RuntimeException x) {
+            failures.put(property.getIdentifier(), new GenericContextInitializationException(x));
+            throw new CompletionException(x);
+        } catch (Error x) {
+            error.compareAndSet(null, x);
+            throw x;
+        }
+    }
+
+    /**
+     * Create the executor used when concurrent initialization is requested without an executor.
+     * Uses a virtual thread per task where the runtime supports virtual threads, else a bounded
+     * pool of daemon threads in the given ThreadGroup. Bean initialization is expected to be
+     * dominated by I/O, so the pool is larger than the number of processors.
+     *
+     * @param threadGroup the ThreadGroup of platform threads
+     * @param namePrefix the prefix of platform thread names
+     * @return an executor that the caller must shut down
+     */
+    static ExecutorService newDefaultExecutor(final ThreadGroup threadGroup, final String namePrefix) {
+        ExecutorService virtualThreadExecutor = VirtualThreads.newThreadPerTaskExecutor();
+        if (virtualThreadExecutor != null) {
+            return virtualThreadExecutor;
+        }
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(threadGroup, runnable, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        final int poolSize = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                poolSize, poolSize, 1L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,23 @@
+package org.nanocontext.core;
+
+/**
+ * How a bean factory invokes the constructor or factory method it has selected
+ * once it creates more than one instance (i.e. prototype beans).
+ * The first instance of every bean is always created using reflection, the
+ * strategy is applied from the second instance on, so that beans created only
+ * once (i.e. singletons) do not pay for binding.
+ * Where a strategy cannot be applied to an executable the next one in the
+ * order GENERATED, METHOD_HANDLE, REFLECTION is used.
+ */
+public enum InstantiationStrategy {
+    /** Constructor.newInstance() and Method.invoke() */
+    REFLECTION,
+    /** A MethodHandle bound to the constructor or factory method */
+    METHOD_HANDLE,
+    /**
+     * A Supplier, Function or BiFunction generated by LambdaMetafactory for
+     * executables with up to two parameters (including the factory instance),
+     * a MethodHandle otherwise.
+     */
+    GENERATED
+}
@@ -0,0 +1,67 @@
+package org.nanocontext.core;
+
+import org.nanocontext.core.exceptions.ContextInitializationException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stands in for a lazy-load bean injected as an interface, the bean is created when
+ * any method of the proxy is first called and every call is then passed to it.
+ * The methods of Object, equals(), hashCode() and toString(), are passed to the bean as well.
+ *
+ * @see Context.Builder#withLazyProxies(boolean)
+ */
+final class LazyProxy implements InvocationHandler {
+    private final AbstractReferencableProperty<?> bean;
+
+    /** Serializes creation of the bean, not taken once the bean has been published */
+    private final ReentrantLock targetLock = new ReentrantLock();
+    /** Written once, under the lock, after the bean is created */
+    private volatile Object target;
+
+    private LazyProxy(final AbstractReferencableProperty<?> bean) {
+        this.bean = bean;
+    }
+
+    /**
+     * @param type the interface the bean is injected as
+     * @param bean the bean to create on first use
+     * @return a proxy that implements the interface
+     */
+    static <S> S create(final Class<S> type, final AbstractReferencableProperty<?> bean) {
+        ClassLoader classLoader = type.getClassLoader() != null ? type.getClassLoader() : LazyProxy.class.getClassLoader();
+        return type.cast(Proxy.newProxyInstance(classLoader, new Class<?>[]{type}, new LazyProxy(bean)));
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(getTarget(), args);
+        } catch (InvocationTargetException itX) {
+            throw itX.getCause();
+        }
+    }
+
+    private Object getTarget() {
+        Object instance = this.target;
+        if (instance == null) {
+            this.targetLock.lock();
+            try {
+                instance = this.target;
+                if (instance == null) {
+                    instance = this.bean.getValue();
+                    this.target = instance;
+                }
+            } catch (ContextInitializationException ciX) {
+                throw new IllegalStateException(String.format("Unable to create lazy-load bean %s", this.bean.getIdentifier()), ciX);
+            } finally {
+                this.targetLock.unlock();
+            }
+        }
+        return instance;
+    }
+}
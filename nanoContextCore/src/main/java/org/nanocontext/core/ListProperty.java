@@ -6,9 +6,10 @@ import org.nanocontext.core.exceptions.InvalidMorphTargetException;
 import org.nanocontext.utility.exceptions.UnknownCollectionTypeException;
 import org.nanocontext.utility.Utility;
 
-import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -19,11 +20,17 @@ public class ListProperty<C> extends AbstractProperty<C> {
     private final Class<C> valueType;       // this will be either List or an array
     private final Class<?> elementType;
 
+    /** true if every element is a constant, so the materialized value never changes */
+    private final boolean constant;
+
+    /**
+     * The most recent materialization of a constant list, an unmodifiable List that is shared
+     * or an array that is copied. Replaced, never modified, so it is read without locking.
+     */
+    private volatile Materialized materialized;
+
     public ListProperty(final Context context, final List<AbstractProperty> properties) {
-        super(context);
-        this.properties = properties;
-        this.valueType = (Class<C>) List.class;
-        this.elementType = Object.class;
+        this(context, properties, (Class<C>) List.class, Object.class);
     }
 
     private ListProperty(final Context context, final List<AbstractProperty> properties, Class<C> valueType, Class<?> elementType) {
@@ -31,31 +38,33 @@ public class ListProperty<C> extends AbstractProperty<C> {
         this.properties = properties;
         this.valueType = (Class<C>) valueType;
         this.elementType = elementType;
+        this.constant = isAllConstant(properties);
     }
 
-    /** */
-    @Override
-    public C getValue() throws ContextInitializationException {
-        if (List.class.equals(valueType)) {
-            List value = new ArrayList<>(properties.size());
-
-            for (AbstractProperty property : properties) {
-                value.add(property.getValue(getElementType()));
+    private static boolean isAllConstant(final List<AbstractProperty> properties) {
+        for (AbstractProperty property : properties) {
+            if (!(property instanceof ConstantProperty)) {
+                return false;
             }
+        }
+        return true;
+    }
 
-            return (C) value;
-        } else if (valueType.isArray()) {
-            Object value = Array.newInstance(elementType, properties.size());
-            int index = 0;
-            for (AbstractProperty property : properties) {
-                Array.set(value, index++, property.getValue(getElementType()));
-            }
+    /**
+     * @return the properties that are the elements of this list
+     */
+    List<AbstractProperty> getElementProperties() {
+        return properties;
+    }
 
-            return (C) value;
+    /** */
+    @Override
+    public C getValue() throws ContextInitializationException {
+        if (List.class.equals(valueType) || valueType.isArray()) {
+            return getValue(valueType, elementType);
         } else {
             return null;
         }
-
     }
 
     /**
@@ -74,6 +83,14 @@ public class ListProperty<C> extends AbstractProperty<C> {
     @Override
     public <S> S getValue(final Class<S> targetClazz)
             throws ContextInitializationException {
+        // a constant list that has been materialized as the target array type is known to be
+        // resolvable, skip checking each element again
+        Materialized current = this.materialized;
+        if (current != null && current.targetClazz == targetClazz && targetClazz.isArray()
+                && current.targetElementClazz == targetClazz.getComponentType()) {
+            return (S) current.copy();
+        }
+
         if (isResolvableAs(targetClazz)) {
             Class<?> targetElementClazz = null;
             try {
@@ -102,26 +119,36 @@ public class ListProperty<C> extends AbstractProperty<C> {
         Class<?> fixedTargetElementClazz = targetElementClazz == null ?
                 getElementType() : targetElementClazz;
 
-        if (List.class.equals(targetClazz)) {
-            List value = new ArrayList<>(properties.size());
+        if (!List.class.equals(targetClazz) && !targetClazz.isArray()) {
+            throw new InvalidMorphTargetException(this, getValueType(), targetClazz);
+        }
 
-            for (AbstractProperty property : properties) {
-                value.add(property.getValue(fixedTargetElementClazz));
-            }
+        Materialized current = this.materialized;
+        if (current != null && current.targetClazz == targetClazz && current.targetElementClazz == fixedTargetElementClazz) {
+            return (S) current.copy();
+        }
 
-            return (S) value;
-        } else if (targetClazz.isArray()) {
-            Object value = Array.newInstance(targetElementClazz, properties.size());
-            int index = 0;
-            for (AbstractProperty property : properties) {
-                Array.set(value, index++, property.getValue(fixedTargetElementClazz));
-            }
+        Object[] elements = new Object[properties.size()];
+        int index = 0;
+        for (AbstractProperty property : properties) {
+            elements[index++] = property.getValue(fixedTargetElementClazz);
+        }
 
-            return (S) value;
+        if (List.class.equals(targetClazz)) {
+            if (this.constant) {
+                List value = Collections.unmodifiableList(Arrays.asList(elements));
+                this.materialized = new Materialized(targetClazz, fixedTargetElementClazz, value);
+                return (S) value;
+            }
+            return (S) new ArrayList<>(Arrays.asList(elements));
         } else {
-            throw new InvalidMorphTargetException(this, getValueType(), targetClazz);
+            Object value = Utility.createTypedArray(fixedTargetElementClazz, elements);
+            if (this.constant) {
+                this.materialized = new Materialized(targetClazz, fixedTargetElementClazz, value);
+                return (S) Utility.copyTypedArray(value);
+            }
+            return (S) value;
         }
-
     }
 
     /** */
@@ -191,6 +218,28 @@ public class ListProperty<C> extends AbstractProperty<C> {
         throw new ContextInitializationException(new UnknownCollectionTypeException(targetElementType));
     }
 
+    /**
+     * The value of a constant list as one target type and element type.
+     */
+    private static final class Materialized {
+        private final Class<?> targetClazz;
+        private final Class<?> targetElementClazz;
+        private final Object value;
+
+        private Materialized(final Class<?> targetClazz, final Class<?> targetElementClazz, final Object value) {
+            this.targetClazz = targetClazz;
+            this.targetElementClazz = targetElementClazz;
+            this.value = value;
+        }
+
+        /**
+         * @return the List itself, which is unmodifiable, or a copy of the array
+         */
+        private Object copy() {
+            return this.value instanceof List ? this.value : Utility.copyTypedArray(this.value);
+        }
+    }
+
     @Override
     public String toString() {
         return "ListProperty{" +
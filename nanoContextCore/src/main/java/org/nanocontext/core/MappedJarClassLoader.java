@@ -0,0 +1,213 @@
+package org.nanocontext.core;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.CodeSigner;
+import java.security.CodeSource;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A ClassLoader over a single local jar that reads class files from a read only memory
+ * mapping of the jar, rather than through a JarFile.
+ * The central directory is indexed once, when the loader is created. Resources other than
+ * class files are found by the ReleasableJarClassLoader super-class, as are classes from jars
+ * that cannot be indexed (signed jars, ZIP64 jars or jars larger than 2GB), so that behavior
+ * matches URLClassLoader.newInstance() in every case. The mapping holds no file handle, the
+ * jar opened by the super-class is closed by release().
+ */
+final class MappedJarClassLoader extends ReleasableJarClassLoader {
+    static {
+        registerAsParallelCapable();
+    }
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_LENGTH = 22;
+    private static final int MAXIMUM_COMMENT_LENGTH = 0xFFFF;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    /** the mapped jar, never read through directly, readers take a duplicate */
+    private final ByteBuffer mapping;
+
+    /** the central directory entries of class files, keyed by binary class name */
+    private final Map<String, Entry> classEntries;
+
+    private final CodeSource codeSource;
+
+    /**
+     * @param jar the local jar
+     * @throws IOException - if the jar cannot be mapped
+     */
+    MappedJarClassLoader(final Path jar) throws IOException, MalformedURLException {
+        super(jar);
+        this.codeSource = new CodeSource(jar.toUri().toURL(), (CodeSigner[]) null);
+
+        ByteBuffer mapped = null;
+        Map<String, Entry> entries = Collections.emptyMap();
+        try (FileChannel channel = FileChannel.open(jar, StandardOpenOption.READ)) {
+            if (channel.size() <= Integer.MAX_VALUE) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+                entries = indexClassEntries(mapped);
+            }
+        }
+        this.mapping = mapped;
+        this.classEntries = entries;
+    }
+
+    /**
+     * @return the number of class files read from the mapping, zero if the jar could not be indexed
+     */
+    int getIndexedClassCount() {
+        return classEntries.size();
+    }
+
+    @Override
+    protected Class<?> findClass(final String name) throws ClassNotFoundException {
+        Entry entry = classEntries.get(name);
+        if (entry == null) {
+            return super.findClass(name);
+        }
+
+        byte[] classBytes;
+        try {
+            classBytes = read(entry);
+        } catch (DataFormatException | RuntimeException x) {
+            throw new ClassNotFoundException(name, x);
+        }
+
+        int lastDot = name.lastIndexOf('.');
+        if (lastDot > 0) {
+            String packageName = name.substring(0, lastDot);
+            if (getDefinedPackage(packageName) == null) {
+                try {
+                    definePackage(packageName, null, null, null, null, null, null, null);
+                } catch (IllegalArgumentException iaX) {
+                    // defined concurrently by another thread
+                }
+            }
+        }
+        return defineClass(name, classBytes, 0, classBytes.length, codeSource);
+    }
+
+    private byte[] read(final Entry entry) throws DataFormatException {
+        ByteBuffer buffer = mapping.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(entry.localHeaderOffset) != LOCAL_HEADER_SIGNATURE) {
+            throw new IllegalStateException("Invalid local header for " + entry.name);
+        }
+        int dataOffset = entry.localHeaderOffset + 30
+                + (buffer.getShort(entry.localHeaderOffset + 26) & 0xFFFF)
+                + (buffer.getShort(entry.localHeaderOffset + 28) & 0xFFFF);
+
+        buffer.position(dataOffset).limit(dataOffset + entry.compressedSize);
+        byte[] content = new byte[entry.uncompressedSize];
+        if (entry.method == STORED) {
+            buffer.get(content);
+            return content;
+        }
+
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(buffer);
+            int length = 0;
+            while (length < content.length && !inflater.finished()) {
+                int inflated = inflater.inflate(content, length, content.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated entry " + entry.name);
+                }
+                length += inflated;
+            }
+            return content;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * @return the class file entries of the jar, empty if the jar cannot be indexed
+     */
+    private static Map<String, Entry> indexClassEntries(final ByteBuffer jar) {
+        int endOfCentralDirectory = -1;
+        int lowest = Math.max(0, jar.limit() - END_OF_CENTRAL_DIRECTORY_LENGTH - MAXIMUM_COMMENT_LENGTH);
+        for (int offset = jar.limit() - END_OF_CENTRAL_DIRECTORY_LENGTH; offset >= lowest; --offset) {
+            if (jar.getInt(offset) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                endOfCentralDirectory = offset;
+                break;
+            }
+        }
+        if (endOfCentralDirectory < 0) {
+            return Collections.emptyMap();
+        }
+
+        int entryCount = jar.getShort(endOfCentralDirectory + 10) & 0xFFFF;
+        long centralDirectoryOffset = jar.getInt(endOfCentralDirectory + 16) & 0xFFFFFFFFL;
+        if (entryCount == 0xFFFF || centralDirectoryOffset >= jar.limit()) {
+            return Collections.emptyMap();        // ZIP64
+        }
+
+        Map<String, Entry> entries = new HashMap<>(entryCount * 2);
+        int offset = (int) centralDirectoryOffset;
+        for (int index = 0; index < entryCount; ++index) {
+            if (jar.getInt(offset) != CENTRAL_DIRECTORY_SIGNATURE) {
+                return Collections.emptyMap();
+            }
+            int method = jar.getShort(offset + 10) & 0xFFFF;
+            long compressedSize = jar.getInt(offset + 20) & 0xFFFFFFFFL;
+            long uncompressedSize = jar.getInt(offset + 24) & 0xFFFFFFFFL;
+            int nameLength = jar.getShort(offset + 28) & 0xFFFF;
+            int extraLength = jar.getShort(offset + 30) & 0xFFFF;
+            int commentLength = jar.getShort(offset + 32) & 0xFFFF;
+            long localHeaderOffset = jar.getInt(offset + 42) & 0xFFFFFFFFL;
+
+            byte[] nameBytes = new byte[nameLength];
+            ByteBuffer nameBuffer = jar.duplicate();
+            nameBuffer.position(offset + 46);
+            nameBuffer.get(nameBytes);
+            String name = new String(nameBytes, StandardCharsets.UTF_8);
+
+            // the signature would not be verified when reading from the mapping
+            if (name.startsWith("META-INF/") && (name.endsWith(".SF") || name.endsWith(".RSA") || name.endsWith(".DSA") || name.endsWith(".EC"))) {
+                return Collections.emptyMap();
+            }
+            if (compressedSize == 0xFFFFFFFFL || uncompressedSize == 0xFFFFFFFFL || localHeaderOffset == 0xFFFFFFFFL) {
+                return Collections.emptyMap();    // ZIP64
+            }
+
+            if (name.endsWith(".class") && (method == STORED || method == DEFLATED)) {
+                String className = name.substring(0, name.length() - ".class".length()).replace('/', '.');
+                entries.put(className, new Entry(name, method, (int) compressedSize, (int) uncompressedSize, (int) localHeaderOffset));
+            }
+
+            offset += 46 + nameLength + extraLength + commentLength;
+        }
+        return entries;
+    }
+
+    /** a class file entry of the central directory */
+    private static final class Entry {
+        private final String name;
+        private final int method;
+        private final int compressedSize;
+        private final int uncompressedSize;
+        private final int localHeaderOffset;
+
+        Entry(final String name, final int method, final int compressedSize, final int uncompressedSize, final int localHeaderOffset) {
+            this.name = name;
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.uncompressedSize = uncompressedSize;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.nanocontext.core;
+
+/**
+ * The bounds of the pool of a pooled bean.
+ * The minimum number of instances are created when the bean is initialized, more are created
+ * as they are borrowed, up to the maximum. A borrow once the maximum is borrowed waits for an
+ * instance to be returned, at most the maximum wait.
+ * Immutable.
+ */
+public final class PoolPolicy {
+    /** one instance for each processor, for borrowers that keep their instance while they compute */
+    public static final int DEFAULT_MAX_SIZE = Runtime.getRuntime().availableProcessors();
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 30000L;
+
+    /** no instances created in advance, at most DEFAULT_MAX_SIZE */
+    public static final PoolPolicy DEFAULT = new PoolPolicy(0, DEFAULT_MAX_SIZE, DEFAULT_MAX_WAIT_MILLIS);
+
+    private final int minSize;
+    private final int maxSize;
+    private final long maxWaitMillis;
+
+    /**
+     * @param minSize the number of instances created when the bean is initialized, none if negative
+     * @param maxSize the limit of the number of instances, the default if not positive, at least the minimum
+     * @param maxWaitMillis how long a borrow waits for an instance, the default if negative, not at all if 0
+     */
+    public PoolPolicy(final int minSize, final int maxSize, final long maxWaitMillis) {
+        this.minSize = Math.max(0, minSize);
+        this.maxSize = Math.max(this.minSize, maxSize > 0 ? maxSize : DEFAULT_MAX_SIZE);
+        this.maxWaitMillis = maxWaitMillis >= 0L ? maxWaitMillis : DEFAULT_MAX_WAIT_MILLIS;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolPolicy{" +
+                "minSize=" + minSize +
+                ", maxSize=" + maxSize +
+                ", maxWaitMillis=" + maxWaitMillis +
+                '}';
+    }
+}
@@ -0,0 +1,40 @@
+package org.nanocontext.core;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The handle of an instance borrowed from a BeanPool, closing it returns the instance.
+ * The instance must not be used once the handle is closed, it may already be borrowed again.
+ * Only the first close returns the instance.
+ */
+public final class PooledBean<T> implements AutoCloseable {
+    private final BoundedBeanPool<T> pool;
+    private final T instance;
+    private final AtomicBoolean returned = new AtomicBoolean(false);
+
+    PooledBean(final BoundedBeanPool<T> pool, final T instance) {
+        this.pool = pool;
+        this.instance = instance;
+    }
+
+    /**
+     * @return the borrowed instance
+     * @throws IllegalStateException - if the instance has been returned
+     */
+    public T get() {
+        if (returned.get()) {
+            throw new IllegalStateException(String.format("The instance of pooled bean %s has been returned", pool.getIdentifier()));
+        }
+        return instance;
+    }
+
+    /**
+     * Reset the instance and return it to the pool.
+     */
+    @Override
+    public void close() {
+        if (returned.compareAndSet(false, true)) {
+            pool.release(instance);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.nanocontext.core;
+
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.core.exceptions.InvalidPooledBeanReferenceException;
+import org.nanocontext.core.exceptions.InvalidResetMethodException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Keeps a bounded pool of instances of a bean that is costly to create, e.g. large buffers
+ * and compiled templates. Instances are borrowed from the pool, with Context.borrowBean(),
+ * and returned when the handle is closed, after the reset method, if one is named, is called.
+ * A pooled bean cannot be referenced as a value, by getBean() or as a constructor argument,
+ * because the instance would never be returned.
+ * The idle instances are finalized and released when the context is closed, borrowed instances
+ * are not.
+ *
+ * @see Context#borrowBean(String, Class)
+ */
+public class PooledBeanInstanceFactory<T> extends AbstractBeanInstanceFactory<T> {
+    private final String resetMethod;
+    /** The reset method, if one is named, resolved on the first return of an instance */
+    private volatile Method resolvedResetMethod;
+    private final BoundedBeanPool<T> pool;
+
+    /**
+     * @param activeBeanExecution how each instance is run if the bean is active, null for the execution of the context
+     * @param restartPolicy when each instance is run again if the bean is active, null to never restart it
+     * @param resetMethod the method called on an instance when it is returned to the pool, may be null
+     * @param poolPolicy the bounds of the pool, PoolPolicy.DEFAULT if null
+     */
+    public PooledBeanInstanceFactory(
+            final Context context,
+            final String id,
+            final String artifactIdentifier,
+            final String clazzName,
+            final String factoryId,
+            final String factoryClassName,
+            final String factoryMethodName,
+            final boolean lazyLoad,
+            final boolean active,
+            final String activateMethod,
+            final ActiveBeanExecution activeBeanExecution,
+            final RestartPolicy restartPolicy,
+            final String initializeMethod,
+            final String finalizeMethod,
+            final String resetMethod,
+            final PoolPolicy poolPolicy,
+            final List<AbstractProperty> ctorArgs)
+            throws ContextInitializationException {
+        super(context, id,
+                artifactIdentifier, clazzName,
+                factoryId, factoryClassName, factoryMethodName,
+                lazyLoad,
+                active, activateMethod, activeBeanExecution, restartPolicy,
+                initializeMethod, finalizeMethod,
+                null, null,
+                ctorArgs);
+        this.resetMethod = resetMethod;
+        this.pool = new BoundedBeanPool<>(this, poolPolicy == null ? PoolPolicy.DEFAULT : poolPolicy);
+    }
+
+    /**
+     * Create the minimum number of instances of the pool, unless the bean is lazy-load in which
+     * case instances are created as they are borrowed.
+     */
+    @Override
+    public void initialize() throws ContextInitializationException {
+        if (!isLazyLoad()) {
+            pool.prefill();
+        }
+    }
+
+    /**
+     * @throws InvalidPooledBeanReferenceException - always, an instance must be borrowed
+     */
+    @Override
+    public T getValue() throws ContextInitializationException {
+        throw new InvalidPooledBeanReferenceException(String.format(
+                "Bean %s is pooled, an instance must be borrowed with Context.borrowBean()", getIdentifier()));
+    }
+
+    public BeanPool<T> getPool() {
+        return pool;
+    }
+
+    /**
+     * Call the reset method, if one is named, on an instance returned to the pool.
+     *
+     * @param instance
+     * @throws InvalidResetMethodException - if the method does not exist or fails
+     */
+    void resetInstance(final T instance) throws ContextInitializationException {
+        if (this.resetMethod == null || this.resetMethod.length() == 0) {
+            return;
+        }
+        Method method = this.resolvedResetMethod;
+        if (method == null) {
+            try {
+                method = getValueType().getMethod(this.resetMethod);
+            } catch (NoSuchMethodException e) {
+                throw new InvalidResetMethodException(this.getIdentifier(), this.resetMethod);
+            }
+            this.resolvedResetMethod = method;
+        }
+        try {
+            method.invoke(instance);
+        } catch (InvocationTargetException itX) {
+            throw new InvalidResetMethodException(this.getIdentifier(), this.resetMethod, itX.getCause());
+        } catch (Throwable t) {
+            throw new InvalidResetMethodException(this.getIdentifier(), this.resetMethod, t);
+        }
+    }
+
+    /**
+     * Close the pool, no instance is borrowed once the context is closing.
+     */
+    @Override
+    void closeInstances() {
+        pool.close();
+    }
+
+    /**
+     * @return the idle instances of the pool, a borrowed instance is finalized as it is returned
+     *      to a closed pool
+     */
+    @Override
+    List<T> getCreatedInstances() {
+        return pool.getInstances();
+    }
+
+    @Override
+    void releaseInstances() {
+        pool.releaseInstances();
+    }
+
+    @Override
+    protected String getScope() {
+        return "pooled";
+    }
+
+}
@@ -1,11 +1,13 @@
 package org.nanocontext.core;
 
+import org.nanocontext.core.events.PropertiesLoadEvent;
 import org.nanocontext.core.exceptions.ContextInitializationException;
 import org.nanocontext.core.exceptions.GenericContextInitializationException;
 import org.nanocontext.core.exceptions.PropertiesLoadException;
 import org.nanocontext.utility.url.URLFactory;
 
 import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
@@ -13,6 +15,9 @@ import java.net.URI;
 import java.net.URL;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -23,10 +28,13 @@ public class PropertiesHolder extends AbstractReferencableProperty<Properties>{
     private final String identifier;
     private final URL propertiesLocation;
     private final URI resourceIdentifier;
-    private boolean loaded = false;
+    private volatile boolean loaded = false;
 
     private Properties properties = null;
 
+    /** the properties being loaded concurrently, if prefetch() was called */
+    private volatile CompletableFuture<Properties> prefetched = null;
+
     private final ReentrantLock loadedLock = new ReentrantLock();
     private final Condition notLoaded  = loadedLock.newCondition();
 
@@ -46,7 +54,7 @@ public class PropertiesHolder extends AbstractReferencableProperty<Properties>{
         this.propertiesLocation = URLFactory.create(this.resourceIdentifier.toString());
 
         if ("http".equals(propertiesLocation.getProtocol()) || "https".equals(propertiesLocation.getProtocol())) {
-            String tempPath = System.getenv("TMPDIR");
+            String tempPath = System.getenv("TMPDIR") == null ? System.getProperty("java.io.tmpdir") : System.getenv("TMPDIR");
             File tempDirectory = new File(tempPath);
             System.out.println("Application "
                     + (tempDirectory.canRead() ? "CAN read" : "CANNOT read")
@@ -63,32 +71,162 @@ public class PropertiesHolder extends AbstractReferencableProperty<Properties>{
         return Properties.class.isAssignableFrom(clazz);
     }
 
+    /**
+     * @return true if the properties are loaded over the network
+     */
+    public boolean isRemote() {
+        return "http".equals(propertiesLocation.getProtocol()) || "https".equals(propertiesLocation.getProtocol());
+    }
+
+    /**
+     * Start loading the properties on the given executor, initialize() will wait for
+     * the load to complete rather than loading the properties itself.
+     *
+     * @param executor the executor to load on
+     */
+    public void prefetch(final Executor executor) {
+        if (this.loaded || this.prefetched != null) {
+            return;
+        }
+        this.prefetched = CompletableFuture.supplyAsync(() -> {
+            try {
+                return load(true);
+            } catch (PropertiesLoadException plX) {
+                throw new CompletionException(plX);
+            }
+        }, executor);
+    }
+
     @Override
     public void initialize() throws ContextInitializationException {
         if (! this.loaded) {
             this.loadedLock.lock();
-
-            InputStream propertyStream = null;
             try {
-                propertyStream = this.propertiesLocation.openStream();
-                if (propertyStream == null) {
-                    throw new PropertiesLoadException(this.propertiesLocation);
+                if (this.loaded) {
+                    return;         // loaded by another thread while this one waited
                 }
-                this.properties = new Properties();
-                this.properties.load(propertyStream);
-
-            } catch (IOException ioX) {
-                throw new PropertiesLoadException(this.propertiesLocation, ioX);
-
+                CompletableFuture<Properties> prefetched = this.prefetched;
+                this.properties = prefetched == null ? load(false) : awaitPrefetched(prefetched);
             } finally {
-                try {propertyStream.close();}
-                catch(Throwable t){}        // eat any exceptions, they are secondary to the real problem
                 this.loaded = true;         // don't retry
                 this.loadedLock.unlock();
             }
         }
     }
 
+    /**
+     * Read the properties again, after a restore of the runtime, where they may differ.
+     * The values are replaced within the existing Properties, so that beans given the
+     * Properties as a constructor argument see the values read. Properties that have not
+     * been read yet are read on first use, as before.
+     *
+     * @throws ContextInitializationException - if the properties cannot be read
+     */
+    void reload() throws ContextInitializationException {
+        this.loadedLock.lock();
+        try {
+            // a prefetch made before the checkpoint has the values from before it
+            this.prefetched = null;
+            if (this.properties == null) {
+                this.loaded = false;
+                return;
+            }
+            Properties reloaded = load(false);
+            this.properties.keySet().retainAll(reloaded.keySet());
+            this.properties.putAll(reloaded);
+        } finally {
+            this.loadedLock.unlock();
+        }
+    }
+
+    private Properties awaitPrefetched(final CompletableFuture<Properties> prefetched) throws PropertiesLoadException {
+        try {
+            return prefetched.join();
+        } catch (CompletionException cX) {
+            if (cX.getCause() instanceof PropertiesLoadException) {
+                throw (PropertiesLoadException) cX.getCause();
+            }
+            throw new PropertiesLoadException(this.propertiesLocation, cX.getCause());
+        }
+    }
+
+    private Properties load(final boolean prefetch) throws PropertiesLoadException {
+        StartupRecorder recorder = getContext().getStartupRecorder();
+        StartupRecorder.ResourceTimer timer = recorder == null ?
+                StartupRecorder.ResourceTimer.NONE :
+                recorder.startResource(ContextStartupReport.ResourceKind.PROPERTIES,
+                        this.identifier, this.propertiesLocation.toString(), prefetch);
+        PropertiesLoadEvent event = new PropertiesLoadEvent();
+        event.begin();
+        CountingInputStream countingStream = null;
+        InputStream propertyStream = null;
+        try {
+            propertyStream = this.propertiesLocation.openStream();
+            if (propertyStream == null) {
+                throw new PropertiesLoadException(this.propertiesLocation);
+            }
+            // the bytes are counted only if the event is recorded
+            if (event.isEnabled()) {
+                countingStream = new CountingInputStream(propertyStream);
+                propertyStream = countingStream;
+            }
+            Properties result = new Properties();
+            result.load(propertyStream);
+            return result;
+
+        } catch (IOException ioX) {
+            throw new PropertiesLoadException(this.propertiesLocation, ioX);
+
+        } finally {
+            try {propertyStream.close();}
+            catch(Throwable t){}        // eat any exceptions, they are secondary to the real problem
+            timer.stop();
+            if (event.shouldCommit()) {
+                event.propertiesIdentifier = this.identifier;
+                event.location = this.propertiesLocation.toString();
+                event.bytesRead = countingStream == null ? 0L : countingStream.count;
+                event.prefetched = prefetch;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes read from a properties resource.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count = 0L;
+
+        private CountingInputStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                ++count;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
     @Override
     public Properties getValue() throws ContextInitializationException {
         return this.properties;
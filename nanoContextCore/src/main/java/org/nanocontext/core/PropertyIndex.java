@@ -0,0 +1,235 @@
+package org.nanocontext.core;
+
+import org.nanocontext.core.exceptions.CircularPropertyReferenceException;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.utility.Utility;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * The property values of all of the PropertiesHolder of a Context, merged into one immutable
+ * index with every placeholder in every value already resolved, so that resolving a property
+ * reference is a single lookup.
+ * Where more than one PropertiesHolder defines a key, the value from the holder whose
+ * identifier sorts first is used.
+ *
+ * Placeholders are written ${key}, may be nested, e.g. ${db.${environment}.url}, and may
+ * have a default value, e.g. ${timeout:30}. A placeholder in a value that cannot be resolved
+ * and has no default is left in the value as it is written.
+ */
+final class PropertyIndex {
+    private static final PropertyIndex EMPTY = new PropertyIndex(IdentifierIndex.empty());
+
+    private static final char DEFAULT_SEPARATOR = ':';
+
+    private final IdentifierIndex<Map.Entry<String, String>> values;
+
+    private PropertyIndex(final IdentifierIndex<Map.Entry<String, String>> values) {
+        this.values = values;
+    }
+
+    /**
+     * @return an index with no properties
+     */
+    static PropertyIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Load every PropertiesHolder, if it is not already loaded, and build the index of their values.
+     *
+     * @param holders
+     * @return
+     * @throws ContextInitializationException - if a PropertiesHolder cannot be loaded or the
+     *      values contain a circular reference
+     */
+    static PropertyIndex of(final Set<PropertiesHolder> holders) throws ContextInitializationException {
+        if (holders == null || holders.isEmpty()) {
+            return empty();
+        }
+
+        List<PropertiesHolder> orderedHolders = new ArrayList<>(holders);
+        orderedHolders.sort(Comparator.comparing(PropertiesHolder::getIdentifier, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        Map<String, String> rawValues = new HashMap<>();
+        for (PropertiesHolder holder : orderedHolders) {
+            holder.initialize();
+            Properties properties = holder.getValue();
+            if (properties != null) {
+                for (String key : properties.stringPropertyNames()) {
+                    rawValues.putIfAbsent(key, properties.getProperty(key));
+                }
+            }
+        }
+
+        Resolver resolver = new Resolver(rawValues);
+        List<Map.Entry<String, String>> resolvedValues = new ArrayList<>(rawValues.size());
+        for (String key : rawValues.keySet()) {
+            resolvedValues.add(new AbstractMap.SimpleImmutableEntry<>(key, resolver.get(key)));
+        }
+
+        return new PropertyIndex(IdentifierIndex.of(resolvedValues, Map.Entry::getKey));
+    }
+
+    /**
+     * @param key
+     * @return the resolved value of the key, null if there is no such key
+     */
+    String get(final String key) {
+        Map.Entry<String, String> entry = this.values.get(key);
+        return entry == null ? null : entry.getValue();
+    }
+
+    /**
+     * Resolve the content of a placeholder, that is a key, a key with a default value, or
+     * either of those containing nested placeholders.
+     *
+     * @param expression the placeholder without the enclosing ${ and }
+     * @return the resolved value, null if the key does not exist and there is no default
+     */
+    String resolve(final String expression) throws ContextInitializationException {
+        // the usual case, a plain key
+        String value = get(expression);
+        if (value != null) {
+            return value;
+        }
+        return evaluate(expression, this::get);
+    }
+
+    // ========================================================================================
+    // Placeholder expansion, shared by the index build and by resolve()
+    // ========================================================================================
+
+    private interface Lookup {
+        String get(String key) throws ContextInitializationException;
+    }
+
+    /**
+     * Resolves raw values while the index is being built, each value is resolved once and
+     * the keys being resolved are tracked to detect circular references.
+     */
+    private static final class Resolver implements Lookup {
+        private final Map<String, String> rawValues;
+        private final Map<String, String> resolvedValues = new HashMap<>();
+        private final Set<String> resolving = new LinkedHashSet<>();
+
+        private Resolver(final Map<String, String> rawValues) {
+            this.rawValues = rawValues;
+        }
+
+        @Override
+        public String get(final String key) throws ContextInitializationException {
+            String value = this.resolvedValues.get(key);
+            if (value != null) {
+                return value;
+            }
+            String rawValue = this.rawValues.get(key);
+            if (rawValue == null) {
+                return null;
+            }
+
+            if (!this.resolving.add(key)) {
+                List<String> chain = new ArrayList<>(this.resolving);
+                chain.add(key);
+                throw new CircularPropertyReferenceException(chain.subList(chain.indexOf(key), chain.size()));
+            }
+            try {
+                value = expand(rawValue, this);
+            } finally {
+                this.resolving.remove(key);
+            }
+
+            this.resolvedValues.put(key, value);
+            return value;
+        }
+    }
+
+    /**
+     * Replace every placeholder in the text with its value.
+     */
+    private static String expand(final String text, final Lookup lookup) throws ContextInitializationException {
+        int start = text.indexOf(Utility.PREFIX);
+        if (start < 0) {
+            return text;
+        }
+
+        StringBuilder result = new StringBuilder(text.length());
+        int position = 0;
+        while (start >= 0) {
+            int end = findPlaceholderEnd(text, start);
+            if (end < 0) {
+                break;          // an unterminated placeholder is not a placeholder
+            }
+            result.append(text, position, start);
+
+            String expression = text.substring(start + Utility.PREFIX.length(), end);
+            String value = evaluate(expression, lookup);
+            result.append(value != null ? value : text.substring(start, end + Utility.SUFFIX.length()));
+
+            position = end + Utility.SUFFIX.length();
+            start = text.indexOf(Utility.PREFIX, position);
+        }
+        result.append(text, position, text.length());
+
+        return result.toString();
+    }
+
+    /**
+     * Resolve the content of one placeholder.
+     */
+    private static String evaluate(final String expression, final Lookup lookup) throws ContextInitializationException {
+        int separator = findDefaultSeparator(expression);
+        String key = expand(separator < 0 ? expression : expression.substring(0, separator), lookup);
+
+        String value = lookup.get(key);
+        if (value == null && separator >= 0) {
+            value = expand(expression.substring(separator + 1), lookup);
+        }
+        return value;
+    }
+
+    /**
+     * @return the index of the } that closes the placeholder starting at start, -1 if there is none
+     */
+    private static int findPlaceholderEnd(final String text, final int start) {
+        int depth = 0;
+        for (int index = start + Utility.PREFIX.length(); index < text.length(); ++index) {
+            if (text.startsWith(Utility.PREFIX, index)) {
+                ++depth;
+                index += Utility.PREFIX.length() - 1;
+            } else if (text.startsWith(Utility.SUFFIX, index)) {
+                if (depth == 0) {
+                    return index;
+                }
+                --depth;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index of the first default separator that is not within a nested placeholder, -1 if there is none
+     */
+    private static int findDefaultSeparator(final String expression) {
+        int depth = 0;
+        for (int index = 0; index < expression.length(); ++index) {
+            if (expression.startsWith(Utility.PREFIX, index)) {
+                ++depth;
+                index += Utility.PREFIX.length() - 1;
+            } else if (depth > 0 && expression.startsWith(Utility.SUFFIX, index)) {
+                --depth;
+            } else if (depth == 0 && expression.charAt(index) == DEFAULT_SEPARATOR) {
+                return index;
+            }
+        }
+        return -1;
+    }
+}
@@ -43,6 +43,37 @@ public class PrototypeBeanInstanceFactory<T>
                 ctorArgs);
     }
 
+    /**
+     * @param activeBeanExecution how each instance is run if the bean is active, null for the execution of the context
+     * @param restartPolicy when each instance is run again if the bean is active, null to never restart it
+     */
+    public PrototypeBeanInstanceFactory(
+            final Context context,
+            final String id,
+            final String artifactIdentifier,
+            final String clazzName,
+            final String factoryId,
+            final String factoryClassName,
+            final String factoryMethodName,
+            final boolean lazyLoad,
+            final boolean active,
+            final String activateMethod,
+            final ActiveBeanExecution activeBeanExecution,
+            final RestartPolicy restartPolicy,
+            final String initializeMethod,
+            final String finalizeMethod,
+            final List<AbstractProperty> ctorArgs)
+            throws ContextInitializationException {
+        super(context, id,
+                artifactIdentifier, clazzName,
+                factoryId, factoryClassName, factoryMethodName,
+                lazyLoad,
+                active, activateMethod, activeBeanExecution, restartPolicy,
+                initializeMethod, finalizeMethod,
+                null, null,
+                ctorArgs);
+    }
+
     /**
      *
      * @return
@@ -54,4 +85,9 @@ public class PrototypeBeanInstanceFactory<T>
         return instance;
     }
 
+    @Override
+    protected String getScope() {
+        return "prototype";
+    }
+
 }
@@ -0,0 +1,223 @@
+package org.nanocontext.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * A ClassLoader over a single local jar that can release its handle on the jar, so that no
+ * file is held open while the runtime is checkpointed. The jar is reopened on next use.
+ * Classes are defined by this loader whichever handle they were read through, so classes
+ * loaded before a release, and the classes they go on to load, are unaffected by it.
+ * Resources are read through the same handle, their URLs are jar: URLs that open the entry
+ * through this loader rather than through the shared jar URL cache.
+ */
+class ReleasableJarClassLoader extends URLClassLoader {
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final Path jarPath;
+    private final URL jarLocation;
+    private final String resourcePrefix;
+    private final URLStreamHandler resourceHandler = new ResourceHandler();
+
+    /** reading takes the read lock, release() takes the write lock so that no read sees the jar closed */
+    private final ReentrantReadWriteLock jarLock = new ReentrantReadWriteLock();
+    /** guards the lazy open of the jar by readers, which hold the read lock and so cannot take the write lock */
+    private final ReentrantLock openLock = new ReentrantLock();
+    private volatile JarFile jar;
+
+    /**
+     * @param jar the local jar
+     * @throws MalformedURLException
+     */
+    ReleasableJarClassLoader(final Path jar) throws MalformedURLException {
+        super(new URL[0]);
+        this.jarPath = jar;
+        this.jarLocation = jar.toUri().toURL();
+        this.resourcePrefix = "jar:" + this.jarLocation + "!/";
+    }
+
+    @Override
+    public URL[] getURLs() {
+        return new URL[]{this.jarLocation};
+    }
+
+    /**
+     * Close the jar, it is reopened when a class or resource is next read from it.
+     *
+     * @throws IOException - if the jar cannot be closed
+     */
+    void release() throws IOException {
+        this.jarLock.writeLock().lock();
+        try {
+            if (this.jar != null) {
+                JarFile released = this.jar;
+                this.jar = null;
+                released.close();
+            }
+        } finally {
+            this.jarLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected Class<?> findClass(final String name) throws ClassNotFoundException {
+        String entryName = name.replace('.', '/') + ".class";
+        byte[] classBytes;
+        CodeSource codeSource;
+        Manifest manifest;
+
+        this.jarLock.readLock().lock();
+        try {
+            JarFile openJar = openJar();
+            JarEntry entry = openJar.getJarEntry(entryName);
+            if (entry == null) {
+                throw new ClassNotFoundException(name);
+            }
+            try (InputStream classStream = openJar.getInputStream(entry)) {
+                classBytes = classStream.readAllBytes();
+            }
+            // the signers are known only once the entry has been read
+            codeSource = new CodeSource(this.jarLocation, entry.getCodeSigners());
+            manifest = openJar.getManifest();
+        } catch (IOException ioX) {
+            throw new ClassNotFoundException(name, ioX);
+        } finally {
+            this.jarLock.readLock().unlock();
+        }
+
+        int lastDot = name.lastIndexOf('.');
+        if (lastDot > 0) {
+            String packageName = name.substring(0, lastDot);
+            if (getDefinedPackage(packageName) == null) {
+                try {
+                    if (manifest != null) {
+                        definePackage(packageName, manifest, this.jarLocation);
+                    } else {
+                        definePackage(packageName, null, null, null, null, null, null, null);
+                    }
+                } catch (IllegalArgumentException iaX) {
+                    // defined concurrently by another thread
+                }
+            }
+        }
+        return defineClass(name, classBytes, 0, classBytes.length, codeSource);
+    }
+
+    @Override
+    public URL findResource(final String name) {
+        this.jarLock.readLock().lock();
+        try {
+            if (openJar().getJarEntry(name) == null) {
+                return null;
+            }
+            return new URL(null, this.resourcePrefix + name, this.resourceHandler);
+        } catch (IOException ioX) {
+            return null;
+        } finally {
+            this.jarLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Enumeration<URL> findResources(final String name) {
+        URL resource = findResource(name);
+        return resource == null ?
+                Collections.emptyEnumeration() :
+                Collections.enumeration(Collections.singletonList(resource));
+    }
+
+    /**
+     * @return the jar, opening it if it has not been opened or has been released,
+     *      the caller must hold the read lock
+     */
+    private JarFile openJar() throws IOException {
+        JarFile openJar = this.jar;
+        if (openJar == null) {
+            this.openLock.lock();
+            try {
+                openJar = this.jar;
+                if (openJar == null) {
+                    openJar = new JarFile(this.jarPath.toFile());
+                    this.jar = openJar;
+                }
+            } finally {
+                this.openLock.unlock();
+            }
+        }
+        return openJar;
+    }
+
+    /**
+     * @return the content of an entry of the jar
+     */
+    private byte[] readEntry(final String name) throws IOException {
+        this.jarLock.readLock().lock();
+        try {
+            JarFile openJar = openJar();
+            JarEntry entry = openJar.getJarEntry(name);
+            if (entry == null) {
+                throw new FileNotFoundException(this.resourcePrefix + name);
+            }
+            try (InputStream entryStream = openJar.getInputStream(entry)) {
+                return entryStream.readAllBytes();
+            }
+        } finally {
+            this.jarLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Opens the resource URLs of this loader, reading the entry through the handle of the loader.
+     */
+    private final class ResourceHandler extends URLStreamHandler {
+        @Override
+        protected URLConnection openConnection(final URL url) {
+            final String entryName = url.toString().substring(resourcePrefix.length());
+            return new URLConnection(url) {
+                private byte[] content;
+
+                @Override
+                public void connect() throws IOException {
+                    if (this.content == null) {
+                        this.content = readEntry(entryName);
+                        this.connected = true;
+                    }
+                }
+
+                @Override
+                public InputStream getInputStream() throws IOException {
+                    connect();
+                    return new ByteArrayInputStream(this.content);
+                }
+
+                @Override
+                public long getContentLengthLong() {
+                    try {
+                        connect();
+                        return this.content.length;
+                    } catch (IOException ioX) {
+                        return -1L;
+                    }
+                }
+            };
+        }
+    }
+}
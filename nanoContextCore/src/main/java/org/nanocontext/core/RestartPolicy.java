@@ -0,0 +1,108 @@
+package org.nanocontext.core;
+
+/**
+ * When an active bean is run again after its activate method returns or throws, and how
+ * long it waits before it is.
+ * The delay before a restart doubles with each restart, from the initial delay up to the
+ * maximum delay, and is reset to the initial delay once a run of the bean lasts at least the
+ * maximum delay, so that a bean that fails now and then is restarted promptly.
+ * Immutable.
+ */
+public final class RestartPolicy {
+    /**
+     * The conditions under which an active bean is restarted.
+     */
+    public enum Restart {
+        /** the bean is run once, the default */
+        NEVER,
+        /** the bean is run again whenever it returns or throws */
+        ALWAYS,
+        /** the bean is run again only if it throws */
+        ON_FAILURE
+    }
+
+    /** no limit to the number of restarts */
+    public static final int UNLIMITED = -1;
+    public static final long DEFAULT_DELAY_MILLIS = 100L;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 30000L;
+
+    /** run the bean once */
+    public static final RestartPolicy NEVER =
+            new RestartPolicy(Restart.NEVER, 0, DEFAULT_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS);
+
+    private final Restart restart;
+    private final int maxRestarts;
+    private final long delayMillis;
+    private final long maxDelayMillis;
+
+    /**
+     * @param restart when the bean is restarted, NEVER if null
+     * @param maxRestarts the number of times the bean may be restarted, UNLIMITED if negative
+     * @param delayMillis the delay before the first restart, the default if not positive
+     * @param maxDelayMillis the limit of the delay before a restart, the default if not positive
+     */
+    public RestartPolicy(final Restart restart, final int maxRestarts, final long delayMillis, final long maxDelayMillis) {
+        this.restart = restart == null ? Restart.NEVER : restart;
+        this.maxRestarts = maxRestarts < 0 ? UNLIMITED : maxRestarts;
+        this.delayMillis = delayMillis > 0L ? delayMillis : DEFAULT_DELAY_MILLIS;
+        this.maxDelayMillis = Math.max(this.delayMillis, maxDelayMillis > 0L ? maxDelayMillis : DEFAULT_MAX_DELAY_MILLIS);
+    }
+
+    public Restart getRestart() {
+        return restart;
+    }
+
+    public int getMaxRestarts() {
+        return maxRestarts;
+    }
+
+    public long getDelayMillis() {
+        return delayMillis;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    /**
+     * @param failed true if the bean threw
+     * @param restartCount the number of times the bean has been restarted
+     * @return true if the bean is to be restarted
+     */
+    boolean isRestarted(final boolean failed, final int restartCount) {
+        switch (this.restart) {
+            case ALWAYS:
+                break;
+            case ON_FAILURE:
+                if (!failed) {
+                    return false;
+                }
+                break;
+            default:
+                return false;
+        }
+        return this.maxRestarts == UNLIMITED || restartCount < this.maxRestarts;
+    }
+
+    /**
+     * @param consecutiveRestarts the number of restarts since a run lasted at least the maximum delay
+     * @return the delay before the next restart
+     */
+    long getDelayMillis(final int consecutiveRestarts) {
+        long delay = this.delayMillis;
+        for (int restart = 0; restart < consecutiveRestarts && delay < this.maxDelayMillis; ++restart) {
+            delay *= 2L;
+        }
+        return Math.min(delay, this.maxDelayMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "RestartPolicy{" +
+                "restart=" + restart +
+                ", maxRestarts=" + maxRestarts +
+                ", delayMillis=" + delayMillis +
+                ", maxDelayMillis=" + maxDelayMillis +
+                '}';
+    }
+}
@@ -1,7 +1,9 @@
 package org.nanocontext.core;
 
+import org.nanocontext.core.events.SingletonAccessEvent;
 import org.nanocontext.core.exceptions.ContextInitializationException;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -9,10 +11,10 @@ import java.util.concurrent.locks.ReentrantLock;
  * Created by cbeckey on 2/8/16.
  */
 public class SingletonBeanInstanceFactory<T> extends AbstractBeanInstanceFactory<T> {
-    /**  */
+    /** Serializes creation of the singleton, not taken once the singleton has been published */
     private final ReentrantLock singletonInstantiationLock = new ReentrantLock();
-    /** */
-    private T singleton = null;
+    /** Written once, under the lock, after the instance is completely created */
+    private volatile T singleton = null;
 
     public SingletonBeanInstanceFactory(
             final Context context,
@@ -39,21 +41,129 @@ public class SingletonBeanInstanceFactory<T> extends AbstractBeanInstanceFactory
     }
 
     /**
+     * @param beforeCheckpointMethod the method called on the singleton before a checkpoint of the runtime, may be null
+     * @param afterRestoreMethod the method called on the singleton after a restore of the runtime, may be null
+     */
+    public SingletonBeanInstanceFactory(
+            final Context context,
+            final String id,
+            final String artifactIdentifier,
+            final String clazzName,
+            final String factoryId,
+            final String factoryClassName,
+            final String factoryMethodName,
+            final boolean lazyLoad,
+            final boolean active,
+            final String activateMethod,
+            final String initializeMethod,
+            final String finalizeMethod,
+            final String beforeCheckpointMethod,
+            final String afterRestoreMethod,
+            final List<AbstractProperty> ctorArgs)
+            throws ContextInitializationException {
+        super(context, id,
+                artifactIdentifier, clazzName,
+                factoryId, factoryClassName, factoryMethodName,
+                lazyLoad,
+                active, activateMethod,
+                initializeMethod, finalizeMethod,
+                beforeCheckpointMethod, afterRestoreMethod,
+                ctorArgs);
+    }
+
+    /**
+     * @param activeBeanExecution how the singleton is run if it is active, null for the execution of the context
+     * @param restartPolicy when the singleton is run again if it is active, null to never restart it
+     * @param beforeCheckpointMethod the method called on the singleton before a checkpoint of the runtime, may be null
+     * @param afterRestoreMethod the method called on the singleton after a restore of the runtime, may be null
+     */
+    public SingletonBeanInstanceFactory(
+            final Context context,
+            final String id,
+            final String artifactIdentifier,
+            final String clazzName,
+            final String factoryId,
+            final String factoryClassName,
+            final String factoryMethodName,
+            final boolean lazyLoad,
+            final boolean active,
+            final String activateMethod,
+            final ActiveBeanExecution activeBeanExecution,
+            final RestartPolicy restartPolicy,
+            final String initializeMethod,
+            final String finalizeMethod,
+            final String beforeCheckpointMethod,
+            final String afterRestoreMethod,
+            final List<AbstractProperty> ctorArgs)
+            throws ContextInitializationException {
+        super(context, id,
+                artifactIdentifier, clazzName,
+                factoryId, factoryClassName, factoryMethodName,
+                lazyLoad,
+                active, activateMethod, activeBeanExecution, restartPolicy,
+                initializeMethod, finalizeMethod,
+                beforeCheckpointMethod, afterRestoreMethod,
+                ctorArgs);
+    }
+
+    /**
+     * Once the singleton has been created this is a single volatile read.
+     * Until then, callers serialize on the instantiation lock and the first
+     * one in creates the instance (double-checked creation).
      *
      * @return
      * @throws ContextInitializationException
      */
     @Override
     public T getValue() throws ContextInitializationException {
+        T instance = singleton;
+        if (instance != null) {
+            SingletonAccessEvent event = new SingletonAccessEvent();
+            if (event.isEnabled()) {
+                event.beanIdentifier = getIdentifier();
+                event.commit();
+            }
+            return instance;
+        }
+
+        SingletonAccessEvent event = new SingletonAccessEvent();
+        event.begin();
+        boolean created = false;
         singletonInstantiationLock.lock();
         try {
-            if (singleton == null) {
-                singleton = createBeanInstance();
+            instance = singleton;
+            if (instance == null) {
+                instance = createBeanInstance();
+                singleton = instance;
+                created = true;
+                if (hasCheckpointMethods()) {
+                    getContext().registerCheckpointCallbacks(this, instance);
+                }
             }
         } finally {
             singletonInstantiationLock.unlock();
         }
-        return singleton;
+
+        if (event.shouldCommit()) {
+            event.beanIdentifier = getIdentifier();
+            event.created = created;
+            event.commit();
+        }
+        return instance;
+    }
+
+    /**
+     * @return the singleton, none if it has not been created
+     */
+    @Override
+    List<T> getCreatedInstances() {
+        T instance = singleton;
+        return instance == null ? Collections.<T>emptyList() : Collections.singletonList(instance);
+    }
+
+    @Override
+    protected String getScope() {
+        return "singleton";
     }
 
 }
@@ -0,0 +1,308 @@
+package org.nanocontext.core;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the timing of the startup of a Context, from which a ContextStartupReport is taken.
+ * A Context has a StartupRecorder only if a report was requested, where it has none the
+ * bean factories and resource holders use the NONE timers, which do nothing.
+ * Nothing is recorded once the startup is complete.
+ */
+final class StartupRecorder {
+    private final long startWallNanos = System.nanoTime();
+    private final Thread ownerThread = Thread.currentThread();
+    private final long ownerStartCpuNanos = currentThreadCpuTime();
+
+    /** the bean being created on each thread, so that nested creation is subtracted from its self time */
+    private final ThreadLocal<BeanTimer> currentBeanTimer = new ThreadLocal<>();
+
+    /** CPU time of top-level bean creation and resource loading on threads other than the owner thread */
+    private final LongAdder otherThreadCpuNanos = new LongAdder();
+    /** CPU time of top-level bean creation and resource loading on all threads */
+    private final LongAdder topLevelCpuNanos = new LongAdder();
+
+    /** guarded by this */
+    private final Map<AbstractBeanInstanceFactory<?>, BeanStatistics> beanStatistics = new IdentityHashMap<>();
+    private final List<BeanStatistics> beanOrder = new ArrayList<>();
+    private final List<ContextStartupReport.ResourceTiming> resourceTimings = new ArrayList<>();
+
+    private volatile ContextStartupReport completedReport;
+
+    /**
+     * @param factory the bean factory creating an instance
+     * @return a timer of the creation, stop() must be called when the creation completes or fails
+     */
+    BeanTimer startBean(final AbstractBeanInstanceFactory<?> factory) {
+        if (this.completedReport != null) {
+            return BeanTimer.NONE;
+        }
+        BeanTimer timer = new BeanTimer(this, factory, this.currentBeanTimer.get());
+        this.currentBeanTimer.set(timer);
+        return timer;
+    }
+
+    /**
+     * @return a timer of loading a resource, stop() must be called when the load completes or fails
+     */
+    ResourceTimer startResource(final ContextStartupReport.ResourceKind kind,
+                                final String identifier,
+                                final String location,
+                                final boolean prefetched) {
+        if (this.completedReport != null) {
+            return ResourceTimer.NONE;
+        }
+        return new ResourceTimer(this, kind, identifier, location, prefetched);
+    }
+
+    private void stopBean(final BeanTimer timer) {
+        long wallNanos = System.nanoTime() - timer.startWallNanos;
+        long cpuNanos = currentThreadCpuTime() - timer.startCpuNanos;
+
+        if (timer.parent == null) {
+            this.currentBeanTimer.remove();
+        } else {
+            this.currentBeanTimer.set(timer.parent);
+        }
+        addToEnclosing(timer.parent, wallNanos, cpuNanos);
+
+        synchronized (this) {
+            BeanStatistics statistics = this.beanStatistics.get(timer.factory);
+            if (statistics == null) {
+                statistics = new BeanStatistics(timer.factory);
+                this.beanStatistics.put(timer.factory, statistics);
+                this.beanOrder.add(statistics);
+            }
+            statistics.add(wallNanos, cpuNanos, timer);
+        }
+    }
+
+    private void stopResource(final ResourceTimer timer) {
+        long wallNanos = System.nanoTime() - timer.startWallNanos;
+        long cpuNanos = currentThreadCpuTime() - timer.startCpuNanos;
+
+        addToEnclosing(this.currentBeanTimer.get(), wallNanos, cpuNanos);
+
+        synchronized (this) {
+            this.resourceTimings.add(new ContextStartupReport.ResourceTiming(
+                    timer.kind, timer.identifier, timer.location, timer.prefetched, wallNanos, cpuNanos));
+        }
+    }
+
+    private void addToEnclosing(final BeanTimer enclosing, final long wallNanos, final long cpuNanos) {
+        if (enclosing != null) {
+            enclosing.nestedWallNanos += wallNanos;
+            enclosing.nestedCpuNanos += cpuNanos;
+        } else {
+            this.topLevelCpuNanos.add(cpuNanos);
+            if (Thread.currentThread() != this.ownerThread) {
+                this.otherThreadCpuNanos.add(cpuNanos);
+            }
+        }
+    }
+
+    /**
+     * Complete the startup, nothing is recorded after this.
+     *
+     * @return the report of the startup
+     */
+    ContextStartupReport complete() {
+        ContextStartupReport report = this.completedReport;
+        if (report == null) {
+            report = report(true);
+            this.completedReport = report;
+        }
+        return report;
+    }
+
+    /**
+     * @return the report of the startup so far, or the completed report
+     */
+    ContextStartupReport report() {
+        ContextStartupReport report = this.completedReport;
+        return report != null ? report : report(false);
+    }
+
+    private synchronized ContextStartupReport report(final boolean complete) {
+        long wallNanos = System.nanoTime() - this.startWallNanos;
+        // the CPU time of the owner thread can be measured only on the owner thread
+        long cpuNanos = Thread.currentThread() == this.ownerThread ?
+                currentThreadCpuTime() - this.ownerStartCpuNanos + this.otherThreadCpuNanos.sum() :
+                this.topLevelCpuNanos.sum();
+
+        List<ContextStartupReport.BeanTiming> beanTimings = new ArrayList<>(this.beanOrder.size());
+        for (BeanStatistics statistics : this.beanOrder) {
+            beanTimings.add(statistics.toBeanTiming());
+        }
+        return new ContextStartupReport(complete, wallNanos, cpuNanos, beanTimings, this.resourceTimings);
+    }
+
+    // ========================================================================================
+    // Timers
+    // ========================================================================================
+
+    /**
+     * Times the creation of one bean instance, phase by phase.
+     * Each call to lap() attributes the time since the previous lap to the given phase.
+     */
+    static final class BeanTimer {
+        /** the timer used when no report is being recorded */
+        static final BeanTimer NONE = new BeanTimer(null, null, null);
+
+        private final StartupRecorder recorder;
+        private final AbstractBeanInstanceFactory<?> factory;
+        private final BeanTimer parent;
+        private final long startWallNanos;
+        private final long startCpuNanos;
+        private final long[] phaseNanos;
+        private long lapNanos;
+
+        /** time of creating other beans and loading resources while this bean was created */
+        private long nestedWallNanos;
+        private long nestedCpuNanos;
+
+        private BeanTimer(final StartupRecorder recorder, final AbstractBeanInstanceFactory<?> factory, final BeanTimer parent) {
+            this.recorder = recorder;
+            this.factory = factory;
+            this.parent = parent;
+            if (recorder == null) {
+                this.startWallNanos = 0L;
+                this.startCpuNanos = 0L;
+                this.phaseNanos = null;
+            } else {
+                this.startCpuNanos = currentThreadCpuTime();
+                this.startWallNanos = System.nanoTime();
+                this.phaseNanos = new long[ContextStartupReport.Phase.values().length];
+            }
+            this.lapNanos = this.startWallNanos;
+        }
+
+        /**
+         * Attribute the time since the previous lap, or the start, to the given phase.
+         */
+        void lap(final ContextStartupReport.Phase phase) {
+            // kept small enough to be inlined where nothing is recorded
+            if (this.recorder != null) {
+                recordLap(phase);
+            }
+        }
+
+        private void recordLap(final ContextStartupReport.Phase phase) {
+            long now = System.nanoTime();
+            this.phaseNanos[phase.ordinal()] += now - this.lapNanos;
+            this.lapNanos = now;
+        }
+
+        void stop() {
+            if (this.recorder != null) {
+                this.recorder.stopBean(this);
+            }
+        }
+    }
+
+    /**
+     * Times the loading of one resource.
+     */
+    static final class ResourceTimer {
+        /** the timer used when no report is being recorded */
+        static final ResourceTimer NONE = new ResourceTimer(null, null, null, null, false);
+
+        private final StartupRecorder recorder;
+        private final ContextStartupReport.ResourceKind kind;
+        private final String identifier;
+        private final String location;
+        private final boolean prefetched;
+        private final long startWallNanos;
+        private final long startCpuNanos;
+
+        private ResourceTimer(final StartupRecorder recorder,
+                              final ContextStartupReport.ResourceKind kind,
+                              final String identifier,
+                              final String location,
+                              final boolean prefetched) {
+            this.recorder = recorder;
+            this.kind = kind;
+            this.identifier = identifier;
+            this.location = location;
+            this.prefetched = prefetched;
+            this.startCpuNanos = recorder == null ? 0L : currentThreadCpuTime();
+            this.startWallNanos = recorder == null ? 0L : System.nanoTime();
+        }
+
+        void stop() {
+            if (this.recorder != null) {
+                this.recorder.stopResource(this);
+            }
+        }
+    }
+
+    /**
+     * The timing of all of the instances of one bean.
+     */
+    private static final class BeanStatistics {
+        private final AbstractBeanInstanceFactory<?> factory;
+        private final long[] phaseNanos = new long[ContextStartupReport.Phase.values().length];
+        private int instanceCount;
+        private long wallNanos;
+        private long cpuNanos;
+        private long selfWallNanos;
+        private long selfCpuNanos;
+
+        private BeanStatistics(final AbstractBeanInstanceFactory<?> factory) {
+            this.factory = factory;
+        }
+
+        private void add(final long wallNanos, final long cpuNanos, final BeanTimer timer) {
+            ++this.instanceCount;
+            this.wallNanos += wallNanos;
+            this.cpuNanos += cpuNanos;
+            this.selfWallNanos += wallNanos - timer.nestedWallNanos;
+            this.selfCpuNanos += cpuNanos - timer.nestedCpuNanos;
+            for (int index = 0; index < this.phaseNanos.length; ++index) {
+                this.phaseNanos[index] += timer.phaseNanos[index];
+            }
+        }
+
+        private ContextStartupReport.BeanTiming toBeanTiming() {
+            return new ContextStartupReport.BeanTiming(this.factory.getIdentifier(), this.factory.getClazzName(),
+                    this.instanceCount, this.wallNanos, this.cpuNanos, this.selfWallNanos, this.selfCpuNanos,
+                    this.phaseNanos);
+        }
+    }
+
+    // ========================================================================================
+    // Thread CPU time, the management classes are loaded only when a report is recorded
+    // ========================================================================================
+
+    /**
+     * @return the CPU time of the current thread in nanoseconds, 0 if it cannot be measured
+     */
+    private static long currentThreadCpuTime() {
+        ThreadMXBean threads = ThreadCpuTime.THREADS;
+        return threads == null ? 0L : threads.getCurrentThreadCpuTime();
+    }
+
+    private static final class ThreadCpuTime {
+        private static final ThreadMXBean THREADS = createThreadMXBean();
+
+        private static ThreadMXBean createThreadMXBean() {
+            try {
+                ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+                if (threads.isCurrentThreadCpuTimeSupported()) {
+                    if (!threads.isThreadCpuTimeEnabled()) {
+                        threads.setThreadCpuTimeEnabled(true);
+                    }
+                    return threads;
+                }
+            } catch (UnsupportedOperationException | SecurityException x) {
+                // CPU time is not measured
+            }
+            return null;
+        }
+    }
+}
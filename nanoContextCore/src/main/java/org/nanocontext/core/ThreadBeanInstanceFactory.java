@@ -0,0 +1,82 @@
+package org.nanocontext.core;
+
+import org.nanocontext.core.exceptions.ContextInitializationException;
+
+import java.util.List;
+
+/**
+ * Creates one instance of a bean for each thread that references it, for beans that are
+ * expensive to create but not thread safe, e.g. formatters, parsers, digests and buffers.
+ * The instances are finalized and released when the context is closed.
+ */
+public class ThreadBeanInstanceFactory<T> extends AbstractBeanInstanceFactory<T> {
+    private final ThreadScopedInstances<T> instances;
+
+    /**
+     * @param activeBeanExecution how each instance is run if the bean is active, null for the execution of the context
+     * @param restartPolicy when each instance is run again if the bean is active, null to never restart it
+     * @param threadBinding how the instance of the current thread is found, null for THREAD_LOCAL
+     */
+    public ThreadBeanInstanceFactory(
+            final Context context,
+            final String id,
+            final String artifactIdentifier,
+            final String clazzName,
+            final String factoryId,
+            final String factoryClassName,
+            final String factoryMethodName,
+            final boolean lazyLoad,
+            final boolean active,
+            final String activateMethod,
+            final ActiveBeanExecution activeBeanExecution,
+            final RestartPolicy restartPolicy,
+            final String initializeMethod,
+            final String finalizeMethod,
+            final ThreadBinding threadBinding,
+            final List<AbstractProperty> ctorArgs)
+            throws ContextInitializationException {
+        super(context, id,
+                artifactIdentifier, clazzName,
+                factoryId, factoryClassName, factoryMethodName,
+                lazyLoad,
+                active, activateMethod, activeBeanExecution, restartPolicy,
+                initializeMethod, finalizeMethod,
+                null, null,
+                ctorArgs);
+        this.instances = new ThreadScopedInstances<>(threadBinding == null ? ThreadBinding.THREAD_LOCAL : threadBinding);
+    }
+
+    /**
+     * @return the instance of the current thread, created on the first reference from the thread
+     * @throws ContextInitializationException
+     */
+    @Override
+    public T getValue() throws ContextInitializationException {
+        T instance = instances.get();
+        if (instance == null) {
+            // only the current thread creates the instance of the current thread, no lock is needed
+            instance = createBeanInstance();
+            instances.put(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * @return the instances of the threads that are alive
+     */
+    @Override
+    List<T> getCreatedInstances() {
+        return instances.getInstances();
+    }
+
+    @Override
+    void releaseInstances() {
+        instances.clear();
+    }
+
+    @Override
+    protected String getScope() {
+        return "thread";
+    }
+
+}
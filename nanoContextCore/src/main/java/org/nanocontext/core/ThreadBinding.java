@@ -0,0 +1,24 @@
+package org.nanocontext.core;
+
+/**
+ * How a thread scoped bean finds the instance of the current thread.
+ * Either way there is one instance for each thread that references the bean, a virtual thread
+ * included, and never one for the carrier thread that a virtual thread happens to be mounted on.
+ */
+public enum ThreadBinding {
+    /**
+     * The instance is held in a ThreadLocal of the thread, the fastest lookup and the default.
+     * Every virtual thread has its own copy of the ThreadLocal, so where a virtual thread is
+     * started for each task an instance is created for each task, and is held by the thread
+     * until it terminates.
+     */
+    THREAD_LOCAL,
+    /**
+     * The instance is held by the bean only, keyed by the current Thread, and no thread-local
+     * storage is used. There is still an instance for each virtual thread, and so for each task
+     * where a thread is started for each, but the lookup is slower, and the instance is released
+     * by the bean, when the context is closed or once the thread has terminated, rather than
+     * being reachable from the thread.
+     */
+    CARRIER_INDEPENDENT
+}
@@ -0,0 +1,85 @@
+package org.nanocontext.core;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The instances of a thread scoped bean, one for each thread that referenced it.
+ * Every instance is also registered by its thread so that the instances may be finalized and
+ * released when the context is closed. The registry drops the instances of threads that have
+ * terminated whenever another thread registers an instance, those instances are not finalized.
+ *
+ * @param <T> the type of the instances
+ */
+final class ThreadScopedInstances<T> {
+    /** null when the instances are bound by the registry only */
+    private final ThreadLocal<Holder<T>> local;
+    private final Map<Thread, Holder<T>> instances = new ConcurrentHashMap<>();
+
+    ThreadScopedInstances(final ThreadBinding binding) {
+        this.local = binding == ThreadBinding.CARRIER_INDEPENDENT ? null : new ThreadLocal<>();
+    }
+
+    /**
+     * @return the instance of the current thread, null if it has none
+     */
+    T get() {
+        Holder<T> holder = local != null ? local.get() : instances.get(Thread.currentThread());
+        return holder == null ? null : holder.instance;
+    }
+
+    /**
+     * Make the instance that of the current thread.
+     *
+     * @param instance
+     */
+    void put(final T instance) {
+        Holder<T> holder = new Holder<>(instance);
+        instances.put(Thread.currentThread(), holder);
+        if (local != null) {
+            local.set(holder);
+        }
+        // so that neither the threads that have terminated nor their instances are kept
+        instances.keySet().removeIf(thread -> !thread.isAlive());
+    }
+
+    /**
+     * @return the instances of the threads that are alive
+     */
+    List<T> getInstances() {
+        List<T> result = new ArrayList<>(instances.size());
+        for (Map.Entry<Thread, Holder<T>> entry : instances.entrySet()) {
+            T instance = entry.getValue().instance;
+            if (instance != null && entry.getKey().isAlive()) {
+                result.add(instance);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Release every instance, including the instances held in the thread locals of threads
+     * that are still alive. A thread that references the bean afterward gets a new instance.
+     */
+    void clear() {
+        for (Iterator<Holder<T>> iter = instances.values().iterator(); iter.hasNext(); ) {
+            iter.next().instance = null;
+            iter.remove();
+        }
+    }
+
+    /**
+     * Shared by the thread local and the registry, so that clearing the registry also
+     * releases the instance from the thread local.
+     */
+    private static final class Holder<T> {
+        private volatile T instance;
+
+        private Holder(final T instance) {
+            this.instance = instance;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.nanocontext.core;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Starts virtual threads, through reflection so that the context runs on runtimes without them.
+ */
+final class VirtualThreads {
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method START;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+    /** true if the runtime supports virtual threads */
+    static final boolean AVAILABLE;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method start = null;
+        Method newThreadPerTaskExecutor = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            name = builderClass.getMethod("name", String.class);
+            start = builderClass.getMethod("start", Runnable.class);
+            newThreadPerTaskExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (ReflectiveOperationException | RuntimeException x) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        START = start;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+        AVAILABLE = ofVirtual != null;
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Start a virtual thread, only if AVAILABLE.
+     *
+     * @param threadName the name of the thread
+     * @param task what the thread runs
+     */
+    static void start(final String threadName, final Runnable task) {
+        try {
+            START.invoke(NAME.invoke(OF_VIRTUAL.invoke(null), threadName), task);
+        } catch (InvocationTargetException itX) {
+            throw itX.getCause() instanceof RuntimeException ?
+                    (RuntimeException) itX.getCause() : new IllegalStateException(itX.getCause());
+        } catch (IllegalAccessException iaX) {
+            throw new IllegalStateException(iaX);
+        }
+    }
+
+    /**
+     * @return an executor that starts a virtual thread for each task, null if the runtime
+     *      does not support virtual threads
+     */
+    static ExecutorService newThreadPerTaskExecutor() {
+        if (!AVAILABLE) {
+            return null;
+        }
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null);
+        } catch (InvocationTargetException itX) {
+            throw itX.getCause() instanceof RuntimeException ?
+                    (RuntimeException) itX.getCause() : new IllegalStateException(itX.getCause());
+        } catch (IllegalAccessException iaX) {
+            throw new IllegalStateException(iaX);
+        }
+    }
+}
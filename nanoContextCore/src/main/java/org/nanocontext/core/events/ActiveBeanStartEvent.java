@@ -0,0 +1,21 @@
+package org.nanocontext.core.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The start of an active bean, recorded on the thread the bean runs on.
+ */
+@Name("org.nanocontext.ActiveBeanStart")
+@Label("Active Bean Start")
+@Category({"nanoContext", "Active Bean"})
+@Description("An active bean started running on its thread")
+public final class ActiveBeanStartEvent extends jdk.jfr.Event {
+    @Label("Bean Identifier")
+    public String beanIdentifier;
+
+    @Label("Bean Class")
+    public Class<?> beanClass;
+}
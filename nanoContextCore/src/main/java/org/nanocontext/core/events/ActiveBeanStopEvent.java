@@ -0,0 +1,25 @@
+package org.nanocontext.core.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The run of an active bean, from its start to its stop, recorded on the thread the bean ran on.
+ */
+@Name("org.nanocontext.ActiveBeanStop")
+@Label("Active Bean Stop")
+@Category({"nanoContext", "Active Bean"})
+@Description("An active bean stopped running, the duration is the time it ran")
+public final class ActiveBeanStopEvent extends jdk.jfr.Event {
+    @Label("Bean Identifier")
+    public String beanIdentifier;
+
+    @Label("Bean Class")
+    public Class<?> beanClass;
+
+    @Label("Failure")
+    @Description("The exception the bean stopped with, null if it returned normally")
+    public String failure;
+}
@@ -0,0 +1,29 @@
+package org.nanocontext.core.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The creation of the class loader of an artifact, including copying a remote artifact that
+ * was not prefetched.
+ */
+@Name("org.nanocontext.ArtifactClassLoader")
+@Label("Artifact Class Loader")
+@Category({"nanoContext", "Resource"})
+@Description("The creation of the class loader of an artifact")
+public final class ArtifactClassLoaderEvent extends jdk.jfr.Event {
+    @Label("Artifact Identifier")
+    public String artifactIdentifier;
+
+    @Label("Location")
+    public String location;
+
+    @Label("Remote")
+    public boolean remote;
+
+    @Label("Prefetched")
+    @Description("true if a remote artifact was copied before the class loader was needed")
+    public boolean prefetched;
+}
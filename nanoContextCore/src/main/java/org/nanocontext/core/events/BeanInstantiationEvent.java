@@ -0,0 +1,28 @@
+package org.nanocontext.core.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The creation of one bean instance, including the creation of the beans it references
+ * and the call to its initialize method.
+ */
+@Name("org.nanocontext.BeanInstantiation")
+@Label("Bean Instantiation")
+@Category({"nanoContext", "Bean"})
+@Description("The creation of a bean instance, including the beans it references")
+public final class BeanInstantiationEvent extends jdk.jfr.Event {
+    @Label("Bean Identifier")
+    public String beanIdentifier;
+
+    @Label("Bean Class")
+    public String beanClass;
+
+    @Label("Scope")
+    public String scope;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
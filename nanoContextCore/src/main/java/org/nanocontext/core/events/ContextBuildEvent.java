@@ -0,0 +1,28 @@
+package org.nanocontext.core.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The build of a Context by a ContextFactory, from the start of build() to the end of
+ * Context.initialize().
+ */
+@Name("org.nanocontext.ContextBuild")
+@Label("Context Build")
+@Category({"nanoContext"})
+@Description("The build of a context by a context factory, including the initialization of its beans")
+public final class ContextBuildEvent extends jdk.jfr.Event {
+    @Label("Context Identifier")
+    public String contextIdentifier;
+
+    @Label("Factory")
+    public Class<?> factory;
+
+    @Label("Bean Count")
+    public int beanCount;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,30 @@
+package org.nanocontext.core.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The loading of a properties resource.
+ */
+@Name("org.nanocontext.PropertiesLoad")
+@Label("Properties Load")
+@Category({"nanoContext", "Resource"})
+@Description("The loading of a properties resource")
+public final class PropertiesLoadEvent extends jdk.jfr.Event {
+    @Label("Properties Identifier")
+    public String propertiesIdentifier;
+
+    @Label("Location")
+    public String location;
+
+    @Label("Bytes Read")
+    @DataAmount
+    public long bytesRead;
+
+    @Label("Prefetched")
+    @Description("true if the properties were loaded concurrently, before they were needed")
+    public boolean prefetched;
+}
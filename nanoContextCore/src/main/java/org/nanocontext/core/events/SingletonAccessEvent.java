@@ -0,0 +1,26 @@
+package org.nanocontext.core.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A reference to a singleton bean, either the reference that created the singleton or one
+ * that got the existing instance. Disabled by default because singletons are referenced
+ * far more often than anything else is recorded, enable it to find where they are referenced.
+ */
+@Name("org.nanocontext.SingletonAccess")
+@Label("Singleton Access")
+@Category({"nanoContext", "Bean"})
+@Description("A reference to a singleton bean, created by this reference or already existing")
+@Enabled(false)
+public final class SingletonAccessEvent extends jdk.jfr.Event {
+    @Label("Bean Identifier")
+    public String beanIdentifier;
+
+    @Label("Created")
+    @Description("true if this reference created the singleton, false if it already existed")
+    public boolean created;
+}
@@ -0,0 +1,19 @@
+package org.nanocontext.core.exceptions;
+
+import java.net.URL;
+
+/**
+ * Thrown when an artifact cannot be loaded, or its content does not match the expected digest.
+ */
+public class ArtifactLoadException extends ContextInitializationException {
+    private static String createMessage(final URL artifactUrl) {
+        return String.format("Unable to load artifact from [%s]", artifactUrl == null ? "<null>" : artifactUrl.toExternalForm());
+    }
+
+    public ArtifactLoadException(final URL artifactUrl) {
+        super(createMessage(artifactUrl));
+    }
+    public ArtifactLoadException(final URL artifactUrl, Throwable t) {
+        super(createMessage(artifactUrl), t);
+    }
+}
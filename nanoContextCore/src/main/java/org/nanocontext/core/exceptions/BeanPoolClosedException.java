@@ -0,0 +1,10 @@
+package org.nanocontext.core.exceptions;
+
+/**
+ * Thrown when an instance of a pooled bean is borrowed once its context has been closed.
+ */
+public class BeanPoolClosedException extends ContextInitializationException {
+    public BeanPoolClosedException(final String beanIdentifier) {
+        super(String.format("The pool of bean %s has been closed with its context", beanIdentifier));
+    }
+}
@@ -0,0 +1,19 @@
+package org.nanocontext.core.exceptions;
+
+/**
+ * Thrown when no instance of a pooled bean is returned to its pool within the maximum wait
+ * of a borrow, or the borrowing thread is interrupted while it waits.
+ */
+public class BeanPoolExhaustedException extends ContextInitializationException {
+    private static String createMessage(final String beanIdentifier, final long maxWaitMillis) {
+        return String.format("No instance of pooled bean %s was returned within %d milliseconds", beanIdentifier, maxWaitMillis);
+    }
+
+    public BeanPoolExhaustedException(final String beanIdentifier, final long maxWaitMillis) {
+        super(createMessage(beanIdentifier, maxWaitMillis));
+    }
+
+    public BeanPoolExhaustedException(final String beanIdentifier, final long maxWaitMillis, final Throwable cause) {
+        super(createMessage(beanIdentifier, maxWaitMillis), cause);
+    }
+}
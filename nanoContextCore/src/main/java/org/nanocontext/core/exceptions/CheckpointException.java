@@ -0,0 +1,15 @@
+package org.nanocontext.core.exceptions;
+
+/**
+ * Thrown when a Context cannot be made ready for a checkpoint of the runtime, or cannot
+ * be resumed after a restore.
+ */
+public class CheckpointException extends ContextInitializationException {
+    public CheckpointException(final String message) {
+        super(message);
+    }
+
+    public CheckpointException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
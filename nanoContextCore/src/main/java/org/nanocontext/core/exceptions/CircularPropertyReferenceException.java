@@ -0,0 +1,19 @@
+package org.nanocontext.core.exceptions;
+
+import java.util.List;
+
+/**
+ * Thrown when the value of a property refers, directly or through other properties, to itself.
+ */
+public class CircularPropertyReferenceException extends ContextInitializationException {
+    private static String createMessage(final List<String> keys) {
+        return String.format("Circular property reference detected: %s", String.join(" -> ", keys));
+    }
+
+    /**
+     * @param keys the chain of property keys, the first and last are the same
+     */
+    public CircularPropertyReferenceException(final List<String> keys) {
+        super(createMessage(keys));
+    }
+}
@@ -0,0 +1,11 @@
+package org.nanocontext.core.exceptions;
+
+/**
+ * Thrown when a pooled bean is referenced other than by a borrow, e.g. by getBean() or as
+ * a constructor argument, or when a bean that is not pooled is borrowed.
+ */
+public class InvalidPooledBeanReferenceException extends ContextInitializationException {
+    public InvalidPooledBeanReferenceException(final String message) {
+        super(message);
+    }
+}
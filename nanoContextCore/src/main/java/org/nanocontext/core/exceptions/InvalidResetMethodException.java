@@ -0,0 +1,18 @@
+package org.nanocontext.core.exceptions;
+
+/**
+ * Thrown when the reset method of a pooled bean cannot be found or fails.
+ */
+public class InvalidResetMethodException extends ContextInitializationException {
+    private static String createMessage(final String beanIdentifier, final String resetMethodName) {
+        return String.format("Unable to reset instance of %s, method %s could not be found or failed", beanIdentifier, resetMethodName);
+    }
+
+    public InvalidResetMethodException(final String beanIdentifier, final String resetMethodName) {
+        super(createMessage(beanIdentifier, resetMethodName));
+    }
+
+    public InvalidResetMethodException(final String beanIdentifier, final String resetMethodName, final Throwable cause) {
+        super(createMessage(beanIdentifier, resetMethodName), cause);
+    }
+}
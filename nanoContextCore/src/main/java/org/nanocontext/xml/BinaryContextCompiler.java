@@ -0,0 +1,70 @@
+package org.nanocontext.xml;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Compiles a context XML document into the binary descriptor read by BinaryContextFactory.
+ * Intended to run at build time, so that JAXB is not needed when the context is built.
+ * Run as a program with the XML document and the descriptor to write as arguments.
+ */
+public final class BinaryContextCompiler {
+    private BinaryContextCompiler() {
+    }
+
+    /**
+     * @param contextDefinition the context definition, usually unmarshalled from XML
+     * @param outputStream where the descriptor is written, not closed
+     * @throws IOException
+     */
+    public static void compile(final Beans contextDefinition, final OutputStream outputStream) throws IOException {
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream));
+        BinaryContextFormat.write(contextDefinition, output);
+        output.flush();
+    }
+
+    /**
+     * @param xmlInputStream a context XML document
+     * @param outputStream where the descriptor is written, not closed
+     * @throws JAXBException - if the XML document is not a valid context definition
+     * @throws IOException
+     */
+    public static void compile(final InputStream xmlInputStream, final OutputStream outputStream)
+            throws JAXBException, IOException {
+        JAXBContext jaxbContext = JAXBContext.newInstance(Beans.class.getPackage().getName());
+        Beans contextDefinition = (Beans) jaxbContext.createUnmarshaller().unmarshal(xmlInputStream);
+        compile(contextDefinition, outputStream);
+    }
+
+    /**
+     * @param xmlDocument a context XML document
+     * @param descriptor the descriptor file to write
+     * @throws JAXBException - if the XML document is not a valid context definition
+     * @throws IOException
+     */
+    public static void compile(final Path xmlDocument, final Path descriptor) throws JAXBException, IOException {
+        try (InputStream xmlInputStream = Files.newInputStream(xmlDocument);
+             OutputStream outputStream = Files.newOutputStream(descriptor)) {
+            compile(xmlInputStream, outputStream);
+        }
+    }
+
+    /**
+     * @param args the context XML document and the descriptor file to write
+     */
+    public static void main(final String[] args) throws JAXBException, IOException {
+        if (args.length != 2) {
+            System.err.println("usage: BinaryContextCompiler <context XML document> <descriptor file>");
+            System.exit(1);
+        }
+        compile(Paths.get(args[0]), Paths.get(args[1]));
+    }
+}
@@ -0,0 +1,188 @@
+package org.nanocontext.xml;
+
+import org.nanocontext.core.ActiveBeanExecution;
+import org.nanocontext.core.ArtifactCache;
+import org.nanocontext.core.Context;
+import org.nanocontext.core.ContextFactory;
+import org.nanocontext.core.InstantiationStrategy;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executor;
+
+/**
+ * A ContextFactory which reads a binary descriptor written by BinaryContextCompiler, rather
+ * than parsing XML with JAXB.
+ * The descriptor is read back into the same context definition the XML document is
+ * unmarshalled to and the context is built from it by an XMLContextFactory, so a context
+ * built from a descriptor is the same as one built from its XML.
+ */
+public class BinaryContextFactory implements ContextFactory {
+    private final XMLContextFactory contextFactory = new XMLContextFactory();
+
+    /**
+     *
+     */
+    public BinaryContextFactory() {
+    }
+
+    /**
+     * @param inputStream a binary descriptor, read to its end but not closed
+     * @return
+     * @throws IOException - if the descriptor cannot be read or is not valid
+     */
+    public BinaryContextFactory with(final InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream));
+        contextFactory.with(BinaryContextFormat.read(input));
+        return this;
+    }
+
+    /**
+     * @param descriptor the bytes of a binary descriptor, from its position to its limit
+     * @return
+     * @throws IOException - if the descriptor is not valid
+     */
+    public BinaryContextFactory with(final ByteBuffer descriptor) throws IOException {
+        DataInputStream input = new DataInputStream(new BinaryContextFormat.ByteBufferInputStream(descriptor.duplicate()));
+        contextFactory.with(BinaryContextFormat.read(input));
+        return this;
+    }
+
+    /**
+     * Read a descriptor file through a read only memory mapping.
+     *
+     * @param descriptor a binary descriptor file
+     * @return
+     * @throws IOException - if the descriptor cannot be read or is not valid
+     */
+    public BinaryContextFactory with(final Path descriptor) throws IOException {
+        try (FileChannel channel = FileChannel.open(descriptor, StandardOpenOption.READ)) {
+            return with(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @param descriptor the location of a binary descriptor
+     * @return
+     * @throws IOException - if the descriptor cannot be read or is not valid
+     */
+    public BinaryContextFactory with(final URL descriptor) throws IOException {
+        try (InputStream inputStream = descriptor.openStream()) {
+            return with(inputStream);
+        }
+    }
+
+    @Override
+    public BinaryContextFactory withClassLoader(final ClassLoader classLoader) {
+        contextFactory.withClassLoader(classLoader);
+        return this;
+    }
+
+    @Override
+    public BinaryContextFactory withParentContext(final Context parent) {
+        contextFactory.withParentContext(parent);
+        return this;
+    }
+
+    /**
+     * @see XMLContextFactory#withExternalBeanDefinition(String, Object)
+     */
+    public BinaryContextFactory withExternalBeanDefinition(final String identifier, final Object bean)
+            throws ContextInitializationException {
+        contextFactory.withExternalBeanDefinition(identifier, bean);
+        return this;
+    }
+
+    /**
+     * @see XMLContextFactory#withTypeResolutionPrewarm(boolean)
+     */
+    public BinaryContextFactory withTypeResolutionPrewarm(final boolean prewarmTypeResolution) {
+        contextFactory.withTypeResolutionPrewarm(prewarmTypeResolution);
+        return this;
+    }
+
+    /**
+     * @see XMLContextFactory#withInstantiationStrategy(InstantiationStrategy)
+     */
+    public BinaryContextFactory withInstantiationStrategy(final InstantiationStrategy instantiationStrategy) {
+        contextFactory.withInstantiationStrategy(instantiationStrategy);
+        return this;
+    }
+
+    /**
+     * @see XMLContextFactory#withParallelInitialization(boolean)
+     */
+    public BinaryContextFactory withParallelInitialization(final boolean parallelInitialization) {
+        contextFactory.withParallelInitialization(parallelInitialization);
+        return this;
+    }
+
+    /**
+     * @see XMLContextFactory#withInitializationExecutor(Executor)
+     */
+    public BinaryContextFactory withInitializationExecutor(final Executor initializationExecutor) {
+        contextFactory.withInitializationExecutor(initializationExecutor);
+        return this;
+    }
+
+    /**
+     * @see XMLContextFactory#withResourcePrefetch(boolean)
+     */
+    public BinaryContextFactory withResourcePrefetch(final boolean resourcePrefetch) {
+        contextFactory.withResourcePrefetch(resourcePrefetch);
+        return this;
+    }
+
+    /**
+     * @see XMLContextFactory#withArtifactCache(ArtifactCache)
+     */
+    public BinaryContextFactory withArtifactCache(final ArtifactCache artifactCache) {
+        contextFactory.withArtifactCache(artifactCache);
+        return this;
+    }
+
+    /**
+     * @see XMLContextFactory#withStartupReport(boolean)
+     */
+    public BinaryContextFactory withStartupReport(final boolean startupReport) {
+        contextFactory.withStartupReport(startupReport);
+        return this;
+    }
+
+    /**
+     * @see XMLContextFactory#withActiveBeanExecution(ActiveBeanExecution)
+     */
+    public BinaryContextFactory withActiveBeanExecution(final ActiveBeanExecution activeBeanExecution) {
+        contextFactory.withActiveBeanExecution(activeBeanExecution);
+        return this;
+    }
+
+    /**
+     * @see XMLContextFactory#withActiveBeanPool(Executor)
+     */
+    public BinaryContextFactory withActiveBeanPool(final Executor activeBeanPool) {
+        contextFactory.withActiveBeanPool(activeBeanPool);
+        return this;
+    }
+
+    /**
+     * @see XMLContextFactory#withLazyProxies(boolean)
+     */
+    public BinaryContextFactory withLazyProxies(final boolean lazyProxies) {
+        contextFactory.withLazyProxies(lazyProxies);
+        return this;
+    }
+
+    @Override
+    public Context build() throws ContextInitializationException {
+        return contextFactory.build();
+    }
+}
@@ -0,0 +1,382 @@
+package org.nanocontext.xml;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The binary form of a context definition, written by BinaryContextCompiler and read by
+ * BinaryContextFactory.
+ * The descriptor holds exactly the content of the Beans element, in document order, so a
+ * context built from it is the same as one built from the XML it was compiled from.
+ *
+ * Layout, all numbers big-endian as written by DataOutput:
+ * <pre>
+ *   int magic, short version
+ *   int string count, then each string as modified UTF-8 (DataOutput.writeUTF)
+ *   int properties count, then each resource
+ *   int artifact count, then each resource
+ *   int bean count, then each bean
+ * </pre>
+ * Strings within resources and beans are indices into the string table, -1 for null.
+ */
+final class BinaryContextFormat {
+    static final int MAGIC = 0x4E43_4258;       // "NCBX"
+    /** 7 adds the pooled scope, 6 the thread scope, 5 is where lazy-load became false by default */
+    static final short VERSION = 7;
+
+    private static final int NULL_STRING = -1;
+
+    // scope of a bean
+    private static final byte SCOPE_NONE = 0;
+    private static final byte SCOPE_PROTOTYPE = 1;
+    private static final byte SCOPE_SINGLETON = 2;
+    private static final byte SCOPE_THREAD = 3;
+    private static final byte SCOPE_POOLED = 4;
+
+    // bean flags
+    private static final byte FLAG_LAZY_LOAD = 0x01;
+    private static final byte FLAG_ACTIVE = 0x02;
+
+    // resource flags
+    private static final byte FLAG_CLASSPATH = 0x01;
+
+    // the content of a constructor-arg or list element
+    private static final byte TAG_NONE = 0;
+    private static final byte TAG_BEAN = 1;
+    private static final byte TAG_VALUE = 2;
+    private static final byte TAG_LIST = 3;
+    private static final byte TAG_REF = 4;
+    private static final byte TAG_PROPERTIES_REF = 5;
+
+    private static final int NO_INDEX = Integer.MIN_VALUE;
+    private static final int NO_INT = Integer.MIN_VALUE;
+    private static final long NO_LONG = Long.MIN_VALUE;
+
+    private BinaryContextFormat() {
+    }
+
+    // ========================================================================================
+    // Writing
+    // ========================================================================================
+
+    /**
+     * Write the descriptor of the given context definition.
+     *
+     * @param beans the context definition, usually unmarshalled from XML
+     * @param output
+     * @throws IOException
+     */
+    static void write(final Beans beans, final DataOutput output) throws IOException {
+        // the body is written first so that the string table holds exactly the strings used
+        final Map<String, Integer> strings = new LinkedHashMap<>();
+        final ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream(4096);
+        final DataOutputStream body = new DataOutputStream(bodyBytes);
+
+        writeResources(beans.getProperties(), body, strings);
+        writeResources(beans.getArtifact(), body, strings);
+        body.writeInt(beans.getBean().size());
+        for (BeanType bean : beans.getBean()) {
+            writeBean(bean, body, strings);
+        }
+        body.flush();
+
+        output.writeInt(MAGIC);
+        output.writeShort(VERSION);
+        output.writeInt(strings.size());
+        for (String string : strings.keySet()) {
+            output.writeUTF(string);
+        }
+        output.write(bodyBytes.toByteArray());
+    }
+
+    private static void writeResources(final List<ResourceType> resources, final DataOutput output, final Map<String, Integer> strings)
+            throws IOException {
+        output.writeInt(resources.size());
+        for (ResourceType resource : resources) {
+            writeString(resource.getId(), output, strings);
+            writeString(resource.getResource(), output, strings);
+            writeString(resource.getSha256(), output, strings);
+            output.writeByte(resource.getClasspath() != null ? FLAG_CLASSPATH : 0);
+        }
+    }
+
+    private static void writeBean(final BeanType bean, final DataOutput output, final Map<String, Integer> strings)
+            throws IOException {
+        writeString(bean.getId(), output, strings);
+        writeString(bean.getClazz(), output, strings);
+        output.writeByte(bean.getScope() == null ? SCOPE_NONE :
+                bean.getScope() == ScopeType.SINGLETON ? SCOPE_SINGLETON :
+                bean.getScope() == ScopeType.THREAD ? SCOPE_THREAD :
+                bean.getScope() == ScopeType.POOLED ? SCOPE_POOLED : SCOPE_PROTOTYPE);
+        output.writeByte((bean.getLazyLoad() ? FLAG_LAZY_LOAD : 0) | (bean.getActive() ? FLAG_ACTIVE : 0));
+        writeString(bean.getArtifact(), output, strings);
+        writeString(bean.getFactory(), output, strings);
+        writeString(bean.getFactoryClass(), output, strings);
+        writeString(bean.getFactoryMethod(), output, strings);
+        writeString(bean.getActivateMethod(), output, strings);
+        writeString(bean.getInitializeMethod(), output, strings);
+        writeString(bean.getFinalizeMethod(), output, strings);
+        writeString(bean.getBeforeCheckpointMethod(), output, strings);
+        writeString(bean.getAfterRestoreMethod(), output, strings);
+        writeString(bean.getActiveExecution() == null ? null : bean.getActiveExecution().value(), output, strings);
+        writeString(bean.getRestart() == null ? null : bean.getRestart().value(), output, strings);
+        output.writeInt(bean.getMaxRestarts() == null ? NO_INT : bean.getMaxRestarts());
+        output.writeLong(bean.getRestartDelay() == null ? NO_LONG : bean.getRestartDelay());
+        output.writeLong(bean.getRestartDelayMax() == null ? NO_LONG : bean.getRestartDelayMax());
+        writeString(bean.getThreadBinding() == null ? null : bean.getThreadBinding().value(), output, strings);
+        output.writeInt(bean.getPoolMinSize() == null ? NO_INT : bean.getPoolMinSize());
+        output.writeInt(bean.getPoolMaxSize() == null ? NO_INT : bean.getPoolMaxSize());
+        output.writeLong(bean.getPoolMaxWait() == null ? NO_LONG : bean.getPoolMaxWait());
+        writeString(bean.getResetMethod(), output, strings);
+
+        output.writeInt(bean.getConstructorArg().size());
+        for (ConstructorArgType ctorArg : bean.getConstructorArg()) {
+            output.writeInt(ctorArg.getIndex() == null ? NO_INDEX : ctorArg.getIndex());
+            if (ctorArg.getBean() != null) {
+                writeElement(ctorArg.getBean(), output, strings);
+            } else if (ctorArg.getValue() != null) {
+                writeElement(ctorArg.getValue(), output, strings);
+            } else if (ctorArg.getList() != null) {
+                writeElement(ctorArg.getList(), output, strings);
+            } else if (ctorArg.getRef() != null) {
+                writeElement(ctorArg.getRef(), output, strings);
+            } else if (ctorArg.getPropertiesRef() != null) {
+                output.writeByte(TAG_PROPERTIES_REF);
+                writeString(ctorArg.getPropertiesRef().getPropertiesId(), output, strings);
+            } else {
+                output.writeByte(TAG_NONE);
+            }
+        }
+    }
+
+    /**
+     * Write one of the elements that may be a constructor-arg or a list element.
+     */
+    private static void writeElement(final Object element, final DataOutput output, final Map<String, Integer> strings)
+            throws IOException {
+        if (element instanceof BeanType) {
+            output.writeByte(TAG_BEAN);
+            writeBean((BeanType) element, output, strings);
+        } else if (element instanceof String) {
+            output.writeByte(TAG_VALUE);
+            writeString((String) element, output, strings);
+        } else if (element instanceof ListType) {
+            List<Object> elements = ((ListType) element).getBeanOrValueOrList();
+            output.writeByte(TAG_LIST);
+            output.writeInt(elements.size());
+            for (Object listElement : elements) {
+                writeElement(listElement, output, strings);
+            }
+        } else if (element instanceof ReferenceType) {
+            output.writeByte(TAG_REF);
+            writeString(((ReferenceType) element).getBean(), output, strings);
+        } else {
+            throw new IOException("Unknown context element " + (element == null ? "null" : element.getClass().getName()));
+        }
+    }
+
+    private static void writeString(final String value, final DataOutput output, final Map<String, Integer> strings)
+            throws IOException {
+        if (value == null) {
+            output.writeInt(NULL_STRING);
+        } else {
+            Integer index = strings.get(value);
+            if (index == null) {
+                index = strings.size();
+                strings.put(value, index);
+            }
+            output.writeInt(index);
+        }
+    }
+
+    // ========================================================================================
+    // Reading
+    // ========================================================================================
+
+    /**
+     * Read a descriptor into the context definition it was written from.
+     *
+     * @param input
+     * @return the context definition
+     * @throws IOException - if the input is not a descriptor of a supported version
+     */
+    static Beans read(final DataInput input) throws IOException {
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a binary context descriptor");
+        }
+        short version = input.readShort();
+        if (version != VERSION) {
+            throw new IOException(String.format("Unsupported binary context descriptor version %d", version));
+        }
+
+        final String[] strings = new String[input.readInt()];
+        for (int index = 0; index < strings.length; ++index) {
+            strings[index] = input.readUTF();
+        }
+
+        Beans beans = new Beans();
+        readResources(beans.getProperties(), input, strings);
+        readResources(beans.getArtifact(), input, strings);
+        int beanCount = input.readInt();
+        for (int index = 0; index < beanCount; ++index) {
+            beans.getBean().add(readBean(input, strings));
+        }
+        return beans;
+    }
+
+    private static void readResources(final List<ResourceType> resources, final DataInput input, final String[] strings)
+            throws IOException {
+        int count = input.readInt();
+        for (int index = 0; index < count; ++index) {
+            ResourceType resource = new ResourceType();
+            resource.setId(readString(input, strings));
+            resource.setResource(readString(input, strings));
+            resource.setSha256(readString(input, strings));
+            if ((input.readByte() & FLAG_CLASSPATH) != 0) {
+                resource.setClasspath(new ResourceType.Classpath());
+            }
+            resources.add(resource);
+        }
+    }
+
+    private static BeanType readBean(final DataInput input, final String[] strings) throws IOException {
+        BeanType bean = new BeanType();
+        bean.setId(readString(input, strings));
+        bean.setClazz(readString(input, strings));
+        byte scope = input.readByte();
+        bean.setScope(scope == SCOPE_NONE ? null : scope == SCOPE_SINGLETON ? ScopeType.SINGLETON :
+                scope == SCOPE_THREAD ? ScopeType.THREAD :
+                scope == SCOPE_POOLED ? ScopeType.POOLED : ScopeType.PROTOTYPE);
+        byte flags = input.readByte();
+        bean.setLazyLoad((flags & FLAG_LAZY_LOAD) != 0);
+        bean.setActive((flags & FLAG_ACTIVE) != 0);
+        bean.setArtifact(readString(input, strings));
+        bean.setFactory(readString(input, strings));
+        bean.setFactoryClass(readString(input, strings));
+        bean.setFactoryMethod(readString(input, strings));
+        bean.setActivateMethod(readString(input, strings));
+        bean.setInitializeMethod(readString(input, strings));
+        bean.setFinalizeMethod(readString(input, strings));
+        bean.setBeforeCheckpointMethod(readString(input, strings));
+        bean.setAfterRestoreMethod(readString(input, strings));
+        String activeExecution = readString(input, strings);
+        bean.setActiveExecution(activeExecution == null ? null : ActiveExecutionType.fromValue(activeExecution));
+        String restart = readString(input, strings);
+        bean.setRestart(restart == null ? null : RestartType.fromValue(restart));
+        int maxRestarts = input.readInt();
+        bean.setMaxRestarts(maxRestarts == NO_INT ? null : maxRestarts);
+        long restartDelay = input.readLong();
+        bean.setRestartDelay(restartDelay == NO_LONG ? null : restartDelay);
+        long restartDelayMax = input.readLong();
+        bean.setRestartDelayMax(restartDelayMax == NO_LONG ? null : restartDelayMax);
+        String threadBinding = readString(input, strings);
+        bean.setThreadBinding(threadBinding == null ? null : ThreadBindingType.fromValue(threadBinding));
+        int poolMinSize = input.readInt();
+        bean.setPoolMinSize(poolMinSize == NO_INT ? null : poolMinSize);
+        int poolMaxSize = input.readInt();
+        bean.setPoolMaxSize(poolMaxSize == NO_INT ? null : poolMaxSize);
+        long poolMaxWait = input.readLong();
+        bean.setPoolMaxWait(poolMaxWait == NO_LONG ? null : poolMaxWait);
+        bean.setResetMethod(readString(input, strings));
+
+        int ctorArgCount = input.readInt();
+        for (int index = 0; index < ctorArgCount; ++index) {
+            ConstructorArgType ctorArg = new ConstructorArgType();
+            int argIndex = input.readInt();
+            ctorArg.setIndex(argIndex == NO_INDEX ? null : argIndex);
+
+            byte tag = input.readByte();
+            if (tag == TAG_PROPERTIES_REF) {
+                PropertiesReferenceType propertiesRef = new PropertiesReferenceType();
+                propertiesRef.setPropertiesId(readString(input, strings));
+                ctorArg.setPropertiesRef(propertiesRef);
+            } else if (tag != TAG_NONE) {
+                Object element = readElement(tag, input, strings);
+                if (element instanceof BeanType) {
+                    ctorArg.setBean((BeanType) element);
+                } else if (element instanceof String) {
+                    ctorArg.setValue((String) element);
+                } else if (element instanceof ListType) {
+                    ctorArg.setList((ListType) element);
+                } else {
+                    ctorArg.setRef((ReferenceType) element);
+                }
+            }
+            bean.getConstructorArg().add(ctorArg);
+        }
+        return bean;
+    }
+
+    private static Object readElement(final byte tag, final DataInput input, final String[] strings) throws IOException {
+        switch (tag) {
+            case TAG_BEAN:
+                return readBean(input, strings);
+            case TAG_VALUE:
+                return readString(input, strings);
+            case TAG_LIST:
+                ListType list = new ListType();
+                int count = input.readInt();
+                for (int index = 0; index < count; ++index) {
+                    list.getBeanOrValueOrList().add(readElement(input.readByte(), input, strings));
+                }
+                return list;
+            case TAG_REF:
+                ReferenceType ref = new ReferenceType();
+                ref.setBean(readString(input, strings));
+                return ref;
+            default:
+                throw new IOException(String.format("Invalid element tag %d in binary context descriptor", tag));
+        }
+    }
+
+    private static String readString(final DataInput input, final String[] strings) throws IOException {
+        int index = input.readInt();
+        if (index == NULL_STRING) {
+            return null;
+        }
+        if (index < 0 || index >= strings.length) {
+            throw new IOException(String.format("Invalid string index %d in binary context descriptor", index));
+        }
+        return strings[index];
+    }
+
+    /**
+     * An InputStream over a ByteBuffer, usually a mapped file, so that a mapped descriptor is
+     * read through the same DataInput as any other.
+     */
+    static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package org.nanocontext.xml;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedClassLoader;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.nanocontext.core.Context;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+
+import javax.xml.bind.JAXBException;
+import java.io.BufferedWriter;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records the classes loaded while a context is built, so that they may be put in a class
+ * data sharing (AppCDS) archive and mapped from it, rather than read, parsed and verified,
+ * when the application starts.
+ * Intended to run at build time in a runtime of its own, so that every class the context
+ * needs is loaded while recording. Run as a program with one of:
+ * <pre>
+ *   list &lt;context XML document&gt; &lt;class list file&gt;   write the list for -XX:SharedClassListFile
+ *   archive &lt;context XML document&gt; &lt;archive file&gt;   create the dynamic archive for -XX:SharedArchiveFile
+ *   build &lt;context XML document&gt;                     build the context and exit
+ * </pre>
+ */
+public final class ClassDataSharingTrainer {
+    private static final String CLASS_LOAD_EVENT = "jdk.ClassLoad";
+
+    private ClassDataSharingTrainer() {
+    }
+
+    /**
+     * Build a context from the given XML document, recording every class loaded while the
+     * document is read, the context built and its beans initialized.
+     * Classes loaded before this is called, in this runtime, are not recorded.
+     *
+     * @param xmlDocument a context XML document
+     * @return the classes loaded, in the order they were loaded
+     * @throws JAXBException - if the XML document is not a valid context definition
+     * @throws ContextInitializationException - if the context cannot be built
+     * @throws IOException - if the recording cannot be read
+     */
+    public static ClassList record(final Path xmlDocument)
+            throws JAXBException, ContextInitializationException, IOException {
+        Path recordingFile = Files.createTempFile("nanocontext-cds-", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable(CLASS_LOAD_EVENT).withoutThreshold().withoutStackTrace();
+                recording.start();
+                try (Context context = build(xmlDocument)) {
+                    // closed so that its active beans do not run on, loading classes, until the runtime exits
+                } finally {
+                    recording.stop();
+                }
+                recording.dump(recordingFile);
+            }
+            return ClassList.of(RecordingFile.readAllEvents(recordingFile));
+        } finally {
+            Files.deleteIfExists(recordingFile);
+        }
+    }
+
+    /**
+     * Build and initialize a context from the given XML document.
+     *
+     * @param xmlDocument a context XML document
+     * @return the context
+     * @throws JAXBException - if the XML document is not a valid context definition
+     * @throws ContextInitializationException - if the context cannot be built
+     * @throws FileNotFoundException
+     */
+    public static Context build(final Path xmlDocument)
+            throws JAXBException, ContextInitializationException, FileNotFoundException {
+        return new XMLContextFactory().with(xmlDocument.toFile()).build();
+    }
+
+    /**
+     * Create a dynamic CDS archive of the classes loaded while a context is built, by building
+     * the context in a new runtime that writes the archive as it exits. The archive is layered
+     * over the default archive of the runtime and includes classes loaded from artifacts.
+     * Requires a runtime that supports -XX:ArchiveClassesAtExit (JDK 13 or later), the archive is
+     * used by starting the application with -XX:SharedArchiveFile and the same class path.
+     *
+     * @param xmlDocument a context XML document
+     * @param archive the archive file to write
+     * @param classPath the class path of the application, which must include nanoContext and
+     *                  consist only of jars
+     * @throws IOException - if the runtime cannot be started or fails to write the archive
+     * @throws InterruptedException
+     */
+    public static void createDynamicArchive(final Path xmlDocument, final Path archive, final String classPath)
+            throws IOException, InterruptedException {
+        run(javaCommand(),
+                "-XX:ArchiveClassesAtExit=" + archive.toAbsolutePath(),
+                "-cp", classPath,
+                ClassDataSharingTrainer.class.getName(), "build", xmlDocument.toAbsolutePath().toString());
+        if (!Files.isRegularFile(archive)) {
+            throw new IOException("No archive was written to " + archive);
+        }
+    }
+
+    /**
+     * Create a static CDS archive of the classes of a class list, as written by ClassList.write().
+     * The archive replaces the default archive of the runtime, it is used by starting the
+     * application with -XX:SharedArchiveFile and the same class path.
+     *
+     * @param classList the class list file
+     * @param archive the archive file to write
+     * @param classPath the class path of the application, which must include nanoContext and
+     *                  consist only of jars
+     * @throws IOException - if the runtime cannot be started or fails to write the archive
+     * @throws InterruptedException
+     */
+    public static void createStaticArchive(final Path classList, final Path archive, final String classPath)
+            throws IOException, InterruptedException {
+        run(javaCommand(),
+                "-Xshare:dump",
+                "-XX:SharedClassListFile=" + classList.toAbsolutePath(),
+                "-XX:SharedArchiveFile=" + archive.toAbsolutePath(),
+                "-cp", classPath);
+    }
+
+    private static String javaCommand() {
+        return Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    }
+
+    private static void run(final String... command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        int exitValue = process.waitFor();
+        if (exitValue != 0) {
+            throw new IOException(String.format("%s exited with %d", String.join(" ", command), exitValue));
+        }
+    }
+
+    /**
+     * The classes loaded while a context was built.
+     */
+    public static final class ClassList {
+        private final List<String> classNames;
+        private final List<String> artifactClassNames;
+
+        private ClassList(final List<String> classNames, final List<String> artifactClassNames) {
+            this.classNames = Collections.unmodifiableList(classNames);
+            this.artifactClassNames = Collections.unmodifiableList(artifactClassNames);
+        }
+
+        private static ClassList of(final List<RecordedEvent> events) {
+            Set<String> classNames = new LinkedHashSet<>();
+            Set<String> artifactClassNames = new LinkedHashSet<>();
+            for (RecordedEvent event : events) {
+                if (!CLASS_LOAD_EVENT.equals(event.getEventType().getName())) {
+                    continue;
+                }
+                RecordedClass loadedClass = event.getValue("loadedClass");
+                String className = loadedClass == null ? null : loadedClass.getName();
+                // hidden classes, i.e. lambdas, cannot be listed, nor are the classes of the recording itself wanted
+                if (className == null || isHidden(className)
+                        || className.startsWith("jdk.jfr.") || className.startsWith("jdk.internal.jfr.")) {
+                    continue;
+                }
+                if (isBuiltInClassLoader(event.getValue("definingClassLoader"))) {
+                    classNames.add(className);
+                } else {
+                    artifactClassNames.add(className);
+                }
+            }
+            return new ClassList(new ArrayList<>(classNames), new ArrayList<>(artifactClassNames));
+        }
+
+        private static boolean isHidden(final String className) {
+            return className.indexOf('/') >= 0 || className.contains("+0x") || className.contains("$$Lambda");
+        }
+
+        private static boolean isBuiltInClassLoader(final RecordedClassLoader classLoader) {
+            return classLoader == null
+                    || classLoader.getType() == null
+                    || "app".equals(classLoader.getName())
+                    || "platform".equals(classLoader.getName());
+        }
+
+        /**
+         * @return the binary names of the classes loaded by the boot, platform and application class loaders
+         */
+        public List<String> getClassNames() {
+            return classNames;
+        }
+
+        /**
+         * @return the binary names of the classes loaded by other class loaders, i.e. from artifacts
+         */
+        public List<String> getArtifactClassNames() {
+            return artifactClassNames;
+        }
+
+        /**
+         * Write the list for -XX:SharedClassListFile. A static archive made from the list replaces
+         * the default archive of the runtime, so the default class list of the runtime, where there
+         * is one, is written first. Classes of artifacts cannot be archived from a class list and are
+         * written as comments, they are archived by a dynamic archive.
+         *
+         * @param classListFile
+         * @throws IOException
+         */
+        public void write(final Path classListFile) throws IOException {
+            Set<String> written = new LinkedHashSet<>();
+            Path runtimeClassList = Paths.get(System.getProperty("java.home"), "lib", "classlist");
+            if (Files.isRegularFile(runtimeClassList)) {
+                written.addAll(Files.readAllLines(runtimeClassList, StandardCharsets.UTF_8));
+            }
+            for (String className : classNames) {
+                written.add(className.replace('.', '/'));
+            }
+
+            try (BufferedWriter writer = Files.newBufferedWriter(classListFile, StandardCharsets.UTF_8)) {
+                for (String line : written) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+                for (String className : artifactClassNames) {
+                    writer.write("# artifact class " + className.replace('.', '/'));
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    /**
+     * @param args see the class description
+     */
+    public static void main(final String[] args) throws Exception {
+        if (args.length == 3 && "list".equals(args[0])) {
+            ClassList classList = record(Paths.get(args[1]));
+            classList.write(Paths.get(args[2]));
+            System.out.println(String.format("%d classes, %d artifact classes written to %s",
+                    classList.getClassNames().size(), classList.getArtifactClassNames().size(), args[2]));
+        } else if (args.length == 3 && "archive".equals(args[0])) {
+            createDynamicArchive(Paths.get(args[1]), Paths.get(args[2]), System.getProperty("java.class.path"));
+        } else if (args.length == 2 && "build".equals(args[0])) {
+            build(Paths.get(args[1]));
+        } else {
+            System.err.println("usage: ClassDataSharingTrainer list <context XML document> <class list file>");
+            System.err.println("       ClassDataSharingTrainer archive <context XML document> <archive file>");
+            System.err.println("       ClassDataSharingTrainer build <context XML document>");
+            System.exit(1);
+        }
+        // active beans must not keep the runtime, and so the writing of an archive, waiting
+        System.exit(0);
+    }
+}
@@ -0,0 +1,631 @@
+package org.nanocontext.xml;
+
+import org.nanocontext.core.*;
+import org.nanocontext.core.events.ContextBuildEvent;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.xml.exceptions.InvalidArtifactSyntaxException;
+import org.nanocontext.xml.exceptions.InvalidContextDocumentException;
+import org.nanocontext.xml.exceptions.InvalidPropertiesSyntaxException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.Executor;
+
+/**
+ * A ContextFactory which reads a context XML document with a StAX cursor and creates the
+ * bean factories and their constructor arguments as the elements are read, rather than
+ * unmarshalling the document with JAXB and then walking the unmarshalled definition.
+ * The document is read once, by build(), and a context built from it is the same as one
+ * built from the same document by an XMLContextFactory.
+ */
+public class StreamingContextFactory implements ContextFactory {
+    /** The namespace of all elements of a context document, see ctx.xsd */
+    static final String NAMESPACE = "http://nanocontext.org/v1/schema/ctx";
+
+    /** Configured once, creating readers from a configured factory is thread safe */
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        return inputFactory;
+    }
+
+    /** The class loader to use for loading the context beans from */
+    private ClassLoader classLoader;
+
+    /** The parent of the context to create */
+    private Context parent;
+
+    private boolean prewarmTypeResolution = false;
+    private InstantiationStrategy instantiationStrategy = InstantiationStrategy.GENERATED;
+    private boolean parallelInitialization = false;
+    private Executor initializationExecutor = null;
+    private boolean resourcePrefetch = true;
+    private ArtifactCache artifactCache = ArtifactCache.defaultCache();
+    private boolean startupReport = false;
+    private ActiveBeanExecution activeBeanExecution = ActiveBeanExecution.PLATFORM_THREAD;
+    private Executor activeBeanPool = null;
+    private boolean lazyProxies = false;
+
+    /** The document, either a stream supplied by the caller or a location opened by build() */
+    private InputStream inputStream;
+    private URL location;
+
+    /** Contains pre-resolved beans that are to be added to the context when it is built */
+    private Set<XMLContextFactory.ExternalBeanDefinition> externalBeanDefinitions = new HashSet<>();
+
+    /**
+     *
+     */
+    public StreamingContextFactory() {
+    }
+
+    /**
+     * @param inputStream a context XML document, read by build() and not closed
+     * @return
+     */
+    public StreamingContextFactory with(final InputStream inputStream) {
+        this.inputStream = inputStream;
+        this.location = null;
+        return this;
+    }
+
+    /**
+     * @param contextDefinition the location of a context XML document, opened and closed by build()
+     * @return
+     */
+    public StreamingContextFactory with(final URL contextDefinition) {
+        this.location = contextDefinition;
+        this.inputStream = null;
+        return this;
+    }
+
+    /**
+     * @param contextDefinition a context XML document, opened and closed by build()
+     * @return
+     * @throws MalformedURLException
+     */
+    public StreamingContextFactory with(final File contextDefinition) throws MalformedURLException {
+        return with(contextDefinition.toURI().toURL());
+    }
+
+    @Override
+    public StreamingContextFactory withClassLoader(final ClassLoader classLoader) {
+        this.classLoader = classLoader;
+        return this;
+    }
+
+    @Override
+    public StreamingContextFactory withParentContext(final Context parent) {
+        this.parent = parent;
+        return this;
+    }
+
+    /**
+     * @see XMLContextFactory#withExternalBeanDefinition(String, Object)
+     */
+    public StreamingContextFactory withExternalBeanDefinition(final String identifier, final Object bean) {
+        if (bean != null) {
+            this.externalBeanDefinitions.add(new XMLContextFactory.ExternalBeanDefinition(
+                    identifier == null ? UUID.randomUUID().toString() : identifier, bean));
+        }
+        return this;
+    }
+
+    /**
+     * @see XMLContextFactory#withTypeResolutionPrewarm(boolean)
+     */
+    public StreamingContextFactory withTypeResolutionPrewarm(final boolean prewarmTypeResolution) {
+        this.prewarmTypeResolution = prewarmTypeResolution;
+        return this;
+    }
+
+    /**
+     * @see XMLContextFactory#withInstantiationStrategy(InstantiationStrategy)
+     */
+    public StreamingContextFactory withInstantiationStrategy(final InstantiationStrategy instantiationStrategy) {
+        this.instantiationStrategy = instantiationStrategy;
+        return this;
+    }
+
+    /**
+     * @see XMLContextFactory#withParallelInitialization(boolean)
+     */
+    public StreamingContextFactory withParallelInitialization(final boolean parallelInitialization) {
+        this.parallelInitialization = parallelInitialization;
+        return this;
+    }
+
+    /**
+     * @see XMLContextFactory#withInitializationExecutor(Executor)
+     */
+    public StreamingContextFactory withInitializationExecutor(final Executor initializationExecutor) {
+        this.initializationExecutor = initializationExecutor;
+        return this;
+    }
+
+    /**
+     * @see XMLContextFactory#withResourcePrefetch(boolean)
+     */
+    public StreamingContextFactory withResourcePrefetch(final boolean resourcePrefetch) {
+        this.resourcePrefetch = resourcePrefetch;
+        return this;
+    }
+
+    /**
+     * @see XMLContextFactory#withArtifactCache(ArtifactCache)
+     */
+    public StreamingContextFactory withArtifactCache(final ArtifactCache artifactCache) {
+        this.artifactCache = artifactCache;
+        return this;
+    }
+
+    /**
+     * @see XMLContextFactory#withStartupReport(boolean)
+     */
+    public StreamingContextFactory withStartupReport(final boolean startupReport) {
+        this.startupReport = startupReport;
+        return this;
+    }
+
+    /**
+     * @see XMLContextFactory#withActiveBeanExecution(ActiveBeanExecution)
+     */
+    public StreamingContextFactory withActiveBeanExecution(final ActiveBeanExecution activeBeanExecution) {
+        this.activeBeanExecution = activeBeanExecution;
+        return this;
+    }
+
+    /**
+     * @see XMLContextFactory#withActiveBeanPool(Executor)
+     */
+    public StreamingContextFactory withActiveBeanPool(final Executor activeBeanPool) {
+        this.activeBeanPool = activeBeanPool;
+        return this;
+    }
+
+    /**
+     * @see XMLContextFactory#withLazyProxies(boolean)
+     */
+    public StreamingContextFactory withLazyProxies(final boolean lazyProxies) {
+        this.lazyProxies = lazyProxies;
+        return this;
+    }
+
+    // ========================================================================================
+    // Build method and its helpers
+    // ========================================================================================
+
+    /**
+     * Read the document and build the context from it.
+     *
+     * @return
+     * @throws ContextInitializationException
+     */
+    @Override
+    public Context build()
+            throws ContextInitializationException {
+        if (this.inputStream == null && this.location == null) {
+            throw new InvalidContextDocumentException("No context document to build from", null);
+        }
+
+        ContextBuildEvent event = new ContextBuildEvent();
+        event.begin();
+        try {
+            Context ctx = buildContext(event);
+            event.succeeded = true;
+            return ctx;
+        } finally {
+            if (event.shouldCommit()) {
+                event.factory = getClass();
+                event.commit();
+            }
+        }
+    }
+
+    private Context buildContext(final ContextBuildEvent event)
+            throws ContextInitializationException {
+        Context.Builder builder = Context.builder();
+        builder.withParent(this.parent);
+        builder.withTypeResolutionPrewarm(this.prewarmTypeResolution);
+        builder.withInstantiationStrategy(this.instantiationStrategy);
+        builder.withParallelInitialization(this.parallelInitialization);
+        builder.withInitializationExecutor(this.initializationExecutor);
+        builder.withResourcePrefetch(this.resourcePrefetch);
+        builder.withStartupReport(this.startupReport);
+        builder.withActiveBeanExecution(this.activeBeanExecution);
+        builder.withActiveBeanPool(this.activeBeanPool);
+        builder.withLazyProxies(this.lazyProxies);
+        Context ctx = builder.build();
+
+        XMLPropertyFactory propertyFactory = new XMLPropertyFactory(ctx);
+        Set<AbstractReferencableProperty> contextObjects = new HashSet<>();
+
+        // add the externally defined bean definitions first
+        for (XMLContextFactory.ExternalBeanDefinition xBeanDef : this.externalBeanDefinitions) {
+            contextObjects.add(propertyFactory.create(xBeanDef));
+        }
+
+        InputStream documentStream = null;
+        try {
+            documentStream = this.location == null ? this.inputStream : this.location.openStream();
+            XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(documentStream);
+            try {
+                readBeans(reader, propertyFactory, contextObjects);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException x) {
+            throw new InvalidContextDocumentException("Invalid context document", x.getLocation(), x);
+        } catch (IOException x) {
+            throw new InvalidContextDocumentException("Failed to open context document " + this.location, null, x);
+        } finally {
+            if (this.location != null && documentStream != null) {
+                try {
+                    documentStream.close();
+                } catch (IOException x) {
+                    // the document has been read, nothing is lost
+                }
+            }
+        }
+
+        ctx.setContextObjectsMap(contextObjects);
+        event.contextIdentifier = ctx.getIdentifier();
+        event.beanCount = contextObjects.size();
+        ctx.initialize();
+
+        return ctx;
+    }
+
+    /**
+     * Read the beans element, the reader is positioned before the document element.
+     * The properties and artifacts are given to the context as the first bean is reached
+     * because bean factory attributes may reference property values.
+     */
+    private void readBeans(final XMLStreamReader reader, final XMLPropertyFactory propertyFactory,
+                           final Set<AbstractReferencableProperty> contextObjects)
+            throws XMLStreamException, ContextInitializationException {
+        Context ctx = propertyFactory.getContext();
+
+        reader.nextTag();
+        requireElement(reader, "beans");
+
+        Set<PropertiesHolder> propertiesHolders = new HashSet<>();
+        Set<ArtifactHolder> artifactHolders = new HashSet<>();
+        boolean resourcesSet = false;
+
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String elementName = elementName(reader);
+
+            if ("bean".equals(elementName)) {
+                if (!resourcesSet) {
+                    setResources(ctx, propertiesHolders, artifactHolders);
+                    resourcesSet = true;
+                }
+                contextObjects.add(readBean(reader, propertyFactory, ScopeType.PROTOTYPE, contextObjects));
+
+            } else if ("properties".equals(elementName) && !resourcesSet) {
+                ResourceType propertiesType = readResource(reader);
+                if (propertiesType.getResource() != null) {
+                    try {
+                        // note that the holder will not be added if it is a duplicate
+                        propertiesHolders.add(new PropertiesHolder(ctx, propertiesType.getId(), new URI(propertiesType.getResource())));
+                    } catch (MalformedURLException | URISyntaxException e) {
+                        throw new InvalidPropertiesSyntaxException(propertiesType, e);
+                    }
+                }
+
+            } else if ("artifact".equals(elementName) && !resourcesSet) {
+                ResourceType artifactType = readResource(reader);
+                if (artifactType.getResource() != null) {
+                    try {
+                        // note that the holder will not be added if it is a duplicate
+                        artifactHolders.add(new ArtifactHolder(artifactType.getId(), new URI(artifactType.getResource()),
+                                artifactType.getSha256(), getClassLoader(), this.artifactCache));
+                    } catch (MalformedURLException | URISyntaxException e) {
+                        throw new InvalidArtifactSyntaxException(artifactType, e);
+                    }
+                }
+
+            } else {
+                throw unexpectedElement(reader);
+            }
+        }
+
+        // a context without beans still has its properties and artifacts
+        if (!resourcesSet) {
+            setResources(ctx, propertiesHolders, artifactHolders);
+        }
+    }
+
+    private void setResources(final Context ctx, final Set<PropertiesHolder> propertiesHolders, final Set<ArtifactHolder> artifactHolders) {
+        ctx.setProperties(propertiesHolders);
+        ctx.setArtifacts(artifactHolders);
+
+        // start loading remote resources before anything needs them, bean factory creation
+        // waits only for the resources it references
+        ctx.prefetchResources();
+    }
+
+    private ClassLoader getClassLoader() {
+        // if no ClassLoader was specified then use the ClassLoader of this class
+        return this.classLoader == null ? this.getClass().getClassLoader() : this.classLoader;
+    }
+
+    /**
+     * Read a properties or artifact element, the reader is positioned at its start and is left at its end.
+     */
+    private static ResourceType readResource(final XMLStreamReader reader) throws XMLStreamException, InvalidContextDocumentException {
+        ResourceType resourceType = new ResourceType();
+        resourceType.setId(reader.getAttributeValue(null, "id"));
+        resourceType.setSha256(reader.getAttributeValue(null, "sha256"));
+
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String elementName = elementName(reader);
+            if ("resource".equals(elementName)) {
+                resourceType.setResource(reader.getElementText().trim());
+            } else if ("classpath".equals(elementName)) {
+                resourceType.setClasspath(new ResourceType.Classpath());
+                skipElement(reader);
+            } else {
+                throw unexpectedElement(reader);
+            }
+        }
+
+        return resourceType;
+    }
+
+    /**
+     * Read a bean element and create its bean factory, the reader is positioned at its start
+     * and is left at its end.
+     *
+     * @param defaultScope the scope if the element has none, top level beans are prototypes
+     *                     while beans within a constructor-arg or list are singletons
+     * @param referenced where beans directly within a constructor-arg are added, null within a list
+     */
+    private static AbstractBeanInstanceFactory readBean(final XMLStreamReader reader, final XMLPropertyFactory propertyFactory,
+                                                        final ScopeType defaultScope, final Set<AbstractReferencableProperty> referenced)
+            throws XMLStreamException, ContextInitializationException {
+        BeanType beanType = new BeanType();
+        beanType.setId(reader.getAttributeValue(null, "id"));
+        beanType.setClazz(reader.getAttributeValue(null, "class"));
+        String scope = reader.getAttributeValue(null, "scope");
+        try {
+            beanType.setScope(scope == null ? defaultScope : ScopeType.fromValue(scope.trim()));
+        } catch (IllegalArgumentException x) {
+            throw new InvalidContextDocumentException("Unrecognized scope specifier " + scope, reader.getLocation(), x);
+        }
+        beanType.setArtifact(reader.getAttributeValue(null, "artifact"));
+        beanType.setLazyLoad(readBoolean(reader, "lazy-load"));
+        beanType.setFactory(reader.getAttributeValue(null, "factory"));
+        beanType.setFactoryClass(reader.getAttributeValue(null, "factory-class"));
+        beanType.setFactoryMethod(reader.getAttributeValue(null, "factory-method"));
+        beanType.setActive(readBoolean(reader, "active"));
+        beanType.setActivateMethod(reader.getAttributeValue(null, "activate-method"));
+        beanType.setInitializeMethod(reader.getAttributeValue(null, "initialize-method"));
+        beanType.setFinalizeMethod(reader.getAttributeValue(null, "finalize-method"));
+        beanType.setBeforeCheckpointMethod(reader.getAttributeValue(null, "before-checkpoint-method"));
+        beanType.setAfterRestoreMethod(reader.getAttributeValue(null, "after-restore-method"));
+        String activeExecution = reader.getAttributeValue(null, "active-execution");
+        if (activeExecution != null) {
+            try {
+                beanType.setActiveExecution(ActiveExecutionType.fromValue(activeExecution.trim()));
+            } catch (IllegalArgumentException x) {
+                throw new InvalidContextDocumentException("Unrecognized active-execution specifier " + activeExecution, reader.getLocation(), x);
+            }
+        }
+        String threadBinding = reader.getAttributeValue(null, "thread-binding");
+        if (threadBinding != null) {
+            try {
+                beanType.setThreadBinding(ThreadBindingType.fromValue(threadBinding.trim()));
+            } catch (IllegalArgumentException x) {
+                throw new InvalidContextDocumentException("Unrecognized thread-binding specifier " + threadBinding, reader.getLocation(), x);
+            }
+        }
+        String restart = reader.getAttributeValue(null, "restart");
+        if (restart != null) {
+            try {
+                beanType.setRestart(RestartType.fromValue(restart.trim()));
+            } catch (IllegalArgumentException x) {
+                throw new InvalidContextDocumentException("Unrecognized restart specifier " + restart, reader.getLocation(), x);
+            }
+        }
+        beanType.setMaxRestarts(readInteger(reader, "max-restarts"));
+        beanType.setRestartDelay(readLong(reader, "restart-delay"));
+        beanType.setRestartDelayMax(readLong(reader, "restart-delay-max"));
+        beanType.setPoolMinSize(readInteger(reader, "pool-min-size"));
+        beanType.setPoolMaxSize(readInteger(reader, "pool-max-size"));
+        beanType.setPoolMaxWait(readLong(reader, "pool-max-wait"));
+        beanType.setResetMethod(reader.getAttributeValue(null, "reset-method"));
+
+        // the arguments in document order, and the index attribute of each
+        List<AbstractProperty> arguments = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            requireElement(reader, "constructor-arg");
+            indexes.add(readInteger(reader, "index"));
+            arguments.add(readConstructorArg(reader, propertyFactory, referenced));
+        }
+
+        List<AbstractProperty> ctorArgs = null;
+        if (arguments.size() > 0) {
+            // order the positions of the arguments, an argument may be null if its element was empty
+            List<Integer> positions = new ArrayList<>(arguments.size());
+            for (int position = 0; position < arguments.size(); ++position) {
+                positions.add(position);
+            }
+            ctorArgs = new ArrayList<>(arguments.size());
+            for (Integer position : XMLPropertyFactory.orderArguments(positions, indexes, beanType)) {
+                ctorArgs.add(arguments.get(position));
+            }
+        }
+
+        return propertyFactory.createBeanInstanceFactory(beanType, ctorArgs);
+    }
+
+    /**
+     * Read a constructor-arg element, the reader is positioned at its start and is left at its end.
+     *
+     * @return the property, null if the element is empty
+     */
+    private static AbstractProperty readConstructorArg(final XMLStreamReader reader, final XMLPropertyFactory propertyFactory,
+                                                       final Set<AbstractReferencableProperty> referenced)
+            throws XMLStreamException, ContextInitializationException {
+        if (reader.nextTag() == XMLStreamConstants.END_ELEMENT) {
+            return null;
+        }
+
+        AbstractProperty property;
+        if ("properties-ref".equals(elementName(reader))) {
+            property = new PropertiesReference(propertyFactory.getContext(), reader.getAttributeValue(null, "properties-id"));
+            skipElement(reader);
+        } else {
+            property = readElement(reader, propertyFactory, referenced);
+        }
+
+        // a constructor-arg has exactly one element
+        if (reader.nextTag() != XMLStreamConstants.END_ELEMENT) {
+            throw unexpectedElement(reader);
+        }
+        return property;
+    }
+
+    /**
+     * Read an element that may be a constructor-arg or a list element, the reader is
+     * positioned at its start and is left at its end.
+     */
+    private static AbstractProperty readElement(final XMLStreamReader reader, final XMLPropertyFactory propertyFactory,
+                                                final Set<AbstractReferencableProperty> referenced)
+            throws XMLStreamException, ContextInitializationException {
+        String elementName = elementName(reader);
+
+        if ("value".equals(elementName)) {
+            return propertyFactory.createConstant(reader.getElementText());
+
+        } else if ("bean".equals(elementName)) {
+            AbstractBeanInstanceFactory beanFactory = readBean(reader, propertyFactory, ScopeType.SINGLETON, referenced);
+            if (referenced != null) {
+                referenced.add(beanFactory);
+            }
+            return beanFactory;
+
+        } else if ("ref".equals(elementName)) {
+            BeanReference beanReference = new BeanReference(propertyFactory.getContext(), reader.getAttributeValue(null, "bean"));
+            skipElement(reader);
+            return beanReference;
+
+        } else if ("list".equals(elementName)) {
+            List<AbstractProperty> elements = new ArrayList<>();
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                elements.add(readElement(reader, propertyFactory, null));
+            }
+            return new ListProperty(propertyFactory.getContext(), elements);
+        }
+
+        throw unexpectedElement(reader);
+    }
+
+    // ========================================================================================
+    // Cursor helpers
+    // ========================================================================================
+
+    /**
+     * @return the local name of the current element, which must be in the context namespace
+     */
+    private static String elementName(final XMLStreamReader reader) throws InvalidContextDocumentException {
+        if (!NAMESPACE.equals(reader.getNamespaceURI())) {
+            throw unexpectedElement(reader);
+        }
+        return reader.getLocalName();
+    }
+
+    private static void requireElement(final XMLStreamReader reader, final String localName) throws InvalidContextDocumentException {
+        if (!localName.equals(elementName(reader))) {
+            throw unexpectedElement(reader);
+        }
+    }
+
+    /**
+     * Move the reader to the end of the current element, which must have no content other than whitespace.
+     */
+    private static void skipElement(final XMLStreamReader reader) throws XMLStreamException, InvalidContextDocumentException {
+        if (reader.nextTag() != XMLStreamConstants.END_ELEMENT) {
+            throw unexpectedElement(reader);
+        }
+    }
+
+    private static InvalidContextDocumentException unexpectedElement(final XMLStreamReader reader) {
+        return new InvalidContextDocumentException(
+                String.format("Unexpected element {%s}%s", reader.getNamespaceURI(), reader.getLocalName()),
+                reader.getLocation());
+    }
+
+    /**
+     * @return the xs:boolean attribute value, null if the attribute is absent
+     */
+    private static Boolean readBoolean(final XMLStreamReader reader, final String attributeName) throws InvalidContextDocumentException {
+        String value = reader.getAttributeValue(null, attributeName);
+        if (value == null) {
+            return null;
+        }
+        switch (value.trim()) {
+            case "true":
+            case "1":
+                return Boolean.TRUE;
+            case "false":
+            case "0":
+                return Boolean.FALSE;
+            default:
+                throw new InvalidContextDocumentException(
+                        String.format("Invalid boolean value '%s' of attribute %s", value, attributeName),
+                        reader.getLocation());
+        }
+    }
+
+    /**
+     * @return the xs:int attribute value, null if the attribute is absent
+     */
+    private static Integer readInteger(final XMLStreamReader reader, final String attributeName) throws InvalidContextDocumentException {
+        String value = reader.getAttributeValue(null, attributeName);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException x) {
+            throw new InvalidContextDocumentException(
+                    String.format("Invalid integer value '%s' of attribute %s", value, attributeName),
+                    reader.getLocation(), x);
+        }
+    }
+
+    /**
+     * @return the xs:long attribute value, null if the attribute is absent
+     */
+    private static Long readLong(final XMLStreamReader reader, final String attributeName) throws InvalidContextDocumentException {
+        String value = reader.getAttributeValue(null, attributeName);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException x) {
+            throw new InvalidContextDocumentException(
+                    String.format("Invalid long value '%s' of attribute %s", value, attributeName),
+                    reader.getLocation(), x);
+        }
+    }
+}
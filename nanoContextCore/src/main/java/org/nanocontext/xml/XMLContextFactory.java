@@ -1,6 +1,7 @@
 package org.nanocontext.xml;
 
 import org.nanocontext.core.*;
+import org.nanocontext.core.events.ContextBuildEvent;
 import org.nanocontext.core.exceptions.ContextInitializationException;
 import org.nanocontext.xml.exceptions.InvalidArtifactSyntaxException;
 import org.nanocontext.xml.exceptions.InvalidPropertiesSyntaxException;
@@ -20,6 +21,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.Executor;
 
 /**
  * A ContextFactor which reads an XML file and generates an
@@ -44,6 +46,32 @@ public class XMLContextFactory implements ContextFactory {
      */
     private Context parent;
 
+    /** If true, the built context resolves by-type lookups for all bean supertypes when it is initialized */
+    private boolean prewarmTypeResolution = false;
+
+    /** How the built context creates all but the first instance of a bean */
+    private InstantiationStrategy instantiationStrategy = InstantiationStrategy.GENERATED;
+
+    /** If true, the built context initializes beans that do not depend on each other concurrently */
+    private boolean parallelInitialization = false;
+    private Executor initializationExecutor = null;
+
+    /** If true, remote artifacts and properties are fetched concurrently as build() starts */
+    private boolean resourcePrefetch = true;
+
+    /** Where remote artifacts are copied to, if null each build copies them to temporary files */
+    private ArtifactCache artifactCache = ArtifactCache.defaultCache();
+
+    /** If true, the built context records where the time goes while it starts */
+    private boolean startupReport = false;
+
+    /** How the built context runs active beans that do not name an execution */
+    private ActiveBeanExecution activeBeanExecution = ActiveBeanExecution.PLATFORM_THREAD;
+    private Executor activeBeanPool = null;
+
+    /** If true, references to lazy beans from interface typed parameters are injected as proxies */
+    private boolean lazyProxies = false;
+
     // ========================================================================================
     // The components of the XMLContextFactory that populate the Context
     // ========================================================================================
@@ -79,7 +107,7 @@ public class XMLContextFactory implements ContextFactory {
     private JAXBContext getJaxbContext()
             throws JAXBException {
         if (jaxbContext == null) {
-            jaxbContext = JAXBContext.newInstance("org.nanocontext.org.nanocontext.xml");
+            jaxbContext = JAXBContext.newInstance(Beans.class.getPackage().getName());
         }
         return jaxbContext;
     }
@@ -193,6 +221,128 @@ public class XMLContextFactory implements ContextFactory {
     }
 
 
+    /**
+     * Resolve every supertype of every bean when the context is initialized so that
+     * Context.getBean(Class) is a single cache lookup from the first call.
+     *
+     * @param prewarmTypeResolution
+     * @return
+     */
+    public XMLContextFactory withTypeResolutionPrewarm(final boolean prewarmTypeResolution) {
+        this.prewarmTypeResolution = prewarmTypeResolution;
+        return this;
+    }
+
+    /**
+     * Set how the built context invokes bean constructors and factory methods after the
+     * first instance of a bean has been created.
+     *
+     * @param instantiationStrategy
+     * @return
+     */
+    public XMLContextFactory withInstantiationStrategy(final InstantiationStrategy instantiationStrategy) {
+        this.instantiationStrategy = instantiationStrategy;
+        return this;
+    }
+
+    /**
+     * Initialize beans that do not depend on each other concurrently when the context is built.
+     *
+     * @param parallelInitialization
+     * @return
+     */
+    public XMLContextFactory withParallelInitialization(final boolean parallelInitialization) {
+        this.parallelInitialization = parallelInitialization;
+        return this;
+    }
+
+    /**
+     * Initialize beans that do not depend on each other concurrently, on the given executor,
+     * when the context is built. The executor is not shut down by the context.
+     *
+     * @param initializationExecutor
+     * @return
+     */
+    public XMLContextFactory withInitializationExecutor(final Executor initializationExecutor) {
+        this.initializationExecutor = initializationExecutor;
+        return this;
+    }
+
+    /**
+     * Fetch every remote (http or https) artifact and properties resource concurrently when
+     * the context is built, rather than each one when it is first needed. Enabled by default.
+     *
+     * @param resourcePrefetch
+     * @return
+     */
+    public XMLContextFactory withResourcePrefetch(final boolean resourcePrefetch) {
+        this.resourcePrefetch = resourcePrefetch;
+        return this;
+    }
+
+    /**
+     * Set the cache that remote artifacts are copied to, by default the cache in the
+     * directory named by the nanocontext.artifact.cache system property or in the cache
+     * directory of the user, see {@link ArtifactCache#defaultCache()}. If null, remote artifacts are copied to temporary files on every build.
+     *
+     * @param artifactCache
+     * @return
+     */
+    public XMLContextFactory withArtifactCache(final ArtifactCache artifactCache) {
+        this.artifactCache = artifactCache;
+        return this;
+    }
+
+    /**
+     * Record the time of creating each bean and loading each resource while the context
+     * is built, available from Context.getStartupReport(). Disabled by default.
+     *
+     * @param startupReport
+     * @return
+     */
+    public XMLContextFactory withStartupReport(final boolean startupReport) {
+        this.startupReport = startupReport;
+        return this;
+    }
+
+    /**
+     * Set how the built context runs active beans that do not name an execution, by default
+     * on a platform thread of their own.
+     *
+     * @param activeBeanExecution
+     * @return
+     */
+    public XMLContextFactory withActiveBeanExecution(final ActiveBeanExecution activeBeanExecution) {
+        this.activeBeanExecution = activeBeanExecution;
+        return this;
+    }
+
+    /**
+     * Run the active beans executed by a pool on the given executor, rather than on a pool
+     * created by the context. The executor is not shut down by the context.
+     *
+     * @param activeBeanPool
+     * @return
+     */
+    public XMLContextFactory withActiveBeanPool(final Executor activeBeanPool) {
+        this.activeBeanPool = activeBeanPool;
+        return this;
+    }
+
+    /**
+     * If set, a reference to a lazy-load bean from a constructor or factory method parameter
+     * whose type is an interface is injected as a proxy, which creates the bean when it is first
+     * called. Off by default, when off a lazy-load bean is created when it is first injected.
+     *
+     * @param lazyProxies
+     * @return
+     */
+    public XMLContextFactory withLazyProxies(final boolean lazyProxies) {
+        this.lazyProxies = lazyProxies;
+        return this;
+    }
+
+
     // ========================================================================================
     // Methods to read the context from an XML resource
     // ========================================================================================
@@ -246,23 +396,55 @@ public class XMLContextFactory implements ContextFactory {
     // ========================================================================================
 
     /**
+     * Build and initialize the context, recorded as a ContextBuildEvent.
      *
      * @return
      * @throws ContextInitializationException
      */
     public Context build()
             throws ContextInitializationException {
+        ContextBuildEvent event = new ContextBuildEvent();
+        event.begin();
+        try {
+            Context ctx = buildContext(event);
+            event.succeeded = true;
+            return ctx;
+        } finally {
+            if (event.shouldCommit()) {
+                event.factory = getClass();
+                event.commit();
+            }
+        }
+    }
+
+    private Context buildContext(final ContextBuildEvent event)
+            throws ContextInitializationException {
         Context.Builder builder = Context.builder();
         builder.withParent(this.parent);
+        builder.withTypeResolutionPrewarm(this.prewarmTypeResolution);
+        builder.withInstantiationStrategy(this.instantiationStrategy);
+        builder.withParallelInitialization(this.parallelInitialization);
+        builder.withInitializationExecutor(this.initializationExecutor);
+        builder.withResourcePrefetch(this.resourcePrefetch);
+        builder.withStartupReport(this.startupReport);
+        builder.withActiveBeanExecution(this.activeBeanExecution);
+        builder.withActiveBeanPool(this.activeBeanPool);
+        builder.withLazyProxies(this.lazyProxies);
+        Context ctx = builder.build();
+
+        XMLPropertyFactory XMLPropertyFactory = new XMLPropertyFactory(ctx);
 
-        XMLPropertyFactory XMLPropertyFactory = new XMLPropertyFactory();
-        Set<PropertiesHolder> propertiesHolders = extractPropertiesReferences();
-        builder.withProperties(propertiesHolders);
+        // properties must be available before any bean factory is created because
+        // bean factory attributes may reference property values
+        Set<PropertiesHolder> propertiesHolders = extractPropertiesReferences(ctx);
+        ctx.setProperties(propertiesHolders);
 
         Set<ArtifactHolder> artifactHolders = extractArtifactReferences();
-        builder.withArtifacts(artifactHolders);
+        ctx.setArtifacts(artifactHolders);
 
-        Context ctx = builder.build();
+        // start loading remote resources before anything needs them, bean factory creation
+        // below waits only for the resources it references
+        ctx.prefetchResources();
 
         // create the top-level beansType (those directly under the 'beansType' element)
         Set<AbstractReferencableProperty> contextObjects = new HashSet<>();
@@ -287,6 +469,8 @@ public class XMLContextFactory implements ContextFactory {
         }
 
         ctx.setContextObjectsMap(contextObjects);
+        event.contextIdentifier = ctx.getIdentifier();
+        event.beanCount = contextObjects.size();
         ctx.initialize();
 
         return ctx;
@@ -337,7 +521,8 @@ public class XMLContextFactory implements ContextFactory {
             if (artifactType.getResource() != null) {
                 try {
                     // an ArtifactHolder will load the Artifact
-                    ArtifactHolder holder = new ArtifactHolder(artifactType.getId(), new URI(artifactType.getResource()), classLoader);
+                    ArtifactHolder holder = new ArtifactHolder(artifactType.getId(), new URI(artifactType.getResource()),
+                            artifactType.getSha256(), classLoader, this.artifactCache);
                     // note that the holder will not be added if it is a duplicate
                     artifactHolders.add(holder);
                 } catch (MalformedURLException | URISyntaxException e) {
@@ -349,16 +534,15 @@ public class XMLContextFactory implements ContextFactory {
         return artifactHolders;
     }
 
-    private Set<PropertiesHolder> extractPropertiesReferences() throws InvalidPropertiesSyntaxException {
+    private Set<PropertiesHolder> extractPropertiesReferences(final Context ctx) throws InvalidPropertiesSyntaxException {
         Set<PropertiesHolder> holders = new HashSet<>(this.properties.size());
 
         // loop through each of the artifacts in the BeansType (root element)
         for (ResourceType propertiesType : this.properties) {
             if (propertiesType.getResource() != null) {
                 try {
-                    // an ArtifactHolder will load the Artifact
-                    // TODO: the context should not be null
-                    PropertiesHolder holder = new PropertiesHolder(null, propertiesType.getId(), new URI(propertiesType.getResource()));
+                    // a PropertiesHolder will load the Properties
+                    PropertiesHolder holder = new PropertiesHolder(ctx, propertiesType.getId(), new URI(propertiesType.getResource()));
                     // note that the holder will not be added if it is a duplicate
                     holders.add(holder);
                 } catch (MalformedURLException | URISyntaxException e) {
@@ -17,7 +17,14 @@ import java.util.UUID;
  *
  */
 public final class XMLPropertyFactory {
-    public XMLPropertyFactory() {
+    private final Context context;
+
+    public XMLPropertyFactory(final Context context) {
+        this.context = context;
+    }
+
+    public Context getContext() {
+        return context;
     }
 
     /**
@@ -133,59 +140,95 @@ public final class XMLPropertyFactory {
      */
     AbstractBeanInstanceFactory createBeanInstanceFactory(final BeanType beanType)
             throws ContextInitializationException {
-        AbstractBeanInstanceFactory beanReference = null;
-
         // default the scope to prototype
-        if (beanType.getScope() == null) {
+        if (beanType != null && beanType.getScope() == null) {
             beanType.setScope(ScopeType.SINGLETON);
         }
 
-        if (beanType != null && beanType.getScope() != null) {
-            switch(beanType.getScope()) {
-                case SINGLETON: {
-                    List<AbstractProperty> ctorArgs = null;
-                    if (beanType.getConstructorArg() != null && beanType.getConstructorArg().size() > 0) {
-                        ctorArgs = create(createOrderedParameterList(beanType));
-                    }
-                    beanReference = new SingletonBeanInstanceFactory(
-                            context,
-                            beanType.getId(), beanType.getArtifact(), beanType.getClazz(),
-                            beanType.getFactory(), beanType.getFactoryClass(), beanType.getFactoryMethod(),
-                            beanType.getLazyLoad(),
-                            beanType.getActive(), beanType.getActivateMethod(),
-                            beanType.getInitializeMethod(), beanType.getFinalizeMethod(),
-                            ctorArgs);
-                    break;
-                }
-                case PROTOTYPE: {
-                    List<AbstractProperty> ctorArgs = null;
-                    if (beanType.getConstructorArg() != null && beanType.getConstructorArg().size() > 0) {
-                        ctorArgs = create(createOrderedParameterList(beanType));
-                    }
-                    beanReference = new PrototypeBeanInstanceFactory(
-                            context,
-                            beanType.getId(), beanType.getArtifact(), beanType.getClazz(),
-                            beanType.getFactory(), beanType.getFactoryClass(), beanType.getFactoryMethod(),
-                            beanType.getLazyLoad(),
-                            beanType.getActive(), beanType.getActivateMethod(),
-                            beanType.getInitializeMethod(), beanType.getFinalizeMethod(),
-                            ctorArgs);
-                    break;
-                }
-                default: {
-                    throw new GenericContextInitializationException(
-                            String.format("Unrecognized scope specifier (%s) in context definition for bean %s", beanType.getScope(), beanType.getId())
-                    );
-                }
-            }
-        } else {
+        List<AbstractProperty> ctorArgs = null;
+        if (beanType != null && beanType.getConstructorArg() != null && beanType.getConstructorArg().size() > 0) {
+            ctorArgs = create(createOrderedParameterList(beanType));
+        }
+
+        return createBeanInstanceFactory(beanType, ctorArgs);
+    }
+
+    /**
+     * Create a bean factory from the attributes of the given BeanType, with constructor
+     * arguments that have already been created and ordered. The constructor-arg elements of
+     * the BeanType are ignored.
+     *
+     * @param beanType the bean attributes, the scope must have been defaulted
+     * @param ctorArgs the ordered constructor arguments, may be null
+     * @return
+     * @throws ContextInitializationException
+     */
+    AbstractBeanInstanceFactory createBeanInstanceFactory(final BeanType beanType, final List<AbstractProperty> ctorArgs)
+            throws ContextInitializationException {
+        if (beanType == null || beanType.getScope() == null) {
             throw new GenericContextInitializationException(
                     String.format("Null bean or scope specifier in context definition for bean %s",
                             beanType == null ? "null" : beanType.getId())
             );
         }
 
-        return beanReference;
+        ActiveBeanExecution activeBeanExecution = beanType.getActiveExecution() == null ?
+                null : ActiveBeanExecution.valueOf(beanType.getActiveExecution().name());
+        RestartPolicy restartPolicy = beanType.getRestart() == null ? null : new RestartPolicy(
+                RestartPolicy.Restart.valueOf(beanType.getRestart().name()),
+                beanType.getMaxRestarts() == null ? RestartPolicy.UNLIMITED : beanType.getMaxRestarts(),
+                beanType.getRestartDelay() == null ? RestartPolicy.DEFAULT_DELAY_MILLIS : beanType.getRestartDelay(),
+                beanType.getRestartDelayMax() == null ? RestartPolicy.DEFAULT_MAX_DELAY_MILLIS : beanType.getRestartDelayMax());
+
+        switch(beanType.getScope()) {
+            case SINGLETON:
+                return new SingletonBeanInstanceFactory(
+                        context,
+                        beanType.getId(), beanType.getArtifact(), beanType.getClazz(),
+                        beanType.getFactory(), beanType.getFactoryClass(), beanType.getFactoryMethod(),
+                        beanType.getLazyLoad(),
+                        beanType.getActive(), beanType.getActivateMethod(), activeBeanExecution, restartPolicy,
+                        beanType.getInitializeMethod(), beanType.getFinalizeMethod(),
+                        beanType.getBeforeCheckpointMethod(), beanType.getAfterRestoreMethod(),
+                        ctorArgs);
+            case PROTOTYPE:
+                return new PrototypeBeanInstanceFactory(
+                        context,
+                        beanType.getId(), beanType.getArtifact(), beanType.getClazz(),
+                        beanType.getFactory(), beanType.getFactoryClass(), beanType.getFactoryMethod(),
+                        beanType.getLazyLoad(),
+                        beanType.getActive(), beanType.getActivateMethod(), activeBeanExecution, restartPolicy,
+                        beanType.getInitializeMethod(), beanType.getFinalizeMethod(),
+                        ctorArgs);
+            case THREAD:
+                return new ThreadBeanInstanceFactory(
+                        context,
+                        beanType.getId(), beanType.getArtifact(), beanType.getClazz(),
+                        beanType.getFactory(), beanType.getFactoryClass(), beanType.getFactoryMethod(),
+                        beanType.getLazyLoad(),
+                        beanType.getActive(), beanType.getActivateMethod(), activeBeanExecution, restartPolicy,
+                        beanType.getInitializeMethod(), beanType.getFinalizeMethod(),
+                        beanType.getThreadBinding() == null ? null : ThreadBinding.valueOf(beanType.getThreadBinding().name()),
+                        ctorArgs);
+            case POOLED:
+                return new PooledBeanInstanceFactory(
+                        context,
+                        beanType.getId(), beanType.getArtifact(), beanType.getClazz(),
+                        beanType.getFactory(), beanType.getFactoryClass(), beanType.getFactoryMethod(),
+                        beanType.getLazyLoad(),
+                        beanType.getActive(), beanType.getActivateMethod(), activeBeanExecution, restartPolicy,
+                        beanType.getInitializeMethod(), beanType.getFinalizeMethod(),
+                        beanType.getResetMethod(),
+                        new PoolPolicy(
+                                beanType.getPoolMinSize() == null ? 0 : beanType.getPoolMinSize(),
+                                beanType.getPoolMaxSize() == null ? PoolPolicy.DEFAULT_MAX_SIZE : beanType.getPoolMaxSize(),
+                                beanType.getPoolMaxWait() == null ? PoolPolicy.DEFAULT_MAX_WAIT_MILLIS : beanType.getPoolMaxWait()),
+                        ctorArgs);
+            default:
+                throw new GenericContextInitializationException(
+                        String.format("Unrecognized scope specifier (%s) in context definition for bean %s", beanType.getScope(), beanType.getId())
+                );
+        }
     }
 
     /**
@@ -207,45 +250,65 @@ public final class XMLPropertyFactory {
      */
     public List<ConstructorArgType> createOrderedParameterList(final BeanType beanType)
             throws ContextInitializationException {
-        List<ConstructorArgType> orderedParameterTypes = new ArrayList<>();
+        List<ConstructorArgType> ctorArgs = beanType.getConstructorArg();
+        List<Integer> indexes = new ArrayList<>(ctorArgs.size());
+        for (ConstructorArgType ctorArgType : ctorArgs) {
+            indexes.add(ctorArgType.getIndex());
+        }
+
+        return orderArguments(ctorArgs, indexes, beanType);
+    }
+
+    /**
+     * Order constructor arguments as described in createOrderedParameterList(BeanType).
+     *
+     * @param arguments the arguments in document order
+     * @param indexes the index attribute of each argument, null where there is none
+     * @param beanType the bean the arguments belong to, used in the exception message
+     * @return
+     * @throws SparseArgumentListDetectedException - if the indexes leave an empty slot
+     */
+    static <T> List<T> orderArguments(final List<T> arguments, final List<Integer> indexes, final BeanType beanType)
+            throws SparseArgumentListDetectedException {
+        List<T> orderedArguments = new ArrayList<>();
 
         // first put the args with an index where they want to be
-        for (ConstructorArgType ctorArgType : beanType.getConstructorArg()) {
-            Integer index = ctorArgType.getIndex();
+        for (int argument = 0; argument < arguments.size(); ++argument) {
+            Integer index = indexes.get(argument);
             if (index != null) {
                 int targetIndex = index.intValue();
-                while(orderedParameterTypes.size() < targetIndex) {
-                    orderedParameterTypes.add(null);
+                while(orderedArguments.size() < targetIndex) {
+                    orderedArguments.add(null);
                 }
-                orderedParameterTypes.add(targetIndex, ctorArgType);
+                orderedArguments.add(targetIndex, arguments.get(argument));
             }
         }
         // then put the args without an index into the left over spots
         int index = 0;
-        for (ConstructorArgType ctorArgType : beanType.getConstructorArg()) {
-            if (ctorArgType.getIndex() == null) {
+        for (int argument = 0; argument < arguments.size(); ++argument) {
+            if (indexes.get(argument) == null) {
                 // find the next empty spot, or the end of the list
-                while(orderedParameterTypes.size() != 0
-                        && index < orderedParameterTypes.size()
-                        && orderedParameterTypes.get(index) != null) {
+                while(orderedArguments.size() != 0
+                        && index < orderedArguments.size()
+                        && orderedArguments.get(index) != null) {
                     ++index;
                 }
-                if (index >= orderedParameterTypes.size()) {
-                    orderedParameterTypes.add(index, ctorArgType);       // add at the end
+                if (index >= orderedArguments.size()) {
+                    orderedArguments.add(index, arguments.get(argument));       // add at the end
                 } else {
-                    orderedParameterTypes.set(index, ctorArgType);       // replace the null entry with the real entry
+                    orderedArguments.set(index, arguments.get(argument));       // replace the null entry with the real entry
                 }
             }
         }
 
         // validate that the List of arguments has no nulls left in it
-        for(ConstructorArgType argType : orderedParameterTypes) {
-            if (argType == null) {
+        for(T argument : orderedArguments) {
+            if (argument == null) {
                 throw new SparseArgumentListDetectedException(beanType);
             }
         }
 
-        return orderedParameterTypes;
+        return orderedArguments;
     }
 
     /**
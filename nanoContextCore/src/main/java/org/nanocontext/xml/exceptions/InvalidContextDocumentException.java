@@ -0,0 +1,24 @@
+package org.nanocontext.xml.exceptions;
+
+import org.nanocontext.core.exceptions.ContextInitializationException;
+
+import javax.xml.stream.Location;
+
+/**
+ * Thrown when a context XML document cannot be read or is not a valid context definition.
+ */
+public class InvalidContextDocumentException extends ContextInitializationException {
+    private static String createMessage(final String message, final Location location) {
+        return location == null ?
+                message :
+                String.format("%s at line %d, column %d", message, location.getLineNumber(), location.getColumnNumber());
+    }
+
+    public InvalidContextDocumentException(final String message, final Location location) {
+        super(createMessage(message, location));
+    }
+
+    public InvalidContextDocumentException(final String message, final Location location, final Throwable cause) {
+        super(createMessage(message, location), cause);
+    }
+}
@@ -0,0 +1,125 @@
+package org.nanocontext.core;
+
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.core.exceptions.FailedToInstantiateBeanException;
+import org.nanocontext.xml.BeanTypeFactory;
+import org.nanocontext.xml.ScopeType;
+import org.nanocontext.xml.TestUtility;
+import org.nanocontext.xml.XMLContextFactory;
+import org.nanocontext.xml.subjects.BeanWithStaticConstructor;
+import org.nanocontext.xml.subjects.ConstructorTestSubject;
+import org.nanocontext.xml.subjects.FailingConstructorSubject;
+import org.nanocontext.xml.subjects.GenericBeanFactory;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+
+/**
+ * Tests that each InstantiationStrategy creates the same beans as reflection.
+ * The first instance of a bean is always created using reflection, the following
+ * instances using the strategy under test.
+ */
+public class InstantiationStrategyTest {
+
+    @DataProvider
+    public Object[][] strategyDataProvider() {
+        InstantiationStrategy[] strategies = InstantiationStrategy.values();
+        Object[][] result = new Object[strategies.length][];
+        for (int index = 0; index < strategies.length; ++index) {
+            result[index] = new Object[]{strategies[index]};
+        }
+        return result;
+    }
+
+    private static Context buildContext(final InstantiationStrategy strategy) throws ContextInitializationException {
+        XMLContextFactory ctxFactory = new XMLContextFactory().withInstantiationStrategy(strategy);
+
+        ctxFactory.with(TestUtility.createBeanType(ConstructorTestSubject.class.getName(), "noArgs", ScopeType.PROTOTYPE));
+        ctxFactory.with(TestUtility.addConstructorArg(
+                TestUtility.createBeanType(ConstructorTestSubject.class.getName(), "oneArg", ScopeType.PROTOTYPE),
+                TestUtility.createConstructorArgType("hello", null)));
+        ctxFactory.with(TestUtility.addConstructorArg(
+                TestUtility.addConstructorArg(
+                        TestUtility.createBeanType(ConstructorTestSubject.class.getName(), "twoArgs", ScopeType.PROTOTYPE),
+                        TestUtility.createConstructorArgType("hello", null)),
+                TestUtility.createConstructorArgType("42", null)));
+        ctxFactory.with(TestUtility.addConstructorArg(
+                TestUtility.createBeanType(ConstructorTestSubject.class.getName(), "beanArg", ScopeType.PROTOTYPE),
+                TestUtility.createConstructorArgType(
+                        TestUtility.createBeanType(ConstructorTestSubject.class.getName(), "child", ScopeType.PROTOTYPE), null)));
+        ctxFactory.with(BeanTypeFactory.create("staticFactory", BeanWithStaticConstructor.class.getName(), ScopeType.PROTOTYPE, null,
+                null, null, "createBean",
+                Boolean.FALSE,
+                null));
+        ctxFactory.with(TestUtility.createBeanType(GenericBeanFactory.class.getName(), "genericBeanFactory", ScopeType.SINGLETON));
+        ctxFactory.with(BeanTypeFactory.create("instanceFactory", BeanWithStaticConstructor.class.getName(), ScopeType.PROTOTYPE, null,
+                "genericBeanFactory", null, "createBeanInstance",
+                Boolean.FALSE,
+                null));
+
+        return ctxFactory.build();
+    }
+
+    @Test(dataProvider = "strategyDataProvider")
+    public void testConstructorInstantiation(final InstantiationStrategy strategy) throws ContextInitializationException {
+        Context ctx = buildContext(strategy);
+        Assert.assertEquals(ctx.getInstantiationStrategy(), strategy);
+
+        for (String identifier : new String[]{"noArgs", "oneArg", "twoArgs", "beanArg"}) {
+            ConstructorTestSubject first = ctx.getBean(identifier, ConstructorTestSubject.class);
+            for (int pass = 0; pass < 3; ++pass) {
+                ConstructorTestSubject next = ctx.getBean(identifier, ConstructorTestSubject.class);
+                Assert.assertNotSame(next, first, identifier);
+                Assert.assertEquals(next, first, identifier);
+            }
+        }
+
+        for (String identifier : new String[]{"noArgs", "oneArg", "twoArgs", "beanArg"}) {
+            Assert.assertEquals(ctx.getBoundInstantiationStrategy(identifier), strategy, identifier);
+        }
+        Assert.assertNull(ctx.getBoundInstantiationStrategy("noSuchBean"));
+
+        Assert.assertEquals(ctx.getBean("oneArg", ConstructorTestSubject.class).getString1(), "hello");
+        Assert.assertEquals(ctx.getBean("twoArgs", ConstructorTestSubject.class).getString1(), "hello");
+        Assert.assertNotNull(ctx.getBean("beanArg", ConstructorTestSubject.class).getChild());
+    }
+
+    @Test(dataProvider = "strategyDataProvider")
+    public void testFactoryMethodInstantiation(final InstantiationStrategy strategy) throws ContextInitializationException {
+        Context ctx = buildContext(strategy);
+
+        for (String identifier : new String[]{"staticFactory", "instanceFactory"}) {
+            BeanWithStaticConstructor first = ctx.getBean(identifier, BeanWithStaticConstructor.class);
+            for (int pass = 0; pass < 3; ++pass) {
+                BeanWithStaticConstructor next = ctx.getBean(identifier, BeanWithStaticConstructor.class);
+                Assert.assertNotNull(next, identifier);
+                Assert.assertNotSame(next, first, identifier);
+            }
+            Assert.assertEquals(ctx.getBoundInstantiationStrategy(identifier), strategy, identifier);
+        }
+    }
+
+    @Test(dataProvider = "strategyDataProvider")
+    public void testConstructorExceptionIsReported(final InstantiationStrategy strategy) throws ContextInitializationException {
+        Context ctx = Context.builder().withInstantiationStrategy(strategy).build();
+        PrototypeBeanInstanceFactory<FailingConstructorSubject> factory = new PrototypeBeanInstanceFactory<>(
+                ctx, "failing", null, FailingConstructorSubject.class.getName(),
+                null, null, null,
+                false, false, null, null, null,
+                Collections.<AbstractProperty>emptyList());
+
+        // the first attempt uses reflection, the following ones the strategy under test
+        for (int pass = 0; pass < 3; ++pass) {
+            try {
+                factory.getValue();
+                Assert.fail("expected FailedToInstantiateBeanException");
+            } catch (FailedToInstantiateBeanException x) {
+                Assert.assertTrue(x.getCause() instanceof InvocationTargetException);
+                Assert.assertTrue(x.getCause().getCause() instanceof IllegalStateException);
+            }
+        }
+    }
+}
@@ -120,6 +120,19 @@ public class AbstractBeanInstanceFactoryTest {
         Assert.assertNotNull(ref.createBeanInstance());
     }
 
+    @Test(dataProvider = "validBeanDataProvider")
+    public void testRepeatedInstantiation(final Context ctx, final BeanType beanType) throws ContextInitializationException {
+        AbstractBeanInstanceFactory ref = new MockAbstractBeanInstanceFactory(ctx, beanType);
+
+        // the first instantiation selects the constructor or factory method, later ones reuse it
+        Object first = ref.createBeanInstance();
+        Object second = ref.createBeanInstance();
+        Assert.assertNotNull(first);
+        Assert.assertNotNull(second);
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(second.getClass(), first.getClass());
+    }
+
     @DataProvider(name = "invalidBeanDataProvider")
     public Object[][] invalidBeanDataProvider() {
         return new Object[][] {
@@ -0,0 +1,146 @@
+package org.nanocontext.xml;
+
+import org.nanocontext.core.ActiveBeanExecution;
+import org.nanocontext.core.ActiveBeanStatus;
+import org.nanocontext.core.Context;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.xml.subjects.BlockingActiveSubject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import javax.xml.bind.JAXBException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests of how active beans are run and of the managed shutdown of active beans.
+ */
+public class ActiveBeanExecutionTest {
+    private static final long TIMEOUT_MILLIS = 10000L;
+
+    private static String bean(final String identifier, final String activeExecution, final boolean ignoreInterrupts) {
+        return "    <bean id=\"" + identifier + "\" class=\"" + BlockingActiveSubject.class.getName() + "\" scope=\"singleton\" active=\"true\"" +
+                (activeExecution == null ? "" : " active-execution=\"" + activeExecution + "\"") + ">\n" +
+                "        <constructor-arg><value>" + ignoreInterrupts + "</value></constructor-arg>\n" +
+                "    </bean>\n";
+    }
+
+    private static InputStream document(final String... beans) {
+        return TestUtility.createContextDocumentStream(beans);
+    }
+
+    private static BlockingActiveSubject startedBean(final Context ctx, final String identifier)
+            throws ContextInitializationException, InterruptedException {
+        BlockingActiveSubject bean = ctx.getBean(identifier, BlockingActiveSubject.class);
+        Assert.assertTrue(bean.awaitStart(TIMEOUT_MILLIS));
+        return bean;
+    }
+
+    @Test
+    public void testPlatformThreadIsTheDefault() throws ContextInitializationException, InterruptedException {
+        Context ctx = new StreamingContextFactory()
+                .with(document(bean("beanOne", null, false)))
+                .build();
+        BlockingActiveSubject bean = startedBean(ctx, "beanOne");
+
+        Assert.assertEquals(ctx.getActiveBeanExecution(), ActiveBeanExecution.PLATFORM_THREAD);
+        Assert.assertSame(bean.getThread().getThreadGroup(), ctx.getContextThreadGroup());
+        Assert.assertEquals(bean.getThread().getName(), "ActiveClassifier-beanOne");
+        Assert.assertEquals(ctx.shutdown(TIMEOUT_MILLIS), Collections.emptyList());
+    }
+
+    @Test
+    public void testContextPool() throws ContextInitializationException, InterruptedException {
+        Context ctx = new StreamingContextFactory()
+                .with(document(bean("beanOne", null, false), bean("beanTwo", "platform-thread", false)))
+                .withActiveBeanExecution(ActiveBeanExecution.POOL)
+                .build();
+        BlockingActiveSubject pooled = startedBean(ctx, "beanOne");
+        BlockingActiveSubject platform = startedBean(ctx, "beanTwo");
+
+        Assert.assertTrue(pooled.getThread().getName().startsWith("ActiveBeanPool_"));
+        Assert.assertEquals(platform.getThread().getName(), "ActiveClassifier-beanTwo");
+        Assert.assertEquals(ctx.shutdown(TIMEOUT_MILLIS), Collections.emptyList());
+        Assert.assertTrue(pooled.isInterrupted());
+    }
+
+    @Test
+    public void testBeanPoolOnSuppliedExecutor()
+            throws ContextInitializationException, JAXBException, InterruptedException {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        AtomicInteger executed = new AtomicInteger();
+        try {
+            Context ctx = new XMLContextFactory()
+                    .with(document(bean("beanOne", "pool", false), bean("beanTwo", null, false)))
+                    .withActiveBeanPool(task -> {
+                        executed.incrementAndGet();
+                        executor.execute(task);
+                    })
+                    .build();
+            BlockingActiveSubject pooled = startedBean(ctx, "beanOne");
+            startedBean(ctx, "beanTwo");
+
+            Assert.assertEquals(executed.get(), 1);
+            Assert.assertNotSame(pooled.getThread().getThreadGroup(), ctx.getContextThreadGroup());
+            Assert.assertEquals(ctx.shutdown(TIMEOUT_MILLIS), Collections.emptyList());
+            // the supplied executor is not shut down by the context
+            Assert.assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBeanWaitingForAPoolThread() throws ContextInitializationException, InterruptedException {
+        // a pool with no thread free, the tasks are run once the test releases them
+        List<Runnable> queued = new CopyOnWriteArrayList<>();
+        Context ctx = new StreamingContextFactory()
+                .with(document(bean("beanOne", "pool", false)))
+                .withActiveBeanPool(queued::add)
+                .build();
+        BlockingActiveSubject bean = ctx.getBean("beanOne", BlockingActiveSubject.class);
+        ActiveBeanStatus status = ctx.getActiveBeanStatus("beanOne");
+
+        Assert.assertEquals(status.getState(), ActiveBeanStatus.State.WAITING);
+        Assert.assertEquals(queued.size(), 1);
+
+        new Thread(queued.get(0)).start();
+        Assert.assertTrue(bean.awaitStart(TIMEOUT_MILLIS));
+        Assert.assertEquals(status.getState(), ActiveBeanStatus.State.RUNNING);
+        Assert.assertEquals(ctx.shutdown(TIMEOUT_MILLIS), Collections.emptyList());
+        Assert.assertEquals(status.getState(), ActiveBeanStatus.State.STOPPED);
+    }
+
+    @Test
+    public void testVirtualThread() throws ContextInitializationException, InterruptedException {
+        Context ctx = new StreamingContextFactory()
+                .with(document(bean("beanOne", "virtual-thread", false)))
+                .build();
+        BlockingActiveSubject bean = startedBean(ctx, "beanOne");
+
+        // a platform thread where the runtime has no virtual threads
+        Assert.assertEquals(bean.getThread().getName(), "ActiveClassifier-beanOne");
+        Assert.assertEquals(ctx.shutdown(TIMEOUT_MILLIS), Collections.emptyList());
+    }
+
+    @Test
+    public void testShutdownReportsBeansStillRunning() throws ContextInitializationException, InterruptedException {
+        Context ctx = new StreamingContextFactory()
+                .with(document(bean("interruptible", null, false), bean("stubborn", "pool", true)))
+                .build();
+        BlockingActiveSubject interruptible = startedBean(ctx, "interruptible");
+        BlockingActiveSubject stubborn = startedBean(ctx, "stubborn");
+
+        Assert.assertEquals(ctx.shutdown(200L), Collections.singletonList("stubborn"));
+        Assert.assertTrue(interruptible.isInterrupted());
+        Assert.assertTrue(stubborn.isInterrupted());
+
+        stubborn.release();
+        Assert.assertEquals(ctx.shutdown(TIMEOUT_MILLIS), Collections.emptyList());
+    }
+}
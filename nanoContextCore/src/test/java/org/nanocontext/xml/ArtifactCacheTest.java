@@ -0,0 +1,257 @@
+package org.nanocontext.xml;
+
+import com.sun.net.httpserver.HttpServer;
+import org.nanocontext.core.ArtifactCache;
+import org.nanocontext.core.ArtifactHolder;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+/**
+ * Tests of the on-disk cache of remote artifacts, against a local HTTP server
+ * that supports ETag validation.
+ */
+public class ArtifactCacheTest {
+    private static final String ETAG = "\"artifact-v1\"";
+    private static final String DEFLATED_CLASS_NAME = "org.nanocontext.generated.DeflatedMarker";
+    private static final String STORED_CLASS_NAME = "org.nanocontext.generated.StoredMarker";
+
+    private HttpServer server;
+    private Path cacheDirectory;
+    private byte[] artifact;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger notModifiedCount = new AtomicInteger();
+
+    @BeforeMethod
+    public void startServer() throws IOException {
+        artifact = createArtifact();
+        cacheDirectory = Files.createTempDirectory("artifact-cache-test");
+        requestCount.set(0);
+        notModifiedCount.set(0);
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requestCount.incrementAndGet();
+            if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedCount.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().add("ETag", ETAG);
+            exchange.sendResponseHeaders(200, artifact.length);
+            try (OutputStream responseStream = exchange.getResponseBody()) {
+                responseStream.write(artifact);
+            }
+        });
+        server.start();
+    }
+
+    @AfterMethod
+    public void stopServer() throws IOException {
+        server.stop(0);
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            files.forEach(file -> file.toFile().delete());
+        }
+        Files.deleteIfExists(cacheDirectory);
+    }
+
+    private URL artifactLocation() throws IOException {
+        return new URL("http://localhost:" + server.getAddress().getPort() + "/artifact.jar");
+    }
+
+    @Test
+    public void testCachedCopyIsRevalidated() throws IOException {
+        ArtifactCache cache = new ArtifactCache(cacheDirectory);
+
+        Path first = cache.fetch(artifactLocation(), null);
+        Path second = cache.fetch(artifactLocation(), null);
+
+        Assert.assertEquals(second, first);
+        Assert.assertEquals(Files.readAllBytes(second), artifact);
+        Assert.assertEquals(requestCount.get(), 2);
+        Assert.assertEquals(notModifiedCount.get(), 1);
+    }
+
+    @Test
+    public void testCachedCopyMatchingDigestSkipsNetwork() throws IOException {
+        ArtifactCache cache = new ArtifactCache(cacheDirectory);
+        String sha256 = sha256(artifact);
+
+        cache.fetch(artifactLocation(), sha256);
+        Path cached = cache.fetch(artifactLocation(), sha256.toUpperCase());
+
+        Assert.assertEquals(Files.readAllBytes(cached), artifact);
+        Assert.assertEquals(requestCount.get(), 1);
+    }
+
+    @Test
+    public void testDigestMismatchIsRejected() throws IOException {
+        ArtifactCache cache = new ArtifactCache(cacheDirectory);
+        try {
+            cache.fetch(artifactLocation(), sha256(new byte[]{0}));
+            Assert.fail("expected the digest mismatch to be reported");
+        } catch (IOException x) {
+            Assert.assertTrue(x.getMessage().contains("SHA-256"));
+        }
+
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            Assert.assertEquals(files.count(), 0L);
+        }
+    }
+
+    @Test
+    public void testCachedCopyIsUsedWhenServerIsUnavailable() throws IOException {
+        ArtifactCache cache = new ArtifactCache(cacheDirectory);
+        URL location = artifactLocation();
+        Path first = cache.fetch(location, null);
+
+        server.stop(0);
+        Assert.assertEquals(cache.fetch(location, null), first);
+    }
+
+    @Test
+    public void testCacheDirectoryIsCreatedOwnerOnly() throws IOException {
+        if (!cacheDirectory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            throw new SkipException("The file system does not support posix permissions");
+        }
+        Path directory = cacheDirectory.resolve("created");
+        try {
+            new ArtifactCache(directory).fetch(artifactLocation(), null);
+
+            Assert.assertEquals(Files.getPosixFilePermissions(directory), PosixFilePermissions.fromString("rwx------"));
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                files.forEach(file -> file.toFile().delete());
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Test
+    public void testSharedCacheDirectoryIsRefused() throws IOException {
+        if (!cacheDirectory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            throw new SkipException("The file system does not support posix permissions");
+        }
+        Files.setPosixFilePermissions(cacheDirectory, PosixFilePermissions.fromString("rwxrwxrwx"));
+        try {
+            new ArtifactCache(cacheDirectory).fetch(artifactLocation(), null);
+            Assert.fail("expected a world writable cache directory to be refused");
+        } catch (IOException x) {
+            Assert.assertTrue(x.getMessage().contains("writable by other users"), x.getMessage());
+        }
+        Assert.assertEquals(requestCount.get(), 0);
+    }
+
+    @Test
+    public void testClassesAreLoadedFromCachedCopy() throws IOException, ContextInitializationException, ClassNotFoundException {
+        ArtifactHolder holder = new ArtifactHolder("artifact", URI.create(artifactLocation().toExternalForm()), null,
+                getClass().getClassLoader(), new ArtifactCache(cacheDirectory));
+
+        URLClassLoader classLoader = holder.getClassLoader();
+        Assert.assertEquals(classLoader.getURLs()[0].getProtocol(), "file");
+        for (String className : new String[]{DEFLATED_CLASS_NAME, STORED_CLASS_NAME}) {
+            Class<?> loaded = classLoader.loadClass(className);
+            Assert.assertSame(loaded.getClassLoader(), classLoader);
+            Assert.assertEquals(loaded.getName(), className);
+        }
+        Assert.assertNotNull(classLoader.getResource("META-INF/MANIFEST.MF"));
+    }
+
+    @Test(expectedExceptions = ContextInitializationException.class)
+    public void testDigestMismatchFailsClassLoader() throws IOException, ContextInitializationException {
+        ArtifactHolder holder = new ArtifactHolder("artifact", URI.create(artifactLocation().toExternalForm()), sha256(new byte[]{0}),
+                getClass().getClassLoader(), new ArtifactCache(cacheDirectory));
+        holder.getClassLoader();
+    }
+
+    private static byte[] createArtifact() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (JarOutputStream jarStream = new JarOutputStream(buffer)) {
+            jarStream.putNextEntry(new JarEntry("META-INF/MANIFEST.MF"));
+            jarStream.write("Manifest-Version: 1.0\r\n".getBytes("ISO-8859-1"));
+            jarStream.closeEntry();
+
+            jarStream.putNextEntry(new JarEntry(DEFLATED_CLASS_NAME.replace('.', '/') + ".class"));
+            jarStream.write(createClassFile(DEFLATED_CLASS_NAME));
+            jarStream.closeEntry();
+
+            byte[] storedClass = createClassFile(STORED_CLASS_NAME);
+            CRC32 crc = new CRC32();
+            crc.update(storedClass);
+            JarEntry storedEntry = new JarEntry(STORED_CLASS_NAME.replace('.', '/') + ".class");
+            storedEntry.setMethod(ZipEntry.STORED);
+            storedEntry.setSize(storedClass.length);
+            storedEntry.setCompressedSize(storedClass.length);
+            storedEntry.setCrc(crc.getValue());
+            jarStream.putNextEntry(storedEntry);
+            jarStream.write(storedClass);
+            jarStream.closeEntry();
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * @return the class file of an empty public class, which is not on the test class path
+     */
+    private static byte[] createClassFile(final String className) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream classStream = new DataOutputStream(buffer);
+        classStream.writeInt(0xCAFEBABE);
+        classStream.writeShort(0);              // minor version
+        classStream.writeShort(52);             // major version, Java 8
+        classStream.writeShort(5);              // constant pool count
+        classStream.writeByte(7);               // #1 Class #2
+        classStream.writeShort(2);
+        classStream.writeByte(1);               // #2 Utf8
+        classStream.writeUTF(className.replace('.', '/'));
+        classStream.writeByte(7);               // #3 Class #4
+        classStream.writeShort(4);
+        classStream.writeByte(1);               // #4 Utf8
+        classStream.writeUTF("java/lang/Object");
+        classStream.writeShort(0x0021);         // ACC_PUBLIC | ACC_SUPER
+        classStream.writeShort(1);              // this class
+        classStream.writeShort(3);              // super class
+        classStream.writeShort(0);              // interfaces
+        classStream.writeShort(0);              // fields
+        classStream.writeShort(0);              // methods
+        classStream.writeShort(0);              // attributes
+        classStream.flush();
+        return buffer.toByteArray();
+    }
+
+    private static String sha256(final byte[] content) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(content)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException x) {
+            throw new IllegalStateException(x);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.nanocontext.xml;
+
+import org.nanocontext.core.Context;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.xml.subjects.BeanWithStaticConstructor;
+import org.nanocontext.xml.subjects.ConstructorTestSubject;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.xml.bind.JAXBException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Tests of the binary context descriptor, a context built from a descriptor must be the
+ * same as one built from the definition it was compiled from.
+ */
+public class BinaryContextTest {
+    private static Path propertiesFile;
+
+    @BeforeClass
+    public static void createPropertiesFile() throws IOException {
+        propertiesFile = Files.createTempFile("context", ".properties");
+        Files.write(propertiesFile, "greeting=Hello\n".getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @AfterClass
+    public static void deletePropertiesFile() throws IOException {
+        Files.deleteIfExists(propertiesFile);
+    }
+
+    /**
+     * A definition using each kind of constructor argument
+     */
+    private static Beans createContextDefinition() {
+        Beans beans = new Beans();
+
+        BeanType stringBean = BeanTypeFactory.create("stringBean", ConstructorTestSubject.class.getName(), ScopeType.SINGLETON,
+                null, null, null, null, null, null);
+        ConstructorArgType valueArg = new ConstructorArgType();
+        valueArg.setValue("Hello");
+        stringBean.getConstructorArg().add(valueArg);
+        beans.getBean().add(stringBean);
+
+        BeanType twoArgBean = BeanTypeFactory.create("twoArgBean", ConstructorTestSubject.class.getName(), null,
+                null, null, null, null, null, null);
+        ConstructorArgType secondArg = new ConstructorArgType();
+        secondArg.setIndex(1);
+        secondArg.setValue("42");
+        ConstructorArgType firstArg = new ConstructorArgType();
+        firstArg.setIndex(0);
+        firstArg.setValue("World");
+        twoArgBean.getConstructorArg().add(firstArg);
+        twoArgBean.getConstructorArg().add(secondArg);
+        beans.getBean().add(twoArgBean);
+
+        BeanType referencingBean = BeanTypeFactory.create("referencingBean", ConstructorTestSubject.class.getName(), ScopeType.SINGLETON,
+                null, null, null, null, null, null);
+        ConstructorArgType refArg = new ConstructorArgType();
+        ReferenceType ref = new ReferenceType();
+        ref.setBean("stringBean");
+        refArg.setRef(ref);
+        referencingBean.getConstructorArg().add(refArg);
+        beans.getBean().add(referencingBean);
+
+        BeanType parentBean = BeanTypeFactory.create("parentBean", ConstructorTestSubject.class.getName(), ScopeType.SINGLETON,
+                null, null, null, null, null, null);
+        BeanType childBean = BeanTypeFactory.create("child", ConstructorTestSubject.class.getName(), ScopeType.PROTOTYPE,
+                null, null, null, null, null, null);
+        childBean.getConstructorArg().add(valueArg);
+        ConstructorArgType childArg = new ConstructorArgType();
+        childArg.setBean(childBean);
+        parentBean.getConstructorArg().add(childArg);
+        beans.getBean().add(parentBean);
+
+        BeanType factoryBean = BeanTypeFactory.create("factoryBean", BeanWithStaticConstructor.class.getName(), ScopeType.SINGLETON,
+                null, null, BeanWithStaticConstructor.class.getName(), "createBean", Boolean.FALSE, null);
+        factoryBean.setLazyLoad(Boolean.FALSE);
+        beans.getBean().add(factoryBean);
+
+        BeanType listBean = BeanTypeFactory.create("listBean", ConstructorTestSubject.class.getName(), ScopeType.SINGLETON,
+                null, null, null, null, null, null);
+        ListType list = new ListType();
+        list.getBeanOrValueOrList().add("one");
+        list.getBeanOrValueOrList().add("two");
+        ConstructorArgType listArg = new ConstructorArgType();
+        listArg.setList(list);
+        listBean.getConstructorArg().add(listArg);
+        beans.getBean().add(listBean);
+
+        ResourceType properties = new ResourceType();
+        properties.setId("properties");
+        properties.setResource(propertiesFile.toUri().toString());
+        beans.getProperties().add(properties);
+
+        ResourceType artifact = new ResourceType();
+        artifact.setId("artifact");
+        artifact.setResource(propertiesFile.resolveSibling("artifact.jar").toUri().toString());
+        artifact.setSha256("00ff");
+        beans.getArtifact().add(artifact);
+
+        return beans;
+    }
+
+    private static byte[] compile(final Beans beans) throws IOException {
+        ByteArrayOutputStream descriptor = new ByteArrayOutputStream();
+        BinaryContextCompiler.compile(beans, descriptor);
+        return descriptor.toByteArray();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        byte[] descriptor = compile(createContextDefinition());
+        Beans read = BinaryContextFormat.read(new DataInputStream(new ByteArrayInputStream(descriptor)));
+
+        Assert.assertEquals(compile(read), descriptor);
+        Assert.assertEquals(read.getBean().size(), 6);
+        Assert.assertNull(read.getBean().get(1).getScope());
+        Assert.assertEquals(read.getBean().get(1).getConstructorArg().get(1).getIndex(), Integer.valueOf(1));
+        Assert.assertNull(read.getBean().get(0).getConstructorArg().get(0).getIndex());
+        Assert.assertEquals(read.getBean().get(3).getConstructorArg().get(0).getBean().getId(), "child");
+        Assert.assertEquals(read.getBean().get(5).getConstructorArg().get(0).getList().getBeanOrValueOrList().get(1), "two");
+        Assert.assertEquals(read.getArtifact().get(0).getSha256(), "00ff");
+        Assert.assertEquals(read.getProperties().get(0).getResource(), propertiesFile.toUri().toString());
+    }
+
+    @Test
+    public void testContextMatchesDefinition() throws IOException, ContextInitializationException {
+        Context expected = new XMLContextFactory().with(createContextDefinition()).build();
+
+        byte[] descriptor = compile(createContextDefinition());
+        Path descriptorFile = Files.createTempFile("context", ".ncb");
+        try {
+            Files.write(descriptorFile, descriptor);
+            Context[] actuals = new Context[]{
+                    new BinaryContextFactory().with(new ByteArrayInputStream(descriptor)).build(),
+                    new BinaryContextFactory().with(ByteBuffer.wrap(descriptor)).build(),
+                    new BinaryContextFactory().with(descriptorFile).build()
+            };
+
+            for (Context actual : actuals) {
+                for (String identifier : new String[]{"stringBean", "twoArgBean", "referencingBean", "parentBean", "listBean"}) {
+                    Assert.assertEquals(
+                            actual.getBean(identifier, ConstructorTestSubject.class),
+                            expected.getBean(identifier, ConstructorTestSubject.class),
+                            identifier);
+                }
+                Assert.assertSame(
+                        actual.getBean("referencingBean", ConstructorTestSubject.class).getChild(),
+                        actual.getBean("stringBean", ConstructorTestSubject.class));
+                Assert.assertNotSame(
+                        actual.getBean("twoArgBean", ConstructorTestSubject.class),
+                        actual.getBean("twoArgBean", ConstructorTestSubject.class));
+                Assert.assertNotNull(actual.getBean("factoryBean", BeanWithStaticConstructor.class));
+                Assert.assertNotNull(actual.getArtifactHolder("artifact"));
+                Assert.assertNotNull(actual.getPropertiesHolder("properties"));
+            }
+        } finally {
+            Files.delete(descriptorFile);
+        }
+    }
+
+    @Test
+    public void testCompileXml() throws IOException, JAXBException, ContextInitializationException {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<beans xmlns=\"http://nanocontext.org/v1/schema/ctx\">\n" +
+                "    <bean id=\"beanOne\" class=\"" + ConstructorTestSubject.class.getName() + "\" scope=\"singleton\">\n" +
+                "        <constructor-arg><value>Hello</value></constructor-arg>\n" +
+                "    </bean>\n" +
+                "</beans>\n";
+
+        ByteArrayOutputStream descriptor = new ByteArrayOutputStream();
+        BinaryContextCompiler.compile(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), descriptor);
+
+        Context ctx = new BinaryContextFactory().with(new ByteArrayInputStream(descriptor.toByteArray())).build();
+        Assert.assertEquals(ctx.getBean("beanOne", ConstructorTestSubject.class).getString1(), "Hello");
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testInvalidDescriptor() throws IOException {
+        new BinaryContextFactory().with(new ByteArrayInputStream("<beans/>".getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,148 @@
+package org.nanocontext.xml;
+
+import org.nanocontext.core.Context;
+import org.nanocontext.core.exceptions.CheckpointException;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.xml.subjects.BeanWithPropertiesConstructorArg;
+import org.nanocontext.xml.subjects.CheckpointSubject;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Tests of the checkpoint and restore of a context, simulating the callbacks of the runtime.
+ */
+public class CheckpointRestoreTest {
+    private static final String MARKER_RESOURCE = "checkpoint-marker.txt";
+
+    private Path propertiesFile;
+    private Path artifactFile;
+
+    @BeforeMethod
+    public void createResources() throws IOException {
+        propertiesFile = Files.createTempFile("context", ".properties");
+        Files.write(propertiesFile, "greeting=Hello\nremoved=yes\n".getBytes(StandardCharsets.ISO_8859_1));
+
+        artifactFile = Files.createTempFile("artifact", ".jar");
+        try (JarOutputStream jarStream = new JarOutputStream(Files.newOutputStream(artifactFile))) {
+            jarStream.putNextEntry(new JarEntry(MARKER_RESOURCE));
+            jarStream.write("marker".getBytes(StandardCharsets.ISO_8859_1));
+            jarStream.closeEntry();
+        }
+    }
+
+    @AfterMethod
+    public void deleteResources() throws IOException {
+        Files.deleteIfExists(propertiesFile);
+        Files.deleteIfExists(artifactFile);
+    }
+
+    private Context buildContext(final String beforeCheckpointMethod) throws ContextInitializationException {
+        return TestUtility.buildContext(
+                "    <properties id=\"properties\"><resource>" + propertiesFile.toUri() + "</resource></properties>\n" +
+                "    <artifact id=\"artifact\"><resource>" + artifactFile.toUri() + "</resource></artifact>\n" +
+                "    <bean id=\"activeBean\" class=\"" + CheckpointSubject.class.getName() + "\" scope=\"singleton\" active=\"true\"" +
+                " before-checkpoint-method=\"" + beforeCheckpointMethod + "\" after-restore-method=\"afterRestore\"/>\n" +
+                "    <bean id=\"propertiesBean\" class=\"" + BeanWithPropertiesConstructorArg.class.getName() + "\" scope=\"singleton\">\n" +
+                "        <constructor-arg><properties-ref properties-id=\"properties\"/></constructor-arg>\n" +
+                "    </bean>\n");
+    }
+
+    private static String read(final URL resource) throws IOException {
+        try (InputStream resourceStream = resource.openStream()) {
+            return new String(resourceStream.readAllBytes(), StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    @Test
+    public void testActiveBeanIsParkedAndResumed() throws ContextInitializationException, InterruptedException {
+        Context ctx = buildContext("beforeCheckpoint");
+        CheckpointSubject subject = ctx.getBean("activeBean", CheckpointSubject.class);
+        Assert.assertTrue(subject.awaitRunCount(1, 10000L));
+
+        ctx.beforeCheckpoint();
+        Assert.assertEquals(subject.getEvents(), Arrays.asList("run", "stopped", "beforeCheckpoint"));
+        // the bean has returned, its thread may still be exiting
+        Thread[] threads = new Thread[ctx.getContextThreadGroup().activeCount() + 1];
+        for (int index = ctx.getContextThreadGroup().enumerate(threads) - 1; index >= 0; --index) {
+            threads[index].join(10000L);
+        }
+        Assert.assertEquals(ctx.getContextThreadGroup().activeCount(), 0);
+
+        ctx.afterRestore();
+        Assert.assertTrue(subject.awaitRunCount(2, 10000L));
+        Assert.assertEquals(subject.getEvents(), Arrays.asList("run", "stopped", "beforeCheckpoint", "afterRestore", "run"));
+
+        ctx.shutdown();
+    }
+
+    @Test
+    public void testPropertiesAreReadAfterRestore() throws ContextInitializationException, IOException {
+        Context ctx = buildContext("beforeCheckpoint");
+        BeanWithPropertiesConstructorArg bean = ctx.getBean("propertiesBean", BeanWithPropertiesConstructorArg.class);
+        Assert.assertEquals(ctx.resolvePropertyValue("greeting"), "Hello");
+        Assert.assertEquals(ctx.getProperty("greeting", String.class), "Hello");
+
+        ctx.beforeCheckpoint();
+        Files.write(propertiesFile, "greeting=Bonjour\n".getBytes(StandardCharsets.ISO_8859_1));
+        ctx.afterRestore();
+
+        Assert.assertEquals(ctx.resolvePropertyValue("greeting"), "Bonjour");
+        Assert.assertEquals(ctx.getProperty("greeting", String.class), "Bonjour");
+        Assert.assertNull(ctx.resolvePropertyValue("removed"));
+        // the bean was given the Properties, which now hold the values read after the restore
+        Assert.assertEquals(bean.getPropertyValue("greeting"), "Bonjour");
+        Assert.assertNull(bean.getPropertyValue("removed"));
+
+        ctx.shutdown();
+    }
+
+    @Test
+    public void testArtifactIsReopenedAfterRestore() throws ContextInitializationException, IOException {
+        Context ctx = buildContext("beforeCheckpoint");
+        ClassLoader artifactClassLoader = ctx.getArtifactHolder("artifact").getClassLoader();
+        URL marker = artifactClassLoader.getResource(MARKER_RESOURCE);
+        Assert.assertEquals(read(marker), "marker");
+
+        ctx.beforeCheckpoint();
+        ctx.afterRestore();
+
+        Assert.assertSame(ctx.getArtifactHolder("artifact").getClassLoader(), artifactClassLoader);
+        Assert.assertEquals(read(marker), "marker");
+        Assert.assertEquals(read(artifactClassLoader.getResource(MARKER_RESOURCE)), "marker");
+
+        ctx.shutdown();
+    }
+
+    @Test
+    public void testCheckpointMethodMustExist() throws ContextInitializationException, InterruptedException {
+        Context ctx = buildContext("noSuchMethod");
+        CheckpointSubject subject = ctx.getBean("activeBean", CheckpointSubject.class);
+        Assert.assertTrue(subject.awaitRunCount(1, 10000L));
+
+        Assert.assertThrows(CheckpointException.class, ctx::beforeCheckpoint);
+
+        // the active bean was parked nonetheless, and is resumed
+        ctx.afterRestore();
+        Assert.assertTrue(subject.awaitRunCount(2, 10000L));
+
+        ctx.shutdown();
+    }
+
+    @Test
+    public void testNoCheckpointApi() {
+        // neither org.crac nor jdk.crac is available to the tests
+        Assert.assertFalse(new Context(null, null, null, null).registerCheckpointResource());
+    }
+}
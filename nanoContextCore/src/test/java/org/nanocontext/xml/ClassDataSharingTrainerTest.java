@@ -0,0 +1,49 @@
+package org.nanocontext.xml;
+
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import javax.xml.bind.JAXBException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Tests of recording the classes loaded while a context is built.
+ */
+public class ClassDataSharingTrainerTest {
+    // the class is named rather than referenced so that it is not loaded before the context is built
+    private static final String SUBJECT = "org.nanocontext.xml.subjects.ClassListSubject";
+
+    @Test
+    public void testClassesAreRecordedAndWritten() throws JAXBException, ContextInitializationException, IOException {
+        Path xmlDocument = Files.createTempFile("context", ".xml");
+        Path classListFile = Files.createTempFile("context", ".classlist");
+        try {
+            String document = TestUtility.createContextDocument(
+                    "    <bean id=\"subject\" class=\"" + SUBJECT + "\" scope=\"singleton\" lazy-load=\"false\">\n" +
+                    "        <constructor-arg><value>Hello</value></constructor-arg>\n" +
+                    "    </bean>\n");
+            Files.write(xmlDocument, document.getBytes(StandardCharsets.UTF_8));
+
+            ClassDataSharingTrainer.ClassList classList = ClassDataSharingTrainer.record(xmlDocument);
+            Assert.assertTrue(classList.getClassNames().contains(SUBJECT));
+            Assert.assertTrue(classList.getArtifactClassNames().isEmpty());
+            for (String className : classList.getClassNames()) {
+                Assert.assertFalse(className.contains("/"), className);
+                Assert.assertFalse(className.startsWith("jdk.jfr."), className);
+            }
+
+            classList.write(classListFile);
+            List<String> lines = Files.readAllLines(classListFile, StandardCharsets.UTF_8);
+            Assert.assertTrue(lines.contains(SUBJECT.replace('.', '/')));
+            Assert.assertEquals(lines.stream().filter(line -> line.equals(SUBJECT.replace('.', '/'))).count(), 1L);
+        } finally {
+            Files.deleteIfExists(xmlDocument);
+            Files.deleteIfExists(classListFile);
+        }
+    }
+}
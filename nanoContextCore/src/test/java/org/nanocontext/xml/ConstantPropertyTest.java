@@ -0,0 +1,113 @@
+package org.nanocontext.xml;
+
+import org.nanocontext.core.ConstantProperty;
+import org.nanocontext.core.Context;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.core.exceptions.InvalidMorphTargetException;
+import org.nanocontext.utility.StringConverters;
+import org.nanocontext.xml.subjects.ConvertibleSubject;
+import org.testng.Assert;
+import org.testng.annotations.BeforeTest;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests of the conversions of a ConstantProperty, which are done once per target type.
+ */
+public class ConstantPropertyTest {
+    private Context emptyCtx;
+
+    @BeforeTest
+    public void beforeTest() throws ContextInitializationException {
+        emptyCtx = new XMLContextFactory().build();
+    }
+
+    @Test
+    public void testConversionIsShared() throws ContextInitializationException {
+        ConstantProperty<String> property = new ConstantProperty<>(emptyCtx, "123456789", String.class);
+
+        Assert.assertTrue(property.isResolvableAs(Long.class));
+        Long first = property.getValue(Long.class);
+        Assert.assertEquals(first, Long.valueOf(123456789L));
+        Assert.assertSame(property.getValue(Long.class), first);
+        Assert.assertEquals(property.getValue(long.class), Long.valueOf(123456789L));
+        Assert.assertSame(property.getValue(), property.getValue());
+    }
+
+    @Test
+    public void testMutableConversionIsNotShared() throws ContextInitializationException {
+        ConstantProperty<String> property = new ConstantProperty<>(emptyCtx, "Hello", String.class);
+
+        Assert.assertTrue(property.isResolvableAs(StringBuilder.class));
+        StringBuilder first = property.getValue(StringBuilder.class);
+        Assert.assertEquals(first.toString(), "Hello");
+        Assert.assertNotSame(property.getValue(StringBuilder.class), first);
+    }
+
+    @Test
+    public void testFailedConversion() throws ContextInitializationException {
+        ConstantProperty<String> property = new ConstantProperty<>(emptyCtx, "Hello", String.class);
+
+        Assert.assertFalse(property.isResolvableAs(Integer.class));
+        Assert.assertFalse(property.isResolvableAs(Integer.class));
+        Assert.assertFalse(property.isResolvableAs(int.class));
+        Assert.assertFalse(property.isResolvableAs(ConstantPropertyTest.class));
+        try {
+            property.getValue(Integer.class);
+            Assert.fail("conversion of 'Hello' to Integer should fail");
+        } catch (InvalidMorphTargetException x) {
+            // expected
+        }
+    }
+
+    @DataProvider
+    public Object[][] builtInConversionDataProvider() {
+        return new Object[][] {
+                new Object[]{"true", boolean.class, Boolean.TRUE},
+                new Object[]{"x", char.class, 'x'},
+                new Object[]{"PT15S", Duration.class, Duration.ofSeconds(15)},
+                new Object[]{"2016-02-04", LocalDate.class, LocalDate.of(2016, 2, 4)},
+                new Object[]{"http://nanocontext.org/ctx", URI.class, URI.create("http://nanocontext.org/ctx")},
+                new Object[]{"/tmp/context", Path.class, Paths.get("/tmp/context")},
+                new Object[]{"1.50", BigDecimal.class, new BigDecimal("1.50")},
+                new Object[]{"SECONDS", TimeUnit.class, TimeUnit.SECONDS},
+        };
+    }
+
+    @Test(dataProvider = "builtInConversionDataProvider")
+    public void testBuiltInConversion(final String rawValue, final Class<?> targetClazz, final Object expected)
+            throws ContextInitializationException {
+        ConstantProperty<String> property = new ConstantProperty<>(emptyCtx, rawValue, String.class);
+
+        Assert.assertTrue(property.isResolvableAs(targetClazz));
+        Assert.assertEquals(property.getValue(targetClazz), expected);
+    }
+
+    @Test
+    public void testProvidedConversion() throws ContextInitializationException {
+        ConstantProperty<String> property = new ConstantProperty<>(emptyCtx, "provided", String.class);
+
+        Assert.assertTrue(property.isResolvableAs(ConvertibleSubject.class));
+        Assert.assertEquals(property.getValue(ConvertibleSubject.class).getName(), "provided");
+    }
+
+    @Test
+    public void testRegisteredConversion() throws ContextInitializationException {
+        String identifier = "123e4567-e89b-12d3-a456-426614174000";
+        ConstantProperty<String> property = new ConstantProperty<>(emptyCtx, identifier, String.class);
+        Assert.assertFalse(property.isResolvableAs(UUID.class));
+
+        StringConverters.register(UUID.class, UUID::fromString);
+        property = new ConstantProperty<>(emptyCtx, identifier, String.class);
+        Assert.assertEquals(property.getValue(UUID.class), UUID.fromString(identifier));
+    }
+}
@@ -0,0 +1,131 @@
+package org.nanocontext.xml;
+
+import org.nanocontext.core.Context;
+import org.nanocontext.core.ContextShutdownReport;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.xml.subjects.BlockingActiveSubject;
+import org.nanocontext.xml.subjects.FinalizableSubject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Tests of closing a context, the shutdown of the active beans and the finalization of the singletons.
+ */
+public class ContextCloseTest {
+
+    private static Context buildContext(final String... beans) throws ContextInitializationException {
+        return TestUtility.buildContext(TestUtility.LOG_BEAN + String.join("", beans));
+    }
+
+    /**
+     * @return the definition of a FinalizableSubject, with no finalize method if it is null
+     *      and no dependency if that is null
+     */
+    private static String bean(final String id, final String scope, final String finalizeMethod, final String dependency) {
+        return "    <bean id=\"" + id + "\" class=\"" + FinalizableSubject.class.getName() + "\" scope=\"" + scope + "\"" +
+                (finalizeMethod == null ? "" : " finalize-method=\"" + finalizeMethod + "\"") + ">\n" +
+                "        <constructor-arg><ref bean=\"log\"/></constructor-arg>\n" +
+                "        <constructor-arg><value>" + id + "</value></constructor-arg>\n" +
+                (dependency == null ? "" : "        <constructor-arg><ref bean=\"" + dependency + "\"/></constructor-arg>\n") +
+                "    </bean>\n";
+    }
+
+    @Test
+    public void testReverseDependencyOrder() throws ContextInitializationException {
+        Context ctx = buildContext(
+                bean("root", "singleton", "close", null),
+                bean("middle", "singleton", null, "root"),
+                bean("leaf", "singleton", "close", "middle"),
+                bean("prototype", "prototype", "close", "root"));
+        Assert.assertNotNull(ctx.getBean("prototype", FinalizableSubject.class));
+
+        ContextShutdownReport report = ctx.close(10000L);
+
+        Assert.assertTrue(report.isComplete(), report.toString());
+        // the beans in between without a finalize method still order those that have one
+        Assert.assertEquals(TestUtility.log(ctx), Arrays.asList("leaf", "root"));
+        Assert.assertEquals(report.getFinalized(), Arrays.asList("leaf", "root"));
+    }
+
+    @Test
+    public void testIndependentBeansAreFinalizedConcurrently() throws ContextInitializationException {
+        Context ctx = buildContext(
+                bean("root", "singleton", "close", null),
+                bean("left", "singleton", "rendezvous", "root"),
+                bean("right", "singleton", "rendezvous", "root"));
+
+        ContextShutdownReport report = ctx.close(20000L);
+
+        Assert.assertTrue(report.isComplete(), report.toString());
+        List<String> log = TestUtility.log(ctx);
+        Assert.assertEquals(new HashSet<>(log.subList(0, 2)), new HashSet<>(Arrays.asList("left", "right")));
+        Assert.assertEquals(log.get(2), "root");
+    }
+
+    @Test
+    public void testFailureIsReported() throws ContextInitializationException {
+        Context ctx = buildContext(
+                bean("root", "singleton", "close", null),
+                bean("failing", "singleton", "fail", "root"),
+                bean("missing", "singleton", "noSuchMethod", null));
+
+        ContextShutdownReport report = ctx.close(10000L);
+
+        Assert.assertFalse(report.isComplete());
+        Assert.assertEquals(report.getFailures().keySet(), new HashSet<>(Arrays.asList("failing", "missing")));
+        Assert.assertTrue(report.getFailures().get("failing").getCause() instanceof IllegalStateException);
+        Assert.assertEquals(report.getFailures().get("failing").getCause().getMessage(), "failed failing");
+        Assert.assertNull(report.getFailures().get("missing").getCause());
+        // a failure does not keep the beans depended upon from being finalized
+        Assert.assertEquals(report.getFinalized(), Collections.singletonList("root"));
+        Assert.assertTrue(report.getTimedOut().isEmpty());
+    }
+
+    @Test
+    public void testTimeout() throws ContextInitializationException {
+        Context ctx = buildContext(
+                bean("root", "singleton", "close", null),
+                bean("hanging", "singleton", "hang", "root"),
+                bean("independent", "singleton", "close", null));
+
+        long start = System.currentTimeMillis();
+        ContextShutdownReport report = ctx.close(250L);
+
+        Assert.assertTrue(System.currentTimeMillis() - start < 10000L);
+        Assert.assertFalse(report.isComplete());
+        // the bean depended upon by the hanging bean is not finalized either
+        Assert.assertEquals(report.getTimedOut(), Arrays.asList("hanging", "root"));
+        Assert.assertEquals(report.getFinalized(), Collections.singletonList("independent"));
+    }
+
+    @Test
+    public void testTryWithResources() throws ContextInitializationException, InterruptedException {
+        Context closed;
+        BlockingActiveSubject worker;
+        try (Context ctx = buildContext(
+                bean("root", "singleton", "close", null),
+                "    <bean id=\"worker\" class=\"" + BlockingActiveSubject.class.getName() + "\" scope=\"singleton\" active=\"true\">\n" +
+                "        <constructor-arg><value>false</value></constructor-arg>\n" +
+                "    </bean>\n")) {
+            closed = ctx;
+            worker = ctx.getBean("worker", BlockingActiveSubject.class);
+            Assert.assertTrue(worker.awaitStart(10000L));
+            Assert.assertNull(ctx.getShutdownReport());
+        }
+
+        ContextShutdownReport report = closed.getShutdownReport();
+        Assert.assertNotNull(report);
+        Assert.assertTrue(report.isComplete(), report.toString());
+        Assert.assertTrue(worker.isInterrupted());
+        Assert.assertEquals(TestUtility.log(closed), Collections.singletonList("root"));
+
+        // only the first close closes the context
+        Assert.assertSame(closed.close(10000L), report);
+        Assert.assertEquals(TestUtility.log(closed), Collections.singletonList("root"));
+    }
+}
@@ -0,0 +1,115 @@
+package org.nanocontext.xml;
+
+import org.nanocontext.core.AbstractReferencableProperty;
+import org.nanocontext.core.Context;
+import org.nanocontext.core.PreresolvedBean;
+import org.nanocontext.core.PropertiesHolder;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tests of the lookup of context members by identifier.
+ */
+public class ContextLookupTest {
+
+    @DataProvider
+    public Object[][] contextSizeDataProvider() {
+        return new Object[][] {
+                new Object[]{0},
+                new Object[]{1},
+                new Object[]{10},
+                new Object[]{1000}
+        };
+    }
+
+    @Test(dataProvider = "contextSizeDataProvider")
+    public void testBeanLookupByIdentifier(final int beanCount) throws ContextInitializationException {
+        Context ctx = Context.builder().build();
+
+        Set<AbstractReferencableProperty> beans = new HashSet<>();
+        for (int index = 0; index < beanCount; ++index) {
+            beans.add(new PreresolvedBean<>(ctx, "bean-" + index, "value-" + index));
+        }
+        ctx.setContextObjectsMap(beans);
+
+        for (int index = 0; index < beanCount; ++index) {
+            Assert.assertEquals(ctx.getBean("bean-" + index, String.class), "value-" + index);
+        }
+        Assert.assertNull(ctx.getBeanReference("bean-" + beanCount));
+        Assert.assertNull(ctx.getBeanReference(null));
+    }
+
+    @Test
+    public void testBeanLookupDelegatesToParent() throws ContextInitializationException {
+        Context parent = Context.builder().build();
+        Set<AbstractReferencableProperty> parentBeans = new HashSet<>();
+        parentBeans.add(new PreresolvedBean<>(parent, "parentBean", "parentValue"));
+        parent.setContextObjectsMap(parentBeans);
+
+        Context child = Context.builder().withParent(parent).build();
+        Set<AbstractReferencableProperty> childBeans = new HashSet<>();
+        childBeans.add(new PreresolvedBean<>(child, "childBean", "childValue"));
+        child.setContextObjectsMap(childBeans);
+
+        Assert.assertEquals(child.getBean("childBean", String.class), "childValue");
+        Assert.assertEquals(child.getBean("parentBean", String.class), "parentValue");
+        Assert.assertNull(parent.getBeanReference("childBean"));
+    }
+
+    @Test
+    public void testPropertiesLookupByIdentifier() throws MalformedURLException {
+        Context ctx = Context.builder().build();
+
+        Set<PropertiesHolder> properties = new HashSet<>();
+        properties.add(new PropertiesHolder(ctx, "propertiesOne", URI.create("rsc:beanContext.properties")));
+        properties.add(new PropertiesHolder(ctx, "propertiesTwo", URI.create("rsc:simple.properties")));
+        ctx.setProperties(properties);
+
+        Assert.assertEquals(ctx.getPropertiesHolder("propertiesOne").getIdentifier(), "propertiesOne");
+        Assert.assertSame(ctx.getPropertiesReference("propertiesTwo"), ctx.getPropertiesHolder("propertiesTwo"));
+        Assert.assertNull(ctx.getPropertiesHolder("propertiesThree"));
+        Assert.assertNull(ctx.getArtifactHolder("propertiesOne"));
+    }
+
+    @DataProvider
+    public Object[][] beanLookupByTypeDataProvider() {
+        return new Object[][] {
+                new Object[]{Boolean.FALSE},
+                new Object[]{Boolean.TRUE}
+        };
+    }
+
+    @Test(dataProvider = "beanLookupByTypeDataProvider")
+    public void testBeanLookupByType(final Boolean prewarm) throws ContextInitializationException {
+        Context parent = Context.builder().withTypeResolutionPrewarm(prewarm).build();
+        Set<AbstractReferencableProperty> parentBeans = new HashSet<>();
+        parentBeans.add(new PreresolvedBean<>(parent, "parentBean", Long.valueOf(42L)));
+        parent.setContextObjectsMap(parentBeans);
+        parent.initialize();
+
+        Context child = Context.builder().withParent(parent).withTypeResolutionPrewarm(prewarm).build();
+        Set<AbstractReferencableProperty> childBeans = new HashSet<>();
+        childBeans.add(new PreresolvedBean<>(child, "stringBean", "stringValue"));
+        childBeans.add(new PreresolvedBean<>(child, "integerBean", Integer.valueOf(1)));
+        child.setContextObjectsMap(childBeans);
+        child.initialize();
+
+        // repeat each lookup, the second is served from the resolution cache
+        for (int pass = 0; pass < 2; ++pass) {
+            Assert.assertEquals(child.getBean(String.class), "stringValue");
+            Assert.assertEquals(child.getBean(CharSequence.class), "stringValue");
+            Assert.assertEquals(child.getBean(Integer.class), Integer.valueOf(1));
+            Assert.assertEquals(child.getBean(Number.class), Integer.valueOf(1));
+            Assert.assertEquals(child.getBean(Long.class), Long.valueOf(42L));
+            Assert.assertNull(child.getBean(Thread.class));
+            Assert.assertNull(parent.getBean(String.class));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.nanocontext.xml;
+
+import org.nanocontext.core.Context;
+import org.nanocontext.core.ContextStartupReport;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.xml.subjects.BeanWithPropertiesConstructorArg;
+import org.nanocontext.xml.subjects.ConstructorTestSubject;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Tests of the report of where the time went while a context started.
+ */
+public class ContextStartupReportTest {
+    private static final String SUBJECT = ConstructorTestSubject.class.getName();
+
+    private static Path propertiesFile;
+
+    @BeforeClass
+    public static void createPropertiesFile() throws IOException {
+        propertiesFile = Files.createTempFile("context", ".properties");
+        Files.write(propertiesFile, "greeting=Hello\n".getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @AfterClass
+    public static void deletePropertiesFile() throws IOException {
+        Files.deleteIfExists(propertiesFile);
+    }
+
+    /**
+     * referencingBean is created first, in identifier order, and creates stringBean as its argument
+     */
+    private static InputStream createContextDocument() {
+        return TestUtility.createContextDocumentStream(
+                "    <properties id=\"properties\"><resource>" + propertiesFile.toUri() + "</resource></properties>\n" +
+                "    <bean id=\"referencingBean\" class=\"" + SUBJECT + "\" scope=\"singleton\">\n" +
+                "        <constructor-arg><ref bean=\"stringBean\"/></constructor-arg>\n" +
+                "    </bean>\n" +
+                "    <bean id=\"stringBean\" class=\"" + SUBJECT + "\" scope=\"singleton\">\n" +
+                "        <constructor-arg><value>Hello</value></constructor-arg>\n" +
+                "    </bean>\n" +
+                "    <bean id=\"prototypeBean\" class=\"" + SUBJECT + "\" scope=\"prototype\">\n" +
+                "        <constructor-arg><value>World</value></constructor-arg>\n" +
+                "    </bean>\n" +
+                "    <bean id=\"propertiesBean\" class=\"" + BeanWithPropertiesConstructorArg.class.getName() + "\" scope=\"singleton\">\n" +
+                "        <constructor-arg><properties-ref properties-id=\"properties\"/></constructor-arg>\n" +
+                "    </bean>\n");
+    }
+
+    @Test
+    public void testNoReportUnlessRequested() throws ContextInitializationException {
+        Context ctx = new StreamingContextFactory().with(createContextDocument()).build();
+
+        Assert.assertNull(ctx.getStartupReport());
+    }
+
+    @Test
+    public void testBeanTimings() throws ContextInitializationException {
+        Context ctx = new StreamingContextFactory().with(createContextDocument()).withStartupReport(true).build();
+        ContextStartupReport report = ctx.getStartupReport();
+
+        Assert.assertNotNull(report);
+        Assert.assertTrue(report.isComplete());
+        Assert.assertEquals(report.getBeanTimings().size(), 4);
+
+        ContextStartupReport.BeanTiming referencing = report.getBeanTiming("referencingBean");
+        ContextStartupReport.BeanTiming string = report.getBeanTiming("stringBean");
+        Assert.assertEquals(referencing.getInstanceCount(), 1);
+        Assert.assertEquals(referencing.getClazzName(), SUBJECT);
+        Assert.assertEquals(string.getInstanceCount(), 1);
+
+        // the creation of stringBean is within the arguments phase of referencingBean but not its self time
+        Assert.assertTrue(referencing.getPhaseTime(ContextStartupReport.Phase.ARGUMENTS).compareTo(string.getWallTime()) >= 0);
+        Assert.assertEquals(referencing.getSelfWallTime(), referencing.getWallTime().minus(string.getWallTime()));
+        Assert.assertTrue(referencing.getPhaseTime(ContextStartupReport.Phase.CLASS_LOADING).compareTo(referencing.getWallTime()) <= 0);
+
+        Assert.assertTrue(report.getWallTime().compareTo(report.getBeanCreationTime()) >= 0);
+        Assert.assertNotNull(report.toString());
+    }
+
+    @Test
+    public void testResourceTimings() throws ContextInitializationException {
+        Context ctx = new StreamingContextFactory().with(createContextDocument()).withStartupReport(true).build();
+        ContextStartupReport report = ctx.getStartupReport();
+
+        Assert.assertEquals(report.getResourceTimings().size(), 1);
+        ContextStartupReport.ResourceTiming properties = report.getResourceTimings().get(0);
+        Assert.assertEquals(properties.getKind(), ContextStartupReport.ResourceKind.PROPERTIES);
+        Assert.assertEquals(properties.getIdentifier(), "properties");
+        Assert.assertFalse(properties.isPrefetched());
+        Assert.assertEquals(report.getResourceLoadingTime(), properties.getWallTime());
+    }
+
+    @Test
+    public void testNothingRecordedAfterStartup() throws ContextInitializationException {
+        Context ctx = new StreamingContextFactory().with(createContextDocument()).withStartupReport(true).build();
+        ctx.getBean("prototypeBean", ConstructorTestSubject.class);
+        ctx.getBean("prototypeBean", ConstructorTestSubject.class);
+
+        ContextStartupReport report = ctx.getStartupReport();
+        Assert.assertSame(ctx.getStartupReport(), report);
+        Assert.assertEquals(report.getBeanTiming("prototypeBean").getInstanceCount(), 1);
+    }
+}
@@ -10,9 +10,11 @@ import org.testng.annotations.BeforeTest;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.FileReader;
 import java.lang.reflect.Constructor;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Scanner;
 
 /**
  * Created by cbeckey on 2/8/16.
@@ -108,6 +110,19 @@ public class ContextTest {
         Assert.assertEquals(ContextUtility.selectConstructor(beanClazz, parameters), expectCtor);
     }
 
+    /**
+     * A constant may be converted to a File or a Path, the String constructor is still selected.
+     */
+    @Test
+    public void testSelectStringConstructorOverFile() throws NoSuchMethodException, ContextInitializationException {
+        Assert.assertEquals(
+                ContextUtility.selectConstructor(Scanner.class, Arrays.asList(XMLPropertyFactory.createConstant("hello world"))),
+                Scanner.class.getDeclaredConstructor(String.class));
+        Assert.assertEquals(
+                ContextUtility.selectConstructor(FileReader.class, Arrays.asList(XMLPropertyFactory.createConstant("/tmp/context.xml"))),
+                FileReader.class.getDeclaredConstructor(String.class));
+    }
+
     // ====================================================================================
     // static List<ConstructorArgType> createOrderedParameterList(final BeanType beanType)
     // throws SparseArgumentListDetectedException {
@@ -0,0 +1,126 @@
+package org.nanocontext.xml;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.nanocontext.core.Context;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.xml.subjects.ConstructorTestSubject;
+import org.nanocontext.xml.subjects.SimpleActiveBean;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Tests of the Flight Recorder events of building a context and creating its beans.
+ */
+public class FlightRecorderEventTest {
+    private static final String SUBJECT = ConstructorTestSubject.class.getName();
+    private static final String PROPERTIES_CONTENT = "greeting=Hello\n";
+
+    private static Path propertiesFile;
+
+    @BeforeClass
+    public static void createPropertiesFile() throws IOException {
+        propertiesFile = Files.createTempFile("context", ".properties");
+        Files.write(propertiesFile, PROPERTIES_CONTENT.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @AfterClass
+    public static void deletePropertiesFile() throws IOException {
+        Files.deleteIfExists(propertiesFile);
+    }
+
+    private static Context buildContext() throws ContextInitializationException {
+        return TestUtility.buildContext(
+                "    <properties id=\"properties\"><resource>" + propertiesFile.toUri() + "</resource></properties>\n" +
+                "    <bean id=\"singletonBean\" class=\"" + SUBJECT + "\" scope=\"singleton\">\n" +
+                "        <constructor-arg><value>Hello</value></constructor-arg>\n" +
+                "    </bean>\n" +
+                "    <bean id=\"prototypeBean\" class=\"" + SUBJECT + "\" scope=\"prototype\">\n" +
+                "        <constructor-arg><ref bean=\"singletonBean\"/></constructor-arg>\n" +
+                "    </bean>\n" +
+                "    <bean id=\"activeBean\" class=\"" + SimpleActiveBean.class.getName() + "\" scope=\"singleton\" active=\"true\"/>\n");
+    }
+
+    private static List<RecordedEvent> eventsNamed(final List<RecordedEvent> events, final String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testEvents() throws ContextInitializationException, IOException, InterruptedException {
+        Path recordingFile = Files.createTempFile("context", ".jfr");
+        List<RecordedEvent> events;
+        String contextIdentifier;
+        try (Recording recording = new Recording()) {
+            recording.enable("org.nanocontext.ContextBuild");
+            recording.enable("org.nanocontext.BeanInstantiation");
+            recording.enable("org.nanocontext.SingletonAccess");
+            recording.enable("org.nanocontext.PropertiesLoad");
+            recording.enable("org.nanocontext.ActiveBeanStart");
+            recording.enable("org.nanocontext.ActiveBeanStop");
+            recording.start();
+
+            Context ctx = buildContext();
+            contextIdentifier = ctx.getIdentifier();
+            ctx.getBean("prototypeBean", ConstructorTestSubject.class);
+
+            // wait for the active bean to run
+            Thread[] activeThreads = new Thread[ctx.getContextThreadGroup().activeCount() + 1];
+            int activeThreadCount = ctx.getContextThreadGroup().enumerate(activeThreads);
+            for (int index = 0; index < activeThreadCount; ++index) {
+                activeThreads[index].join(10000L);
+            }
+
+            recording.stop();
+            recording.dump(recordingFile);
+            events = RecordingFile.readAllEvents(recordingFile);
+        } finally {
+            Files.deleteIfExists(recordingFile);
+        }
+
+        List<RecordedEvent> builds = eventsNamed(events, "org.nanocontext.ContextBuild");
+        Assert.assertEquals(builds.size(), 1);
+        Assert.assertEquals(builds.get(0).getString("contextIdentifier"), contextIdentifier);
+        Assert.assertEquals(builds.get(0).getInt("beanCount"), 3);
+        Assert.assertTrue(builds.get(0).getBoolean("succeeded"));
+        Assert.assertEquals(builds.get(0).getClass("factory").getName(), StreamingContextFactory.class.getName());
+
+        List<RecordedEvent> instantiations = eventsNamed(events, "org.nanocontext.BeanInstantiation");
+        Assert.assertEquals(instantiations.stream()
+                .filter(event -> "prototypeBean".equals(event.getString("beanIdentifier")))
+                .peek(event -> Assert.assertEquals(event.getString("scope"), "prototype"))
+                .count(), 2L);
+        Assert.assertEquals(instantiations.stream()
+                .filter(event -> "singletonBean".equals(event.getString("beanIdentifier")))
+                .peek(event -> Assert.assertEquals(event.getString("beanClass"), SUBJECT))
+                .peek(event -> Assert.assertEquals(event.getString("scope"), "singleton"))
+                .count(), 1L);
+
+        List<RecordedEvent> singletonAccesses = eventsNamed(events, "org.nanocontext.SingletonAccess").stream()
+                .filter(event -> "singletonBean".equals(event.getString("beanIdentifier")))
+                .collect(Collectors.toList());
+        Assert.assertEquals(singletonAccesses.stream().filter(event -> event.getBoolean("created")).count(), 1L);
+        Assert.assertTrue(singletonAccesses.stream().anyMatch(event -> !event.getBoolean("created")));
+
+        List<RecordedEvent> propertiesLoads = eventsNamed(events, "org.nanocontext.PropertiesLoad");
+        Assert.assertEquals(propertiesLoads.size(), 1);
+        Assert.assertEquals(propertiesLoads.get(0).getString("propertiesIdentifier"), "properties");
+        Assert.assertEquals(propertiesLoads.get(0).getLong("bytesRead"), PROPERTIES_CONTENT.length());
+
+        Assert.assertEquals(eventsNamed(events, "org.nanocontext.ActiveBeanStart").get(0).getString("beanIdentifier"), "activeBean");
+        RecordedEvent activeBeanStop = eventsNamed(events, "org.nanocontext.ActiveBeanStop").get(0);
+        Assert.assertEquals(activeBeanStop.getString("beanIdentifier"), "activeBean");
+        Assert.assertNull(activeBeanStop.getString("failure"));
+    }
+}
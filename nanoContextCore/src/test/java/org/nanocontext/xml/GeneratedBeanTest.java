@@ -0,0 +1,115 @@
+package org.nanocontext.xml;
+
+import org.nanocontext.core.AbstractReferencableProperty;
+import org.nanocontext.core.Context;
+import org.nanocontext.core.GeneratedBean;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.core.exceptions.FailedToInstantiateBeanException;
+import org.nanocontext.xml.subjects.ConstructorTestSubject;
+import org.nanocontext.xml.subjects.FailingConstructorSubject;
+import org.nanocontext.xml.subjects.SimpleActiveBean;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tests of GeneratedBean, using an Instantiator written as the annotation processor
+ * generates it.
+ */
+public class GeneratedBeanTest {
+
+    @Test
+    public void testSingletonAndPrototype() throws ContextInitializationException {
+        Context ctx = Context.builder().build();
+        SampleBeans beans = new SampleBeans(ctx);
+        ctx.setContextObjectsMap(beans.getProperties());
+        ctx.initialize();
+
+        Assert.assertEquals(ctx.getBean("text", String.class), "generated");
+        Assert.assertSame(ctx.getBean("text", String.class), ctx.getBean("text", String.class));
+
+        ConstructorTestSubject first = ctx.getBean("subject", ConstructorTestSubject.class);
+        ConstructorTestSubject second = ctx.getBean("subject", ConstructorTestSubject.class);
+        Assert.assertNotSame(first, second);
+        Assert.assertSame(first.getString1(), ctx.getBean("text", String.class));
+
+        Assert.assertSame(ctx.getBean(CharSequence.class), ctx.getBean("text", String.class));
+    }
+
+    @Test
+    public void testActiveBean() throws ContextInitializationException, InterruptedException {
+        Context ctx = Context.builder().build();
+        SampleBeans beans = new SampleBeans(ctx);
+        ctx.setContextObjectsMap(beans.getProperties());
+        ctx.initialize();
+
+        SimpleActiveBean activeBean = ctx.getBean("active", SimpleActiveBean.class);
+        for (int wait = 0; wait < 50 && !activeBean.isRan(); ++wait) {
+            Thread.sleep(20L);
+        }
+        Assert.assertTrue(activeBean.isRan());
+    }
+
+    @Test(expectedExceptions = FailedToInstantiateBeanException.class)
+    public void testFailingConstructor() throws ContextInitializationException {
+        Context ctx = Context.builder().build();
+        SampleBeans beans = new SampleBeans(ctx);
+        ctx.setContextObjectsMap(beans.getProperties());
+        ctx.initialize();
+
+        ctx.getBean("failing", FailingConstructorSubject.class);
+    }
+
+    /**
+     * The shape of the code generated from ContextFactory.ftl
+     */
+    private static final class SampleBeans implements GeneratedBean.Instantiator {
+        private final Context ctx;
+        private final GeneratedBean<?>[] properties = new GeneratedBean<?>[4];
+
+        SampleBeans(final Context ctx) {
+            this.ctx = ctx;
+            properties[0] = new GeneratedBean<>(ctx, "text", String.class, true, false, false, 0, this);
+            properties[1] = new GeneratedBean<>(ctx, "subject", ConstructorTestSubject.class, false, false, false, 1, this);
+            properties[2] = new GeneratedBean<>(ctx, "active", SimpleActiveBean.class, true, false, true, 2, this);
+            properties[3] = new GeneratedBean<>(ctx, "failing", FailingConstructorSubject.class, true, true, false, 3, this);
+        }
+
+        Set<AbstractReferencableProperty> getProperties() {
+            Set<AbstractReferencableProperty> result = new HashSet<>();
+            for (GeneratedBean<?> property : properties) {
+                result.add(property);
+            }
+            return result;
+        }
+
+        @Override
+        public Object instantiate(final int index) throws Exception {
+            switch (index) {
+                case 0:
+                    return new String("generated");
+                case 1:
+                    return new ConstructorTestSubject((String) properties[0].getValue());
+                case 2:
+                    return new SimpleActiveBean();
+                case 3:
+                    return new FailingConstructorSubject();
+                default:
+                    throw new IllegalArgumentException("No generated bean at index " + index);
+            }
+        }
+
+        @Override
+        public void activate(final int index, final Object bean) throws Exception {
+            switch (index) {
+                case 2:
+                    ((SimpleActiveBean) bean).run();
+                    break;
+                default:
+                    throw new IllegalArgumentException("No active generated bean at index " + index);
+            }
+        }
+    }
+}
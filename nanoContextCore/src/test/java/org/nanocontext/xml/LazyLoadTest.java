@@ -0,0 +1,84 @@
+package org.nanocontext.xml;
+
+import org.nanocontext.core.Context;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.xml.subjects.LazyServiceSubject;
+import org.nanocontext.xml.subjects.ServiceConsumerSubject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+
+/**
+ * Tests of lazy-load beans, created when first referenced, and of lazy proxies.
+ */
+public class LazyLoadTest {
+
+    /**
+     * @param serviceLazyLoad the lazy-load attribute of the service
+     * @param consumer if true the context includes a singleton that depends on the service
+     * @param lazyProxies
+     */
+    private static Context buildContext(final boolean serviceLazyLoad, final boolean consumer, final boolean lazyProxies)
+            throws ContextInitializationException {
+        String service =
+                "    <bean id=\"service\" class=\"" + LazyServiceSubject.class.getName() + "\" scope=\"singleton\" lazy-load=\"" + serviceLazyLoad + "\">\n" +
+                "        <constructor-arg><ref bean=\"log\"/></constructor-arg>\n" +
+                "        <constructor-arg><value>service</value></constructor-arg>\n" +
+                "    </bean>\n" +
+                (consumer ?
+                "    <bean id=\"consumer\" class=\"" + ServiceConsumerSubject.class.getName() + "\" scope=\"singleton\">\n" +
+                "        <constructor-arg><ref bean=\"service\"/></constructor-arg>\n" +
+                "    </bean>\n" : "");
+        return new StreamingContextFactory()
+                .with(TestUtility.createContextDocumentStream(TestUtility.LOG_BEAN, service))
+                .withLazyProxies(lazyProxies)
+                .build();
+    }
+
+    @Test
+    public void testLazyLoadBeanIsCreatedOnFirstReference() throws ContextInitializationException {
+        Context ctx = buildContext(true, false, false);
+        Assert.assertEquals(TestUtility.log(ctx), Collections.emptyList());
+
+        LazyServiceSubject service = ctx.getBean("service", LazyServiceSubject.class);
+        Assert.assertEquals(TestUtility.log(ctx), Collections.singletonList("service"));
+        Assert.assertSame(ctx.getBean("service", LazyServiceSubject.class), service);
+        Assert.assertEquals(TestUtility.log(ctx), Collections.singletonList("service"));
+    }
+
+    @Test
+    public void testBeanIsNotLazyLoadByDefault() throws ContextInitializationException {
+        Context ctx = buildContext(false, false, false);
+        Assert.assertEquals(TestUtility.log(ctx), Collections.singletonList("service"));
+    }
+
+    @Test
+    public void testLazyLoadBeanIsCreatedWhenInjected() throws ContextInitializationException {
+        Context ctx = buildContext(true, true, false);
+        Assert.assertEquals(TestUtility.log(ctx), Collections.singletonList("service"));
+        Assert.assertFalse(Proxy.isProxyClass(ctx.getBean("consumer", ServiceConsumerSubject.class).getService().getClass()));
+    }
+
+    @Test
+    public void testLazyProxy() throws ContextInitializationException {
+        Context ctx = buildContext(true, true, true);
+        ServiceConsumerSubject consumer = ctx.getBean("consumer", ServiceConsumerSubject.class);
+        Assert.assertTrue(Proxy.isProxyClass(consumer.getService().getClass()));
+        Assert.assertEquals(TestUtility.log(ctx), Collections.emptyList());
+
+        // the first call creates the bean, which is the singleton of the context
+        Assert.assertEquals(consumer.getService().get(), "service");
+        Assert.assertEquals(TestUtility.log(ctx), Collections.singletonList("service"));
+        Assert.assertNotNull(ctx.getBean("service", LazyServiceSubject.class));
+        Assert.assertEquals(consumer.getService().get(), "service");
+        Assert.assertEquals(TestUtility.log(ctx), Collections.singletonList("service"));
+    }
+
+    @Test
+    public void testEagerBeanIsNotProxied() throws ContextInitializationException {
+        Context ctx = buildContext(false, true, true);
+        Assert.assertFalse(Proxy.isProxyClass(ctx.getBean("consumer", ServiceConsumerSubject.class).getService().getClass()));
+    }
+}
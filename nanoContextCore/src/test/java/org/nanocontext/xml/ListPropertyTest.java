@@ -5,6 +5,7 @@ import org.nanocontext.core.ListProperty;
 import org.nanocontext.core.exceptions.ContextInitializationException;
 import org.nanocontext.utility.exceptions.UnknownCollectionTypeException;
 import org.nanocontext.xml.subjects.BeanWithStaticConstructor;
+import org.testng.Assert;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -123,4 +124,56 @@ public class ListPropertyTest {
         list.morph(List.class, componentClazz).getValue();
     }
 
+
+    private ListProperty createConstantList(final String... values) throws ContextInitializationException {
+        ListType listType = new ObjectFactory().createListType();
+        listType.getBeanOrValueOrList().addAll(Arrays.asList(values));
+        return XMLPropertyFactory.createList(listType);
+    }
+
+    @DataProvider
+    public Object[][] primitiveArrayDataProvider() {
+        return new Object[][] {
+                new Object[]{int[].class, new String[]{"1", "-2", "3"}, new int[]{1, -2, 3}},
+                new Object[]{long[].class, new String[]{"10000000000", "2"}, new long[]{10000000000L, 2L}},
+                new Object[]{double[].class, new String[]{"1.5", "2"}, new double[]{1.5, 2.0}},
+                new Object[]{float[].class, new String[]{"0.5"}, new float[]{0.5f}},
+                new Object[]{short[].class, new String[]{"7"}, new short[]{7}},
+                new Object[]{byte[].class, new String[]{"8"}, new byte[]{8}},
+                new Object[]{char[].class, new String[]{"a", "b"}, new char[]{'a', 'b'}},
+                new Object[]{boolean[].class, new String[]{"true", "false"}, new boolean[]{true, false}},
+                new Object[]{String[].class, new String[]{"one", "two"}, new String[]{"one", "two"}},
+                new Object[]{Integer[].class, new String[]{"1", "2"}, new Integer[]{1, 2}},
+        };
+    }
+
+    @Test(dataProvider = "primitiveArrayDataProvider")
+    public void testArrayMaterialization(final Class<?> arrayClazz, final String[] values, final Object expected)
+            throws ContextInitializationException {
+        ListProperty list = createConstantList(values);
+
+        Object first = list.getValue(arrayClazz);
+        Object second = list.getValue(arrayClazz);
+        Assert.assertEquals(first.getClass(), arrayClazz);
+        Assert.assertEquals(first, expected);
+        Assert.assertEquals(second, expected);
+        // arrays are mutable, every caller gets a copy
+        Assert.assertNotSame(first, second);
+    }
+
+    @Test
+    public void testConstantListIsShared() throws ContextInitializationException {
+        ListProperty list = createConstantList("1", "2");
+
+        List<Integer> first = (List<Integer>) list.getValue(List.class, Integer.class);
+        Assert.assertEquals(first, Arrays.asList(1, 2));
+        Assert.assertSame(list.getValue(List.class, Integer.class), first);
+        Assert.assertEquals(list.getValue(List.class, String.class), Arrays.asList("1", "2"));
+        try {
+            first.set(0, 3);
+            Assert.fail("a shared List must not be modifiable");
+        } catch (UnsupportedOperationException x) {
+            // expected
+        }
+    }
 }
@@ -0,0 +1,133 @@
+package org.nanocontext.xml;
+
+import org.nanocontext.core.Context;
+import org.nanocontext.core.exceptions.CompositeContextInitializationException;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.core.exceptions.FailedToInstantiateBeanException;
+import org.nanocontext.xml.subjects.ConstructorTestSubject;
+import org.nanocontext.xml.subjects.FailingConstructorSubject;
+import org.nanocontext.xml.subjects.RendezvousSubject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests of the concurrent initialization of the beans of a Context.
+ */
+public class ParallelInitializationTest {
+    private static final int RENDEZVOUS_COUNT = 3;
+
+    private static BeanType createReferencingBean(final String identifier, final String referencedIdentifier) {
+        ReferenceType reference = new ReferenceType();
+        reference.setBean(referencedIdentifier);
+        ConstructorArgType ctorArg = new ConstructorArgType();
+        ctorArg.setRef(reference);
+
+        return TestUtility.addConstructorArg(
+                TestUtility.createBeanType(ConstructorTestSubject.class.getName(), identifier, ScopeType.SINGLETON),
+                ctorArg);
+    }
+
+    private static XMLContextFactory createContextFactory() {
+        XMLContextFactory ctxFactory = new XMLContextFactory();
+        for (int index = 0; index < RENDEZVOUS_COUNT; ++index) {
+            ctxFactory.with(TestUtility.createBeanType(RendezvousSubject.class.getName(), "rendezvous" + index, ScopeType.SINGLETON));
+        }
+
+        // a chain of dependencies, "a" must be created after "b" and "b" after "c"
+        ctxFactory.with(createReferencingBean("a", "b"));
+        ctxFactory.with(createReferencingBean("b", "c"));
+        ctxFactory.with(TestUtility.createBeanType(ConstructorTestSubject.class.getName(), "c", ScopeType.SINGLETON));
+        return ctxFactory;
+    }
+
+    private static void assertDependencies(final Context ctx) throws ContextInitializationException {
+        ConstructorTestSubject a = ctx.getBean("a", ConstructorTestSubject.class);
+        ConstructorTestSubject b = ctx.getBean("b", ConstructorTestSubject.class);
+        ConstructorTestSubject c = ctx.getBean("c", ConstructorTestSubject.class);
+        Assert.assertSame(a.getChild(), b);
+        Assert.assertSame(b.getChild(), c);
+    }
+
+    @Test
+    public void testIndependentBeansAreInitializedConcurrently() throws ContextInitializationException {
+        RendezvousSubject.reset(RENDEZVOUS_COUNT);
+        Context ctx = createContextFactory().withParallelInitialization(true).build();
+
+        for (int index = 0; index < RENDEZVOUS_COUNT; ++index) {
+            Assert.assertNotNull(ctx.getBean("rendezvous" + index, RendezvousSubject.class));
+        }
+        assertDependencies(ctx);
+    }
+
+    @Test
+    public void testGivenExecutorIsUsed() throws ContextInitializationException {
+        RendezvousSubject.reset(RENDEZVOUS_COUNT);
+        ExecutorService executor = Executors.newFixedThreadPool(RENDEZVOUS_COUNT);
+        AtomicInteger taskCount = new AtomicInteger();
+        try {
+            Context ctx = createContextFactory()
+                    .withInitializationExecutor(task -> {
+                        taskCount.incrementAndGet();
+                        executor.execute(task);
+                    })
+                    .build();
+
+            assertDependencies(ctx);
+            Assert.assertEquals(taskCount.get(), RENDEZVOUS_COUNT + 3);
+            Assert.assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSerialInitializationIsTheDefault() {
+        XMLContextFactory ctxFactory = new XMLContextFactory();
+        ctxFactory.with(TestUtility.createBeanType(RendezvousSubject.class.getName(), "rendezvous0", ScopeType.SINGLETON));
+        ctxFactory.with(TestUtility.createBeanType(RendezvousSubject.class.getName(), "rendezvous1", ScopeType.SINGLETON));
+        RendezvousSubject.reset(2);
+
+        // the first bean waits for the second, which is not constructed until the first fails
+        try {
+            ctxFactory.build();
+            Assert.fail("expected the rendezvous to fail when beans are initialized serially");
+        } catch (ContextInitializationException x) {
+            Assert.assertTrue(x instanceof FailedToInstantiateBeanException);
+        }
+    }
+
+    @Test
+    public void testSingleFailureIsReported() {
+        XMLContextFactory ctxFactory = new XMLContextFactory().withParallelInitialization(true);
+        ctxFactory.with(TestUtility.createBeanType(FailingConstructorSubject.class.getName(), "failing", ScopeType.SINGLETON));
+        ctxFactory.with(TestUtility.createBeanType(ConstructorTestSubject.class.getName(), "c", ScopeType.SINGLETON));
+
+        try {
+            ctxFactory.build();
+            Assert.fail("expected FailedToInstantiateBeanException");
+        } catch (ContextInitializationException x) {
+            Assert.assertTrue(x instanceof FailedToInstantiateBeanException);
+        }
+    }
+
+    @Test
+    public void testFailuresAreAggregated() {
+        XMLContextFactory ctxFactory = new XMLContextFactory().withParallelInitialization(true);
+        ctxFactory.with(TestUtility.createBeanType(FailingConstructorSubject.class.getName(), "failing1", ScopeType.SINGLETON));
+        ctxFactory.with(TestUtility.createBeanType(FailingConstructorSubject.class.getName(), "failing2", ScopeType.SINGLETON));
+        // depends on a failing bean, so is not initialized and does not add to the failures
+        ctxFactory.with(createReferencingBean("dependent", "failing1"));
+
+        try {
+            ctxFactory.build();
+            Assert.fail("expected CompositeContextInitializationException");
+        } catch (ContextInitializationException x) {
+            Assert.assertTrue(x instanceof CompositeContextInitializationException);
+            Assert.assertTrue(x.getMessage().contains(FailingConstructorSubject.class.getName()));
+        }
+    }
+}
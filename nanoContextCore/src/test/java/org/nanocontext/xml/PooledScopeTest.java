@@ -0,0 +1,258 @@
+package org.nanocontext.xml;
+
+import org.nanocontext.core.BeanPool;
+import org.nanocontext.core.Context;
+import org.nanocontext.core.ContextShutdownReport;
+import org.nanocontext.core.PooledBean;
+import org.nanocontext.core.exceptions.BeanPoolClosedException;
+import org.nanocontext.core.exceptions.BeanPoolExhaustedException;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.core.exceptions.InvalidPooledBeanReferenceException;
+import org.nanocontext.xml.subjects.PooledBufferSubject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests of pooled beans, borrowed from and returned to a bounded pool.
+ */
+public class PooledScopeTest {
+
+    /**
+     * @param attributes the pool attributes of the bean
+     */
+    private static Context buildContext(final String attributes) throws ContextInitializationException {
+        return TestUtility.buildContext(TestUtility.LOG_BEAN,
+                "    <bean id=\"buffer\" class=\"" + PooledBufferSubject.class.getName() + "\" scope=\"pooled\" " + attributes + ">\n" +
+                "        <constructor-arg><ref bean=\"log\"/></constructor-arg>\n" +
+                "    </bean>\n");
+    }
+
+    @Test
+    public void testPrefillAndReuse() throws ContextInitializationException {
+        Context ctx = buildContext("pool-min-size=\"2\" pool-max-size=\"4\" reset-method=\"reset\"");
+        Assert.assertEquals(TestUtility.log(ctx), Arrays.asList("created", "created"));
+
+        PooledBufferSubject first;
+        try (PooledBean<PooledBufferSubject> borrowed = ctx.borrowBean("buffer", PooledBufferSubject.class)) {
+            first = borrowed.get();
+            first.getBuffer().append("used");
+        }
+        Assert.assertEquals(first.getResetCount(), 1);
+        Assert.assertEquals(first.getBuffer().length(), 0);
+
+        // the instance returned last is borrowed first
+        try (PooledBean<PooledBufferSubject> borrowed = ctx.borrowBean("buffer", PooledBufferSubject.class)) {
+            Assert.assertSame(borrowed.get(), first);
+        }
+
+        BeanPool<PooledBufferSubject> pool = ctx.getBeanPool("buffer", PooledBufferSubject.class);
+        Assert.assertEquals(pool.getHits(), 2L);
+        Assert.assertEquals(pool.getMisses(), 0L);
+        Assert.assertEquals(pool.getIdleCount(), 2);
+        Assert.assertEquals(pool.getBorrowedCount(), 0);
+        Assert.assertEquals(TestUtility.log(ctx), Arrays.asList("created", "created"));
+    }
+
+    @Test
+    public void testExhaustedPool() throws ContextInitializationException {
+        Context ctx = buildContext("pool-max-size=\"2\" pool-max-wait=\"100\"");
+        Assert.assertEquals(TestUtility.log(ctx), Collections.emptyList());
+
+        PooledBean<PooledBufferSubject> first = ctx.borrowBean("buffer", PooledBufferSubject.class);
+        PooledBean<PooledBufferSubject> second = ctx.borrowBean("buffer", PooledBufferSubject.class);
+        Assert.assertNotSame(first.get(), second.get());
+        try {
+            ctx.borrowBean("buffer", PooledBufferSubject.class);
+            Assert.fail("a third instance was borrowed from a pool of two");
+        } catch (BeanPoolExhaustedException bpeX) {
+            // expected
+        }
+
+        BeanPool<PooledBufferSubject> pool = ctx.getBeanPool("buffer", PooledBufferSubject.class);
+        Assert.assertEquals(pool.getMisses(), 2L);
+        Assert.assertEquals(pool.getWaits(), 1L);
+        Assert.assertEquals(pool.getTimeouts(), 1L);
+        Assert.assertTrue(pool.getWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(100L));
+        Assert.assertEquals(pool.getBorrowedCount(), 2);
+
+        first.close();
+        // only the first close returns the instance
+        first.close();
+        Assert.assertEquals(pool.getBorrowedCount(), 1);
+        try {
+            first.get();
+            Assert.fail("a returned instance was available from its handle");
+        } catch (IllegalStateException isX) {
+            // expected
+        }
+        second.close();
+        Assert.assertEquals(pool.getIdleCount(), 2);
+    }
+
+    @Test
+    public void testBorrowWaitsForReturn() throws Exception {
+        final Context ctx = buildContext("pool-max-size=\"1\" pool-max-wait=\"10000\"");
+        PooledBean<PooledBufferSubject> borrowed = ctx.borrowBean("buffer", PooledBufferSubject.class);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<PooledBufferSubject> waiting = executor.submit(() -> {
+                try (PooledBean<PooledBufferSubject> other = ctx.borrowBean("buffer", PooledBufferSubject.class)) {
+                    return other.get();
+                }
+            });
+            Thread.sleep(100L);
+            Assert.assertFalse(waiting.isDone());
+            PooledBufferSubject instance = borrowed.get();
+            borrowed.close();
+
+            Assert.assertSame(waiting.get(10L, TimeUnit.SECONDS), instance);
+        } finally {
+            executor.shutdownNow();
+        }
+        BeanPool<PooledBufferSubject> pool = ctx.getBeanPool("buffer", PooledBufferSubject.class);
+        Assert.assertEquals(pool.getWaits(), 1L);
+        Assert.assertEquals(pool.getTimeouts(), 0L);
+        Assert.assertEquals(TestUtility.log(ctx), Collections.singletonList("created"));
+    }
+
+    @Test
+    public void testPoolIsBounded() throws Exception {
+        final Context ctx = buildContext("pool-max-size=\"2\" pool-max-wait=\"10000\"");
+        final AtomicInteger borrowed = new AtomicInteger();
+        final AtomicInteger maxBorrowed = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int task = 0; task < 8; ++task) {
+                futures.add(executor.submit(() -> {
+                    for (int index = 0; index < 500; ++index) {
+                        try (PooledBean<PooledBufferSubject> buffer = ctx.borrowBean("buffer", PooledBufferSubject.class)) {
+                            maxBorrowed.accumulateAndGet(borrowed.incrementAndGet(), Math::max);
+                            buffer.get().getBuffer().append(index);
+                            borrowed.decrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60L, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        BeanPool<PooledBufferSubject> pool = ctx.getBeanPool("buffer", PooledBufferSubject.class);
+        Assert.assertTrue(maxBorrowed.get() <= 2, String.valueOf(maxBorrowed.get()));
+        Assert.assertTrue(TestUtility.log(ctx).size() <= 2, TestUtility.log(ctx).toString());
+        Assert.assertEquals(pool.getHits() + pool.getMisses(), 8L * 500L);
+        Assert.assertEquals(pool.getMisses(), (long) TestUtility.log(ctx).size());
+        Assert.assertEquals(pool.getBorrowedCount(), 0);
+    }
+
+    @Test
+    public void testFailedResetDiscardsInstance() throws ContextInitializationException {
+        Context ctx = buildContext("pool-min-size=\"1\" reset-method=\"failReset\" finalize-method=\"close\"");
+
+        PooledBufferSubject first;
+        try (PooledBean<PooledBufferSubject> borrowed = ctx.borrowBean("buffer", PooledBufferSubject.class)) {
+            first = borrowed.get();
+        }
+
+        BeanPool<PooledBufferSubject> pool = ctx.getBeanPool("buffer", PooledBufferSubject.class);
+        Assert.assertEquals(pool.getDiscarded(), 1L);
+        Assert.assertEquals(pool.getIdleCount(), 0);
+        // the discarded instance is finalized
+        Assert.assertEquals(TestUtility.log(ctx), Arrays.asList("created", "finalized"));
+        try (PooledBean<PooledBufferSubject> borrowed = ctx.borrowBean("buffer", PooledBufferSubject.class)) {
+            Assert.assertNotSame(borrowed.get(), first);
+        }
+        Assert.assertEquals(pool.getMisses(), 1L);
+    }
+
+    @Test
+    public void testPooledBeanMustBeBorrowed() throws ContextInitializationException {
+        Context ctx = buildContext("");
+        try {
+            ctx.getBean("buffer", PooledBufferSubject.class);
+            Assert.fail("a pooled bean was referenced without a borrow");
+        } catch (InvalidPooledBeanReferenceException iprX) {
+            // expected
+        }
+        try {
+            ctx.borrowBean("log", List.class);
+            Assert.fail("a bean that is not pooled was borrowed");
+        } catch (InvalidPooledBeanReferenceException iprX) {
+            // expected
+        }
+        Assert.assertNull(ctx.getBeanPool("buffer", String.class));
+    }
+
+    @Test
+    public void testIdleInstancesAreFinalizedOnClose() throws ContextInitializationException {
+        Context ctx = buildContext("pool-min-size=\"2\" finalize-method=\"close\"");
+        PooledBean<PooledBufferSubject> borrowed = ctx.borrowBean("buffer", PooledBufferSubject.class);
+
+        ContextShutdownReport report = ctx.close(10000L);
+
+        Assert.assertTrue(report.isComplete(), report.toString());
+        Assert.assertEquals(report.getFinalized(), Collections.singletonList("buffer"));
+        // the borrowed instance is not finalized
+        Assert.assertEquals(TestUtility.log(ctx), Arrays.asList("created", "created", "finalized"));
+        BeanPool<PooledBufferSubject> pool = ctx.getBeanPool("buffer", PooledBufferSubject.class);
+        Assert.assertEquals(pool.getIdleCount(), 0);
+
+        // the closed pool lends nothing, and finalizes rather than keeps the returned instance
+        try {
+            ctx.borrowBean("buffer", PooledBufferSubject.class);
+            Assert.fail("an instance was borrowed from a closed pool");
+        } catch (BeanPoolClosedException bpcX) {
+            // expected
+        }
+        borrowed.close();
+        Assert.assertEquals(TestUtility.log(ctx), Arrays.asList("created", "created", "finalized", "finalized"));
+        Assert.assertEquals(pool.getIdleCount(), 0);
+        Assert.assertEquals(pool.getBorrowedCount(), 0);
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException {
+        Beans beans = new Beans();
+        BeanType bean = new BeanType();
+        bean.setId("buffer");
+        bean.setClazz(PooledBufferSubject.class.getName());
+        bean.setScope(ScopeType.POOLED);
+        bean.setPoolMinSize(2);
+        bean.setPoolMaxSize(8);
+        bean.setPoolMaxWait(250L);
+        bean.setResetMethod("reset");
+        beans.getBean().add(bean);
+
+        ByteArrayOutputStream descriptor = new ByteArrayOutputStream();
+        BinaryContextCompiler.compile(beans, descriptor);
+        BeanType read = BinaryContextFormat.read(new DataInputStream(new ByteArrayInputStream(descriptor.toByteArray())))
+                .getBean().get(0);
+
+        Assert.assertEquals(read.getScope(), ScopeType.POOLED);
+        Assert.assertEquals(read.getPoolMinSize(), Integer.valueOf(2));
+        Assert.assertEquals(read.getPoolMaxSize(), Integer.valueOf(8));
+        Assert.assertEquals(read.getPoolMaxWait(), Long.valueOf(250L));
+        Assert.assertEquals(read.getResetMethod(), "reset");
+    }
+}
@@ -0,0 +1,114 @@
+package org.nanocontext.xml;
+
+import org.nanocontext.core.Context;
+import org.nanocontext.core.PropertiesHolder;
+import org.nanocontext.core.exceptions.CircularPropertyReferenceException;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * Tests of resolving property references against the properties of a Context.
+ */
+public class PropertyResolutionTest {
+    private static Path firstFile;
+    private static Path secondFile;
+    private static Path circularFile;
+
+    @BeforeClass
+    public static void createPropertiesFiles() throws IOException {
+        firstFile = createPropertiesFile(
+                "greeting=Hello",
+                "name=${user}",
+                "user=World",
+                "message=${greeting} ${name}!",
+                "environment=test",
+                "db.test.url=jdbc:test",
+                "db.prod.url=jdbc:prod",
+                "timeout=PT30S",
+                "count=123456789",
+                "shared=first");
+        secondFile = createPropertiesFile(
+                "shared=second",
+                "second=only in second");
+        circularFile = createPropertiesFile(
+                "a=${b}",
+                "b=x${c}",
+                "c=${a}");
+    }
+
+    private static Path createPropertiesFile(final String... lines) throws IOException {
+        Path file = Files.createTempFile("context", ".properties");
+        Files.write(file, String.join("\n", lines).getBytes(StandardCharsets.ISO_8859_1));
+        return file;
+    }
+
+    @AfterClass
+    public static void deletePropertiesFiles() throws IOException {
+        for (Path file : Arrays.asList(firstFile, secondFile, circularFile)) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static Context createContext(final Path... files) throws ContextInitializationException, MalformedURLException {
+        Context ctx = Context.builder().build();
+        HashSet<PropertiesHolder> holders = new HashSet<>();
+        for (int index = 0; index < files.length; ++index) {
+            holders.add(new PropertiesHolder(ctx, "properties" + index, files[index].toUri()));
+        }
+        ctx.setProperties(holders);
+        return ctx;
+    }
+
+    @DataProvider
+    public Object[][] resolutionDataProvider() {
+        return new Object[][] {
+                new Object[]{"greeting", "Hello"},
+                new Object[]{"name", "World"},
+                new Object[]{"message", "Hello World!"},
+                new Object[]{"db.${environment}.url", "jdbc:test"},
+                new Object[]{"missing:fallback", "fallback"},
+                new Object[]{"missing:${greeting}", "Hello"},
+                new Object[]{"greeting:fallback", "Hello"},
+                new Object[]{"missing", null},
+                new Object[]{"shared", "first"},
+                new Object[]{"second", "only in second"},
+        };
+    }
+
+    @Test(dataProvider = "resolutionDataProvider")
+    public void testResolvePropertyValue(final String reference, final String expected) throws ContextInitializationException, MalformedURLException {
+        Context ctx = createContext(firstFile, secondFile);
+        Assert.assertEquals(ctx.resolvePropertyValue(reference), expected);
+    }
+
+    @Test(expectedExceptions = CircularPropertyReferenceException.class)
+    public void testCircularReference() throws ContextInitializationException, MalformedURLException {
+        createContext(circularFile).resolvePropertyValue("a");
+    }
+
+    @Test
+    public void testTypedProperty() throws ContextInitializationException, MalformedURLException {
+        Context ctx = createContext(firstFile);
+
+        Assert.assertEquals(ctx.getProperty("timeout", Duration.class), Duration.ofSeconds(30));
+        Long count = ctx.getProperty("count", Long.class);
+        Assert.assertEquals(count, Long.valueOf(123456789L));
+        Assert.assertSame(ctx.getProperty("count", Long.class), count);
+        Assert.assertEquals(ctx.getProperty("count", String.class), "123456789");
+        Assert.assertEquals(ctx.getProperty("missing:42", Integer.class), Integer.valueOf(42));
+        Assert.assertNull(ctx.getProperty("missing", Integer.class));
+    }
+}
@@ -0,0 +1,133 @@
+package org.nanocontext.xml;
+
+import com.sun.net.httpserver.HttpServer;
+import org.nanocontext.core.ArtifactHolder;
+import org.nanocontext.core.Context;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Tests of the concurrent prefetch of remote artifacts and properties, against a local
+ * HTTP server that delays every response.
+ */
+public class ResourcePrefetchTest {
+    private static final int RESOURCE_COUNT = 4;
+    private static final long RESPONSE_DELAY_MILLIS = 400L;
+    private static final String MARKER_RESOURCE = "prefetch-marker.txt";
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        final byte[] artifact = createArtifact();
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requestCount.incrementAndGet();
+            try {
+                Thread.sleep(RESPONSE_DELAY_MILLIS);
+            } catch (InterruptedException iX) {
+                Thread.currentThread().interrupt();
+            }
+
+            String path = exchange.getRequestURI().getPath();
+            byte[] body = path.endsWith(".jar") ?
+                    artifact :
+                    ("key=" + path.substring(1, path.indexOf('.'))).getBytes(StandardCharsets.ISO_8859_1);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream responseStream = exchange.getResponseBody()) {
+                responseStream.write(body);
+            }
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+    }
+
+    @AfterClass
+    public void stopServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    private static byte[] createArtifact() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (JarOutputStream jarStream = new JarOutputStream(buffer)) {
+            jarStream.putNextEntry(new JarEntry(MARKER_RESOURCE));
+            jarStream.write("marker".getBytes(StandardCharsets.ISO_8859_1));
+            jarStream.closeEntry();
+        }
+        return buffer.toByteArray();
+    }
+
+    private String resourceLocation(final String name) {
+        return "http://localhost:" + server.getAddress().getPort() + "/" + name;
+    }
+
+    private XMLContextFactory createContextFactory() {
+        XMLContextFactory ctxFactory = new XMLContextFactory();
+        for (int index = 0; index < RESOURCE_COUNT; ++index) {
+            ResourceType properties = new ResourceType();
+            properties.setId("properties" + index);
+            properties.setResource(resourceLocation("value" + index + ".properties"));
+            ctxFactory.withProperty(properties);
+        }
+        return ctxFactory;
+    }
+
+    @Test
+    public void testPropertiesAreFetchedConcurrently() throws ContextInitializationException {
+        long start = System.nanoTime();
+        Context ctx = createContextFactory().build();
+        long elapsedMillis = (System.nanoTime() - start) / 1000000L;
+
+        for (int index = 0; index < RESOURCE_COUNT; ++index) {
+            Assert.assertEquals(ctx.getPropertiesHolder("properties" + index).getPropertyValue("key"), "value" + index);
+        }
+        // roughly one round trip, serially it would be RESOURCE_COUNT round trips
+        Assert.assertTrue(elapsedMillis < (RESOURCE_COUNT - 1) * RESPONSE_DELAY_MILLIS,
+                "build took " + elapsedMillis + "ms");
+    }
+
+    @Test
+    public void testPropertiesAreFetchedSeriallyWithoutPrefetch() throws ContextInitializationException {
+        long start = System.nanoTime();
+        Context ctx = createContextFactory().withResourcePrefetch(false).build();
+        long elapsedMillis = (System.nanoTime() - start) / 1000000L;
+
+        Assert.assertEquals(ctx.getPropertiesHolder("properties0").getPropertyValue("key"), "value0");
+        Assert.assertTrue(elapsedMillis >= RESOURCE_COUNT * RESPONSE_DELAY_MILLIS,
+                "build took " + elapsedMillis + "ms");
+    }
+
+    @Test
+    public void testArtifactIsLoadedFromLocalCopy() throws ContextInitializationException {
+        ResourceType artifact = new ResourceType();
+        artifact.setId("artifact");
+        artifact.setResource(resourceLocation("artifact.jar"));
+
+        int requestsBefore = requestCount.get();
+        Context ctx = new XMLContextFactory().withArtifact(artifact).withArtifactCache(null).build();
+
+        ArtifactHolder holder = ctx.getArtifactHolder("artifact");
+        Assert.assertEquals(holder.getClassLoader().getURLs()[0].getProtocol(), "file");
+        Assert.assertNotNull(holder.getClassLoader().getResource(MARKER_RESOURCE));
+        Assert.assertEquals(requestCount.get() - requestsBefore, 1);
+    }
+}
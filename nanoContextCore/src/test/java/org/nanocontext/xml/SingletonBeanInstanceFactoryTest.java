@@ -0,0 +1,63 @@
+package org.nanocontext.xml;
+
+import org.nanocontext.core.Context;
+import org.nanocontext.core.SingletonBeanInstanceFactory;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.xml.subjects.CountingSingletonSubject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Tests of singleton creation and publication.
+ */
+public class SingletonBeanInstanceFactoryTest {
+    private static final int THREAD_COUNT = 16;
+
+    @Test
+    public void testConcurrentFirstAccessCreatesOneInstance() throws Exception {
+        CountingSingletonSubject.resetInstanceCount();
+
+        Context ctx = Context.builder().build();
+        final SingletonBeanInstanceFactory<CountingSingletonSubject> factory = new SingletonBeanInstanceFactory<>(
+                ctx, "countingSingleton", null, CountingSingletonSubject.class.getName(),
+                null, null, null,
+                false,
+                false, null,
+                null, null,
+                null);
+
+        final CountDownLatch startGate = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            List<Future<CountingSingletonSubject>> results = new ArrayList<>();
+            for (int index = 0; index < THREAD_COUNT; ++index) {
+                results.add(executor.submit(new Callable<CountingSingletonSubject>() {
+                    @Override
+                    public CountingSingletonSubject call() throws InterruptedException, ContextInitializationException {
+                        startGate.await();
+                        return factory.getValue();
+                    }
+                }));
+            }
+            startGate.countDown();
+
+            CountingSingletonSubject first = results.get(0).get();
+            Assert.assertNotNull(first);
+            for (Future<CountingSingletonSubject> result : results) {
+                Assert.assertSame(result.get(), first);
+            }
+            Assert.assertSame(factory.getValue(), first);
+            Assert.assertEquals(CountingSingletonSubject.getInstanceCount(), 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
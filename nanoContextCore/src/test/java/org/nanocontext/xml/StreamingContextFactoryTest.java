@@ -0,0 +1,174 @@
+package org.nanocontext.xml;
+
+import org.nanocontext.core.Context;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.xml.exceptions.InvalidContextDocumentException;
+import org.nanocontext.xml.subjects.BeanWithPropertiesConstructorArg;
+import org.nanocontext.xml.subjects.BeanWithStaticConstructor;
+import org.nanocontext.xml.subjects.ConstructorTestSubject;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.xml.bind.JAXBException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Tests of the StAX context reader, a context it builds must be the same as one built
+ * from the same document by the JAXB based XMLContextFactory.
+ */
+public class StreamingContextFactoryTest {
+    private static final String SUBJECT = ConstructorTestSubject.class.getName();
+
+    private static Path propertiesFile;
+
+    @BeforeClass
+    public static void createPropertiesFile() throws IOException {
+        propertiesFile = Files.createTempFile("context", ".properties");
+        Files.write(propertiesFile, "greeting=Hello\n".getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @AfterClass
+    public static void deletePropertiesFile() throws IOException {
+        Files.deleteIfExists(propertiesFile);
+    }
+
+    /**
+     * A document using each kind of constructor argument and the bean attributes
+     */
+    private static String createContextDocument() {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<beans xmlns=\"http://nanocontext.org/v1/schema/ctx\">\n" +
+                "    <properties id=\"properties\"><resource>" + propertiesFile.toUri() + "</resource></properties>\n" +
+                "    <bean id=\"stringBean\" class=\"" + SUBJECT + "\" scope=\"singleton\" lazy-load=\"false\">\n" +
+                "        <constructor-arg><value>Hello</value></constructor-arg>\n" +
+                "    </bean>\n" +
+                "    <bean id=\"twoArgBean\" class=\"" + SUBJECT + "\">\n" +
+                "        <constructor-arg index=\"1\"><value>42</value></constructor-arg>\n" +
+                "        <constructor-arg><value>World</value></constructor-arg>\n" +
+                "    </bean>\n" +
+                "    <bean id=\"referencingBean\" class=\"" + SUBJECT + "\" scope=\"singleton\">\n" +
+                "        <constructor-arg><ref bean=\"stringBean\"/></constructor-arg>\n" +
+                "    </bean>\n" +
+                "    <bean id=\"parentBean\" class=\"" + SUBJECT + "\" scope=\"singleton\">\n" +
+                "        <constructor-arg>\n" +
+                "            <bean id=\"child\" class=\"" + SUBJECT + "\" scope=\"prototype\">\n" +
+                "                <constructor-arg><value>Hello</value></constructor-arg>\n" +
+                "            </bean>\n" +
+                "        </constructor-arg>\n" +
+                "    </bean>\n" +
+                "    <bean id=\"listBean\" class=\"" + SUBJECT + "\" scope=\"singleton\">\n" +
+                "        <constructor-arg><list><value>one</value><value>two</value></list></constructor-arg>\n" +
+                "    </bean>\n" +
+                "    <bean id=\"beanListBean\" class=\"" + SUBJECT + "\" scope=\"singleton\">\n" +
+                "        <constructor-arg><list>\n" +
+                "            <ref bean=\"stringBean\"/>\n" +
+                "            <bean id=\"nested\" class=\"" + SUBJECT + "\"><constructor-arg><value>Nested</value></constructor-arg></bean>\n" +
+                "        </list></constructor-arg>\n" +
+                "    </bean>\n" +
+                "    <bean id=\"propertiesBean\" class=\"" + BeanWithPropertiesConstructorArg.class.getName() + "\" scope=\"singleton\">\n" +
+                "        <constructor-arg><properties-ref properties-id=\"properties\"/></constructor-arg>\n" +
+                "    </bean>\n" +
+                "    <bean id=\"factoryBean\" class=\"" + BeanWithStaticConstructor.class.getName() + "\" scope=\"singleton\"\n" +
+                "          factory-class=\"" + BeanWithStaticConstructor.class.getName() + "\" factory-method=\"createBean\"\n" +
+                "          lazy-load=\"0\" active=\"false\"/>\n" +
+                "</beans>\n";
+    }
+
+    private static InputStream toStream(final String document) {
+        return new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testContextMatchesXMLContextFactory() throws JAXBException, ContextInitializationException {
+        Context expected = new XMLContextFactory().with(toStream(createContextDocument())).build();
+        Context actual = new StreamingContextFactory().with(toStream(createContextDocument())).build();
+
+        for (String identifier : new String[]{"stringBean", "twoArgBean", "referencingBean", "parentBean", "listBean", "beanListBean"}) {
+            Assert.assertEquals(
+                    actual.getBean(identifier, ConstructorTestSubject.class),
+                    expected.getBean(identifier, ConstructorTestSubject.class),
+                    identifier);
+        }
+
+        Assert.assertEquals(actual.getBean("twoArgBean", ConstructorTestSubject.class).getString1(), "World");
+        Assert.assertEquals(actual.getBean("twoArgBean", ConstructorTestSubject.class).getInt1(), Integer.valueOf(42));
+        Assert.assertNotSame(
+                actual.getBean("twoArgBean", ConstructorTestSubject.class),
+                actual.getBean("twoArgBean", ConstructorTestSubject.class));
+        Assert.assertSame(
+                actual.getBean("referencingBean", ConstructorTestSubject.class).getChild(),
+                actual.getBean("stringBean", ConstructorTestSubject.class));
+        Assert.assertEquals(actual.getBean("listBean", ConstructorTestSubject.class).getStrings(), new String[]{"one", "two"});
+        Assert.assertSame(
+                actual.getBean("beanListBean", ConstructorTestSubject.class).getChildren()[0],
+                actual.getBean("stringBean", ConstructorTestSubject.class));
+        Assert.assertEquals(actual.getBean("child", ConstructorTestSubject.class).getString1(), "Hello");
+        Assert.assertEquals(actual.getBean("propertiesBean", BeanWithPropertiesConstructorArg.class).getPropertyValue("greeting"), "Hello");
+        Assert.assertNotNull(actual.getBean("factoryBean", BeanWithStaticConstructor.class));
+        Assert.assertNotNull(actual.getPropertiesHolder("properties"));
+    }
+
+    @Test
+    public void testBuildFromFile() throws IOException, ContextInitializationException {
+        Path document = Files.createTempFile("context", ".xml");
+        try {
+            Files.write(document, createContextDocument().getBytes(StandardCharsets.UTF_8));
+            Context ctx = new StreamingContextFactory().with(document.toFile()).build();
+            Assert.assertEquals(ctx.getBean("stringBean", ConstructorTestSubject.class).getString1(), "Hello");
+        } finally {
+            Files.delete(document);
+        }
+    }
+
+    @Test(expectedExceptions = InvalidContextDocumentException.class)
+    public void testUnexpectedElement() throws ContextInitializationException {
+        new StreamingContextFactory().with(toStream(
+                "<beans xmlns=\"http://nanocontext.org/v1/schema/ctx\">" +
+                "<bean class=\"" + SUBJECT + "\"><value>Hello</value></bean>" +
+                "</beans>")).build();
+    }
+
+    @Test(expectedExceptions = InvalidContextDocumentException.class)
+    public void testWrongNamespace() throws ContextInitializationException {
+        new StreamingContextFactory().with(toStream("<beans/>")).build();
+    }
+
+    @Test(expectedExceptions = InvalidContextDocumentException.class)
+    public void testInvalidBoolean() throws ContextInitializationException {
+        new StreamingContextFactory().with(toStream(
+                "<beans xmlns=\"http://nanocontext.org/v1/schema/ctx\">" +
+                "<bean class=\"" + SUBJECT + "\" lazy-load=\"yes\"/>" +
+                "</beans>")).build();
+    }
+
+    @DataProvider
+    public Object[][] invalidAttributes() {
+        return new Object[][]{
+                new Object[]{"restart=\"sometimes\""},
+                new Object[]{"max-restarts=\"many\""},
+                new Object[]{"restart-delay=\"1s\""},
+                new Object[]{"restart-delay-max=\"\""},
+                new Object[]{"pool-min-size=\"two\""},
+                new Object[]{"pool-max-size=\"4.5\""},
+                new Object[]{"pool-max-wait=\"forever\""},
+                new Object[]{"scope=\"thread\" thread-binding=\"carrier\""},
+                new Object[]{"active=\"true\" active-execution=\"fibre\""},
+        };
+    }
+
+    @Test(dataProvider = "invalidAttributes", expectedExceptions = InvalidContextDocumentException.class)
+    public void testInvalidAttributeValue(final String attribute) throws ContextInitializationException {
+        new StreamingContextFactory().with(toStream(
+                "<beans xmlns=\"http://nanocontext.org/v1/schema/ctx\">" +
+                "<bean class=\"" + SUBJECT + "\" " + attribute + "/>" +
+                "</beans>")).build();
+    }
+}
@@ -0,0 +1,134 @@
+package org.nanocontext.xml;
+
+import org.nanocontext.core.ActiveBeanStatus;
+import org.nanocontext.core.Context;
+import org.nanocontext.core.RestartPolicy;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.xml.subjects.FlakyActiveSubject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Tests of the restart of active beans as their restart policy requires.
+ */
+public class SupervisedActiveBeanTest {
+    private static final long TIMEOUT_MILLIS = 10000L;
+
+    private static Context buildContext(final int failures, final boolean block, final String restartAttributes)
+            throws ContextInitializationException {
+        return buildContext("singleton", failures, block, restartAttributes);
+    }
+
+    private static Context buildContext(final String scope, final int failures, final boolean block, final String restartAttributes)
+            throws ContextInitializationException {
+        return TestUtility.buildContext(
+                "    <bean id=\"consumer\" class=\"" + FlakyActiveSubject.class.getName() + "\" scope=\"" + scope + "\" active=\"true\" " +
+                restartAttributes + ">\n" +
+                "        <constructor-arg><value>" + failures + "</value></constructor-arg>\n" +
+                "        <constructor-arg><value>" + block + "</value></constructor-arg>\n" +
+                "    </bean>\n");
+    }
+
+    private static void await(final BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5L);
+        }
+        Assert.assertTrue(condition.getAsBoolean());
+    }
+
+    @Test
+    public void testNeverIsTheDefault() throws ContextInitializationException, InterruptedException {
+        Context ctx = buildContext(1, false, "");
+        ActiveBeanStatus status = ctx.getActiveBeanStatus("consumer");
+        await(() -> status.getState() == ActiveBeanStatus.State.FAILED);
+
+        Assert.assertEquals(status.getRestartPolicy().getRestart(), RestartPolicy.Restart.NEVER);
+        Assert.assertEquals(status.getRestartCount(), 0);
+        Assert.assertEquals(status.getFailureCount(), 1);
+        Assert.assertEquals(status.getLastFailure().getMessage(), "failure 1");
+        Assert.assertEquals(ctx.getBean("consumer", FlakyActiveSubject.class).getRunCount(), 1);
+    }
+
+    @Test
+    public void testOnFailureRestartsUntilTheBeanRuns() throws ContextInitializationException, InterruptedException {
+        Context ctx = buildContext(2, true, "restart=\"on-failure\" restart-delay=\"10\"");
+        FlakyActiveSubject bean = ctx.getBean("consumer", FlakyActiveSubject.class);
+        ActiveBeanStatus status = ctx.getActiveBeanStatus("consumer");
+        await(() -> bean.getRunCount() == 3);
+
+        Assert.assertEquals(status.getState(), ActiveBeanStatus.State.RUNNING);
+        Assert.assertEquals(status.getRestartCount(), 2);
+        Assert.assertEquals(status.getFailureCount(), 2);
+        Assert.assertEquals(status.getLastFailure().getMessage(), "failure 2");
+
+        // returning is not a failure, so the bean is not restarted
+        bean.release();
+        await(() -> status.getState() == ActiveBeanStatus.State.STOPPED);
+        Assert.assertEquals(bean.getRunCount(), 3);
+        Assert.assertEquals(ctx.getActiveBeanStatuses(), Collections.singletonList(status));
+    }
+
+    @Test
+    public void testMaxRestarts() throws ContextInitializationException, InterruptedException {
+        Context ctx = buildContext(Integer.MAX_VALUE, false, "restart=\"on-failure\" max-restarts=\"3\" restart-delay=\"1\"");
+        ActiveBeanStatus status = ctx.getActiveBeanStatus("consumer");
+        await(() -> status.getState() == ActiveBeanStatus.State.FAILED);
+
+        Assert.assertEquals(status.getRestartCount(), 3);
+        Assert.assertEquals(status.getFailureCount(), 4);
+        Assert.assertEquals(ctx.getBean("consumer", FlakyActiveSubject.class).getRunCount(), 4);
+    }
+
+    @Test
+    public void testAlwaysRestartsABeanThatReturns() throws ContextInitializationException, InterruptedException {
+        Context ctx = buildContext(0, false, "restart=\"always\" max-restarts=\"2\" restart-delay=\"1\"");
+        ActiveBeanStatus status = ctx.getActiveBeanStatus("consumer");
+        await(() -> status.getState() == ActiveBeanStatus.State.STOPPED && status.getRestartCount() == 2);
+
+        Assert.assertEquals(status.getFailureCount(), 0);
+        Assert.assertEquals(ctx.getBean("consumer", FlakyActiveSubject.class).getRunCount(), 3);
+    }
+
+    @Test
+    public void testShutdownCancelsARestart() throws ContextInitializationException, InterruptedException {
+        Context ctx = buildContext(1, false, "restart=\"on-failure\" restart-delay=\"60000\"");
+        ActiveBeanStatus status = ctx.getActiveBeanStatus("consumer");
+        await(() -> status.getState() == ActiveBeanStatus.State.RESTARTING);
+
+        Assert.assertEquals(ctx.shutdown(TIMEOUT_MILLIS), Collections.emptyList());
+        Assert.assertEquals(status.getState(), ActiveBeanStatus.State.STOPPED);
+        Assert.assertEquals(ctx.getBean("consumer", FlakyActiveSubject.class).getRunCount(), 1);
+    }
+
+    @Test
+    public void testReturnedPrototypesAreDropped() throws ContextInitializationException, InterruptedException {
+        // an active bean is not lazily loaded, so an instance is also started by the context
+        Context ctx = buildContext("prototype", 0, false, "");
+        FlakyActiveSubject first = ctx.getBean("consumer", FlakyActiveSubject.class);
+        FlakyActiveSubject second = ctx.getBean("consumer", FlakyActiveSubject.class);
+        Assert.assertNotSame(second, first);
+
+        await(() -> first.getRunCount() == 1 && second.getRunCount() == 1 && ctx.getActiveBeanStatuses().isEmpty());
+        Assert.assertNull(ctx.getActiveBeanStatus("consumer"));
+    }
+
+    @Test
+    public void testRunningPrototypesAreKept() throws ContextInitializationException, InterruptedException {
+        Context ctx = buildContext("prototype", 0, true, "");
+        FlakyActiveSubject bean = ctx.getBean("consumer", FlakyActiveSubject.class);
+        await(() -> bean.getRunCount() == 1);
+        ActiveBeanStatus status = ctx.getActiveBeanStatus("consumer");
+        Assert.assertEquals(status.getState(), ActiveBeanStatus.State.RUNNING);
+        Assert.assertEquals(ctx.getActiveBeanStatuses().size(), 2);
+
+        bean.release();
+        await(() -> ctx.getActiveBeanStatuses().size() == 1);
+        Assert.assertEquals(status.getState(), ActiveBeanStatus.State.STOPPED);
+        Assert.assertFalse(ctx.getActiveBeanStatuses().contains(status));
+        Assert.assertEquals(ctx.shutdown(TIMEOUT_MILLIS), Collections.emptyList());
+    }
+}
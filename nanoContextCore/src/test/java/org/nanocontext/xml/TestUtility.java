@@ -1,15 +1,22 @@
 package org.nanocontext.xml;
 
+import org.nanocontext.core.Context;
+import org.nanocontext.core.exceptions.ContextInitializationException;
 import org.nanocontext.xml.BeanType;
 import org.nanocontext.xml.ConstructorArgType;
 import org.nanocontext.xml.ListType;
 import org.nanocontext.xml.ScopeType;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.LineNumberReader;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Created by cbeckey on 2/8/16.
@@ -69,6 +76,51 @@ public class TestUtility {
         return list;
     }
 
+    // ====================================================================================
+    // Context Document Helper Methods
+    // ====================================================================================
+    /**
+     * The definition of a singleton list with the identifier "log", which the test subjects
+     * record what happens to them in.
+     */
+    public static final String LOG_BEAN =
+            "    <bean id=\"log\" class=\"" + CopyOnWriteArrayList.class.getName() + "\" scope=\"singleton\"/>\n";
+
+    /**
+     * @param elements the bean, properties and artifact elements of the document
+     * @return a context document holding the elements
+     */
+    public static String createContextDocument(final String... elements) {
+        StringBuilder document = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<beans xmlns=\"http://nanocontext.org/v1/schema/ctx\">\n");
+        for (String element : elements) {
+            document.append(element);
+        }
+        return document.append("</beans>\n").toString();
+    }
+
+    public static InputStream createContextDocumentStream(final String... elements) {
+        return new ByteArrayInputStream(createContextDocument(elements).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Build a context with the StreamingContextFactory.
+     *
+     * @param elements the bean, properties and artifact elements of the document
+     */
+    public static Context buildContext(final String... elements) throws ContextInitializationException {
+        return new StreamingContextFactory()
+                .with(createContextDocumentStream(elements))
+                .build();
+    }
+
+    /**
+     * @return the log of a context that defines LOG_BEAN
+     */
+    public static List<String> log(final Context ctx) throws ContextInitializationException {
+        return ctx.getBean("log", List.class);
+    }
+
     // ====================================================================================
     // Comparator Helper Methods
     // ====================================================================================
@@ -0,0 +1,157 @@
+package org.nanocontext.xml;
+
+import org.nanocontext.core.Context;
+import org.nanocontext.core.ContextShutdownReport;
+import org.nanocontext.core.exceptions.ContextInitializationException;
+import org.nanocontext.xml.subjects.FinalizableSubject;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests of thread scoped beans, one instance for each thread that references the bean.
+ */
+public class ThreadScopeTest {
+
+    /**
+     * @param threadBinding the thread-binding attribute of the bean, none if null
+     */
+    private static Context buildContext(final String threadBinding) throws ContextInitializationException {
+        return TestUtility.buildContext(TestUtility.LOG_BEAN,
+                "    <bean id=\"formatter\" class=\"" + FinalizableSubject.class.getName() + "\" scope=\"thread\" lazy-load=\"true\" finalize-method=\"close\"" +
+                (threadBinding == null ? "" : " thread-binding=\"" + threadBinding + "\"") + ">\n" +
+                "        <constructor-arg><ref bean=\"log\"/></constructor-arg>\n" +
+                "        <constructor-arg><value>formatter</value></constructor-arg>\n" +
+                "    </bean>\n");
+    }
+
+    @DataProvider
+    public Object[][] threadBindings() {
+        return new Object[][]{
+                new Object[]{null},
+                new Object[]{"thread-local"},
+                new Object[]{"carrier-independent"}
+        };
+    }
+
+    /**
+     * Reference the bean twice from a thread, started by the starter, and return the instance.
+     */
+    private static FinalizableSubject referenceFrom(final Context ctx, final ThreadStarter starter) throws Exception {
+        final AtomicReference<Object> result = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        starter.start(() -> {
+            try {
+                FinalizableSubject first = ctx.getBean("formatter", FinalizableSubject.class);
+                result.set(first == ctx.getBean("formatter", FinalizableSubject.class) ? first : "different instances");
+            } catch (Throwable t) {
+                result.set(t);
+            } finally {
+                done.countDown();
+            }
+        });
+        Assert.assertTrue(done.await(10L, TimeUnit.SECONDS));
+        Assert.assertTrue(result.get() instanceof FinalizableSubject, String.valueOf(result.get()));
+        return (FinalizableSubject) result.get();
+    }
+
+    private interface ThreadStarter {
+        void start(Runnable task) throws Exception;
+    }
+
+    @Test(dataProvider = "threadBindings")
+    public void testOneInstancePerThread(final String threadBinding) throws Exception {
+        Context ctx = buildContext(threadBinding);
+
+        FinalizableSubject local = ctx.getBean("formatter", FinalizableSubject.class);
+        Assert.assertSame(ctx.getBean("formatter", FinalizableSubject.class), local);
+
+        FinalizableSubject other = referenceFrom(ctx, task -> new Thread(task).start());
+        FinalizableSubject another = referenceFrom(ctx, task -> new Thread(task).start());
+        Assert.assertNotSame(other, local);
+        Assert.assertNotSame(another, local);
+        Assert.assertNotSame(another, other);
+        Assert.assertSame(ctx.getBean("formatter", FinalizableSubject.class), local);
+    }
+
+    @Test(dataProvider = "threadBindings")
+    public void testVirtualThreads(final String threadBinding) throws Exception {
+        final Method startVirtualThread;
+        try {
+            startVirtualThread = Thread.class.getMethod("startVirtualThread", Runnable.class);
+        } catch (NoSuchMethodException nsmX) {
+            throw new SkipException("The runtime does not support virtual threads");
+        }
+        Context ctx = buildContext(threadBinding);
+
+        FinalizableSubject local = ctx.getBean("formatter", FinalizableSubject.class);
+        FinalizableSubject virtual = referenceFrom(ctx, task -> startVirtualThread.invoke(null, task));
+        FinalizableSubject anotherVirtual = referenceFrom(ctx, task -> startVirtualThread.invoke(null, task));
+        Assert.assertNotSame(virtual, local);
+        Assert.assertNotSame(anotherVirtual, virtual);
+    }
+
+    @Test(dataProvider = "threadBindings")
+    public void testInstancesAreFinalizedAndReleasedOnClose(final String threadBinding) throws Exception {
+        Context ctx = buildContext(threadBinding);
+        FinalizableSubject local = ctx.getBean("formatter", FinalizableSubject.class);
+
+        final CountDownLatch referenced = new CountDownLatch(1);
+        final CountDownLatch closed = new CountDownLatch(1);
+        Thread worker = new Thread(() -> {
+            try {
+                ctx.getBean("formatter", FinalizableSubject.class);
+                referenced.countDown();
+                closed.await();
+            } catch (Exception x) {
+                // the assertions below fail
+            }
+        });
+        worker.start();
+        try {
+            Assert.assertTrue(referenced.await(10L, TimeUnit.SECONDS));
+
+            ContextShutdownReport report = ctx.close(10000L);
+
+            Assert.assertTrue(report.isComplete(), report.toString());
+            Assert.assertEquals(report.getFinalized(), Collections.singletonList("formatter"));
+            Assert.assertEquals(TestUtility.log(ctx), Arrays.asList("formatter", "formatter"));
+        } finally {
+            closed.countDown();
+            worker.join(10000L);
+        }
+
+        // the instances are released, a later reference creates a new one
+        Assert.assertNotSame(ctx.getBean("formatter", FinalizableSubject.class), local);
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException {
+        Beans beans = new Beans();
+        BeanType bean = new BeanType();
+        bean.setId("formatter");
+        bean.setClazz(FinalizableSubject.class.getName());
+        bean.setScope(ScopeType.THREAD);
+        bean.setThreadBinding(ThreadBindingType.CARRIER_INDEPENDENT);
+        beans.getBean().add(bean);
+
+        ByteArrayOutputStream descriptor = new ByteArrayOutputStream();
+        BinaryContextCompiler.compile(beans, descriptor);
+        Beans read = BinaryContextFormat.read(new DataInputStream(new ByteArrayInputStream(descriptor.toByteArray())));
+
+        Assert.assertEquals(read.getBean().get(0).getScope(), ScopeType.THREAD);
+        Assert.assertEquals(read.getBean().get(0).getThreadBinding(), ThreadBindingType.CARRIER_INDEPENDENT);
+    }
+}
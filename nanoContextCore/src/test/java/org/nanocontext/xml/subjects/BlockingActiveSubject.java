@@ -0,0 +1,53 @@
+package org.nanocontext.xml.subjects;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An active bean that blocks until it is released, recording the thread it ran on.
+ * Unless told to ignore interrupts, an interrupt also ends the run.
+ */
+public class BlockingActiveSubject implements Runnable {
+    private final boolean ignoreInterrupts;
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch released = new CountDownLatch(1);
+    private volatile Thread thread;
+    private volatile boolean interrupted = false;
+
+    public BlockingActiveSubject(final boolean ignoreInterrupts) {
+        this.ignoreInterrupts = ignoreInterrupts;
+    }
+
+    @Override
+    public void run() {
+        this.thread = Thread.currentThread();
+        this.started.countDown();
+        while (true) {
+            try {
+                this.released.await();
+                return;
+            } catch (InterruptedException iX) {
+                this.interrupted = true;
+                if (!this.ignoreInterrupts) {
+                    return;
+                }
+            }
+        }
+    }
+
+    public boolean awaitStart(final long timeoutMillis) throws InterruptedException {
+        return this.started.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void release() {
+        this.released.countDown();
+    }
+
+    public Thread getThread() {
+        return this.thread;
+    }
+
+    public boolean isInterrupted() {
+        return this.interrupted;
+    }
+}
@@ -0,0 +1,62 @@
+package org.nanocontext.xml.subjects;
+
+import org.nanocontext.core.ActiveBean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An active bean that runs until it is shut down and records its checkpoint callbacks.
+ */
+public class CheckpointSubject implements ActiveBean {
+    private final List<String> events = new ArrayList<>();
+    private int runCount = 0;
+    private boolean stopped = false;
+
+    @Override
+    public void run() {
+        synchronized (this) {
+            ++runCount;
+            events.add("run");
+            notifyAll();
+            while (!stopped) {
+                try {
+                    wait();
+                } catch (InterruptedException iX) {
+                    return;
+                }
+            }
+            events.add("stopped");
+        }
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        stopped = true;
+        notifyAll();
+    }
+
+    public synchronized void beforeCheckpoint() {
+        events.add("beforeCheckpoint");
+    }
+
+    public synchronized void afterRestore() {
+        events.add("afterRestore");
+        stopped = false;
+    }
+
+    /**
+     * Wait until the bean has been run the given number of times.
+     */
+    public synchronized boolean awaitRunCount(final int count, final long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (runCount < count && System.currentTimeMillis() < deadline) {
+            wait(Math.max(1L, deadline - System.currentTimeMillis()));
+        }
+        return runCount >= count;
+    }
+
+    public synchronized List<String> getEvents() {
+        return new ArrayList<>(events);
+    }
+}
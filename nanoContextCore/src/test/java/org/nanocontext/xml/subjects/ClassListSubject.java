@@ -0,0 +1,16 @@
+package org.nanocontext.xml.subjects;
+
+/**
+ * A bean whose class is loaded only when a context that declares it is built.
+ */
+public class ClassListSubject {
+    private final String name;
+
+    public ClassListSubject(final String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,21 @@
+package org.nanocontext.xml.subjects;
+
+/**
+ * A class with neither a valueOf(String) method nor a (String) constructor, converted from
+ * a String by ConvertibleSubjectConverterProvider.
+ */
+public final class ConvertibleSubject {
+    private final String name;
+
+    private ConvertibleSubject(final String name) {
+        this.name = name;
+    }
+
+    public static ConvertibleSubject named(final String name) {
+        return new ConvertibleSubject(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,15 @@
+package org.nanocontext.xml.subjects;
+
+import org.nanocontext.utility.StringConverterProvider;
+
+import java.util.function.Function;
+
+/**
+ * Registered in META-INF/services to test StringConverterProvider discovery.
+ */
+public class ConvertibleSubjectConverterProvider implements StringConverterProvider {
+    @Override
+    public Function<String, ?> getConverter(final Class<?> targetClazz) {
+        return ConvertibleSubject.class.equals(targetClazz) ? ConvertibleSubject::named : null;
+    }
+}
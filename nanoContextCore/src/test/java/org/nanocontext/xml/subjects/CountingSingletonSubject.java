@@ -0,0 +1,24 @@
+package org.nanocontext.xml.subjects;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts its instantiations, the constructor is deliberately slow so that
+ * concurrent first access to a singleton overlaps with its creation.
+ */
+public class CountingSingletonSubject {
+    private static final AtomicInteger instanceCount = new AtomicInteger();
+
+    public CountingSingletonSubject() throws InterruptedException {
+        instanceCount.incrementAndGet();
+        Thread.sleep(50L);
+    }
+
+    public static int getInstanceCount() {
+        return instanceCount.get();
+    }
+
+    public static void resetInstanceCount() {
+        instanceCount.set(0);
+    }
+}
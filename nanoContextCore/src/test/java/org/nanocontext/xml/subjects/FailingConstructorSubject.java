@@ -0,0 +1,11 @@
+package org.nanocontext.xml.subjects;
+
+/**
+ * A class whose constructor always fails.
+ * This is used to test how the Context reports exceptions thrown by a bean constructor.
+ */
+public class FailingConstructorSubject {
+    public FailingConstructorSubject() {
+        throw new IllegalStateException("FailingConstructorSubject cannot be constructed");
+    }
+}
@@ -0,0 +1,52 @@
+package org.nanocontext.xml.subjects;
+
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A bean with a choice of finalize methods, each of which adds the name of the bean to a shared log
+ * when it returns.
+ */
+public class FinalizableSubject {
+    /** met by two beans finalized concurrently */
+    private static final CyclicBarrier RENDEZVOUS = new CyclicBarrier(2);
+
+    private final List<String> log;
+    private final String name;
+    private final FinalizableSubject dependency;
+
+    public FinalizableSubject(final List<String> log, final String name) {
+        this(log, name, null);
+    }
+
+    public FinalizableSubject(final List<String> log, final String name, final FinalizableSubject dependency) {
+        this.log = log;
+        this.name = name;
+        this.dependency = dependency;
+    }
+
+    public FinalizableSubject getDependency() {
+        return dependency;
+    }
+
+    public void close() {
+        log.add(name);
+    }
+
+    public void fail() {
+        throw new IllegalStateException("failed " + name);
+    }
+
+    public void hang() throws InterruptedException {
+        Thread.sleep(60000L);
+        log.add(name);
+    }
+
+    public void rendezvous() throws InterruptedException, BrokenBarrierException, TimeoutException {
+        RENDEZVOUS.await(10L, TimeUnit.SECONDS);
+        log.add(name);
+    }
+}
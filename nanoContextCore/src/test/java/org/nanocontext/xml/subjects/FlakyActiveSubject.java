@@ -0,0 +1,43 @@
+package org.nanocontext.xml.subjects;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An active bean that throws on each of its first runs, then either returns or,
+ * if told to block, waits until it is released or interrupted.
+ */
+public class FlakyActiveSubject implements Runnable {
+    private final int failures;
+    private final boolean block;
+    private final AtomicInteger runCount = new AtomicInteger();
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    public FlakyActiveSubject(final int failures, final boolean block) {
+        this.failures = failures;
+        this.block = block;
+    }
+
+    @Override
+    public void run() {
+        int run = this.runCount.incrementAndGet();
+        if (run <= this.failures) {
+            throw new IllegalStateException("failure " + run);
+        }
+        if (this.block) {
+            try {
+                this.released.await();
+            } catch (InterruptedException iX) {
+                // shut down
+            }
+        }
+    }
+
+    public int getRunCount() {
+        return this.runCount.get();
+    }
+
+    public void release() {
+        this.released.countDown();
+    }
+}
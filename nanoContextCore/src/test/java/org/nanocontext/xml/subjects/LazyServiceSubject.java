@@ -0,0 +1,21 @@
+package org.nanocontext.xml.subjects;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A bean injected as an interface, which adds its name to a shared log when it is created.
+ */
+public class LazyServiceSubject implements Supplier<String> {
+    private final String name;
+
+    public LazyServiceSubject(final List<String> log, final String name) {
+        this.name = name;
+        log.add(name);
+    }
+
+    @Override
+    public String get() {
+        return name;
+    }
+}
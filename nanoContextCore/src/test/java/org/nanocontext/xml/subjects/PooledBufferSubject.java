@@ -0,0 +1,39 @@
+package org.nanocontext.xml.subjects;
+
+import java.util.List;
+
+/**
+ * A reusable buffer, each instance adds "created" to a shared log when it is created and
+ * "finalized" when it is finalized.
+ */
+public class PooledBufferSubject {
+    private final List<String> log;
+    private final StringBuilder buffer = new StringBuilder();
+    private int resetCount = 0;
+
+    public PooledBufferSubject(final List<String> log) {
+        this.log = log;
+        log.add("created");
+    }
+
+    public StringBuilder getBuffer() {
+        return buffer;
+    }
+
+    public int getResetCount() {
+        return resetCount;
+    }
+
+    public void reset() {
+        buffer.setLength(0);
+        ++resetCount;
+    }
+
+    public void failReset() {
+        throw new IllegalStateException("reset failed");
+    }
+
+    public void close() {
+        log.add("finalized");
+    }
+}
@@ -0,0 +1,28 @@
+package org.nanocontext.xml.subjects;
+
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A class whose constructor waits for the construction of other instances.
+ * Construction succeeds only if the number of instances given to reset() are
+ * being constructed concurrently.
+ * This is used to test that the Context initializes independent beans concurrently.
+ */
+public class RendezvousSubject {
+    private static volatile CyclicBarrier barrier = new CyclicBarrier(1);
+
+    public static void reset(final int parties) {
+        barrier = new CyclicBarrier(parties);
+    }
+
+    public RendezvousSubject() {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException | BrokenBarrierException | TimeoutException x) {
+            throw new IllegalStateException("RendezvousSubject was not constructed concurrently", x);
+        }
+    }
+}
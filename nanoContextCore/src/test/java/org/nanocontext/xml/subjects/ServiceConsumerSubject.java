@@ -0,0 +1,18 @@
+package org.nanocontext.xml.subjects;
+
+import java.util.function.Supplier;
+
+/**
+ * A bean that depends on a service through an interface.
+ */
+public class ServiceConsumerSubject {
+    private final Supplier<String> service;
+
+    public ServiceConsumerSubject(final Supplier<String> service) {
+        this.service = service;
+    }
+
+    public Supplier<String> getService() {
+        return service;
+    }
+}
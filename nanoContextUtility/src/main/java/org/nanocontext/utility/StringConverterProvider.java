@@ -0,0 +1,18 @@
+package org.nanocontext.utility;
+
+import java.util.function.Function;
+
+/**
+ * A service provider of converters from String values, found with java.util.ServiceLoader.
+ * Implementations are listed in META-INF/services/org.nanocontext.utility.StringConverterProvider
+ * and are asked once for each class that a String value is converted to.
+ *
+ * @see StringConverters
+ */
+public interface StringConverterProvider {
+    /**
+     * @param targetClazz the class a String value is to be converted to
+     * @return a converter to the target class, or null if this provider does not convert to it
+     */
+    Function<String, ?> getConverter(Class<?> targetClazz);
+}
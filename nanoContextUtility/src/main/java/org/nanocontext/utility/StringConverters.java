@@ -0,0 +1,261 @@
+package org.nanocontext.utility;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.Period;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The registry of converters from String values to other types, used by
+ * Utility.createInstanceFromStringValue().
+ * The converter for a class is found the first time a value is converted to it and is
+ * kept with the class, in order of precedence it is:
+ * <ol>
+ *     <li>a converter registered with register()</li>
+ *     <li>a converter from a StringConverterProvider found by the ServiceLoader</li>
+ *     <li>a built-in converter for primitives and their wrappers, String, Class, enums,
+ *     java.time, URI, URL, File, Path, BigDecimal and BigInteger</li>
+ *     <li>the public static valueOf(String) method or public (String) constructor of the class</li>
+ * </ol>
+ * Converters signal a value that cannot be converted by throwing a RuntimeException.
+ */
+public final class StringConverters {
+    /** Converters registered by the application, these take precedence over all others */
+    private static final Map<Class<?>, Function<String, ?>> REGISTERED = new ConcurrentHashMap<>();
+
+    private static final Map<Class<?>, Function<String, ?>> BUILT_IN = createBuiltInConverters();
+
+    /** The converter of each class, found once per class */
+    private static final ClassValue<Converter> CONVERTERS = new ClassValue<Converter>() {
+        @Override
+        protected Converter computeValue(final Class<?> targetClazz) {
+            return findConverter(targetClazz);
+        }
+    };
+
+    /** Prevent instantiation */
+    private StringConverters() {}
+
+    /**
+     * Register a converter to the given class, replacing any other converter to it.
+     *
+     * @param targetClazz
+     * @param converter a function that throws a RuntimeException if the value cannot be converted
+     * @param <T>
+     */
+    public static <T> void register(final Class<T> targetClazz, final Function<String, ? extends T> converter) {
+        REGISTERED.put(targetClazz, converter);
+        CONVERTERS.remove(targetClazz);
+    }
+
+    /**
+     * @param targetClazz
+     * @param <T>
+     * @return the converter to the given class, or null if a String cannot be converted to it
+     */
+    public static <T> Function<String, T> getConverter(final Class<T> targetClazz) {
+        return (Function<String, T>) CONVERTERS.get(targetClazz).function;
+    }
+
+    /**
+     * @return the converter to the given class, never null
+     */
+    static Converter get(final Class<?> targetClazz) {
+        return CONVERTERS.get(targetClazz);
+    }
+
+    /**
+     * A converter and how it was found.
+     */
+    static final class Converter {
+        private static final Converter NONE = new Converter(null, false);
+
+        /** The converter function, null if there is none */
+        final Function<String, ?> function;
+
+        /** true if the converter was found by reflection rather than registered, provided or built-in */
+        final boolean discovered;
+
+        private Converter(final Function<String, ?> function, final boolean discovered) {
+            this.function = function;
+            this.discovered = discovered;
+        }
+    }
+
+    // ========================================================================================
+    // Finding converters
+    // ========================================================================================
+
+    private static Converter findConverter(final Class<?> targetClazz) {
+        Function<String, ?> function = REGISTERED.get(targetClazz);
+        if (function != null) {
+            return new Converter(function, false);
+        }
+
+        for (StringConverterProvider provider : Providers.PROVIDERS) {
+            function = provider.getConverter(targetClazz);
+            if (function != null) {
+                return new Converter(function, false);
+            }
+        }
+
+        function = BUILT_IN.get(targetClazz);
+        if (function != null) {
+            return new Converter(function, false);
+        }
+
+        if (targetClazz.isEnum()) {
+            return new Converter(enumConverter(targetClazz), false);
+        }
+
+        function = reflectiveConverter(targetClazz);
+        return function == null ? Converter.NONE : new Converter(function, true);
+    }
+
+    private static <E extends Enum<E>> Function<String, ?> enumConverter(final Class<?> enumClazz) {
+        final Class<E> clazz = (Class<E>) enumClazz;
+        return value -> Enum.valueOf(clazz, value);
+    }
+
+    /**
+     * Find the public static valueOf(String) method, or else the public (String) constructor,
+     * of the target class.
+     *
+     * @return a converter calling the method or constructor, null if the class has neither
+     */
+    private static Function<String, ?> reflectiveConverter(final Class<?> targetClazz) {
+        if (targetClazz.isPrimitive() || targetClazz.isArray() || targetClazz.isInterface()) {
+            return null;
+        }
+
+        MethodHandle handle = null;
+        try {
+            Method valueOfMethod = targetClazz.getMethod(Utility.VALUE_OF_METHOD_NAME, String.class);
+            if (Modifier.isStatic(valueOfMethod.getModifiers())
+                    && targetClazz.isAssignableFrom(valueOfMethod.getReturnType())) {
+                handle = MethodHandles.publicLookup().unreflect(valueOfMethod);
+            }
+        } catch (NoSuchMethodException | IllegalAccessException x) {
+            // look for a constructor
+        }
+        if (handle == null && !Modifier.isAbstract(targetClazz.getModifiers())) {
+            try {
+                Constructor<?> ctor = targetClazz.getConstructor(String.class);
+                handle = MethodHandles.publicLookup().unreflectConstructor(ctor);
+            } catch (NoSuchMethodException | IllegalAccessException x) {
+                // no converter
+            }
+        }
+        if (handle == null) {
+            return null;
+        }
+
+        final MethodHandle converter = handle.asType(MethodType.methodType(Object.class, String.class));
+        return value -> {
+            try {
+                return converter.invokeExact(value);
+            } catch (RuntimeException | Error x) {
+                throw x;
+            } catch (Throwable t) {
+                throw new IllegalArgumentException(t);
+            }
+        };
+    }
+
+    private static Map<Class<?>, Function<String, ?>> createBuiltInConverters() {
+        Map<Class<?>, Function<String, ?>> converters = new HashMap<>();
+
+        converters.put(String.class, value -> value);
+        converters.put(boolean.class, Boolean::valueOf);
+        converters.put(Boolean.class, Boolean::valueOf);
+        converters.put(byte.class, Byte::valueOf);
+        converters.put(Byte.class, Byte::valueOf);
+        converters.put(short.class, Short::valueOf);
+        converters.put(Short.class, Short::valueOf);
+        converters.put(int.class, Integer::valueOf);
+        converters.put(Integer.class, Integer::valueOf);
+        converters.put(long.class, Long::valueOf);
+        converters.put(Long.class, Long::valueOf);
+        converters.put(float.class, Float::valueOf);
+        converters.put(Float.class, Float::valueOf);
+        converters.put(double.class, Double::valueOf);
+        converters.put(Double.class, Double::valueOf);
+        converters.put(char.class, value -> value.charAt(0));
+        converters.put(Character.class, value -> value.charAt(0));
+        converters.put(Class.class, value -> {
+            try {
+                return Class.forName(value);
+            } catch (ClassNotFoundException x) {
+                throw new IllegalArgumentException(x);
+            }
+        });
+
+        converters.put(BigDecimal.class, BigDecimal::new);
+        converters.put(BigInteger.class, BigInteger::new);
+
+        converters.put(Duration.class, Duration::parse);
+        converters.put(Period.class, Period::parse);
+        converters.put(Instant.class, Instant::parse);
+        converters.put(LocalDate.class, LocalDate::parse);
+        converters.put(LocalTime.class, LocalTime::parse);
+        converters.put(LocalDateTime.class, LocalDateTime::parse);
+        converters.put(OffsetDateTime.class, OffsetDateTime::parse);
+        converters.put(ZonedDateTime.class, ZonedDateTime::parse);
+        converters.put(ZoneId.class, ZoneId::of);
+
+        converters.put(URI.class, URI::create);
+        converters.put(URL.class, value -> {
+            try {
+                return new URL(value);
+            } catch (MalformedURLException x) {
+                throw new IllegalArgumentException(x);
+            }
+        });
+        converters.put(File.class, File::new);
+        converters.put(Path.class, value -> Paths.get(value));
+
+        return Collections.unmodifiableMap(converters);
+    }
+
+    /**
+     * The StringConverterProvider services, loaded when the first converter is looked up.
+     */
+    private static final class Providers {
+        private static final List<StringConverterProvider> PROVIDERS = loadProviders();
+
+        private static List<StringConverterProvider> loadProviders() {
+            List<StringConverterProvider> providers = new ArrayList<>();
+            for (StringConverterProvider provider : ServiceLoader.load(StringConverterProvider.class)) {
+                providers.add(provider);
+            }
+            return Collections.unmodifiableList(providers);
+        }
+    }
+}
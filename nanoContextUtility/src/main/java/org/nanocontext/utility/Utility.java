@@ -4,11 +4,9 @@ import org.nanocontext.utility.exceptions.CannotCreateObjectFromStringException;
 import org.nanocontext.utility.exceptions.UnknownCollectionTypeException;
 
 import java.lang.reflect.Array;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
@@ -25,9 +23,6 @@ public class Utility {
     public static final String PREFIX = "${";
     public static final String SUFFIX = "}";
 
-    /** used to find valueOf(String) methods */
-    private final static Class<?>[] SINGLE_STRING_PARAMETER = new Class<?>[]{String.class};
-
     /** The packages in this array are treated specially when creating an instance from a String value */
     private final static Package[] CORE_PACKAGES = new Package[] {
             java.lang.Class.class.getPackage(),
@@ -54,84 +49,194 @@ public class Utility {
     }
 
     /**
+     * Convert a String value to the given class using the converter from StringConverters.
      *
      * @param clazz
      * @param value
+     * @param coreClassesOnly if true, a class outside of the core (java.lang) package is only
+     *                        converted to if it has a registered, provided or built-in converter,
+     *                        not through its own valueOf(String) method or (String) constructor
      * @param <T>
      * @return
      * @throws CannotCreateObjectFromStringException
      */
     public static <T> T createInstanceFromStringValue(final Class<T> clazz, final String value, boolean coreClassesOnly)
             throws CannotCreateObjectFromStringException {
-        Object[] parameters = new Object[]{value};
+        StringConverters.Converter converter = StringConverters.get(clazz);
 
-        // special handling for String target types
-        if (String.class.equals(clazz)) {
-            return (T)value;
+        if (converter.function == null
+                || (coreClassesOnly && converter.discovered && !isClassInCorePackage(clazz))) {
+            throw new CannotCreateObjectFromStringException(clazz);
         }
 
-        // special handling for primitive types
-        if (clazz.isPrimitive()) {
-            if (byte.class.equals(clazz)) {
-                return (T) (new Byte(value));
-            } else if (short.class.equals(clazz)) {
-                return (T) (new Short(value));
-            } else if (int.class.equals(clazz)) {
-                return (T) (new Integer(value));
-            } else if (long.class.equals(clazz)) {
-                return (T) (new Long(value));
-            } else if (float.class.equals(clazz)) {
-                return (T) (new Float(value));
-            } else if (double.class.equals(clazz)) {
-                return (T) (new Double(value));
-            } else if (char.class.equals(clazz)) {
-                return (T) new Character(value.charAt(0));
-            }
+        try {
+            return (T) converter.function.apply(value);
+        } catch (RuntimeException x) {
+            throw new CannotCreateObjectFromStringException(clazz, x);
         }
+    }
 
-        // special handling for Class target types
-        if (Class.class.equals(clazz)) {
-            try {
-                return (T)Class.forName(value);
-            } catch (ClassNotFoundException x) {
-                throw new CannotCreateObjectFromStringException(clazz, x);
+    /**
+     *
+     * @param componentType
+     * @param result
+     * @return
+     */
+    public static Object createTypedArray(final Class<?> componentType, final List result) {
+        return createTypedArray(componentType, result.toArray());
+    }
+
+    /**
+     * Create an array of the component type holding the given elements.
+     * Arrays of primitives and of String are filled directly rather than through
+     * java.lang.reflect.Array, with the same widening conversions as Array.set().
+     *
+     * @param componentType
+     * @param elements the elements, boxed where the component type is primitive
+     * @return
+     * @throws IllegalArgumentException - if an element is null, or cannot be widened to, a primitive component type
+     */
+    public static Object createTypedArray(final Class<?> componentType, final Object[] elements) {
+        final int length = elements.length;
+
+        if (componentType == int.class) {
+            int[] array = new int[length];
+            for (int index = 0; index < length; ++index) {
+                array[index] = widen(elements[index], int.class, 2).intValue();
+            }
+            return array;
+        } else if (componentType == long.class) {
+            long[] array = new long[length];
+            for (int index = 0; index < length; ++index) {
+                array[index] = widen(elements[index], long.class, 3).longValue();
+            }
+            return array;
+        } else if (componentType == double.class) {
+            double[] array = new double[length];
+            for (int index = 0; index < length; ++index) {
+                array[index] = widen(elements[index], double.class, 5).doubleValue();
+            }
+            return array;
+        } else if (componentType == float.class) {
+            float[] array = new float[length];
+            for (int index = 0; index < length; ++index) {
+                array[index] = widen(elements[index], float.class, 4).floatValue();
+            }
+            return array;
+        } else if (componentType == short.class) {
+            short[] array = new short[length];
+            for (int index = 0; index < length; ++index) {
+                Object element = elements[index];
+                if (!(element instanceof Short || element instanceof Byte)) {
+                    throw notWidened(element, short.class);
+                }
+                array[index] = ((Number) element).shortValue();
             }
+            return array;
+        } else if (componentType == byte.class) {
+            byte[] array = new byte[length];
+            for (int index = 0; index < length; ++index) {
+                Object element = elements[index];
+                if (!(element instanceof Byte)) {
+                    throw notWidened(element, byte.class);
+                }
+                array[index] = (Byte) element;
+            }
+            return array;
+        } else if (componentType == char.class) {
+            char[] array = new char[length];
+            for (int index = 0; index < length; ++index) {
+                Object element = elements[index];
+                if (!(element instanceof Character)) {
+                    throw notWidened(element, char.class);
+                }
+                array[index] = (Character) element;
+            }
+            return array;
+        } else if (componentType == boolean.class) {
+            boolean[] array = new boolean[length];
+            for (int index = 0; index < length; ++index) {
+                Object element = elements[index];
+                if (!(element instanceof Boolean)) {
+                    throw notWidened(element, boolean.class);
+                }
+                array[index] = (Boolean) element;
+            }
+            return array;
+        } else if (componentType == String.class) {
+            return Arrays.copyOf(elements, length, String[].class);
         }
 
-        // special handling for core classes used for creating ConstantProperty
-        // where it should not create a class of a type other than the core classes
-        if (coreClassesOnly && ! isClassInCorePackage(clazz)) {
-            throw new CannotCreateObjectFromStringException(clazz);
+        // a single checked copy rather than an Array.set() per element
+        Object[] array = (Object[]) Array.newInstance(componentType, length);
+        System.arraycopy(elements, 0, array, 0, length);
+        return array;
+    }
+
+    /** the rank of each boxed primitive, an element may be widened to a primitive of the same or a higher rank */
+    private static int wideningRank(final Object element) {
+        if (element instanceof Byte) {
+            return 0;
+        } else if (element instanceof Short || element instanceof Character) {
+            return 1;
+        } else if (element instanceof Integer) {
+            return 2;
+        } else if (element instanceof Long) {
+            return 3;
+        } else if (element instanceof Float) {
+            return 4;
+        } else if (element instanceof Double) {
+            return 5;
         }
+        return Integer.MAX_VALUE;
+    }
 
-        try {
-            // look for a 'valueOf' method
-            Method valueOfMethod = clazz.getMethod(VALUE_OF_METHOD_NAME, SINGLE_STRING_PARAMETER);
-            return (T)valueOfMethod.invoke(null, parameters);
-        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException x) {
-            // look for a T(String) constructor
-            try {
-                Constructor ctor = clazz.getConstructor(String.class);
-                return (T)ctor.newInstance(parameters);
-            } catch (NoSuchMethodException | IllegalAccessException | InstantiationException | InvocationTargetException e) {
-                throw new CannotCreateObjectFromStringException(clazz, x);
-            }
+    /**
+     * @param element a boxed primitive
+     * @param componentType int, long, float or double
+     * @param rank the widening rank of the component type
+     * @return the element as a Number, a Character as its code
+     */
+    private static Number widen(final Object element, final Class<?> componentType, final int rank) {
+        if (wideningRank(element) > rank) {
+            throw notWidened(element, componentType);
         }
+        return element instanceof Character ? Integer.valueOf((Character) element) : (Number) element;
+    }
+
+    private static IllegalArgumentException notWidened(final Object element, final Class<?> componentType) {
+        return new IllegalArgumentException(element == null ?
+                String.format("null is not a valid element of a %s array", componentType.getName()) :
+                String.format("%s (%s) cannot be widened to %s", element, element.getClass().getName(), componentType.getName()));
     }
 
     /**
+     * Copy an array returned by createTypedArray(), of any component type.
      *
-     * @param componentType
-     * @param result
+     * @param array
      * @return
      */
-    public static Object createTypedArray(final Class<?> componentType, final List result) {
-        Object arrayResult = Array.newInstance(componentType, result.size());
-        int index = 0;
-        for (Object element : result) {
-            Array.set(arrayResult, index++, element);
+    public static Object copyTypedArray(final Object array) {
+        if (array instanceof Object[]) {
+            return ((Object[]) array).clone();
+        } else if (array instanceof int[]) {
+            return ((int[]) array).clone();
+        } else if (array instanceof long[]) {
+            return ((long[]) array).clone();
+        } else if (array instanceof double[]) {
+            return ((double[]) array).clone();
+        } else if (array instanceof float[]) {
+            return ((float[]) array).clone();
+        } else if (array instanceof short[]) {
+            return ((short[]) array).clone();
+        } else if (array instanceof byte[]) {
+            return ((byte[]) array).clone();
+        } else if (array instanceof char[]) {
+            return ((char[]) array).clone();
+        } else if (array instanceof boolean[]) {
+            return ((boolean[]) array).clone();
         }
-        return arrayResult;
+        throw new IllegalArgumentException("Not an array: " + array);
     }
 
     /**
@@ -219,13 +324,23 @@ public class Utility {
                     && !String.class.equals(method2Parameters[index])) {
                 // one of two odd cases where a constructor may take a type that can be constructed
                 // using a valueOf(String) method. Constructors taking a String should be sorted later
-                // than an otherwise equivalent constructor (taking an Integer for instance)
-                return 3;
+                // than an otherwise equivalent constructor (taking an Integer for instance), but
+                // earlier than one taking a type outside java.lang (a File for instance), so that a
+                // constant is passed as the String it is wherever it was before such types had converters
+                return isSortedBeforeString(method2Parameters[index]) ? 3 : -3;
             } else if (String.class.equals(method2Parameters[index])
                     && !String.class.equals(method1Parameters[index])) {
-                return -3;
+                return isSortedBeforeString(method1Parameters[index]) ? -3 : 3;
             }
         }
         return 0;
     }
+
+    /**
+     * @return true if a parameter of the type is more specific than a String parameter,
+     *      only primitives and the java.lang types are
+     */
+    private static boolean isSortedBeforeString(final Class<?> parameterType) {
+        return parameterType.isPrimitive() || isClassInCorePackage(parameterType);
+    }
 }
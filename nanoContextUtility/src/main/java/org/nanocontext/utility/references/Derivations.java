@@ -1,5 +1,8 @@
 package org.nanocontext.utility.references;
 
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 /**
  * This class calculates a "derivation distance", a count of the
  * shortest path of class derivation.
@@ -68,4 +71,32 @@ public class Derivations {
 
         return parentDistance + 1;
     }
+
+    /**
+     * Collect the given class and every class and interface it is assignable to,
+     * that is all of its superclasses and all of the interfaces those implement,
+     * directly or through other interfaces.
+     *
+     * @param subjectClazz the class whose supertypes are collected
+     * @return the supertypes of the given class, starting with the class itself
+     */
+    public static Set<Class<?>> supertypes(final Class<?> subjectClazz) {
+        if (subjectClazz == null) {
+            throw new IllegalArgumentException("'subjectClazz is null and must not be,");
+        }
+
+        Set<Class<?>> result = new LinkedHashSet<>();
+        collectSupertypes(subjectClazz, result);
+        return result;
+    }
+
+    private static void collectSupertypes(final Class<?> clazz, final Set<Class<?>> result) {
+        if (clazz == null || !result.add(clazz)) {
+            return;
+        }
+        collectSupertypes(clazz.getSuperclass(), result);
+        for (Class<?> intf : clazz.getInterfaces()) {
+            collectSupertypes(intf, result);
+        }
+    }
 }
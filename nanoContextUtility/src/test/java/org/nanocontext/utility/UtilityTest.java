@@ -26,6 +26,12 @@ public class UtilityTest {
                 new Object[]{Float.class, "1.0", Float.valueOf(1.0f)},
                 new Object[]{Class.class, "java.lang.Object", Object.class},
                 new Object[]{String.class, "1.0", "1.0"},
+                new Object[]{int.class, "42", Integer.valueOf(42)},
+                new Object[]{boolean.class, "true", Boolean.TRUE},
+                new Object[]{java.time.Duration.class, "PT1M", java.time.Duration.ofMinutes(1)},
+                new Object[]{java.net.URI.class, "rsc:junk.txt", java.net.URI.create("rsc:junk.txt")},
+                new Object[]{java.math.BigDecimal.class, "1.50", new java.math.BigDecimal("1.50")},
+                new Object[]{java.util.concurrent.TimeUnit.class, "SECONDS", java.util.concurrent.TimeUnit.SECONDS},
         };
     }
 
@@ -81,4 +87,48 @@ public class UtilityTest {
         //Assert.assertEquals(actual, expected);
     }
 
+    // ====================================================================================
+    // createTypedArray tests
+    // ====================================================================================
+    @DataProvider
+    public Object[][] createTypedArrayWideningDataProvider() {
+        return new Object[][]{
+                new Object[]{int.class, new Object[]{(byte) 1, (short) 2, 'a', 4}, new int[]{1, 2, 97, 4}},
+                new Object[]{long.class, new Object[]{5, 6L}, new long[]{5L, 6L}},
+                new Object[]{float.class, new Object[]{7L, 1.5f}, new float[]{7f, 1.5f}},
+                new Object[]{double.class, new Object[]{8, 2.5f, 3.25d}, new double[]{8d, 2.5d, 3.25d}},
+                new Object[]{short.class, new Object[]{(byte) 9, (short) 10}, new short[]{9, 10}},
+                new Object[]{char.class, new Object[]{'x'}, new char[]{'x'}},
+                new Object[]{boolean.class, new Object[]{true, false}, new boolean[]{true, false}},
+                new Object[]{String.class, new Object[]{"a", null}, new String[]{"a", null}},
+        };
+    }
+
+    @Test(dataProvider = "createTypedArrayWideningDataProvider")
+    public void testCreateTypedArrayWidens(final Class<?> componentType, final Object[] elements, final Object expected) {
+        Object actual = Utility.createTypedArray(componentType, elements);
+        Assert.assertEquals(actual.getClass().getComponentType(), componentType);
+        Assert.assertTrue(Arrays.deepEquals(new Object[]{actual}, new Object[]{expected}));
+    }
+
+    @DataProvider
+    public Object[][] createTypedArrayNarrowingDataProvider() {
+        return new Object[][]{
+                new Object[]{int.class, new Object[]{1L}},
+                new Object[]{long.class, new Object[]{1.0f}},
+                new Object[]{float.class, new Object[]{1.0d}},
+                new Object[]{short.class, new Object[]{'a'}},
+                new Object[]{byte.class, new Object[]{1}},
+                new Object[]{char.class, new Object[]{(byte) 1}},
+                new Object[]{int.class, new Object[]{"1"}},
+                new Object[]{int.class, new Object[]{1, null}},
+                new Object[]{char.class, new Object[]{null}},
+                new Object[]{boolean.class, new Object[]{null}},
+        };
+    }
+
+    @Test(dataProvider = "createTypedArrayNarrowingDataProvider", expectedExceptions = IllegalArgumentException.class)
+    public void testCreateTypedArrayDoesNotNarrow(final Class<?> componentType, final Object[] elements) {
+        Utility.createTypedArray(componentType, elements);
+    }
 }